@@ -2,9 +2,12 @@ package org.mozilla.javascript.benchmarks;
 
 import java.util.concurrent.TimeUnit;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 
 /**
@@ -22,6 +25,8 @@ import org.openjdk.jmh.annotations.State;
  * ContextThreadLocalBenchmark.testNoClear5    avgt    5   12,202 ±  0,605  ns/op
  * ContextThreadLocalBenchmark.testNoClear50   avgt    5   98,571 ±  9,092  ns/op
  * </pre>
+ *
+ * <p>testEnterExit compares entering a new context from a factory with taking one from its pool.
  */
 @OutputTimeUnit(TimeUnit.NANOSECONDS)
 public class ContextThreadLocalBenchmark {
@@ -143,6 +148,26 @@ public class ContextThreadLocalBenchmark {
         return performTest50(holder);
     }
 
+    /** A factory that makes a new context on each entry, or takes one from its pool. */
+    @State(Scope.Benchmark)
+    public static class FactoryState {
+        @Param({"0", "64"})
+        public int poolSize;
+
+        ContextFactory factory;
+
+        @Setup
+        public void setup() {
+            factory = new ContextFactory();
+            factory.setContextPoolSize(poolSize);
+        }
+    }
+
+    @Benchmark
+    public Object testEnterExit(FactoryState state) {
+        return state.factory.call(cx -> cx.getLanguageVersion());
+    }
+
     private Object performTest1(AbstractContextHolder holder) {
         holder.setContext(someContext);
         try {
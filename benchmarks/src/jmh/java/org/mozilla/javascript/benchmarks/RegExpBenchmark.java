@@ -0,0 +1,72 @@
+package org.mozilla.javascript.benchmarks;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.openjdk.jmh.annotations.*;
+
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RegExpBenchmark {
+    @State(Scope.Thread)
+    public static class RegExpState {
+        Context cx;
+        Scriptable scope;
+
+        Function validateEmails;
+        Function parseUrls;
+        Function splitCsv;
+
+        @Param({"false", "true"})
+        public boolean linear;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            ContextFactory factory =
+                    new ContextFactory() {
+                        @Override
+                        protected boolean hasFeature(Context cx, int featureIndex) {
+                            if (featureIndex == Context.FEATURE_LINEAR_REGEXP) {
+                                return linear;
+                            }
+                            return super.hasFeature(cx, featureIndex);
+                        }
+                    };
+            cx = factory.enterContext();
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            scope = cx.initStandardObjects();
+
+            try (FileReader rdr = new FileReader("testsrc/benchmarks/micro/regexp-benchmarks.js")) {
+                cx.evaluateReader(scope, rdr, "regexp-benchmarks.js", 1, null);
+            }
+            validateEmails = (Function) ScriptableObject.getProperty(scope, "validateEmails");
+            parseUrls = (Function) ScriptableObject.getProperty(scope, "parseUrls");
+            splitCsv = (Function) ScriptableObject.getProperty(scope, "splitCsv");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            cx.close();
+        }
+    }
+
+    @Benchmark
+    public Object validateEmails(RegExpState state) {
+        return state.validateEmails.call(state.cx, state.scope, null, ScriptRuntime.emptyArgs);
+    }
+
+    @Benchmark
+    public Object parseUrls(RegExpState state) {
+        return state.parseUrls.call(state.cx, state.scope, null, ScriptRuntime.emptyArgs);
+    }
+
+    @Benchmark
+    public Object splitCsv(RegExpState state) {
+        return state.splitCsv.call(state.cx, state.scope, null, ScriptRuntime.emptyArgs);
+    }
+}
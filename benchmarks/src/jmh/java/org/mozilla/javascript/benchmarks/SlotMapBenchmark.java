@@ -2,8 +2,11 @@ package org.mozilla.javascript.benchmarks;
 
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.EmbeddedSlotMap;
 import org.mozilla.javascript.HashSlotMap;
+import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.Slot;
 import org.mozilla.javascript.SlotMap;
 import org.openjdk.jmh.annotations.*;
@@ -143,6 +146,79 @@ public class SlotMapBenchmark {
         return slot;
     }
 
+    /**
+     * A sealed scope that is shared by all benchmark threads, and whose objects use the thread-safe
+     * slot maps. Listing the ids of an object is a compound read operation, which does not take
+     * the lock of the slot map unless another thread writes to it.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedScopeState {
+        ScriptableObject scope;
+        ScriptableObject size10Object;
+        ScriptableObject size100Object;
+        final String[] keys = new String[100];
+
+        @Setup(Level.Trial)
+        public void create() {
+            ContextFactory factory =
+                    new ContextFactory() {
+                        @Override
+                        protected boolean hasFeature(Context cx, int featureIndex) {
+                            if (featureIndex == Context.FEATURE_THREAD_SAFE_OBJECTS) {
+                                return true;
+                            }
+                            return super.hasFeature(cx, featureIndex);
+                        }
+                    };
+            try (Context cx = factory.enterContext()) {
+                scope = cx.initStandardObjects();
+                size10Object = (ScriptableObject) cx.newObject(scope);
+                size100Object = (ScriptableObject) cx.newObject(scope);
+                for (int i = 0; i < 100; i++) {
+                    keys[i] = "key" + i;
+                    if (i < 10) {
+                        size10Object.put(keys[i], size10Object, keys[i]);
+                    }
+                    size100Object.put(keys[i], size100Object, keys[i]);
+                }
+                scope.put("size100Object", scope, size100Object);
+                size10Object.sealObject();
+                size100Object.sealObject();
+                scope.sealObject();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object sharedScopeGetIds10Entries(SharedScopeState state) {
+        Object[] ids = state.size10Object.getIds();
+        if (ids.length != 10) {
+            throw new AssertionError();
+        }
+        return ids;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object sharedScopeGetIds100Entries(SharedScopeState state) {
+        Object[] ids = state.size100Object.getIds();
+        if (ids.length != 100) {
+            throw new AssertionError();
+        }
+        return ids;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object sharedScopeGetAllIdsGlobals(SharedScopeState state) {
+        Object[] ids = state.scope.getAllIds();
+        if (ids.length == 0) {
+            throw new AssertionError();
+        }
+        return ids;
+    }
+
     /** Make a new string between 1 and 50 characters out of random lower-case letters. */
     private static String makeRandomString() {
         int len = rand.nextInt(49) + 1;
@@ -1,7 +1,16 @@
 package org.mozilla.javascript.benchmarks;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.StandardObjectsSnapshot;
+import org.mozilla.javascript.optimizer.DiskScriptCache;
 import org.openjdk.jmh.annotations.*;
 
 @OutputTimeUnit(TimeUnit.MICROSECONDS)
@@ -12,4 +21,74 @@ public class StartupBenchmark {
             return cx.initStandardObjects();
         }
     }
+
+    @State(Scope.Benchmark)
+    public static class SnapshotState {
+        StandardObjectsSnapshot snapshot;
+
+        @Setup(Level.Trial)
+        public void create() {
+            try (Context cx = Context.enter()) {
+                snapshot = StandardObjectsSnapshot.create(cx);
+            }
+        }
+    }
+
+    /** Creates the scope of a script from standard objects that were initialized once. */
+    @Benchmark
+    public Object startUpRhinoFromSnapshot(SnapshotState state) {
+        try (Context cx = Context.enter()) {
+            return state.snapshot.newScope(cx);
+        }
+    }
+
+    /**
+     * Compiles a script as if the JVM had just started, with and without a {@link DiskScriptCache}
+     * that already holds the script. A new cache is created for each compilation, so only the
+     * files on disk are reused.
+     */
+    @State(Scope.Thread)
+    public static class CompileState {
+        String source;
+        Path cacheDir;
+
+        @Setup(Level.Trial)
+        public void create() throws IOException {
+            source =
+                    new String(
+                            Files.readAllBytes(
+                                    Paths.get("testsrc/benchmarks/sunspider-1.0/3d-raytrace.js")),
+                            StandardCharsets.UTF_8);
+            cacheDir = Files.createTempDirectory("rhino-startup");
+            // Warm the cache on disk
+            compile(new DiskScriptCache(cacheDir, 1 << 24), source);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            new DiskScriptCache(cacheDir, 1 << 24).clear();
+            Files.deleteIfExists(cacheDir);
+        }
+    }
+
+    private static Script compile(DiskScriptCache cache, String source) {
+        ContextFactory factory = new ContextFactory();
+        if (cache != null) {
+            factory.setScriptCache(cache);
+        }
+        try (Context cx = factory.enterContext()) {
+            cx.setInterpretedMode(false);
+            return cx.compileString(source, "3d-raytrace.js", 1, null);
+        }
+    }
+
+    @Benchmark
+    public Object compileScriptCold(CompileState state) {
+        return compile(null, state.source);
+    }
+
+    @Benchmark
+    public Object compileScriptWarmDiskCache(CompileState state) {
+        return compile(new DiskScriptCache(state.cacheDir, 1 << 24), state.source);
+    }
 }
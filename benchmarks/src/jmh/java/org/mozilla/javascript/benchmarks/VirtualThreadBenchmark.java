@@ -0,0 +1,110 @@
+package org.mozilla.javascript.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Runs a script 100000 times concurrently, each time on its own virtual thread, and compares
+ * binding the current context with a ThreadLocal to binding it with a ScopedValue. Virtual threads
+ * and ScopedValue are looked up at runtime: on Java versions without virtual threads, the script
+ * runs on a fixed pool of platform threads instead, and without ScopedValue both benchmarks use the
+ * ThreadLocal.
+ *
+ * <p>Like the other benchmarks, this one runs in the average time mode and with the iterations set
+ * in build.gradle, so each result is the average time taken to run all 100000 scripts.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VirtualThreadBenchmark {
+    static final int INVOCATIONS = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class VirtualThreadState {
+        ContextFactory factory;
+        ScriptableObject sharedScope;
+        Script script;
+        ExecutorService executor;
+
+        @Param({"false", "true"})
+        public boolean interpreted;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            factory = new ContextFactory();
+            factory.setContextPoolSize(Runtime.getRuntime().availableProcessors());
+            try (Context cx = factory.enterContext()) {
+                cx.setInterpretedMode(interpreted);
+                sharedScope = cx.initStandardObjects(null, true);
+                sharedScope.sealObject();
+                script =
+                        cx.compileString(
+                                "var words = input.split(' ');\n"
+                                        + "var counts = {};\n"
+                                        + "for (var w of words) counts[w] = (counts[w] || 0) + 1;\n"
+                                        + "Object.keys(counts).length",
+                                "words.js",
+                                1,
+                                null);
+            }
+            executor = newVirtualThreadExecutor();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            executor.shutdown();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService)
+                    Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    private static Object runAll(VirtualThreadState state) throws Exception {
+        List<Future<Object>> results = new ArrayList<>(INVOCATIONS);
+        for (int i = 0; i < INVOCATIONS; i++) {
+            String input = "to be or not to be " + i;
+            results.add(
+                    state.executor.submit(
+                            () ->
+                                    state.factory.call(
+                                            cx -> {
+                                                Scriptable scope = cx.newObject(state.sharedScope);
+                                                scope.setPrototype(state.sharedScope);
+                                                scope.setParentScope(null);
+                                                ScriptableObject.putProperty(scope, "input", input);
+                                                return state.script.exec(cx, scope, scope);
+                                            })));
+        }
+        Object last = null;
+        for (Future<Object> result : results) {
+            last = result.get();
+        }
+        return last;
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-Drhino.useScopedContext=false")
+    public Object threadLocalContext(VirtualThreadState state) throws Exception {
+        return runAll(state);
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-Drhino.useScopedContext=true")
+    public Object scopedValueContext(VirtualThreadState state) throws Exception {
+        return runAll(state);
+    }
+}
@@ -0,0 +1,70 @@
+'use strict';
+
+function assertEquals(x, y) {
+  if (x !== y) {
+    throw 'Expected ' + x + ' to equal ' + y;
+  }
+}
+
+const EMAIL = /^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\.[a-zA-Z]{2,}$/;
+
+const emails = [
+  'alice@example.com',
+  'bob.smith+newsletter@mail.example.org',
+  'not-an-email',
+  'carol_o-connor@sub.domain.co.uk',
+  'dave@localhost',
+  'eve@@example.com',
+  'frank.99@example.travel',
+  'grace@example.c'
+];
+
+function validateEmails() {
+  let valid = 0;
+  for (let i = 0; i < emails.length; i++) {
+    if (EMAIL.test(emails[i])) {
+      valid++;
+    }
+  }
+  assertEquals(4, valid);
+  return valid;
+}
+
+const URL = /^(https?):\/\/([^\/:?#]+)(?::(\d+))?(\/[^?#]*)?(?:\?([^#]*))?(?:#(.*))?$/;
+
+const urls = [
+  'https://example.com/',
+  'http://www.example.org:8080/path/to/page.html?query=1&sort=desc#section-2',
+  'https://api.example.net/v1/users/12345/orders?limit=50',
+  'ftp://files.example.com/pub',
+  'http://localhost:3000',
+  'https://example.com/search?q=regular+expressions#results'
+];
+
+function parseUrls() {
+  let parts = 0;
+  // Declared outside the loop, as Rhino does not bind a block's const afresh on each iteration
+  let m;
+  for (let i = 0; i < urls.length; i++) {
+    m = URL.exec(urls[i]);
+    if (m !== null) {
+      for (let j = 1; j < m.length; j++) {
+        if (m[j] !== undefined) {
+          parts++;
+        }
+      }
+    }
+  }
+  assertEquals(21, parts);
+  return parts;
+}
+
+const csvLine =
+  '1042, "Smith, John" ,john.smith@example.com,  Springfield ,IL,62704 ,' +
+  '2021-03-14,active, 1234.50,premium , yes,no , , 42,end';
+
+function splitCsv() {
+  const fields = csvLine.split(/\s*,\s*/);
+  assertEquals(16, fields.length);
+  return fields.length;
+}
@@ -8,6 +8,8 @@ import javax.script.Bindings;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Wrapper;
+import org.mozilla.javascript.lc.type.TypeInfo;
 
 /**
  * This class makes the Bindings object into a Scriptable. That way, we can query and modify the
@@ -28,12 +30,24 @@ public class BindingsObject extends ScriptableObject {
         return "BindingsObject";
     }
 
+    Bindings getBindings() {
+        return bindings;
+    }
+
     @Override
     public Object get(String name, Scriptable start) {
-        if (!bindings.containsKey(name)) {
+        Object value = bindings.get(name);
+        if (value == null && !bindings.containsKey(name)) {
             return Scriptable.NOT_FOUND;
         }
-        return Context.jsToJava(bindings.get(name), Object.class);
+        // Strings, booleans and JavaScript objects are returned unchanged by jsToJava, so
+        // the values that scripts stored themselves are passed on without converting them.
+        if (value instanceof String
+                || value instanceof Boolean
+                || (value instanceof Scriptable && !(value instanceof Wrapper))) {
+            return value;
+        }
+        return Context.jsToJava(value, TypeInfo.OBJECT);
     }
 
     @Override
@@ -21,10 +21,12 @@ import javax.script.SimpleBindings;
 import org.mozilla.javascript.Callable;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.LruScriptCache;
 import org.mozilla.javascript.RhinoException;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.config.RhinoConfig;
 
 /**
  * This is the implementation of the standard ScriptEngine interface for Rhino.
@@ -50,6 +52,13 @@ import org.mozilla.javascript.ScriptableObject;
  *   <li>org.mozilla.javascript.optimization_level: The level of optimization Rhino performs on the
  *       generated bytecode. Default is 9, which is the most. Set to -1 to use interpreted mode.
  * </ul>
+ *
+ * <p>Scripts passed as a String or Reader to "eval" are compiled once and kept in a cache that all
+ * Rhino engines share, so evaluating the same source with the same settings again does not parse
+ * and compile it again. The cache holds up to 256 scripts; the system property or Rhino
+ * configuration setting "rhino.engine.scriptCacheSize" changes this number, and 0 turns the cache
+ * off. The top-level scope of the engine, and the objects that make the Bindings of a ScriptContext
+ * visible to scripts, are created once and reused as long as the Bindings stay the same.
  */
 public class RhinoScriptEngine extends AbstractScriptEngine implements Compilable, Invocable {
 
@@ -72,12 +81,27 @@ public class RhinoScriptEngine extends AbstractScriptEngine implements Compilabl
     private static final boolean DEFAULT_DEBUG = true;
     private static final String DEFAULT_FILENAME = "eval";
 
+    private static final int SCRIPT_CACHE_SIZE =
+            RhinoConfig.get("rhino.engine.scriptCacheSize", 256);
+    private static final long SCRIPT_CACHE_SOURCE_CHARS = 4L << 20;
+
     private static final CtxFactory ctxFactory = new CtxFactory();
 
+    static {
+        if (SCRIPT_CACHE_SIZE > 0) {
+            ctxFactory.setScriptCache(
+                    new LruScriptCache(SCRIPT_CACHE_SIZE, SCRIPT_CACHE_SOURCE_CHARS));
+        }
+    }
+
     private final RhinoScriptEngineFactory factory;
     private final Builtins builtins;
     private ScriptableObject topLevelScope = null;
 
+    // The scopes for the Bindings that were used last, which are reused while they stay the same
+    private BindingsObject engineScope;
+    private BindingsObject globalScope;
+
     RhinoScriptEngine(RhinoScriptEngineFactory factory) {
         this.factory = factory;
         this.builtins = new Builtins();
@@ -94,14 +118,22 @@ public class RhinoScriptEngine extends AbstractScriptEngine implements Compilabl
             builtins.register(cx, topLevelScope, sc);
         }
 
-        Scriptable engineScope = new BindingsObject(sc.getBindings(ScriptContext.ENGINE_SCOPE));
-        engineScope.setParentScope(null);
-        engineScope.setPrototype(topLevelScope);
+        Bindings engineBindings = sc.getBindings(ScriptContext.ENGINE_SCOPE);
+        if (engineScope == null || engineScope.getBindings() != engineBindings) {
+            engineScope = new BindingsObject(engineBindings);
+            engineScope.setParentScope(null);
+        }
 
-        if (sc.getBindings(ScriptContext.GLOBAL_SCOPE) != null) {
-            Scriptable globalScope = new BindingsObject(sc.getBindings(ScriptContext.GLOBAL_SCOPE));
-            globalScope.setParentScope(null);
-            globalScope.setPrototype(topLevelScope);
+        Bindings globalBindings = sc.getBindings(ScriptContext.GLOBAL_SCOPE);
+        if (globalBindings == null) {
+            globalScope = null;
+            engineScope.setPrototype(topLevelScope);
+        } else {
+            if (globalScope == null || globalScope.getBindings() != globalBindings) {
+                globalScope = new BindingsObject(globalBindings);
+                globalScope.setParentScope(null);
+                globalScope.setPrototype(topLevelScope);
+            }
             engineScope.setPrototype(globalScope);
         }
 
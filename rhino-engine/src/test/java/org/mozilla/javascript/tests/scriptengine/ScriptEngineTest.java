@@ -149,6 +149,44 @@ public class ScriptEngineTest {
         engine.eval("assertTrue(engine);" + "assertTrue(global);" + "assertEquals(level, 2);", sc);
     }
 
+    @Test
+    public void sameSourceWithOtherBindings() throws ScriptException {
+        String script = "var total = (typeof total == 'number' ? total : 0) + step; total";
+        engine.put("step", 2);
+        assertEquals(2L, engine.eval(script));
+        assertEquals(4L, engine.eval(script));
+
+        // A new set of bindings starts over, and the old one keeps its values
+        Bindings old = engine.getBindings(ScriptContext.ENGINE_SCOPE);
+        engine.setBindings(engine.createBindings(), ScriptContext.ENGINE_SCOPE);
+        engine.put("step", 5);
+        assertEquals(5L, engine.eval(script));
+        assertEquals(4.0, old.get("total"));
+
+        // The same source in another context with a global scope
+        ScriptContext sc = new SimpleScriptContext();
+        sc.setBindings(new SimpleBindings(), ScriptContext.ENGINE_SCOPE);
+        Bindings gb = new SimpleBindings();
+        gb.put("step", 7);
+        sc.setBindings(gb, ScriptContext.GLOBAL_SCOPE);
+        assertEquals(7L, engine.eval(script, sc));
+        sc.setBindings(null, ScriptContext.GLOBAL_SCOPE);
+        assertThrows(ScriptException.class, () -> engine.eval("step", sc));
+    }
+
+    @Test
+    public void valuesStoredByScripts() throws ScriptException {
+        engine.eval("var obj = {a: 1}; var str = 'x' + 1; var flag = true; var num = 1.5");
+        assertEquals("x1", engine.get("str"));
+        assertEquals(Boolean.TRUE, engine.get("flag"));
+        assertEquals(1.5, engine.get("num"));
+        assertEquals(
+                Boolean.TRUE,
+                engine.eval("obj.a === 1 && str === 'x1' && flag === true && num === 1.5"));
+        engine.eval("obj.a = 2");
+        assertEquals(2L, engine.eval("obj.a"));
+    }
+
     @Test
     public void reservedBindings() throws ScriptException {
         engine.put(ScriptEngine.ENGINE, "engine");
@@ -0,0 +1,416 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tools.jsc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.ImplementationVersion;
+import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.commonjs.module.provider.PrecompiledModuleScriptProvider;
+import org.mozilla.javascript.optimizer.ClassCompiler;
+import org.mozilla.javascript.tools.SourceReader;
+import org.mozilla.javascript.tools.ToolErrorReporter;
+
+/**
+ * Compiles all scripts in a directory tree to Java classes and stores them in a jar, ahead of
+ * time, for {@link PrecompiledModuleScriptProvider} to load. The jar holds the classes of every
+ * ".js" file below the directory and an index that maps the path of each file, relative to the
+ * directory and with "/" as separator, to the name of its main class. The class name is made from
+ * the path, below the target package.
+ *
+ * <p>Scripts are compiled in parallel. The jar also records a hash of each source and of the
+ * compiler settings; when the jar is built again, the classes of scripts whose hash did not change
+ * are copied from the previous jar instead of being compiled again. The jar is written with fixed
+ * timestamps and in a fixed order, so the same sources always give the same jar.
+ *
+ * <p>Syntax errors are reported to the error reporter of the compiler environment as usual. If any
+ * script cannot be compiled, the jar is not written.
+ */
+public class AotCompiler {
+
+    private static final String HASHES_RESOURCE = "META-INF/rhino/modules.sha256";
+
+    // 1980-02-01 00:00, as used by build tools for reproducible archives. This is stored as a
+    // local DOS time, so the entries do not depend on the time zone the compiler runs in.
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 2, 1, 0, 0);
+
+    private final CompilerEnvirons compilerEnv;
+    private final ClassCompiler compiler;
+    private String targetPackage = "";
+    private String characterEncoding;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /** The outcome of a build: the source paths that were compiled, reused or not compiled. */
+    public static final class Result {
+        private final List<String> compiled = new ArrayList<>();
+        private final List<String> reused = new ArrayList<>();
+        private final SortedMap<String, String> failed = new TreeMap<>();
+
+        /** Returns the paths of the scripts that were compiled. */
+        public List<String> getCompiled() {
+            return Collections.unmodifiableList(compiled);
+        }
+
+        /** Returns the paths of the scripts whose classes were taken from the previous jar. */
+        public List<String> getReused() {
+            return Collections.unmodifiableList(reused);
+        }
+
+        /** Returns the paths of the scripts that could not be compiled, with the reason. */
+        public Map<String, String> getFailed() {
+            return Collections.unmodifiableMap(failed);
+        }
+    }
+
+    /** The classes of one script, by class name, and the hash they were compiled from. */
+    private static final class Unit {
+        final String path;
+        final String hash;
+        final SortedMap<String, byte[]> classes = new TreeMap<>();
+        String mainClassName;
+        String error;
+        boolean reused;
+
+        Unit(String path, String hash) {
+            this.path = path;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Creates a compiler that compiles with the settings of the given environment.
+     *
+     * @param compilerEnv the settings, which must not be changed while compiling
+     */
+    public AotCompiler(CompilerEnvirons compilerEnv) {
+        this.compilerEnv = compilerEnv;
+        this.compiler = new ClassCompiler(compilerEnv);
+    }
+
+    /** Sets the package of the generated classes. The default is no package. */
+    public void setTargetPackage(String targetPackage) {
+        this.targetPackage = targetPackage;
+    }
+
+    /** Sets the character encoding of the sources, or null to detect it. */
+    public void setCharacterEncoding(String characterEncoding) {
+        this.characterEncoding = characterEncoding;
+    }
+
+    /** Sets the number of scripts compiled at the same time. The default is one per processor. */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Compiles every ".js" file below "sourceDir" and writes the classes and the index to
+     * "jarFile", reusing the classes of unchanged files if "jarFile" was built before.
+     *
+     * @return which scripts were compiled, reused, or could not be compiled
+     * @throws IOException if a source could not be read, or the jar could not be read or written
+     */
+    public Result compile(File sourceDir, File jarFile) throws IOException {
+        Path root = sourceDir.toPath();
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(root)) {
+            sources =
+                    files.filter(p -> p.toString().endsWith(".js") && Files.isRegularFile(p))
+                            .sorted()
+                            .collect(Collectors.toList());
+        }
+
+        Result result = new Result();
+        List<Unit> units = new ArrayList<>();
+        Map<String, String> classOwners = new HashMap<>();
+        try (JarFile previous = jarFile.isFile() ? new JarFile(jarFile) : null) {
+            Map<String, String[]> previousHashes = readHashes(previous);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<Unit>> futures = new ArrayList<>();
+                for (Path source : sources) {
+                    futures.add(
+                            executor.submit(
+                                    () -> compileOne(root, source, previous, previousHashes)));
+                }
+                for (Future<Unit> future : futures) {
+                    units.add(getUnit(future));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        for (Unit unit : units) {
+            if (unit.mainClassName == null) {
+                result.failed.put(unit.path, unit.error);
+                continue;
+            }
+            String conflict = null;
+            for (String className : unit.classes.keySet()) {
+                String owner = classOwners.putIfAbsent(className, unit.path);
+                if (owner != null) {
+                    conflict = owner;
+                }
+            }
+            if (conflict != null) {
+                String message = ToolErrorReporter.getMessage("msg.jsc.class.conflict", conflict);
+                result.failed.put(unit.path, message);
+            } else {
+                (unit.reused ? result.reused : result.compiled).add(unit.path);
+            }
+        }
+        if (result.failed.isEmpty()) {
+            writeJar(jarFile, units);
+        }
+        return result;
+    }
+
+    private Unit compileOne(
+            Path root, Path source, JarFile previous, Map<String, String[]> previousHashes)
+            throws IOException {
+        String path = root.relativize(source).toString().replace(File.separatorChar, '/');
+        Unit unit = new Unit(path, hash(Files.readAllBytes(source)));
+
+        String[] old = previousHashes.get(path);
+        if (old != null && old[0].equals(unit.hash) && copyClasses(previous, old, unit)) {
+            unit.mainClassName = old[1];
+            unit.reused = true;
+            return unit;
+        }
+
+        String sourceText =
+                (String) SourceReader.readFileOrUrl(source.toString(), true, characterEncoding);
+        String mainClassName = getClassName(path);
+        Object[] compiled;
+        try {
+            compiled = compiler.compileToClassFiles(sourceText, path, 1, mainClassName);
+        } catch (RhinoException e) {
+            unit.error = e.details();
+            return unit;
+        }
+        for (int i = 0; i != compiled.length; i += 2) {
+            unit.classes.put((String) compiled[i], (byte[]) compiled[i + 1]);
+        }
+        unit.mainClassName = mainClassName;
+        return unit;
+    }
+
+    private static boolean copyClasses(JarFile previous, String[] old, Unit unit)
+            throws IOException {
+        // old: hash, main class, then all classes of the script
+        for (int i = 2; i < old.length; i++) {
+            ZipEntry entry = previous.getEntry(old[i].replace('.', '/') + ".class");
+            if (entry == null) {
+                return false;
+            }
+            try (InputStream in = previous.getInputStream(entry)) {
+                unit.classes.put(old[i], in.readAllBytes());
+            }
+        }
+        return true;
+    }
+
+    private static Unit getUnit(Future<Unit> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns the hash of a source together with everything else that changes the classes compiled
+     * from it.
+     */
+    private String hash(byte[] source) {
+        String settings =
+                ImplementationVersion.get()
+                        + '|'
+                        + compilerEnv.getLanguageVersion()
+                        + '|'
+                        + compilerEnv.isGenerateDebugInfo()
+                        + '|'
+                        + compilerEnv.isGeneratingSource()
+                        + '|'
+                        + compilerEnv.isGenerateObserverCount()
+                        + '|'
+                        + compilerEnv.isStrictMode()
+                        + '|'
+                        + targetPackage
+                        + '|'
+                        + characterEncoding
+                        + '|';
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(settings.getBytes(StandardCharsets.UTF_8));
+        digest.update(source);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static Map<String, String[]> readHashes(JarFile jar) throws IOException {
+        Map<String, String[]> hashes = new HashMap<>();
+        ZipEntry entry = jar == null ? null : jar.getEntry(HASHES_RESOURCE);
+        if (entry != null) {
+            Properties props = new Properties();
+            try (InputStream in = jar.getInputStream(entry)) {
+                props.load(in);
+            }
+            for (String path : props.stringPropertyNames()) {
+                String[] fields = props.getProperty(path).split(" ");
+                if (fields.length >= 3) {
+                    hashes.put(path, fields);
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private static void writeJar(File jarFile, List<Unit> units) throws IOException {
+        SortedMap<String, String> index = new TreeMap<>();
+        SortedMap<String, String> hashes = new TreeMap<>();
+        SortedMap<String, byte[]> classes = new TreeMap<>();
+        for (Unit unit : units) {
+            index.put(unit.path, unit.mainClassName);
+            StringBuilder sb = new StringBuilder(unit.hash).append(' ').append(unit.mainClassName);
+            for (String className : unit.classes.keySet()) {
+                sb.append(' ').append(className);
+            }
+            hashes.put(unit.path, sb.toString());
+            classes.putAll(unit.classes);
+        }
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Created-By", ImplementationVersion.get());
+
+        Path target = jarFile.getAbsoluteFile().toPath();
+        Path dir = target.getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(tmp))) {
+                putEntry(out, JarFile.MANIFEST_NAME, manifest::write);
+                putEntry(out, PrecompiledModuleScriptProvider.INDEX_RESOURCE, toProperties(index));
+                putEntry(out, HASHES_RESOURCE, toProperties(hashes));
+                for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+                    putEntry(out, e.getKey().replace('.', '/') + ".class", e.getValue());
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private interface EntryWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static void putEntry(JarOutputStream out, String name, byte[] bytes)
+            throws IOException {
+        putEntry(out, name, o -> o.write(bytes));
+    }
+
+    private static void putEntry(JarOutputStream out, String name, EntryWriter writer)
+            throws IOException {
+        JarEntry entry = new JarEntry(name);
+        entry.setTimeLocal(ENTRY_TIME);
+        out.putNextEntry(entry);
+        writer.write(out);
+        out.closeEntry();
+    }
+
+    /** Returns the entries in properties format, sorted and without the date comment. */
+    private static byte[] toProperties(SortedMap<String, String> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> e : entries.entrySet()) {
+            Properties props = new Properties();
+            props.setProperty(e.getKey(), e.getValue());
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            props.store(line, null);
+            for (String s : line.toString(StandardCharsets.ISO_8859_1).split("\n")) {
+                if (!s.isEmpty() && s.charAt(0) != '#') {
+                    bytes.write(s.trim().getBytes(StandardCharsets.ISO_8859_1));
+                    bytes.write('\n');
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the name of the main class for the script at the given path. Each part of the path
+     * becomes a part of the class name, with characters that are not allowed in Java identifiers
+     * replaced.
+     */
+    private String getClassName(String path) {
+        StringBuilder sb = new StringBuilder(targetPackage);
+        String[] parts = path.substring(0, path.length() - 3).split("/");
+        for (String part : parts) {
+            if (sb.length() != 0) {
+                sb.append('.');
+            }
+            if (part.isEmpty() || !Character.isJavaIdentifierStart(part.charAt(0))) {
+                sb.append('_');
+            }
+            for (int i = 0; i < part.length(); i++) {
+                char c = part.charAt(i);
+                sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -10,6 +10,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 import org.mozilla.javascript.CompilerEnvirons;
 import org.mozilla.javascript.optimizer.ClassCompiler;
@@ -41,6 +42,10 @@ public class Main {
         if (!main.reporter.hasReportedError()) {
             main.processSource(args);
         }
+        if (main.jarFile != null && main.reporter.hasReportedError()) {
+            // Let build tools see that the jar was not written
+            System.exit(1);
+        }
     }
 
     public Main() {
@@ -190,6 +195,19 @@ public class Main {
                 destinationDir = args[i];
                 continue;
             }
+            if (arg.equals("-jar") && ++i < args.length) {
+                jarFile = args[i];
+                continue;
+            }
+            if (arg.equals("-threads") && ++i < args.length) {
+                try {
+                    threads = Integer.parseInt(args[i]);
+                } catch (NumberFormatException e) {
+                    badUsage(args[i]);
+                    return null;
+                }
+                continue;
+            }
             badUsage(arg);
             return null;
         }
@@ -206,6 +224,10 @@ public class Main {
 
     /** Compile JavaScript source. */
     public void processSource(String[] filenames) {
+        if (jarFile != null) {
+            processSourceDirectory(filenames);
+            return;
+        }
         for (int i = 0; i != filenames.length; ++i) {
             String filename = filenames[i];
             if (!filename.endsWith(".js")) {
@@ -255,6 +277,28 @@ public class Main {
         }
     }
 
+    /** Compile all scripts in one directory to a jar. */
+    private void processSourceDirectory(String[] dirnames) {
+        if (dirnames.length != 1 || !new File(dirnames[0]).isDirectory()) {
+            addError("msg.jsc.jar.dir", jarFile);
+            return;
+        }
+        AotCompiler aot = new AotCompiler(compilerEnv);
+        aot.setTargetPackage(targetPackage);
+        aot.setCharacterEncoding(characterEncoding);
+        if (threads > 0) {
+            aot.setThreads(threads);
+        }
+        try {
+            AotCompiler.Result result = aot.compile(new File(dirnames[0]), new File(jarFile));
+            for (Map.Entry<String, String> e : result.getFailed().entrySet()) {
+                addFormatedError(e.getKey() + ": " + e.getValue());
+            }
+        } catch (IOException ioe) {
+            addFormatedError(ioe.toString());
+        }
+    }
+
     private String readSource(File f) {
         String absPath = f.getAbsolutePath();
         if (!f.isFile()) {
@@ -336,5 +380,7 @@ public class Main {
     private String targetName;
     private String targetPackage;
     private String destinationDir;
+    private String jarFile;
+    private int threads;
     private String characterEncoding;
 }
@@ -0,0 +1,140 @@
+package org.mozilla.javascript.tools.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import org.junit.jupiter.api.Test;
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ErrorReporter;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.commonjs.module.Require;
+import org.mozilla.javascript.commonjs.module.RequireBuilder;
+import org.mozilla.javascript.commonjs.module.provider.PrecompiledModuleScriptProvider;
+import org.mozilla.javascript.tools.jsc.AotCompiler;
+
+/** Compiles a directory of modules to a jar and requires them from the jar. */
+public class AotCompilerTest {
+
+    private static final ErrorReporter SILENT =
+            new ErrorReporter() {
+                @Override
+                public void warning(
+                        String message, String sourceName, int line, String src, int offset) {}
+
+                @Override
+                public void error(
+                        String message, String sourceName, int line, String src, int offset) {}
+
+                @Override
+                public EvaluatorException runtimeError(
+                        String message, String sourceName, int line, String src, int offset) {
+                    return new EvaluatorException(message, sourceName, line, src, offset);
+                }
+            };
+
+    private static AotCompiler newCompiler() {
+        CompilerEnvirons env = new CompilerEnvirons();
+        env.setErrorReporter(SILENT);
+        env.setLanguageVersion(Context.VERSION_ES6);
+        AotCompiler compiler = new AotCompiler(env);
+        compiler.setTargetPackage("aot.test");
+        compiler.setThreads(2);
+        return compiler;
+    }
+
+    private static void write(Path dir, String path, String source) throws IOException {
+        Path file = dir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object run(File jar) throws Exception {
+        try (URLClassLoader loader =
+                        new URLClassLoader(
+                                new URL[] {jar.toURI().toURL()},
+                                AotCompilerTest.class.getClassLoader());
+                Context cx = Context.enter()) {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            Scriptable scope = cx.initStandardObjects();
+            Require require =
+                    new RequireBuilder()
+                            .setModuleScriptProvider(new PrecompiledModuleScriptProvider(loader))
+                            .setSandboxed(true)
+                            .createRequire(cx, scope);
+            Scriptable exports = require.requireMain(cx, "main");
+            return Context.toString(
+                    ScriptableObject.callMethod(cx, exports, "run", new Object[] {21}));
+        }
+    }
+
+    @Test
+    public void compileAndRequire() throws Exception {
+        Path dir = Files.createTempDirectory("aot");
+        Path src = dir.resolve("src");
+        write(
+                src,
+                "main.js",
+                "var util = require('./lib/util');\n"
+                        + "exports.run = function(n) {\n"
+                        + "  return util.twice(n) + require('my-dir/x').v;\n"
+                        + "};");
+        write(src, "lib/util.js", "exports.twice = function(n) { return n * 2 };");
+        write(src, "my-dir/x.js", "exports.v = /x+/.exec('axxb')[0].slice(1);");
+        File jar = dir.resolve("out/modules.jar").toFile();
+
+        AotCompiler.Result result = newCompiler().compile(src.toFile(), jar);
+        assertEquals(Arrays.asList("lib/util.js", "main.js", "my-dir/x.js"), result.getCompiled());
+        assertTrue(result.getReused().isEmpty());
+        assertTrue(result.getFailed().isEmpty());
+        assertEquals("42x", run(jar));
+
+        // Only the changed script is compiled again, and the others keep their classes
+        write(src, "lib/util.js", "exports.twice = function(n) { return n * 3 };");
+        result = newCompiler().compile(src.toFile(), jar);
+        assertEquals(List.of("lib/util.js"), result.getCompiled());
+        assertEquals(Arrays.asList("main.js", "my-dir/x.js"), result.getReused());
+        assertEquals("63x", run(jar));
+
+        // A script with a syntax error leaves the previous jar as it was
+        write(src, "broken.js", "exports.x = ;");
+        byte[] before = Files.readAllBytes(jar.toPath());
+        result = newCompiler().compile(src.toFile(), jar);
+        assertEquals(List.of("broken.js"), List.copyOf(result.getFailed().keySet()));
+        assertArrayEquals(before, Files.readAllBytes(jar.toPath()));
+        assertEquals("63x", run(jar));
+    }
+
+    @Test
+    public void sameSourcesGiveSameJar() throws Exception {
+        Path dir = Files.createTempDirectory("aot");
+        Path src = dir.resolve("src");
+        write(src, "main.js", "exports.run = function(n) { return n };");
+        write(src, "a/b.js", "exports.b = function() { return function() {} };");
+        File first = dir.resolve("first.jar").toFile();
+        File second = dir.resolve("second.jar").toFile();
+        TimeZone zone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            newCompiler().compile(src.toFile(), first);
+            // Entry times must not depend on the time zone, even one before UTC
+            TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Honolulu"));
+            newCompiler().compile(src.toFile(), second);
+        } finally {
+            TimeZone.setDefault(zone);
+        }
+        assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+        assertEquals("21", run(first));
+    }
+}
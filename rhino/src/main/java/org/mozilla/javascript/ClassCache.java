@@ -11,6 +11,8 @@ import java.lang.reflect.Type;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Cache of generated classes and data structures to access Java runtime from JavaScript.
@@ -27,9 +29,32 @@ public class ClassCache implements Serializable {
     private transient volatile Map<JavaAdapter.JavaAdapterSignature, Class<?>> classAdapterCache;
     private transient volatile Map<Class<?>, Object> interfaceAdapterCache;
     private transient volatile Map<Type, JavaTypeInfo> typeCache;
-    private int generatedClassSerial;
+    private volatile int generatedClassSerial;
     private Scriptable associatedScope;
 
+    // The caches are created and the serial number is incremented without locking, so that
+    // virtual threads sharing this cache do not pin their carrier threads.
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ClassCache, Map> CLASS_TABLE =
+            AtomicReferenceFieldUpdater.newUpdater(ClassCache.class, Map.class, "classTable");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ClassCache, Map> CLASS_ADAPTER_CACHE =
+            AtomicReferenceFieldUpdater.newUpdater(
+                    ClassCache.class, Map.class, "classAdapterCache");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ClassCache, Map> INTERFACE_ADAPTER_CACHE =
+            AtomicReferenceFieldUpdater.newUpdater(
+                    ClassCache.class, Map.class, "interfaceAdapterCache");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ClassCache, Map> TYPE_CACHE =
+            AtomicReferenceFieldUpdater.newUpdater(ClassCache.class, Map.class, "typeCache");
+
+    private static final AtomicIntegerFieldUpdater<ClassCache> GENERATED_CLASS_SERIAL =
+            AtomicIntegerFieldUpdater.newUpdater(ClassCache.class, "generatedClassSerial");
+
     /**
      * CacheKey is a combination of class and securityContext. This is required when classes are
      * loaded from different security contexts
@@ -113,7 +138,7 @@ public class ClassCache implements Serializable {
     }
 
     /** Empty caches of generated Java classes and Java reflection information. */
-    public synchronized void clearCaches() {
+    public void clearCaches() {
         classTable = null;
         classAdapterCache = null;
         interfaceAdapterCache = null;
@@ -140,46 +165,59 @@ public class ClassCache implements Serializable {
      * @param enabled if true, caching is enabled
      * @see #clearCaches()
      */
-    public synchronized void setCachingEnabled(boolean enabled) {
+    public void setCachingEnabled(boolean enabled) {
         if (enabled == cachingIsEnabled) return;
-        if (!enabled) clearCaches();
         cachingIsEnabled = enabled;
+        if (!enabled) clearCaches();
     }
 
     /**
      * @return a map from classes to associated JavaMembers objects
      */
     Map<CacheKey, JavaMembers> getClassCacheMap() {
-        if (classTable == null) {
-            synchronized (this) {
-                if (classTable == null) {
-                    classTable = new ConcurrentHashMap<>();
-                }
-            }
+        Map<CacheKey, JavaMembers> map = classTable;
+        return map != null ? map : createMap(CLASS_TABLE);
+    }
+
+    /** Set the cache "field" to a new map unless another thread did so first, and return it. */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private <K, V> Map<K, V> createMap(AtomicReferenceFieldUpdater<ClassCache, Map> field) {
+        Map<K, V> map = new ConcurrentHashMap<>();
+        if (field.compareAndSet(this, null, map)) {
+            return map;
         }
-        return classTable;
+        Map<K, V> witness = field.get(this);
+        // the cache may have been cleared again in the meantime
+        return witness != null ? witness : map;
     }
 
-    Map<JavaAdapter.JavaAdapterSignature, Class<?>> getInterfaceAdapterCacheMap() {
-        if (classAdapterCache == null) {
-            synchronized (this) {
-                if (classAdapterCache == null) {
-                    classAdapterCache = new ConcurrentHashMap<>();
-                }
-            }
+    /**
+     * Reflect the given classes now rather than when a script first uses them. This builds the
+     * member tables of each class, including the accessors of its bean properties, so that
+     * applications that know which classes their scripts use can pay for it at startup. The cache
+     * must have been associated with a scope, and nothing is kept if caching is disabled.
+     *
+     * @param classes the classes to reflect
+     * @throws IllegalStateException if this cache is not associated with a scope
+     * @since 1.9.1
+     */
+    public void warmUp(Iterable<? extends Class<?>> classes) {
+        if (associatedScope == null) {
+            throw new IllegalStateException("ClassCache is not associated with a scope");
+        }
+        for (Class<?> cl : classes) {
+            JavaMembers.lookupClass(associatedScope, cl, cl, false);
         }
-        return classAdapterCache;
+    }
+
+    Map<JavaAdapter.JavaAdapterSignature, Class<?>> getInterfaceAdapterCacheMap() {
+        Map<JavaAdapter.JavaAdapterSignature, Class<?>> map = classAdapterCache;
+        return map != null ? map : createMap(CLASS_ADAPTER_CACHE);
     }
 
     Map<Type, JavaTypeInfo> getTypeCacheMap() {
-        if (typeCache == null) {
-            synchronized (this) {
-                if (typeCache == null) {
-                    typeCache = new ConcurrentHashMap<>();
-                }
-            }
-        }
-        return typeCache;
+        Map<Type, JavaTypeInfo> map = typeCache;
+        return map != null ? map : createMap(TYPE_CACHE);
     }
 
     /**
@@ -198,30 +236,27 @@ public class ClassCache implements Serializable {
      *     using generated proxy class to replace reflection.
      */
     @Deprecated
-    public synchronized void setInvokerOptimizationEnabled(boolean enabled) {}
+    public void setInvokerOptimizationEnabled(boolean enabled) {}
 
     /**
      * Internal engine method to return serial number for generated classes to ensure name
      * uniqueness.
      */
-    public final synchronized int newClassSerialNumber() {
-        return ++generatedClassSerial;
+    public final int newClassSerialNumber() {
+        return GENERATED_CLASS_SERIAL.incrementAndGet(this);
     }
 
     Object getInterfaceAdapter(Class<?> cl) {
         return interfaceAdapterCache == null ? null : interfaceAdapterCache.get(cl);
     }
 
-    synchronized void cacheInterfaceAdapter(Class<?> cl, Object iadapter) {
+    void cacheInterfaceAdapter(Class<?> cl, Object iadapter) {
         if (cachingIsEnabled) {
-            if (interfaceAdapterCache == null) {
-                synchronized (this) {
-                    if (interfaceAdapterCache == null) {
-                        interfaceAdapterCache = new ConcurrentHashMap<>();
-                    }
-                }
+            Map<Class<?>, Object> map = interfaceAdapterCache;
+            if (map == null) {
+                map = createMap(INTERFACE_ADAPTER_CACHE);
             }
-            interfaceAdapterCache.put(cl, iadapter);
+            map.put(cl, iadapter);
         }
     }
 
@@ -101,6 +101,11 @@ class CodeGenerator<T extends ScriptOrFn<T>> extends Icode {
 
         CodeGenUtils.setConstructor(builder, theFunction);
 
+        if (TieredCompiler.canCompile(compilerEnv, theFunction)) {
+            itsData.tierCountdown = TieredCompiler.THRESHOLD;
+            itsData.tierLineno = theFunction.getBaseLineno();
+        }
+
         if (theFunction.isGenerator()) {
             // For generators with default parameters, generate parameter initialization
             // bytecode BEFORE Icode_GENERATOR so defaults are evaluated before generator
@@ -43,6 +43,8 @@ public class CompilerEnvirons {
         // Observer code generation in compiled code :
         generateObserverCount = cx.isGenerateObserverCount();
         securityController = cx.getSecurityController();
+        tieredCompilation =
+                cx.hasFeature(Context.FEATURE_TIERED_COMPILATION) && cx.getDebugger() == null;
     }
 
     public final ErrorReporter getErrorReporter() {
@@ -181,6 +183,27 @@ public class CompilerEnvirons {
         this.generateObserverCount = generateObserverCount;
     }
 
+    /**
+     * @return true iff functions compiled for the interpreter are compiled to JVM byte code once
+     *     they have been called often enough
+     * @see Context#FEATURE_TIERED_COMPILATION
+     * @since 1.9.1
+     */
+    public boolean isTieredCompilation() {
+        return tieredCompilation;
+    }
+
+    /**
+     * Turn on or off counting the calls of interpreted functions to compile those that are called
+     * often to JVM byte code. This only affects code generated for the interpreter.
+     *
+     * @see Context#FEATURE_TIERED_COMPILATION
+     * @since 1.9.1
+     */
+    public void setTieredCompilation(boolean tieredCompilation) {
+        this.tieredCompilation = tieredCompilation;
+    }
+
     public boolean isRecordingComments() {
         return recordingComments;
     }
@@ -306,6 +329,7 @@ public class CompilerEnvirons {
     private boolean strictMode;
     private boolean warningAsError;
     private boolean generateObserverCount;
+    private boolean tieredCompilation;
     private boolean recordingComments;
     private boolean recordingLocalJsDocComments;
     private boolean recoverFromErrors;
@@ -27,9 +27,30 @@ public class ConsString implements CharSequence, Serializable {
 
     private static final long serialVersionUID = -8432806714471372570L;
 
-    private CharSequence left, right;
+    /**
+     * When a short string is appended to a rope whose outer component is also a short string,
+     * the two are joined into one String of up to this many characters rather than adding a new
+     * level to the rope. This keeps ropes built by "+=" in a loop shallow.
+     */
+    private static final int MAX_MERGE_LENGTH = 64;
+
+    /**
+     * Ropes up to this depth are read in place by {@link #subSequence}, {@link #indexOf} and {@link
+     * #startsWith}. Deeper ropes are flattened first, so that repeated reads do not walk a long
+     * chain of components. {@link #charAt} always flattens, as it is usually called in a loop.
+     */
+    private static final int MAX_ROPE_DEPTH = 32;
+
+    /*
+     * The components are replaced by "flat" when the string is flattened. This happens without
+     * locking: two threads may both build the flat string, but they build equal strings. The
+     * flat string is always written before the components are cleared, so a thread that finds
+     * either component to be null can rely on "flat" instead.
+     */
+    private volatile CharSequence left, right;
+    private volatile String flat;
     private final int length;
-    private boolean isFlat;
+    private final int depth;
 
     public ConsString(CharSequence str1, CharSequence str2) {
         if (!(str1 instanceof String) && !(str1 instanceof ConsString)) {
@@ -38,10 +59,39 @@ public class ConsString implements CharSequence, Serializable {
         if (!(str2 instanceof String) && !(str2 instanceof ConsString)) {
             str2 = str2.toString();
         }
+        if (str2 instanceof String && str1 instanceof ConsString) {
+            // ((a + b) + c) becomes (a + bc) if b and c are short
+            ConsString cons = (ConsString) str1;
+            CharSequence l = cons.left, r = cons.right;
+            if (l != null
+                    && r instanceof String
+                    && r.length() + str2.length() <= MAX_MERGE_LENGTH) {
+                str1 = l;
+                str2 = ((String) r).concat((String) str2);
+            }
+        } else if (str1 instanceof String && str2 instanceof ConsString) {
+            // (a + (b + c)) becomes (ab + c) if a and b are short
+            ConsString cons = (ConsString) str2;
+            CharSequence l = cons.left, r = cons.right;
+            if (r != null
+                    && l instanceof String
+                    && str1.length() + l.length() <= MAX_MERGE_LENGTH) {
+                str1 = ((String) str1).concat((String) l);
+                str2 = r;
+            }
+        }
         left = str1;
         right = str2;
-        length = left.length() + right.length();
-        isFlat = false;
+        length = str1.length() + str2.length();
+        depth = Math.max(depth(str1), depth(str2)) + 1;
+    }
+
+    private static int depth(CharSequence str) {
+        if (str instanceof ConsString) {
+            ConsString cons = (ConsString) str;
+            return cons.flat == null ? cons.depth : 0;
+        }
+        return 0;
     }
 
     // Replace with string representation when serializing
@@ -51,41 +101,58 @@ public class ConsString implements CharSequence, Serializable {
 
     @Override
     public String toString() {
-        return isFlat ? (String) left : flatten();
+        String str = flat;
+        return str != null ? str : flatten();
     }
 
-    private synchronized String flatten() {
-        if (!isFlat) {
-            final char[] chars = new char[length];
-            int charPos = length;
-
-            ArrayDeque<CharSequence> stack = new ArrayDeque<>();
-            stack.addFirst(left);
-
-            CharSequence next = right;
-            do {
-                if (next instanceof ConsString) {
-                    ConsString casted = (ConsString) next;
-                    if (casted.isFlat) {
-                        next = casted.left;
-                    } else {
-                        stack.addFirst(casted.left);
-                        next = casted.right;
-                        continue;
-                    }
+    private String flatten() {
+        CharSequence l = left, r = right;
+        if (l == null || r == null) {
+            return flat;
+        }
+        final char[] chars = new char[length];
+        int charPos = length;
+
+        ArrayDeque<CharSequence> stack = new ArrayDeque<>();
+        stack.addFirst(l);
+
+        CharSequence next = r;
+        do {
+            if (next instanceof ConsString) {
+                ConsString casted = (ConsString) next;
+                CharSequence cl = casted.left, cr = casted.right;
+                if (cl == null || cr == null) {
+                    next = casted.flat;
+                } else {
+                    stack.addFirst(cl);
+                    next = cr;
+                    continue;
                 }
+            }
+
+            final String str = (String) next;
+            charPos -= str.length();
+            str.getChars(0, str.length(), chars, charPos);
+            next = stack.isEmpty() ? null : stack.removeFirst();
+        } while (next != null);
 
-                final String str = (String) next;
-                charPos -= str.length();
-                str.getChars(0, str.length(), chars, charPos);
-                next = stack.isEmpty() ? null : stack.removeFirst();
-            } while (next != null);
+        String str = new String(chars);
+        flat = str;
+        left = null;
+        right = null;
+        return str;
+    }
 
-            left = new String(chars);
-            right = "";
-            isFlat = true;
+    /**
+     * Return the flat string if this string is flat or too deep to be read in place, or null if
+     * it should be read as a rope.
+     */
+    private String flatForReading() {
+        String str = flat;
+        if (str == null && depth > MAX_ROPE_DEPTH) {
+            str = flatten();
         }
-        return (String) left;
+        return str;
     }
 
     @Override
@@ -95,13 +162,156 @@ public class ConsString implements CharSequence, Serializable {
 
     @Override
     public char charAt(int index) {
-        String str = isFlat ? (String) left : flatten();
-        return str.charAt(index);
+        return toString().charAt(index);
     }
 
     @Override
     public CharSequence subSequence(int start, int end) {
-        String str = isFlat ? (String) left : flatten();
-        return str.substring(start, end);
+        String str = flatForReading();
+        if (str != null) {
+            return str.substring(start, end);
+        }
+        if (start < 0 || end > length || start > end) {
+            throw new StringIndexOutOfBoundsException(
+                    "begin " + start + ", end " + end + ", length " + length);
+        }
+        if (start == end) {
+            return "";
+        }
+        if (start == 0 && end == length) {
+            return toString();
+        }
+        // Only copy the part of the rope that is needed
+        char[] chars = new char[end - start];
+        Leaves leaves = new Leaves(this, start);
+        int pos = start;
+        do {
+            String leaf = leaves.leaf;
+            int leafEnd = Math.min(leaf.length(), end - leaves.offset);
+            leaf.getChars(pos - leaves.offset, leafEnd, chars, pos - start);
+            pos = leaves.offset + leafEnd;
+        } while (pos < end && leaves.next());
+        return new String(chars);
+    }
+
+    /**
+     * Return the index of the first occurrence of "str" at or after "fromIndex", as {@link
+     * String#indexOf(String, int)} does, without flattening this string if it is shallow.
+     *
+     * @since 1.9.1
+     */
+    public int indexOf(String str, int fromIndex) {
+        String flatStr = flatForReading();
+        if (flatStr != null) {
+            return flatStr.indexOf(str, fromIndex);
+        }
+        if (fromIndex < 0) {
+            fromIndex = 0;
+        }
+        int strLength = str.length();
+        if (strLength == 0) {
+            return Math.min(fromIndex, length);
+        }
+        if (fromIndex > length - strLength) {
+            return -1;
+        }
+        Leaves leaves = new Leaves(this, fromIndex);
+        int index = leaves.leaf.indexOf(str, fromIndex - leaves.offset);
+        if (index >= 0) {
+            return leaves.offset + index;
+        }
+        while (leaves.next()) {
+            int boundary = leaves.offset;
+            // Look for a match that starts before this leaf and ends in it or after it
+            int windowStart = Math.max(fromIndex, boundary - strLength + 1);
+            int windowEnd = Math.min(length, boundary + strLength - 1);
+            if (windowEnd - windowStart >= strLength) {
+                index = subSequence(windowStart, windowEnd).toString().indexOf(str);
+                if (index >= 0) {
+                    return windowStart + index;
+                }
+            }
+            index = leaves.leaf.indexOf(str);
+            if (index >= 0) {
+                return boundary + index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Return true if "prefix" occurs in this string at "offset", as {@link
+     * String#startsWith(String, int)} does, without flattening this string if it is shallow.
+     *
+     * @since 1.9.1
+     */
+    public boolean startsWith(String prefix, int offset) {
+        String str = flatForReading();
+        if (str != null) {
+            return str.startsWith(prefix, offset);
+        }
+        int prefixLength = prefix.length();
+        if (offset < 0 || offset > length - prefixLength) {
+            return false;
+        }
+        if (prefixLength == 0) {
+            return true;
+        }
+        Leaves leaves = new Leaves(this, offset);
+        int matched = 0;
+        do {
+            String leaf = leaves.leaf;
+            int leafStart = offset + matched - leaves.offset;
+            int count = Math.min(leaf.length() - leafStart, prefixLength - matched);
+            if (!leaf.regionMatches(leafStart, prefix, matched, count)) {
+                return false;
+            }
+            matched += count;
+        } while (matched < prefixLength && leaves.next());
+        return true;
+    }
+
+    /**
+     * Walks the flat components of a rope in order, starting with the one that contains a given
+     * index.
+     */
+    private static final class Leaves {
+        private final ArrayDeque<CharSequence> pending = new ArrayDeque<>();
+        String leaf;
+        int offset;
+
+        Leaves(ConsString root, int index) {
+            descend(root, 0, index);
+        }
+
+        boolean next() {
+            if (pending.isEmpty()) {
+                return false;
+            }
+            int start = offset + leaf.length();
+            descend(pending.removeFirst(), start, start);
+            return true;
+        }
+
+        private void descend(CharSequence node, int nodeOffset, int index) {
+            while (node instanceof ConsString) {
+                ConsString cons = (ConsString) node;
+                CharSequence l = cons.left, r = cons.right;
+                if (l == null || r == null) {
+                    node = cons.flat;
+                    break;
+                }
+                int leftEnd = nodeOffset + l.length();
+                if (index < leftEnd) {
+                    pending.addFirst(r);
+                    node = l;
+                } else {
+                    nodeOffset = leftEnd;
+                    node = r;
+                }
+            }
+            leaf = (String) node;
+            offset = nodeOffset;
+        }
     }
 }
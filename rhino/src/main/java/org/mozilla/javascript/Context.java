@@ -384,6 +384,50 @@ public class Context implements Closeable {
      */
     public static final int FEATURE_INTL_402 = 22;
 
+    /**
+     * If set, then objects that are not thread-safe store their properties using shared shapes:
+     * all objects which add the same property names in the same order share one immutable layout,
+     * and each object only holds a compact array of its slots. Objects fall back to an ordinary
+     * property map when a property is deleted or when they are used with integer or very many
+     * distinct keys. This reduces memory for large numbers of similar objects, such as parsed JSON
+     * records. The default is false unless the "rhino.useSharedShapesByDefault" property is set.
+     *
+     * @see ShapedSlotMap
+     * @since 1.9.1
+     */
+    public static final int FEATURE_SHARED_SHAPES = 23;
+
+    /**
+     * If set, then regular expressions without back references or lookaround are matched by an
+     * automaton that advances through the input once, rather than by backtracking. Matching then
+     * takes time linear in the length of the input, even for expressions such as {@code (a+)+$}
+     * that take exponential time to backtrack, but simple expressions may be matched more slowly.
+     * Expressions with the 'u' flag, and those with a repetition whose optional iterations can
+     * match the empty string, are always backtracked. The default is false unless the
+     * "rhino.useLinearRegExpByDefault" property is set.
+     *
+     * @since 1.9.1
+     */
+    public static final int FEATURE_LINEAR_REGEXP = 24;
+
+    /**
+     * If set, then functions compiled for the interpreter count how often they are called and how
+     * often their loops repeat, and a function for which this count reaches a threshold is compiled
+     * to JVM bytecode, by default on a background thread. Once the bytecode is ready, further calls
+     * of the function run it instead of interpreting the function; a call that is already running
+     * keeps being interpreted. The threshold is set by the "rhino.tieredCompileThreshold" property
+     * and compilation is done by the calling thread if "rhino.tieredCompileInBackground" is false.
+     *
+     * <p>This only has an effect in interpreted mode, when no debugger is set while the script is
+     * compiled, and when the bytecode compiler is available. Generators, arrow functions and
+     * methods are always interpreted. Functions that have been compiled to bytecode cannot be
+     * called with continuations. The default is false unless the
+     * "rhino.useTieredCompilationByDefault" property is set.
+     *
+     * @since 1.9.1
+     */
+    public static final int FEATURE_TIERED_COMPILATION = 25;
+
     public static final String languageVersionProperty = "language version";
     public static final String errorReporterProperty = "error reporter";
 
@@ -403,6 +447,9 @@ public class Context implements Closeable {
      * <p>Note: former methods (VMBridge) have used an Object[] for performance reasons. This seems
      * to be outdated. ThreadLocal.get/set gives better performance. (But do not use
      * ThreadLocal.remove.) See ContextThreadLocalBenchmark
+     *
+     * <p>Contexts entered through {@link #call(ContextFactory, ContextAction)} may be bound with a
+     * ScopedValue instead, see {@link ScopedContext}.
      */
     private static final ThreadLocal<Context> currentContext = new ThreadLocal<>();
 
@@ -461,6 +508,12 @@ public class Context implements Closeable {
      * @see ContextFactory#call(ContextAction)
      */
     public static Context getCurrentContext() {
+        if (ScopedContext.ENABLED) {
+            Context cx = ScopedContext.get();
+            if (cx != null) {
+                return cx;
+            }
+        }
         return currentContext.get();
     }
 
@@ -496,32 +549,47 @@ public class Context implements Closeable {
     }
 
     static final Context enter(Context cx, ContextFactory factory) {
-        Context old = currentContext.get();
+        Context old = getCurrentContext();
         if (old != null) {
             cx = old;
         } else {
-            if (cx == null) {
-                cx = factory.makeContext();
-                if (cx.enterCount != 0) {
-                    throw new IllegalStateException(
-                            "factory.makeContext() returned Context instance already associated with some thread");
-                }
-                factory.onContextCreated(cx);
-                if (factory.isSealed() && !cx.isSealed()) {
-                    cx.seal(null);
-                }
-            } else {
-                if (cx.enterCount != 0) {
-                    throw new IllegalStateException(
-                            "can not use Context instance already associated with some thread");
-                }
-            }
+            cx = prepareContext(cx, factory);
             currentContext.set(cx);
         }
         ++cx.enterCount;
         return cx;
     }
 
+    /**
+     * Return "cx", or a context from the pool of the factory or a new one if "cx" is null, for a
+     * thread that has no current context.
+     */
+    private static Context prepareContext(Context cx, ContextFactory factory) {
+        if (cx == null) {
+            cx = factory.pollPooledContext();
+        }
+        if (cx == null) {
+            cx = factory.makeContext();
+            if (cx.enterCount != 0) {
+                throw new IllegalStateException(
+                        "factory.makeContext() returned Context instance already associated with some thread");
+            }
+            factory.onContextCreated(cx);
+            if (factory.isSealed() && !cx.isSealed()) {
+                cx.seal(null);
+            }
+            if (factory.getContextPoolSize() != 0) {
+                cx.pooledSettings = new PooledSettings(cx);
+            }
+        } else {
+            if (cx.enterCount != 0) {
+                throw new IllegalStateException(
+                        "can not use Context instance already associated with some thread");
+            }
+        }
+        return cx;
+    }
+
     /**
      * Exit a block of code requiring a Context.
      *
@@ -533,7 +601,7 @@ public class Context implements Closeable {
      * @see ContextFactory#enterContext()
      */
     public static void exit() {
-        Context cx = currentContext.get();
+        Context cx = getCurrentContext();
         if (cx == null) {
             throw new IllegalStateException("Calling Context.exit without previous Context.enter");
         }
@@ -547,17 +615,173 @@ public class Context implements Closeable {
     public void close() {
         if (enterCount < 1) Kit.codeBug();
         if (--enterCount == 0) {
-            assert (currentContext.get() == this)
-                    : "currentContext: " + currentContext.get() + ", this: " + this;
+            assert (getCurrentContext() == this)
+                    : "currentContext: " + getCurrentContext() + ", this: " + this;
             releaseContext(this);
         }
     }
 
     private static void releaseContext(Context cx) {
-        // do not use contextLocal.remove() here, as this might be much slower, when the same thread
-        // creates a new context. See ContextThreadLocalBenchmark.
-        currentContext.set(null);
+        if (cx.scopedEntry) {
+            // the binding ends when call() returns
+            cx.scopedEntry = false;
+        } else {
+            // do not use contextLocal.remove() here, as this might be much slower, when the same
+            // thread creates a new context. See ContextThreadLocalBenchmark.
+            currentContext.set(null);
+        }
         cx.factory.onContextReleased(cx);
+        if (cx.pooledSettings != null && cx.resetForPool()) {
+            cx.factory.recyclePooledContext(cx);
+        }
+    }
+
+    /**
+     * The settings of a context created for the pool of its factory, as they were once the factory
+     * had initialized it. They are restored each time the context returns to the pool.
+     */
+    private static final class PooledSettings {
+        final boolean sealed;
+        final Object sealKey;
+        final int version;
+        final SecurityController securityController;
+        final boolean hasClassShutter;
+        final ClassShutter classShutter;
+        final ErrorReporter errorReporter;
+        final RegExpProxy regExpProxy;
+        final Locale locale;
+        final TimeZone timezone;
+        final boolean generatingDebug;
+        final boolean generatingDebugChanged;
+        final boolean generatingSource;
+        final boolean useDynamicScope;
+        final boolean interpretedMode;
+        final int maximumInterpreterStackDepth;
+        final WrapFactory wrapFactory;
+        final Debugger debugger;
+        final Object debuggerData;
+        final Object propertyListeners;
+        final ClassLoader applicationClassLoader;
+        final UnaryOperator<Object> javaToJSONConverter;
+        final Set<String> activationNames;
+        final int instructionThreshold;
+        final boolean generateObserverCount;
+        final boolean trackUnhandledPromiseRejections;
+
+        PooledSettings(Context cx) {
+            sealed = cx.sealed;
+            sealKey = cx.sealKey;
+            version = cx.version;
+            securityController = cx.securityController;
+            hasClassShutter = cx.hasClassShutter;
+            classShutter = cx.classShutter;
+            errorReporter = cx.errorReporter;
+            regExpProxy = cx.regExpProxy;
+            locale = cx.locale;
+            timezone = cx.timezone;
+            generatingDebug = cx.generatingDebug;
+            generatingDebugChanged = cx.generatingDebugChanged;
+            generatingSource = cx.generatingSource;
+            useDynamicScope = cx.useDynamicScope;
+            interpretedMode = cx.interpretedMode;
+            maximumInterpreterStackDepth = cx.maximumInterpreterStackDepth;
+            wrapFactory = cx.wrapFactory;
+            debugger = cx.debugger;
+            debuggerData = cx.debuggerData;
+            propertyListeners = cx.propertyListeners;
+            applicationClassLoader = cx.applicationClassLoader;
+            javaToJSONConverter = cx.javaToJSONConverter;
+            activationNames = cx.activationNames == null ? null : new HashSet<>(cx.activationNames);
+            instructionThreshold = cx.instructionThreshold;
+            generateObserverCount = cx.generateObserverCount;
+            trackUnhandledPromiseRejections = cx.unhandledPromises.isEnabled();
+        }
+    }
+
+    /**
+     * Restore the settings this context had when it was created for the pool, and drop the state
+     * left by the scripts it ran. Return false if the context cannot be reused because it was
+     * sealed or unsealed in the meantime.
+     */
+    private boolean resetForPool() {
+        PooledSettings settings = pooledSettings;
+        if (sealed != settings.sealed || sealKey != settings.sealKey) {
+            return false;
+        }
+        version = settings.version;
+        // Settings are rarely changed while a context is entered, so only those that were are
+        // written back
+        if (securityController != settings.securityController) {
+            securityController = settings.securityController;
+        }
+        if (hasClassShutter != settings.hasClassShutter) {
+            synchronized (this) {
+                hasClassShutter = settings.hasClassShutter;
+                classShutter = settings.classShutter;
+            }
+        }
+        if (errorReporter != settings.errorReporter) {
+            errorReporter = settings.errorReporter;
+        }
+        if (regExpProxy != settings.regExpProxy) {
+            regExpProxy = settings.regExpProxy;
+        }
+        if (locale != settings.locale) {
+            locale = settings.locale;
+        }
+        if (timezone != settings.timezone) {
+            timezone = settings.timezone;
+        }
+        generatingDebug = settings.generatingDebug;
+        generatingDebugChanged = settings.generatingDebugChanged;
+        generatingSource = settings.generatingSource;
+        useDynamicScope = settings.useDynamicScope;
+        interpretedMode = settings.interpretedMode;
+        maximumInterpreterStackDepth = settings.maximumInterpreterStackDepth;
+        if (wrapFactory != settings.wrapFactory) {
+            wrapFactory = settings.wrapFactory;
+        }
+        if (debugger != settings.debugger || debuggerData != settings.debuggerData) {
+            debugger = settings.debugger;
+            debuggerData = settings.debuggerData;
+        }
+        if (propertyListeners != settings.propertyListeners) {
+            propertyListeners = settings.propertyListeners;
+        }
+        if (applicationClassLoader != settings.applicationClassLoader) {
+            applicationClassLoader = settings.applicationClassLoader;
+        }
+        if (javaToJSONConverter != settings.javaToJSONConverter) {
+            javaToJSONConverter = settings.javaToJSONConverter;
+        }
+        if (activationNames != null || settings.activationNames != null) {
+            activationNames =
+                    settings.activationNames == null
+                            ? null
+                            : new HashSet<>(settings.activationNames);
+        }
+        instructionThreshold = settings.instructionThreshold;
+        generateObserverCount = settings.generateObserverCount;
+        unhandledPromises.enable(settings.trackUnhandledPromiseRejections);
+        unhandledPromises.clear();
+
+        topCallScope = null;
+        isContinuationsTopCall = false;
+        currentActivationCall = null;
+        cachedXMLLib = null;
+        typeErrorThrower = null;
+        iterating = null;
+        interpreterSecurityDomain = null;
+        lastInterpreterFrame = null;
+        instructionCount = 0;
+        scratchUint32 = 0;
+        scratchScriptable = null;
+        isTopLevelStrict = false;
+        if (threadLocalMap != null) {
+            threadLocalMap.clear();
+        }
+        microtasks.clear();
+        return true;
     }
 
     /**
@@ -602,6 +826,18 @@ public class Context implements Closeable {
 
     /** The method implements {@link ContextFactory#call(ContextAction)} logic. */
     static <T> T call(ContextFactory factory, ContextAction<T> action) {
+        if (ScopedContext.ENABLED && getCurrentContext() == null) {
+            Context cx = prepareContext(null, factory);
+            cx.scopedEntry = true;
+            ++cx.enterCount;
+            try {
+                return ScopedContext.call(cx, action);
+            } finally {
+                if (--cx.enterCount == 0) {
+                    releaseContext(cx);
+                }
+            }
+        }
         try (Context cx = enter(null, factory)) {
             return action.run(cx);
         }
@@ -2226,7 +2462,7 @@ public class Context implements Closeable {
      * @param key the key used to index the value
      * @param value the value to save
      */
-    public final synchronized void putThreadLocal(Object key, Object value) {
+    public final void putThreadLocal(Object key, Object value) {
         if (sealed) onSealedMutation();
         if (threadLocalMap == null) threadLocalMap = new HashMap<>();
         threadLocalMap.put(key, value);
@@ -2579,6 +2815,24 @@ public class Context implements Closeable {
             compilerEnvironProcessor.accept(compilerEnv);
         }
 
+        ScriptCache cache = factory.getScriptCache();
+        ScriptCache.Key cacheKey = null;
+        if (cache != null
+                && !returnFunction
+                && compiler == null
+                && compilationErrorReporter == compilerEnv.getErrorReporter()
+                && compilerEnvironProcessor == null
+                && debugger == null
+                && activationNames == null) {
+            cacheKey =
+                    new ScriptCache.Key(
+                            sourceString, sourceName, lineno, securityDomain, compilerEnv);
+            Script cached = cache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         ScriptNode tree =
                 parse(
                         sourceString,
@@ -2628,6 +2882,9 @@ public class Context implements Closeable {
             result = compiler.createFunctionObject(this, scope, bytecode, securityDomain);
         } else {
             result = compiler.createScriptObject(bytecode, securityDomain);
+            if (cacheKey != null) {
+                cache.put(cacheKey, (Script) result);
+            }
         }
 
         return result;
@@ -2703,6 +2960,14 @@ public class Context implements Closeable {
         Context cx = getCurrentContext();
         if (cx == null) return null;
         if (cx.lastInterpreterFrame != null) {
+            if (JSDescriptor.isAnyCodeReplaced() && cx.hasFeature(FEATURE_TIERED_COMPILATION)) {
+                // A function compiled from interpreted code may run above the last interpreter
+                // frame
+                String sourceName = getSourcePositionAboveInterpreter(linep);
+                if (sourceName != null) {
+                    return sourceName;
+                }
+            }
             Evaluator evaluator = createInterpreter();
             if (evaluator != null) return evaluator.getSourcePositionFromStack(cx, linep);
         }
@@ -2722,6 +2987,21 @@ public class Context implements Closeable {
         return null;
     }
 
+    private static String getSourcePositionAboveInterpreter(int[] linep) {
+        String interpreterClassName = Interpreter.class.getName();
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        for (StackTraceElement e : stack) {
+            if (e.getClassName().equals(interpreterClassName)) {
+                break;
+            }
+            if (frameMatches(e)) {
+                linep[0] = e.getLineNumber();
+                return e.getFileName();
+            }
+        }
+        return null;
+    }
+
     private static boolean frameMatches(StackTraceElement e) {
         return (e.getFileName() == null || !e.getFileName().endsWith(".java"))
                 && e.getLineNumber() > 0;
@@ -2834,6 +3114,8 @@ public class Context implements Closeable {
     Debugger debugger;
     private Object debuggerData;
     private int enterCount;
+    private boolean scopedEntry;
+    private PooledSettings pooledSettings;
     private Object propertyListeners;
     private Map<Object, Object> threadLocalMap;
     private ClassLoader applicationClassLoader;
@@ -2848,6 +3130,9 @@ public class Context implements Closeable {
     // etc. Previous frames can all be derived from this.
     Object lastInterpreterFrame;
 
+    // Stack arrays of returned interpreter frames, kept for reuse by the interpreter
+    Object interpreterStackPool;
+
     // For instruction counting (interpreter only)
     int instructionCount;
     int instructionThreshold;
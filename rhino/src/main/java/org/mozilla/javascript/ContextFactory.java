@@ -10,6 +10,7 @@ package org.mozilla.javascript;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.mozilla.javascript.config.RhinoConfig;
 
 /**
@@ -108,6 +109,12 @@ import org.mozilla.javascript.config.RhinoConfig;
 public class ContextFactory {
     private static final boolean useThreadSafeObjectsByDefault =
             RhinoConfig.get("rhino.useThreadSafeObjectsByDefault", false);
+    private static final boolean useSharedShapesByDefault =
+            RhinoConfig.get("rhino.useSharedShapesByDefault", false);
+    private static final boolean useLinearRegExpByDefault =
+            RhinoConfig.get("rhino.useLinearRegExpByDefault", false);
+    private static final boolean useTieredCompilationByDefault =
+            RhinoConfig.get("rhino.useTieredCompilationByDefault", false);
 
     private static volatile boolean hasCustomGlobal;
     private static ContextFactory global = new ContextFactory();
@@ -118,6 +125,9 @@ public class ContextFactory {
     private volatile Object listeners;
     private boolean disabledListening;
     private ClassLoader applicationClassLoader;
+    private volatile ScriptCache scriptCache;
+    private volatile RegExpCache regExpCache;
+    private volatile AtomicReferenceArray<Context> contextPool;
 
     /** Listener of {@link Context} creation and release events. */
     public interface Listener {
@@ -294,6 +304,15 @@ public class ContextFactory {
 
             case Context.FEATURE_INTL_402:
                 return false;
+
+            case Context.FEATURE_SHARED_SHAPES:
+                return useSharedShapesByDefault;
+
+            case Context.FEATURE_LINEAR_REGEXP:
+                return useLinearRegExpByDefault;
+
+            case Context.FEATURE_TIERED_COMPILATION:
+                return useTieredCompilationByDefault;
         }
         // It is a bug to call the method with unknown featureIndex
         throw new IllegalArgumentException(String.valueOf(featureIndex));
@@ -341,6 +360,123 @@ public class ContextFactory {
         this.applicationClassLoader = loader;
     }
 
+    /**
+     * Return the cache of compiled scripts used by contexts of this factory, or null if scripts
+     * are not cached.
+     *
+     * @see #setScriptCache(ScriptCache)
+     * @since 1.9.1
+     */
+    public final ScriptCache getScriptCache() {
+        return scriptCache;
+    }
+
+    /**
+     * Set a cache for the scripts compiled by {@link Context#compileString} and {@link
+     * Context#compileReader}. Compiling the same source with the same settings again then returns
+     * the cached script without parsing or generating code. Compilations that use a debugger, a
+     * custom error reporter or a {@code Consumer<CompilerEnvirons>} are never cached, and warnings
+     * are only reported the first time a script is compiled.
+     *
+     * @param cache the cache, or null to disable caching
+     * @since 1.9.1
+     */
+    public final void setScriptCache(ScriptCache cache) {
+        checkNotSealed();
+        this.scriptCache = cache;
+    }
+
+    /**
+     * Return the cache of compiled regular expressions shared by contexts of this factory, or null
+     * if regular expressions are not cached.
+     *
+     * @see #setRegExpCache(RegExpCache)
+     * @since 1.9.1
+     */
+    public final RegExpCache getRegExpCache() {
+        return regExpCache;
+    }
+
+    /**
+     * Set a cache for the regular expressions compiled by contexts of this factory, so that a
+     * regular expression with the same source and flags is only compiled once.
+     *
+     * @param cache the cache, or null to disable caching
+     * @since 1.9.1
+     */
+    public final void setRegExpCache(RegExpCache cache) {
+        checkNotSealed();
+        this.regExpCache = cache;
+    }
+
+    /**
+     * Return the maximum number of idle contexts kept for reuse, or 0 if contexts are not pooled.
+     *
+     * @see #setContextPoolSize(int)
+     * @since 1.9.1
+     */
+    public final int getContextPoolSize() {
+        AtomicReferenceArray<Context> pool = contextPool;
+        return pool == null ? 0 : pool.length();
+    }
+
+    /**
+     * Keep up to "size" idle contexts for reuse. When a thread enters a context through {@link
+     * #enterContext()} or {@link #call(ContextAction)} and has none, it then takes one from the
+     * pool before making a new one with {@link #makeContext()}, and the context returns to the
+     * pool when the thread exits it.
+     *
+     * <p>A context returned to the pool is reset to the settings it had once it was made and
+     * passed to {@link #onContextCreated(Context)}: the language version, error reporter, wrap
+     * factory, instruction threshold, class shutter and the other settings changed through the
+     * setters of Context are restored, and its thread locals, pending microtasks and the state of
+     * RegExp and the interpreter are dropped. {@link #onContextCreated(Context)} is only called
+     * when a context is made, while {@link #onContextReleased(Context)} is called each time one is
+     * exited, before it is reset; subclasses of Context that keep their own state should reset it
+     * there. A context that was sealed or unsealed while it was entered is not pooled.
+     *
+     * <p>Because a pooled context is reused by other threads, an application must not keep a
+     * reference to a context after exiting it. Contexts passed to {@link #enterContext(Context)}
+     * are never pooled.
+     *
+     * @param size the maximum number of idle contexts, or 0 to disable pooling
+     * @since 1.9.1
+     */
+    public final void setContextPoolSize(int size) {
+        checkNotSealed();
+        if (size < 0) {
+            throw new IllegalArgumentException("size < 0");
+        }
+        // Idle contexts of the previous pool are dropped
+        contextPool = size == 0 ? null : new AtomicReferenceArray<>(size);
+    }
+
+    /** Take an idle context from the pool, or return null if there is none. */
+    final Context pollPooledContext() {
+        AtomicReferenceArray<Context> pool = contextPool;
+        if (pool != null) {
+            for (int i = 0; i != pool.length(); i++) {
+                Context cx = pool.get(i);
+                if (cx != null && pool.compareAndSet(i, cx, null)) {
+                    return cx;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Return a context that was reset to the pool, unless it is full. */
+    final void recyclePooledContext(Context cx) {
+        AtomicReferenceArray<Context> pool = contextPool;
+        if (pool != null) {
+            for (int i = 0; i != pool.length(); i++) {
+                if (pool.get(i) == null && pool.compareAndSet(i, null, cx)) {
+                    return;
+                }
+            }
+        }
+    }
+
     /**
      * Execute top call to script or function. When the runtime is about to execute a script or
      * function that will create the first stack frame with scriptable code, it calls this method to
@@ -445,6 +581,10 @@ public class ContextFactory {
      * will be called to construct new Context instance. The instance will be temporary associated
      * with the thread during call to {@link ContextAction#run(Context)}.
      *
+     * <p>If the property {@code rhino.useScopedContext} is true and the Java runtime provides
+     * {@code java.lang.ScopedValue}, the new instance is bound with a ScopedValue rather than a
+     * ThreadLocal, which suits applications that run each script on its own virtual thread.
+     *
      * @see ContextFactory#call(ContextAction)
      * @see Context#call(ContextFactory factory, Callable callable, Scriptable scope, Scriptable
      *     thisObj, Object[] args)
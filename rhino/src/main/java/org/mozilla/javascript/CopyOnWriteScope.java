@@ -0,0 +1,108 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+/**
+ * A top-level scope for one script run that lays itself over a shared top-level scope. The global
+ * variables of the shared scope can be read through this scope as if they were its own, but
+ * everything a script writes to a global variable, whether the variable exists in the shared scope
+ * or not, is stored in this scope only. The shared scope stays unchanged, so one shared scope can
+ * serve many runs of scripts, also on different threads.
+ *
+ * <p>Reading a global variable first looks at the properties of this scope and then directly at the
+ * shared scope, without walking a prototype chain and without locking this scope. The properties
+ * of this scope are kept in a map that is only created when a script writes the first one, and that
+ * never locks, so an instance of this class must only be used by one thread at a time. Reads from
+ * the shared scope lock only if the map of the shared scope does; the scopes created by {@link
+ * StandardObjectsSnapshot#newScope(Context)} read from a shared scope that does not.
+ *
+ * <p>The shared scope is the prototype of this scope, so that values that the embedding associated
+ * with the shared scope are found through this scope. Read-only properties and setters of the
+ * shared scope behave as they would on the prototype of an object: writing to a read-only
+ * property is ignored or, in strict mode, reported, and writing to a property with a setter calls
+ * the setter. Reading a property of the shared scope that refers to the shared scope itself, like
+ * {@code globalThis}, returns this scope instead. Deleting a property only deletes a property of
+ * this scope; a property of the shared scope with the same name becomes visible again.
+ *
+ * <p>If the shared scope is a {@link TopLevel} with cached built-in constructors, this scope uses
+ * the same cache.
+ *
+ * @since 1.9.1
+ */
+public class CopyOnWriteScope extends TopLevel {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ScriptableObject shared;
+
+    /**
+     * Create a scope that reads the global variables of the given shared scope and keeps those
+     * that scripts write to itself.
+     *
+     * @param shared the shared top-level scope, which must not be used for anything else while
+     *     scripts run in this scope if it is not sealed
+     */
+    public CopyOnWriteScope(ScriptableObject shared) {
+        this.shared = shared;
+        setMap(SlotMapOwner.EMPTY_SLOT_MAP);
+        setPrototype(shared);
+        setParentScope(null);
+        if (shared instanceof TopLevel) {
+            copyBuiltins((TopLevel) shared);
+        }
+    }
+
+    /** Return the shared scope that this scope reads from. */
+    public ScriptableObject getSharedScope() {
+        return shared;
+    }
+
+    @Override
+    public boolean has(String name, Scriptable start) {
+        return getMap().query(name, 0) != null || shared.has(name, start);
+    }
+
+    @Override
+    public Object get(String name, Scriptable start) {
+        Slot slot = getMap().query(name, 0);
+        if (slot != null) {
+            return slot.getValue(start);
+        }
+        Object value = shared.get(name, start);
+        return value == shared ? this : value;
+    }
+
+    @Override
+    protected boolean putOwnProperty(String name, Scriptable start, Object value, boolean isThrow) {
+        if (start == this && getMap().query(name, 0) == null) {
+            // Read-only properties and setters of the shared scope are honored, as for a
+            // prototype; the value of any other property is copied on write.
+            Slot sharedSlot = shared.getMap().query(name, 0);
+            if (sharedSlot != null && sharedSlot.setValue(value, shared, start, isThrow)) {
+                return true;
+            }
+        }
+        return super.putOwnProperty(name, start, value, isThrow);
+    }
+
+    @Override
+    public int getAttributes(String name) {
+        if (getMap().query(name, 0) == null && shared.has(name, shared)) {
+            return shared.getAttributes(name);
+        }
+        return super.getAttributes(name);
+    }
+
+    @Override
+    protected DescriptorInfo getOwnPropertyDescriptor(Context cx, Object id) {
+        DescriptorInfo desc = super.getOwnPropertyDescriptor(cx, id);
+        if (desc == null && id instanceof String && shared.has((String) id, shared)) {
+            return shared.getOwnPropertyDescriptor(cx, id);
+        }
+        return desc;
+    }
+}
@@ -10,6 +10,8 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Base class for native object implementation that uses IdFunctionObject to export its methods to
@@ -36,7 +38,9 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
 
         private IdScriptableObject obj;
         private int maxId;
-        private Object[] valueArray;
+        // Values are published with release semantics once their name and attributes are set, so
+        // that initialized values can be read without locking.
+        private volatile AtomicReferenceArray<Object> valueArray;
         private short[] attributeArray;
 
         // The following helps to avoid the creation of valueArray during runtime
@@ -99,7 +103,7 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
         }
 
         private void initSlot(int id, Object name, Object value, int attributes) {
-            Object[] array = valueArray;
+            AtomicReferenceArray<Object> array = valueArray;
             if (array == null) throw new IllegalStateException();
 
             if (value == null) {
@@ -107,13 +111,15 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
             }
             int index = (id - 1) * SLOT_SPAN;
             synchronized (this) {
-                Object value2 = array[index];
+                Object value2 = array.get(index);
                 if (value2 == null) {
-                    array[index] = value;
-                    array[index + NAME_SLOT] = name;
+                    array.lazySet(index + NAME_SLOT, name);
                     attributeArray[id - 1] = (short) attributes;
+                    array.lazySet(index, value);
                 } else {
-                    if (!name.equals(array[index + NAME_SLOT])) throw new IllegalStateException();
+                    if (!name.equals(array.get(index + NAME_SLOT))) {
+                        throw new IllegalStateException();
+                    }
                 }
             }
         }
@@ -146,13 +152,13 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
         }
 
         final boolean has(int id) {
-            Object[] array = valueArray;
+            AtomicReferenceArray<Object> array = valueArray;
             if (array == null) {
                 // Not yet initialized, assume all exists
                 return true;
             }
             int valueSlot = (id - 1) * SLOT_SPAN;
-            Object value = array[valueSlot];
+            Object value = array.get(valueSlot);
             if (value == null) {
                 // The particular entry has not been yet initialized
                 return true;
@@ -179,11 +185,11 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
                     }
                     int valueSlot = (id - 1) * SLOT_SPAN;
                     synchronized (this) {
-                        valueArray[valueSlot] = value;
+                        valueArray.set(valueSlot, value);
                     }
                 } else {
                     int nameSlot = (id - 1) * SLOT_SPAN + NAME_SLOT;
-                    Object name = valueArray[nameSlot];
+                    Object name = valueArray.get(nameSlot);
                     if (name instanceof Symbol) {
                         if (start instanceof SymbolScriptable) {
                             ((SymbolScriptable) start).put((Symbol) name, start, value);
@@ -205,10 +211,10 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
                     int nameSlot = (id - 1) * SLOT_SPAN + NAME_SLOT;
 
                     String name = null;
-                    if (valueArray[nameSlot] instanceof String)
-                        name = (String) valueArray[nameSlot];
-                    else if (valueArray[nameSlot] instanceof Symbol) {
-                        name = valueArray[nameSlot].toString();
+                    Object key = valueArray.get(nameSlot);
+                    if (key instanceof String) name = (String) key;
+                    else if (key instanceof Symbol) {
+                        name = key.toString();
                     }
                     throw ScriptRuntime.typeErrorById(
                             "msg.delete.property.with.configurable.false", name);
@@ -216,7 +222,7 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
             } else {
                 int valueSlot = (id - 1) * SLOT_SPAN;
                 synchronized (this) {
-                    valueArray[valueSlot] = NOT_FOUND;
+                    valueArray.set(valueSlot, NOT_FOUND);
                     attributeArray[id - 1] = EMPTY;
                 }
             }
@@ -243,7 +249,7 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
                 if (getAll || (attributeArray[id - 1] & DONTENUM) == 0) {
                     if (value != NOT_FOUND) {
                         int nameSlot = (id - 1) * SLOT_SPAN + NAME_SLOT;
-                        Object name = valueArray[nameSlot];
+                        Object name = valueArray.get(nameSlot);
                         if (name instanceof String) {
                             if (names == null) {
                                 names = new Object[maxId];
@@ -277,19 +283,19 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
         }
 
         private Object ensureId(int id) {
-            Object[] array = valueArray;
-            synchronized (this) {
-                if (array == null) {
+            AtomicReferenceArray<Object> array = valueArray;
+            if (array == null) {
+                synchronized (this) {
                     array = valueArray;
                     if (array == null) {
-                        array = new Object[maxId * SLOT_SPAN];
-                        valueArray = array;
                         attributeArray = new short[maxId];
+                        array = new AtomicReferenceArray<>(maxId * SLOT_SPAN);
+                        valueArray = array;
                     }
                 }
             }
             int valueSlot = (id - 1) * SLOT_SPAN;
-            Object value = array[valueSlot];
+            Object value = array.get(valueSlot);
             if (value == null) {
                 if (id == constructorId) {
                     initSlot(constructorId, "constructor", constructor, constructorAttrs);
@@ -297,7 +303,7 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
                 } else {
                     obj.initPrototypeId(id);
                 }
-                value = array[valueSlot];
+                value = array.get(valueSlot);
                 if (value == null) {
                     throw new IllegalStateException(
                             obj.getClass().getName()
@@ -742,6 +748,16 @@ public abstract class IdScriptableObject extends ScriptableObject implements IdF
         return prototypeValues != null;
     }
 
+    /** Initialize all values of the prototype map, if there is one, and add them to "values". */
+    final void initAllPrototypeIds(Collection<Object> values) {
+        PrototypeValues pv = prototypeValues;
+        if (pv != null) {
+            for (int id = 1; id <= pv.getMaxId(); id++) {
+                values.add(pv.ensureId(id));
+            }
+        }
+    }
+
     public final void activatePrototypeMap(int maxPrototypeId) {
         PrototypeValues values = new PrototypeValues(this, maxPrototypeId);
         synchronized (this) {
@@ -10,6 +10,7 @@ import static org.mozilla.javascript.UniqueTag.DOUBLE_MARK;
 
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -36,6 +37,59 @@ public final class Interpreter extends Icode implements Evaluator {
     //            exception local and scope local
     static final int EXCEPTION_SLOT_SIZE = 6;
 
+    /**
+     * The stack arrays of interpreted calls that have returned, kept by each Context for the next
+     * call at the same depth of the interpreter stack. Recursive and call-heavy scripts then reuse
+     * the same arrays instead of allocating new ones for every call. The arrays of a frame are only
+     * kept if nothing can refer to them after the call has returned: not if the frame was captured
+     * by a continuation or shares its arrays with a generator, and not if it is debugged.
+     */
+    static final class StackPool {
+        // Calls deeper than this allocate their arrays as usual
+        private static final int MAX_DEPTH = 1024;
+
+        Object[][] stacks = new Object[16][];
+        byte[][] attributes = new byte[16][];
+        double[][] doubles = new double[16][];
+
+        static StackPool of(Context cx) {
+            StackPool pool = (StackPool) cx.interpreterStackPool;
+            if (pool == null) {
+                pool = new StackPool();
+                cx.interpreterStackPool = pool;
+            }
+            return pool;
+        }
+
+        boolean has(int depth, int length) {
+            if (depth >= stacks.length) {
+                return false;
+            }
+            Object[] stack = stacks[depth];
+            return stack != null && stack.length == length;
+        }
+
+        void release(CallFrame frame) {
+            int depth = frame.frameIndex;
+            if (depth >= stacks.length) {
+                if (depth >= MAX_DEPTH) {
+                    return;
+                }
+                int newLength = Math.min(MAX_DEPTH, Math.max(depth + 1, stacks.length * 2));
+                stacks = Arrays.copyOf(stacks, newLength);
+                attributes = Arrays.copyOf(attributes, newLength);
+                doubles = Arrays.copyOf(doubles, newLength);
+            }
+            // Values are cleared so that they can be collected; doubles are only read where the
+            // stack holds DOUBLE_MARK
+            Arrays.fill(frame.stack, null);
+            Arrays.fill(frame.stackAttributes, (byte) ScriptableObject.EMPTY);
+            stacks[depth] = frame.stack;
+            attributes[depth] = frame.stackAttributes;
+            doubles[depth] = frame.sDbl;
+        }
+    }
+
     /** Class to hold data corresponding to one interpreted call stack frame. */
     private static class CallFrame implements Cloneable, Serializable {
         private static final long serialVersionUID = -2843792508994958978L;
@@ -64,6 +118,8 @@ public final class Interpreter extends Icode implements Evaluator {
         final Object[] stack;
         final byte[] stackAttributes;
         final double[] sDbl;
+        // If true, another frame uses the same stack arrays, which must not be reused
+        boolean sharesStack;
 
         final CallFrame varSource; // defaults to this unless continuation frame
         final short emptyStackTop;
@@ -105,9 +161,24 @@ public final class Interpreter extends Icode implements Evaluator {
             int maxFrameArray = idata.itsMaxFrameArray;
             if (maxFrameArray != emptyStackTop + idata.itsMaxStack + 1) Kit.codeBug();
 
-            stack = new Object[maxFrameArray];
-            stackAttributes = new byte[maxFrameArray];
-            sDbl = new double[maxFrameArray];
+            frameIndex = (short) ((parentFrame == null) ? 0 : parentFrame.frameIndex + 1);
+            if (frameIndex > cx.getMaximumInterpreterStackDepth()) {
+                throw Context.reportRuntimeError("Exceeded maximum stack depth");
+            }
+
+            StackPool pool = StackPool.of(cx);
+            if (pool.has(frameIndex, maxFrameArray)) {
+                stack = pool.stacks[frameIndex];
+                stackAttributes = pool.attributes[frameIndex];
+                sDbl = pool.doubles[frameIndex];
+                pool.stacks[frameIndex] = null;
+                pool.attributes[frameIndex] = null;
+                pool.doubles[frameIndex] = null;
+            } else {
+                stack = new Object[maxFrameArray];
+                stackAttributes = new byte[maxFrameArray];
+                sDbl = new double[maxFrameArray];
+            }
 
             this.fnOrScript = fnOrScript;
             varSource = this;
@@ -123,10 +194,6 @@ public final class Interpreter extends Icode implements Evaluator {
                 this.parentPC = parentFrame.pcSourceLineStart;
             }
             this.previousInterpreterFrame = previousInterpreterFrame;
-            frameIndex = (short) ((parentFrame == null) ? 0 : parentFrame.frameIndex + 1);
-            if (frameIndex > cx.getMaximumInterpreterStackDepth()) {
-                throw Context.reportRuntimeError("Exceeded maximum stack depth");
-            }
 
             // Initialize initial values of variables that change during
             // interpretation.
@@ -205,6 +272,8 @@ public final class Interpreter extends Icode implements Evaluator {
             stack = original.stack;
             stackAttributes = original.stackAttributes;
             sDbl = original.sDbl;
+            sharesStack = true;
+            original.sharesStack = true;
 
             frozen = keepFrozen;
             this.parentFrame = parentFrame;
@@ -2064,12 +2133,16 @@ public final class Interpreter extends Icode implements Evaluator {
                         addInstructionCount(cx, frame, 2);
                     }
                     int offset = getShort(iCode, frame.pc);
+                    int jumpPC = frame.pc;
                     if (offset != 0) {
                         // -1 accounts for pc pointing to jump opcode + 1
                         frame.pc += offset - 1;
                     } else {
                         frame.pc = frame.idata.longJumps.get(frame.pc);
                     }
+                    if (frame.pc < jumpPC && frame.idata.tierCountdown > 0) {
+                        countTowardsCompilation(cx, frame);
+                    }
                     if (instructionCounting) {
                         frame.pcPrevBranch = frame.pc;
                     }
@@ -2087,6 +2160,9 @@ public final class Interpreter extends Icode implements Evaluator {
                     newFrame = newFrame.cloneFrozen();
                 }
                 setCallResult(newFrame, frame.result, frame.resultDbl);
+                if (!frame.frozen && !frame.sharesStack && frame.debuggerFrame == null) {
+                    StackPool.of(cx).release(frame);
+                }
                 return new StateContinueResult(newFrame, state.indexReg);
             }
             return new StateBreakResult(frame);
@@ -3056,8 +3132,12 @@ public final class Interpreter extends Icode implements Evaluator {
             final double[] sDbl = frame.sDbl;
             Object lhs = stack[state.stackTop];
             if (lhs == DOUBLE_MARK) lhs = ScriptRuntime.wrapNumber(sDbl[state.stackTop]);
+            PropertySite site = findPropertySite(frame, lhs, state.stringReg);
             stack[state.stackTop] =
-                    ScriptRuntime.getObjectPropNoWarn(lhs, state.stringReg, cx, frame.scope);
+                    site != null
+                            ? site.get((NativeObject) lhs)
+                            : ScriptRuntime.getObjectPropNoWarn(
+                                    lhs, state.stringReg, cx, frame.scope);
             return null;
         }
     }
@@ -3069,8 +3149,11 @@ public final class Interpreter extends Icode implements Evaluator {
             final double[] sDbl = frame.sDbl;
             Object lhs = stack[state.stackTop];
             if (lhs == DOUBLE_MARK) lhs = ScriptRuntime.wrapNumber(sDbl[state.stackTop]);
+            PropertySite site = findPropertySite(frame, lhs, state.stringReg);
             stack[state.stackTop] =
-                    ScriptRuntime.getObjectProp(lhs, state.stringReg, cx, frame.scope);
+                    site != null
+                            ? site.get((NativeObject) lhs)
+                            : ScriptRuntime.getObjectProp(lhs, state.stringReg, cx, frame.scope);
             return null;
         }
     }
@@ -3102,12 +3185,106 @@ public final class Interpreter extends Icode implements Evaluator {
             if (rhs == DOUBLE_MARK) rhs = ScriptRuntime.wrapNumber(sDbl[state.stackTop]);
             Object lhs = stack[state.stackTop - 1];
             if (lhs == DOUBLE_MARK) lhs = ScriptRuntime.wrapNumber(sDbl[state.stackTop - 1]);
+            PropertySite site = findPropertySite(frame, lhs, state.stringReg);
+            if (site != null && site.proto == null) {
+                NativeObject obj = (NativeObject) lhs;
+                if (!obj.isSealed() && obj.isExtensible()) {
+                    ShapedSlotMap.getSlot(obj, site.index)
+                            .setValue(rhs, obj, obj, cx.isStrictMode());
+                    stack[--state.stackTop] = rhs;
+                    return null;
+                }
+            }
             stack[--state.stackTop] =
                     ScriptRuntime.setObjectProp(lhs, state.stringReg, rhs, cx, frame.scope);
             return null;
         }
     }
 
+    /**
+     * Return the cached location of the named property of "obj" for the property access at the
+     * current position in the bytecode, or null if the property cannot be read from a fixed slot.
+     *
+     * <p>Like the inline caches of compiled code, this works for plain objects that store their
+     * properties in a {@link ShapedSlotMap}, when the property is found on the object itself or on
+     * its immediate prototype. The first time an instruction finds such a property, the shape of
+     * the object and the index of the slot are stored for the instruction; later executions that
+     * see an object of the same shape read the slot directly instead of looking the name up. The
+     * cache has a slot for each position in the bytecode, and is only created for code that reads
+     * properties of such objects.
+     */
+    private static PropertySite findPropertySite(CallFrame frame, Object obj, String name) {
+        if (obj == null || obj.getClass() != NativeObject.class) {
+            return null;
+        }
+        NativeObject target = (NativeObject) obj;
+        Object shape = ShapedSlotMap.getShape(target);
+        if (shape == null) {
+            return null;
+        }
+        InterpreterData<?> idata = frame.idata;
+        Object[] sites = idata.propertySites;
+        if (sites != null) {
+            Object site = sites[frame.pc];
+            if (site instanceof PropertySite && ((PropertySite) site).matches(target, shape)) {
+                return (PropertySite) site;
+            }
+        }
+        PropertySite site = null;
+        int index = ShapedSlotMap.getSlotIndex(shape, name);
+        if (index >= 0) {
+            site = new PropertySite(shape, null, null, index);
+        } else {
+            Scriptable proto = target.getPrototype();
+            if (proto != null && proto.getClass() == NativeObject.class) {
+                Object protoShape = ShapedSlotMap.getShape((NativeObject) proto);
+                int protoIndex =
+                        protoShape == null ? -1 : ShapedSlotMap.getSlotIndex(protoShape, name);
+                if (protoIndex >= 0) {
+                    site = new PropertySite(shape, (NativeObject) proto, protoShape, protoIndex);
+                }
+            }
+        }
+        if (site != null) {
+            if (sites == null) {
+                sites = new Object[idata.itsICode.length];
+                idata.propertySites = sites;
+            }
+            sites[frame.pc] = site;
+        }
+        return site;
+    }
+
+    /**
+     * The shape of the objects that a property access saw last, and where the property is found
+     * for objects of that shape. Shapes are immutable, so an object that still has the same shape
+     * still has the property at the same index.
+     */
+    private static final class PropertySite {
+        final Object shape;
+        final NativeObject proto;
+        final Object protoShape;
+        final int index;
+
+        PropertySite(Object shape, NativeObject proto, Object protoShape, int index) {
+            this.shape = shape;
+            this.proto = proto;
+            this.protoShape = protoShape;
+            this.index = index;
+        }
+
+        boolean matches(NativeObject obj, Object objShape) {
+            return objShape == shape
+                    && (proto == null
+                            || (obj.getPrototype() == proto
+                                    && ShapedSlotMap.getShape(proto) == protoShape));
+        }
+
+        Object get(NativeObject obj) {
+            return ShapedSlotMap.getSlot(proto == null ? obj : proto, index).getValue(obj);
+        }
+    }
+
     private static class DoSetPropSuper extends InstructionClass {
         @Override
         NewState execute(Context cx, CallFrame frame, InterpreterState state, int op) {
@@ -3356,6 +3533,13 @@ public final class Interpreter extends Icode implements Evaluator {
             Object obj = stack[state.stackTop];
             if (obj == DOUBLE_MARK) obj = ScriptRuntime.wrapNumber(sDbl[state.stackTop]);
             // stringReg: property
+            PropertySite site = findPropertySite(frame, obj, state.stringReg);
+            if (site != null) {
+                NativeObject target = (NativeObject) obj;
+                stack[state.stackTop] =
+                        new ScriptRuntime.LookupResult(site.get(target), target, state.stringReg);
+                return null;
+            }
             stack[state.stackTop] =
                     ScriptRuntime.getPropAndThis(obj, state.stringReg, cx, frame.scope);
             return null;
@@ -3650,11 +3834,13 @@ public final class Interpreter extends Icode implements Evaluator {
                 }
             }
 
-            if (fun instanceof JSFunction
-                    && ((JSFunction) fun).getDescriptor().getCode() instanceof InterpreterData) {
+            // The code is read once, as it may be replaced by compiled code at any time
+            JSCode<?> code =
+                    fun instanceof JSFunction ? ((JSFunction) fun).getDescriptor().getCode() : null;
+            if (code instanceof InterpreterData) {
                 JSFunction ifun = (JSFunction) fun;
                 JSDescriptor desc = ifun.getDescriptor();
-                InterpreterData idata = (InterpreterData) desc.getCode();
+                InterpreterData idata = (InterpreterData) code;
                 if (frame.fnOrScript.getDescriptor().getSecurityDomain()
                         == desc.getSecurityDomain()) {
                     CallFrame callParentFrame = frame;
@@ -3734,23 +3920,71 @@ public final class Interpreter extends Icode implements Evaluator {
 
             frame.savedCallOp = op;
             frame.savedStackTop = state.stackTop;
-            stack[state.stackTop] =
-                    fun.call(
-                            cx,
-                            calleeScope,
-                            funThisObj,
-                            getArgsArray(
-                                    stack,
-                                    sDbl,
-                                    boundArgs,
-                                    blen,
-                                    state.stackTop + 1,
-                                    state.indexReg));
+            Object[] callArgs =
+                    getArgsArray(
+                            stack, sDbl, boundArgs, blen, state.stackTop + 1, state.indexReg);
+            if (fun instanceof NativeJavaMethod) {
+                stack[state.stackTop] =
+                        callJavaMethod(
+                                cx,
+                                frame,
+                                (NativeJavaMethod) fun,
+                                calleeScope,
+                                funThisObj,
+                                callArgs);
+            } else {
+                stack[state.stackTop] = fun.call(cx, calleeScope, funThisObj, callArgs);
+            }
 
             return null;
         }
     }
 
+    /**
+     * Call a Java method, using the direct call that was linked the last time this call site saw
+     * the same method and arguments of the same classes. The cache has a slot for each position in
+     * the bytecode, and is only created for code that calls Java methods.
+     */
+    private static Object callJavaMethod(
+            Context cx,
+            CallFrame frame,
+            NativeJavaMethod fun,
+            Scriptable scope,
+            Scriptable thisObj,
+            Object[] args) {
+        InterpreterData<?> idata = frame.idata;
+        Object[] sites = idata.javaCallSites;
+        if (sites == null) {
+            sites = new Object[idata.itsICode.length];
+            idata.javaCallSites = sites;
+        }
+        Object site = sites[frame.pc];
+        if (site instanceof JavaCallSite) {
+            NativeJavaMethod.DirectCall cached = ((JavaCallSite) site).get();
+            if (cached != null && cached.function == fun && cached.overload.matches(args)) {
+                return cached.invoke(cx, scope, thisObj, args);
+            }
+        }
+        NativeJavaMethod.DirectCall call = fun.findDirectCall(cx, args);
+        if (call == null) {
+            return fun.call(cx, scope, thisObj, args);
+        }
+        sites[frame.pc] = new JavaCallSite(call);
+        return call.invoke(cx, scope, thisObj, args);
+    }
+
+    /**
+     * The direct call last linked at a call site. It is held weakly, because the interpreter data
+     * may be shared by a script cache across scopes, and the call refers to its method, whose
+     * parent scope holds the class cache of that scope. The method holds its direct calls, so the
+     * call stays cached as long as the method is alive.
+     */
+    private static final class JavaCallSite extends WeakReference<NativeJavaMethod.DirectCall> {
+        JavaCallSite(NativeJavaMethod.DirectCall call) {
+            super(call);
+        }
+    }
+
     private static class DoNew extends InstructionClass {
         @Override
         NewState execute(Context cx, CallFrame frame, InterpreterState state, int op) {
@@ -3762,11 +3996,12 @@ public final class Interpreter extends Icode implements Evaluator {
             state.stackTop -= state.indexReg;
 
             Object lhs = frame.stack[state.stackTop];
-            if (lhs instanceof JSFunction
-                    && ((JSFunction) lhs).getConstructor() instanceof InterpreterData) {
+            JSCode<?> ctorCode =
+                    lhs instanceof JSFunction ? ((JSFunction) lhs).getConstructor() : null;
+            if (ctorCode instanceof InterpreterData) {
                 JSFunction f = (JSFunction) lhs;
                 JSDescriptor desc = f.getDescriptor();
-                InterpreterData idata = (InterpreterData) desc.getConstructor();
+                InterpreterData idata = (InterpreterData) ctorCode;
                 if (frame.fnOrScript.getDescriptor().getSecurityDomain()
                         == desc.getSecurityDomain()) {
                     if (cx.getLanguageVersion() >= Context.VERSION_ES6
@@ -4860,9 +5095,20 @@ public final class Interpreter extends Icode implements Evaluator {
         frame.initializeArgs(
                 cx, callerScope, args, argsDbl, boundArgs, argShift, argCount, homeObj);
         enterFrame(cx, frame, args, false);
+        if (code.tierCountdown > 0) {
+            countTowardsCompilation(cx, frame);
+        }
         return frame;
     }
 
+    /** Count a call or a loop iteration of a function that is compiled once it is hot. */
+    private static void countTowardsCompilation(Context cx, CallFrame frame) {
+        InterpreterData<?> idata = frame.idata;
+        if (--idata.tierCountdown == 0 && frame.fnOrScript instanceof JSFunction) {
+            TieredCompiler.compile(cx, (JSFunction) frame.fnOrScript, idata.tierLineno);
+        }
+    }
+
     private static void enterFrame(
             Context cx, CallFrame frame, Object[] args, boolean continuationRestart) {
         boolean usesActivation = frame.fnOrScript.getDescriptor().requiresActivationFrame();
@@ -80,6 +80,23 @@ final class InterpreterData<T extends ScriptOrFn<T>> extends JSCode<T> implement
 
     private int icodeHashCode = 0;
 
+    /** Call sites of Java methods, indexed by position in itsICode. Created on first use. */
+    transient Object[] javaCallSites;
+
+    /** Inline caches of named property accesses, indexed by position in itsICode. */
+    transient Object[] propertySites;
+
+    /**
+     * Calls and loop iterations left before this function is compiled to bytecode, or 0 if it is
+     * not compiled. See {@link TieredCompiler}. Threads sharing a cached script decrement this
+     * without synchronization. A lost decrement only delays compilation, and if two threads both
+     * reach zero, JSDescriptor.replaceInterpretedCode installs only one compiled version.
+     */
+    transient int tierCountdown;
+
+    /** Line number at which the source of this function starts, for compiling it to bytecode. */
+    int tierLineno;
+
     public int icodeHashCode() {
         int h = icodeHashCode;
         if (h == 0) {
@@ -142,6 +159,9 @@ final class InterpreterData<T extends ScriptOrFn<T>> extends JSCode<T> implement
 
         int firstLinePC = -1; // PC for the first LINE icode
 
+        int tierCountdown;
+        int tierLineno;
+
         public Builder() {
             itsICode = new byte[INITIAL_MAX_ICODE_LENGTH];
             itsStringTable = new String[INITIAL_STRINGTABLE_SIZE];
@@ -170,6 +190,8 @@ final class InterpreterData<T extends ScriptOrFn<T>> extends JSCode<T> implement
                                 literalIds,
                                 jumpMap,
                                 firstLinePC);
+                built.tierCountdown = tierCountdown;
+                built.tierLineno = tierLineno;
             }
             return built;
         }
@@ -2,8 +2,10 @@ package org.mozilla.javascript;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.mozilla.javascript.debug.DebuggableScript;
@@ -31,8 +33,10 @@ public final class JSDescriptor<T extends ScriptOrFn<T>> implements Serializable
     private static final int REQUIRES_ARGUMENT_OBJECT_FLAG = 1 << 11;
     private static final int DECLARED_AS_FUNCTION_EXPRESSION_FLAG = 1 << 12;
 
-    private final JSCode<T> code;
-    private final JSCode<T> constructor;
+    // Replaced by compiled code once when an interpreted function is compiled by the
+    // TieredCompiler; a thread may go on running the interpreted code for a while.
+    private volatile JSCode<T> code;
+    private volatile JSCode<T> constructor;
     private final JSDescriptor<?> parent;
     public List<JSDescriptor<JSFunction>> nestedFunctions;
     private final String[] paramAndVarNames;
@@ -51,6 +55,31 @@ public final class JSDescriptor<T extends ScriptOrFn<T>> implements Serializable
     private final Object securityDomain;
     private final int functionType;
 
+    // The flags that change how the code of a function sets up its frame and its arguments.
+    private static final int FRAME_FLAGS =
+            IS_STRICT_FLAG
+                    | IS_ES6_GENERATOR_FLAG
+                    | IS_SHORTHAND_FLAG
+                    | HAS_PROTOTYPE_FLAG
+                    | HAS_LEXICAL_THIS_FLAG
+                    | HAS_REST_ARG_FLAG
+                    | HAS_DEFAULT_PARAMETERS_FLAG
+                    | REQUIRES_ACTIVATION_FRAME_FLAG
+                    | REQUIRES_ARGUMENT_OBJECT_FLAG;
+
+    // Set once any interpreted code has been replaced, so that finding the source position of
+    // interpreted code only looks for compiled frames above it from then on.
+    private static volatile boolean anyCodeReplaced;
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<JSDescriptor, JSCode> CODE =
+            AtomicReferenceFieldUpdater.newUpdater(JSDescriptor.class, JSCode.class, "code");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<JSDescriptor, JSCode> CONSTRUCTOR =
+            AtomicReferenceFieldUpdater.newUpdater(
+                    JSDescriptor.class, JSCode.class, "constructor");
+
     public JSDescriptor(
             JSCode<T> code,
             JSCode<T> constructor,
@@ -126,6 +155,44 @@ public final class JSDescriptor<T extends ScriptOrFn<T>> implements Serializable
         return constructor;
     }
 
+    /**
+     * Run the code of "compiled", which was compiled from the source of this function, in place of
+     * the interpreted code of this function. This is only done if both are compiled for the same
+     * parameters, variables and frame, so that the function objects of this descriptor work with
+     * the new code, and only once.
+     *
+     * @return true if the code was replaced
+     */
+    boolean replaceInterpretedCode(JSDescriptor<T> compiled) {
+        JSCode<T> interpreted = code;
+        JSCode<T> interpretedConstructor = constructor;
+        if (!(interpreted instanceof InterpreterData)
+                || compiled.code instanceof InterpreterData
+                || (flags & FRAME_FLAGS) != (compiled.flags & FRAME_FLAGS)
+                || functionType != compiled.functionType
+                || paramCount != compiled.paramCount
+                || paramAndVarCount != compiled.paramAndVarCount
+                || !Arrays.equals(paramAndVarNames, compiled.paramAndVarNames)
+                || !Arrays.equals(paramIsConst, compiled.paramIsConst)
+                || (interpretedConstructor != interpreted && interpretedConstructor != null)
+                || (interpretedConstructor == null) != (compiled.constructor == null)) {
+            return false;
+        }
+        if (!CODE.compareAndSet(this, interpreted, compiled.code)) {
+            return false;
+        }
+        anyCodeReplaced = true;
+        if (compiled.constructor != null) {
+            CONSTRUCTOR.compareAndSet(this, interpreted, compiled.constructor);
+        }
+        return true;
+    }
+
+    /** Return true if the interpreted code of any descriptor has been replaced by compiled code. */
+    static boolean isAnyCodeReplaced() {
+        return anyCodeReplaced;
+    }
+
     public List<JSDescriptor<JSFunction>> getNestedFunctions() {
         return nestedFunctions;
     }
@@ -9,6 +9,9 @@ package org.mozilla.javascript;
 import static java.lang.reflect.Modifier.isProtected;
 import static java.lang.reflect.Modifier.isPublic;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -103,7 +106,7 @@ class JavaMembers {
             if (bean.getter == null) {
                 return Scriptable.NOT_FOUND;
             }
-            return bean.getter.call(cx, scope, scope, ScriptRuntime.emptyArgs);
+            return bean.get(cx, scope, javaObject);
         }
 
         var field = (NativeJavaField) member;
@@ -145,11 +148,7 @@ class JavaMembers {
             if (bp.setter == null) {
                 throw reportMemberNotFound(name);
             }
-            bp.setter.call(
-                    Context.getContext(),
-                    ScriptableObject.getTopLevelScope(scope),
-                    scope,
-                    new Object[] {value});
+            bp.set(Context.getContext(), scope, javaObject, value);
         } else if (member instanceof NativeJavaField) {
             var field = (NativeJavaField) member;
             var type = field.type();
@@ -673,6 +672,9 @@ class JavaMembers {
             // itself to pick the best one.
         }
 
+        for (var bean : beans.values()) {
+            bean.link();
+        }
         return beans;
     }
 
@@ -894,6 +896,11 @@ class JavaMembers {
 }
 
 final class BeanProperty {
+    private static final MethodType GETTER_TYPE =
+            MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE =
+            MethodType.methodType(void.class, Object.class, Object.class);
+
     BeanProperty(String name) {
         this.name = name;
     }
@@ -901,6 +908,84 @@ final class BeanProperty {
     final String name;
     NativeJavaMethod getter;
     NativeJavaMethod setter;
+
+    // Handles of type (Object)Object for the getter and (Object, Object)void for the setter, which
+    // ignore the receiver if the method is static. They are only set if the accessor is a single
+    // method that can be looked up publicly and, for the setter, whose parameter type does not
+    // depend on type variables. Otherwise "getter" and "setter" are called like other methods.
+    private MemberBox getterMember;
+    private MethodHandle getterHandle;
+    private MemberBox setterMember;
+    private MethodHandle setterHandle;
+
+    /** Build the accessor handles once "getter" and "setter" are final. */
+    void link() {
+        if (getter != null && getter.methods.length == 1) {
+            getterMember = getter.methods[0];
+            getterHandle = accessor(getterMember, GETTER_TYPE);
+        }
+        if (setter != null && setter.methods.length == 1) {
+            MemberBox m = setter.methods[0];
+            if (!m.vararg
+                    && m.getArgTypes().size() == 1
+                    && NativeJavaMethod.isFixedType(m.getArgTypes().get(0))) {
+                setterMember = m;
+                setterHandle = accessor(m, SETTER_TYPE);
+            }
+        }
+    }
+
+    private static MethodHandle accessor(MemberBox member, MethodType type) {
+        MethodHandle mh = member.methodHandle();
+        if (mh == null) {
+            return null;
+        }
+        if (member.isStatic()) {
+            mh = MethodHandles.dropArguments(mh, 0, Object.class);
+        }
+        return mh.asType(type);
+    }
+
+    private static boolean accepts(MemberBox member, Object javaObject) {
+        return member.isStatic() || member.getDeclaringClass().isInstance(javaObject);
+    }
+
+    Object get(Context cx, Scriptable scope, Object javaObject) {
+        if (getterHandle == null || !accepts(getterMember, javaObject)) {
+            return getter.call(cx, scope, scope, ScriptRuntime.emptyArgs);
+        }
+        Object result;
+        try {
+            result = (Object) getterHandle.invokeExact(javaObject);
+        } catch (ContinuationPending e) {
+            throw e;
+        } catch (Throwable e) {
+            throw Context.throwAsScriptRuntimeEx(e);
+        }
+        return cx.getWrapFactory().wrap(cx, scope, result, getterMember.getReturnType());
+    }
+
+    void set(Context cx, Scriptable scope, Object javaObject, Object value) {
+        if (setterHandle != null && accepts(setterMember, javaObject)) {
+            TypeInfo type = setterMember.getArgTypes().get(0);
+            // Leave values that cannot be converted to "setter", which reports the error
+            if (NativeJavaObject.canConvert(value, type)) {
+                Object arg = Context.jsToJava(value, type);
+                if (arg instanceof Delegator) {
+                    arg = ((Delegator) arg).getDelegee();
+                }
+                try {
+                    setterHandle.invokeExact(javaObject, arg);
+                } catch (ContinuationPending e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw Context.throwAsScriptRuntimeEx(e);
+                }
+                return;
+            }
+        }
+        setter.call(cx, ScriptableObject.getTopLevelScope(scope), scope, new Object[] {value});
+    }
 }
 
 class FieldAndMethods extends NativeJavaMethod {
@@ -38,9 +38,27 @@ interface LockAwareSlotMap extends SlotMap {
 
     void releaseLock(long lock);
 
+    /**
+     * Return a stamp for an optimistic read, or zero if the map is currently locked for writing.
+     * Obtaining the stamp does not write to the lock, so any number of threads may read the map
+     * this way without contending with each other.
+     */
+    long tryOptimisticRead();
+
+    /**
+     * Return true if the map has not been locked for writing since "stamp" was returned by {@link
+     * #tryOptimisticRead()}, which means that anything read since then is consistent.
+     */
+    boolean validate(long stamp);
+
     @Override
     default CompoundOperationMap startCompoundOp(SlotMapOwner owner, boolean forWriting) {
         long stamp = forWriting ? getWriteLock() : getReadLock();
         return new ThreadSafeCompoundOperationMap(owner, this, stamp);
     }
+
+    @Override
+    default CompoundOperationMap startOptimisticReadOp(SlotMapOwner owner) {
+        return new OptimisticReadOperationMap(owner, this);
+    }
 }
@@ -0,0 +1,99 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ScriptCache} that is bounded both in the number of scripts and in their total size,
+ * measured as the number of characters of source. When either bound is exceeded, the least
+ * recently used scripts are evicted. A script whose source is larger than the size bound on its
+ * own is not cached at all.
+ *
+ * @since 1.9.1
+ */
+public class LruScriptCache implements ScriptCache {
+
+    private final int maxEntries;
+    private final long maxSourceChars;
+    private final LinkedHashMap<Key, Script> entries;
+    private long sourceChars;
+    // A lock rather than a monitor, so that virtual threads waiting for it do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Create a cache.
+     *
+     * @param maxEntries the maximum number of scripts to keep
+     * @param maxSourceChars the maximum total length of the sources of the scripts to keep
+     */
+    public LruScriptCache(int maxEntries, long maxSourceChars) {
+        if (maxEntries <= 0 || maxSourceChars <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxEntries = maxEntries;
+        this.maxSourceChars = maxSourceChars;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Override
+    public Script get(Key key) {
+        lock.lock();
+        try {
+            return entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Key key, Script script) {
+        int weight = key.getSource().length();
+        if (weight > maxSourceChars) {
+            return;
+        }
+        lock.lock();
+        try {
+            Script old = entries.put(key, script);
+            if (old == null) {
+                sourceChars += weight;
+            }
+            Iterator<Map.Entry<Key, Script>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || sourceChars > maxSourceChars) && it.hasNext()) {
+                Key eldest = it.next().getKey();
+                it.remove();
+                sourceChars -= eldest.getSource().length();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            sourceChars = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Return the number of scripts currently in the cache. */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -10,6 +10,9 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
@@ -38,6 +41,11 @@ final class MemberBox implements Serializable {
     private transient NullabilityDetector.NullabilityAccessor argNullability;
     transient boolean vararg;
 
+    // The method as a handle, adapted to (Object target, Object[] args)Object, or null if it
+    // cannot be looked up publicly. Only valid if "invokerResolved" is set.
+    private transient volatile MethodHandle invoker;
+    private transient volatile boolean invokerResolved;
+
     transient Function asGetterFunction;
     transient Function asSetterFunction;
     transient Object delegateTo;
@@ -268,6 +276,47 @@ final class MemberBox implements Serializable {
         return asSetterFunction;
     }
 
+    /**
+     * Return a method handle for the method, or null if the method cannot be accessed using a
+     * public lookup. In that case, or for caller-sensitive methods, reflection must be used. If the
+     * method is public but its class is not, a public method that it implements is used instead.
+     */
+    MethodHandle methodHandle() {
+        Method method = method();
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            return lookup.unreflect(method).asFixedArity();
+        } catch (IllegalAccessException ex) {
+            Method accessible = searchAccessibleMethod(method, method.getParameterTypes());
+            if (accessible != null) {
+                try {
+                    return lookup.unreflect(accessible).asFixedArity();
+                } catch (IllegalAccessException ex2) {
+                    // fall through
+                }
+            }
+        }
+        return null;
+    }
+
+    private MethodHandle invoker() {
+        if (!invokerResolved) {
+            MethodHandle mh = methodHandle();
+            if (mh != null) {
+                int count = method().getParameterCount();
+                if (isStatic()) {
+                    mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                }
+                mh =
+                        mh.asType(MethodType.genericMethodType(count + 1))
+                                .asSpreader(Object[].class, count);
+            }
+            invoker = mh;
+            invokerResolved = true;
+        }
+        return invoker;
+    }
+
     Object invoke(Object target, Object[] args) {
         Method method = method();
 
@@ -283,6 +332,19 @@ final class MemberBox implements Serializable {
             }
         }
 
+        MethodHandle mh = invoker();
+        if (mh != null) {
+            Object[] actualArgs = args == null ? ScriptRuntime.emptyArgs : args;
+            try {
+                return mh.invokeExact(target, actualArgs);
+            } catch (ContinuationPending e) {
+                // Must allow ContinuationPending exceptions to propagate unhindered
+                throw e;
+            } catch (Throwable e) {
+                throw Context.throwAsScriptRuntimeEx(e);
+            }
+        }
+
         try {
             try {
                 return method.invoke(target, args);
@@ -221,11 +221,174 @@ public class NativeArray extends ScriptableObject implements List {
 
     public NativeArray(Object[] array) {
         denseOnly = true;
-        dense = array;
+        if (!storeNumbers(array)) {
+            dense = array;
+        }
         length = array.length;
         createLengthProp();
     }
 
+    /**
+     * Use numeric storage for "values" if they are all numbers, and return true, or return false
+     * if they must be stored as objects.
+     */
+    private boolean storeNumbers(Object[] values) {
+        if (values.length == 0) {
+            return false;
+        }
+        boolean allInts = true;
+        for (Object value : values) {
+            if (!(value instanceof Integer)) {
+                if (!(value instanceof Double)) {
+                    return false;
+                }
+                allInts = false;
+            }
+        }
+        if (allInts) {
+            ints = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                ints[i] = ((Integer) values[i]).intValue();
+            }
+        } else {
+            doubles = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                doubles[i] = ((Number) values[i]).doubleValue();
+            }
+        }
+        return true;
+    }
+
+    /** Return true if the elements are stored in {@code ints} or {@code doubles}. */
+    private boolean hasNumberStorage() {
+        return ints != null || doubles != null;
+    }
+
+    /**
+     * Move the elements from numeric storage to {@code dense}, before storing a value which is not
+     * a number, making a hole, or using code which only understands {@code dense}.
+     */
+    private void toObjectStorage() {
+        Object[] values;
+        if (ints != null) {
+            values = new Object[ints.length];
+            for (int i = 0; i < length; i++) {
+                values[i] = Integer.valueOf(ints[i]);
+            }
+            ints = null;
+        } else if (doubles != null) {
+            values = new Object[doubles.length];
+            for (int i = 0; i < length; i++) {
+                values[i] = Double.valueOf(doubles[i]);
+            }
+            doubles = null;
+        } else {
+            return;
+        }
+        Arrays.fill(values, (int) length, values.length, NOT_FOUND);
+        dense = values;
+    }
+
+    /**
+     * Return the element at "index" of a dense array, or NOT_FOUND if there is none. The index
+     * must not be negative.
+     */
+    private Object getDenseElement(int index) {
+        if (ints != null) {
+            return index < length ? Integer.valueOf(ints[index]) : NOT_FOUND;
+        } else if (doubles != null) {
+            return index < length ? Double.valueOf(doubles[index]) : NOT_FOUND;
+        }
+        return index < dense.length ? dense[index] : NOT_FOUND;
+    }
+
+    /**
+     * Store a number in numeric storage, replacing an element or appending one. Return false,
+     * without changing anything, if the value or index can't be stored there. An empty array
+     * starts to use numeric storage when a number is appended to it.
+     */
+    private boolean putNumber(int index, Object value) {
+        if (!isIntegerOrDouble(value)
+                || index < 0
+                || index > length
+                || isSealed()
+                || (index == length && !isExtensible())) {
+            return false;
+        }
+        if (!hasNumberStorage()) {
+            if (length != 0 || dense == null || !denseOnly) {
+                return false;
+            }
+            // The array is empty, so there is nothing to copy
+            if (value instanceof Integer) {
+                ints = new int[Math.max(dense.length, DEFAULT_INITIAL_CAPACITY)];
+            } else {
+                doubles = new double[Math.max(dense.length, DEFAULT_INITIAL_CAPACITY)];
+            }
+            dense = null;
+        }
+        if (ints != null && value instanceof Double) {
+            double[] values = new double[ints.length];
+            for (int i = 0; i < length; i++) {
+                values[i] = ints[i];
+            }
+            doubles = values;
+            ints = null;
+        }
+        int capacity = ints != null ? ints.length : doubles.length;
+        if (index == capacity) {
+            if (index >= MAX_PRE_GROW_SIZE) {
+                return false;
+            }
+            capacity = Math.max(index + 1, (int) (capacity * GROW_FACTOR));
+            if (ints != null) {
+                ints = Arrays.copyOf(ints, capacity);
+            } else {
+                doubles = Arrays.copyOf(doubles, capacity);
+            }
+        }
+        if (ints != null) {
+            ints[index] = ((Integer) value).intValue();
+        } else {
+            doubles[index] = ((Number) value).doubleValue();
+        }
+        if (index == length) {
+            length = (long) index + 1;
+            modCount++;
+        }
+        return true;
+    }
+
+    /**
+     * Return the element at "index" if it is stored in the dense part of this array, or NOT_FOUND
+     * if it must be looked up as a property. This is used by the linker for indexed reads.
+     */
+    public Object getDenseElementOrNotFound(int index) {
+        if (!denseOnly || index < 0) {
+            return NOT_FOUND;
+        }
+        return getDenseElement(index);
+    }
+
+    /**
+     * Replace the element at "index" if it is stored in the dense part of this array, and return
+     * true, or return false if the value must be stored as a property. This is used by the linker
+     * for indexed writes.
+     */
+    public boolean putExistingDenseElement(int index, Object value) {
+        if (!denseOnly || index < 0 || index >= length || isSealed()) {
+            return false;
+        }
+        if (hasNumberStorage()) {
+            return putNumber(index, value);
+        }
+        if (index >= dense.length || dense[index] == NOT_FOUND) {
+            return false;
+        }
+        dense[index] = value;
+        return true;
+    }
+
     @Override
     public String getClassName() {
         return "Array";
@@ -254,6 +417,11 @@ public class NativeArray extends ScriptableObject implements List {
 
     @Override
     public Object get(int index, Scriptable start) {
+        if (ints != null) {
+            return 0 <= index && index < length ? Integer.valueOf(ints[index]) : NOT_FOUND;
+        } else if (doubles != null) {
+            return 0 <= index && index < length ? Double.valueOf(doubles[index]) : NOT_FOUND;
+        }
         var slot = denseOnly ? null : getMap().query(null, index);
         if (!denseOnly && slot != null && slot.isSetterSlot()) return slot.getValue(start);
         if (dense != null && 0 <= index && index < dense.length) return dense[index];
@@ -262,6 +430,9 @@ public class NativeArray extends ScriptableObject implements List {
 
     @Override
     public boolean has(int index, Scriptable start) {
+        if (hasNumberStorage()) {
+            return 0 <= index && index < length;
+        }
         var slot = denseOnly ? null : getMap().query(null, index);
         if (slot != null) {
             return true;
@@ -313,6 +484,7 @@ public class NativeArray extends ScriptableObject implements List {
             // If the object is sealed, super will throw exception
             long index = toArrayIndex(id);
             if (index >= length) {
+                toObjectStorage();
                 length = index + 1;
                 modCount++;
                 denseOnly = false;
@@ -321,6 +493,7 @@ public class NativeArray extends ScriptableObject implements List {
     }
 
     private boolean ensureCapacity(int capacity) {
+        toObjectStorage();
         if (capacity > dense.length) {
             if (capacity > MAX_PRE_GROW_SIZE) {
                 denseOnly = false;
@@ -337,6 +510,12 @@ public class NativeArray extends ScriptableObject implements List {
 
     @Override
     public void put(int index, Scriptable start, Object value) {
+        if (start == this && denseOnly) {
+            if (putNumber(index, value)) {
+                return;
+            }
+            toObjectStorage();
+        }
         var slot = denseOnly ? null : getMap().query(null, index);
         if (start == this
                 && !isSealed()
@@ -376,6 +555,7 @@ public class NativeArray extends ScriptableObject implements List {
 
     @Override
     public void delete(int index) {
+        toObjectStorage();
         var slot = denseOnly ? null : getMap().query(null, index);
         if (dense != null
                 && 0 <= index
@@ -393,6 +573,7 @@ public class NativeArray extends ScriptableObject implements List {
     }
 
     public void deleteInternal(CompoundOperationMap compoundOp, int index) {
+        toObjectStorage();
         var slot = denseOnly ? null : compoundOp.query(null, index);
         if (dense != null
                 && 0 <= index
@@ -408,6 +589,15 @@ public class NativeArray extends ScriptableObject implements List {
     @Override
     public Object[] getIds(CompoundOperationMap map, boolean nonEnumerable, boolean getSymbols) {
         Object[] superIds = super.getIds(map, nonEnumerable, getSymbols);
+        if (hasNumberStorage()) {
+            // There are no holes
+            Object[] ids = new Object[(int) length + superIds.length];
+            for (int i = 0; i < length; i++) {
+                ids[i] = Integer.valueOf(i);
+            }
+            System.arraycopy(superIds, 0, ids, (int) length, superIds.length);
+            return ids;
+        }
         if (dense == null) {
             return superIds;
         }
@@ -468,6 +658,9 @@ public class NativeArray extends ScriptableObject implements List {
 
     @Override
     public int getAttributes(int index) {
+        if (hasNumberStorage() && index >= 0 && index < length) {
+            return EMPTY;
+        }
         if (dense != null && index >= 0 && index < dense.length && dense[index] != NOT_FOUND) {
             return EMPTY;
         }
@@ -476,11 +669,13 @@ public class NativeArray extends ScriptableObject implements List {
 
     @Override
     protected DescriptorInfo getOwnPropertyDescriptor(Context cx, Object id) {
-        if (dense != null) {
+        if (dense != null || hasNumberStorage()) {
             int index = toDenseIndex(id);
-            if (0 <= index && index < dense.length && dense[index] != NOT_FOUND) {
-                Object value = dense[index];
-                return defaultIndexPropertyDescriptor(value);
+            if (0 <= index) {
+                Object value = getDenseElement(index);
+                if (value != NOT_FOUND) {
+                    return defaultIndexPropertyDescriptor(value);
+                }
             }
         }
         return super.getOwnPropertyDescriptor(cx, id);
@@ -490,6 +685,9 @@ public class NativeArray extends ScriptableObject implements List {
     protected boolean defineOwnProperty(
             Context cx, Object id, DescriptorInfo desc, boolean checkValid) {
         long index = toArrayIndex(id);
+        if (index != -1) {
+            toObjectStorage();
+        }
         if (index >= length) {
             length = index + 1;
             modCount++;
@@ -776,6 +974,9 @@ public class NativeArray extends ScriptableObject implements List {
      */
     void setDenseOnly(boolean denseOnly) {
         if (denseOnly && !this.denseOnly) throw new IllegalArgumentException();
+        if (!denseOnly) {
+            toObjectStorage();
+        }
         this.denseOnly = denseOnly;
     }
 
@@ -801,6 +1002,16 @@ public class NativeArray extends ScriptableObject implements List {
             throw ScriptRuntime.rangeError(msg);
         }
 
+        if (hasNumberStorage()) {
+            if (longVal <= length) {
+                // Elements at and above length are ignored
+                length = longVal;
+                modCount++;
+                return true;
+            }
+            // Growing the array makes holes
+            toObjectStorage();
+        }
         if (denseOnly) {
             if (longVal < length) {
                 // downcast okay because denseOnly
@@ -1086,13 +1297,11 @@ public class NativeArray extends ScriptableObject implements List {
                     if (i != 0) {
                         sb.append(separator);
                     }
-                    if (i < na.dense.length) {
-                        Object temp = na.dense[i];
-                        if (temp != null
-                                && temp != Undefined.instance
-                                && temp != Scriptable.NOT_FOUND) {
-                            sb.append(ScriptRuntime.toString(temp));
-                        }
+                    Object temp = na.getDenseElement(i);
+                    if (temp != null
+                            && temp != Undefined.instance
+                            && temp != Scriptable.NOT_FOUND) {
+                        sb.append(ScriptRuntime.toString(temp));
                     }
                 }
                 return sb.toString();
@@ -1134,6 +1343,7 @@ public class NativeArray extends ScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly) {
+                na.toObjectStorage();
                 for (int i = 0, j = ((int) na.length) - 1; i < j; i++, j--) {
                     Object temp = na.dense[i];
                     na.dense[i] = na.dense[j];
@@ -1204,6 +1414,17 @@ public class NativeArray extends ScriptableObject implements List {
 
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
+            if (na.denseOnly && na.hasNumberStorage()) {
+                int pushed = 0;
+                while (pushed < args.length && na.putNumber((int) na.length, args[pushed])) {
+                    pushed++;
+                }
+                if (pushed == args.length) {
+                    return ScriptRuntime.wrapNumber((double) na.length);
+                }
+                // Push anything from the first value that is not a number the usual way
+                args = Arrays.copyOfRange(args, pushed, args.length);
+            }
             if (na.denseOnly && na.ensureCapacity((int) na.length + args.length)) {
                 for (Object arg : args) {
                     na.dense[(int) na.length++] = arg;
@@ -1238,9 +1459,14 @@ public class NativeArray extends ScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly && na.length > 0) {
+                result = na.getDenseElement((int) na.length - 1);
+                if (na.hasNumberStorage()) {
+                    na.length--;
+                    na.modCount++;
+                    return result;
+                }
                 na.length--;
                 na.modCount++;
-                result = na.dense[(int) na.length];
                 na.dense[(int) na.length] = NOT_FOUND;
                 return result;
             }
@@ -1272,6 +1498,7 @@ public class NativeArray extends ScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly && na.length > 0) {
+                na.toObjectStorage();
                 na.length--;
                 na.modCount++;
                 Object result = na.dense[0];
@@ -1425,6 +1652,8 @@ public class NativeArray extends ScriptableObject implements List {
                 if (denseFrom && denseRes) {
                     int intLen = (int) (end - begin);
                     Object[] copy = new Object[intLen];
+                    na.toObjectStorage();
+                    nar.toObjectStorage();
                     System.arraycopy(na.dense, (int) begin, copy, 0, intLen);
                     nar.dense = copy;
                     try (var map = nar.startCompoundOp(true)) {
@@ -1541,8 +1770,14 @@ public class NativeArray extends ScriptableObject implements List {
                 if (denseArg.denseOnly) {
                     // Now we can optimize
                     denseResult.ensureCapacity((int) newlen);
-                    System.arraycopy(
-                            denseArg.dense, 0, denseResult.dense, (int) offset, (int) srclen);
+                    if (denseArg.hasNumberStorage()) {
+                        for (int i = 0; i < srclen; i++) {
+                            denseResult.dense[(int) offset + i] = denseArg.getDenseElement(i);
+                        }
+                    } else {
+                        System.arraycopy(
+                                denseArg.dense, 0, denseResult.dense, (int) offset, (int) srclen);
+                    }
                     return newlen;
                 }
                 // We could also optimize here if we are copying to a dense target from a non-dense
@@ -1660,9 +1895,13 @@ public class NativeArray extends ScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly) {
+                if (na.hasNumberStorage() && isIntegerOrDouble(compareTo)) {
+                    double d = ((Number) compareTo).doubleValue();
+                    return Long.valueOf(na.searchNumbers(d, (int) start, (int) length, false));
+                }
                 Scriptable proto = na.getPrototype();
                 for (int i = (int) start; i < length; i++) {
-                    Object val = na.dense[i];
+                    Object val = na.getDenseElement(i);
                     if (val == NOT_FOUND && proto != null) {
                         val = ScriptableObject.getProperty(proto, i);
                     }
@@ -1712,9 +1951,13 @@ public class NativeArray extends ScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly) {
+                if (na.hasNumberStorage() && isIntegerOrDouble(compareTo)) {
+                    double d = ((Number) compareTo).doubleValue();
+                    return Long.valueOf(na.searchNumbers(d, (int) start, -1, false));
+                }
                 Scriptable proto = na.getPrototype();
                 for (int i = (int) start; i >= 0; i--) {
-                    Object val = na.dense[i];
+                    Object val = na.getDenseElement(i);
                     if (val == NOT_FOUND && proto != null) {
                         val = ScriptableObject.getProperty(proto, i);
                     }
@@ -1760,9 +2003,13 @@ public class NativeArray extends ScriptableObject implements List {
         if (o instanceof NativeArray) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly) {
+                if (na.hasNumberStorage() && isIntegerOrDouble(compareTo)) {
+                    double d = ((Number) compareTo).doubleValue();
+                    return Boolean.valueOf(na.searchNumbers(d, (int) k, (int) len, true) != -1);
+                }
                 Scriptable proto = na.getPrototype();
                 for (int i = (int) k; i < len; i++) {
-                    Object elementK = na.dense[i];
+                    Object elementK = na.getDenseElement(i);
                     if (elementK == NOT_FOUND && proto != null) {
                         elementK = ScriptableObject.getProperty(proto, i);
                     }
@@ -1869,6 +2116,7 @@ public class NativeArray extends ScriptableObject implements List {
         if ((o instanceof NativeArray) && (count <= Integer.MAX_VALUE)) {
             NativeArray na = (NativeArray) o;
             if (na.denseOnly) {
+                na.toObjectStorage();
                 for (; count > 0; count--) {
                     na.dense[(int) to] = na.dense[(int) from];
                     from += direction;
@@ -2542,6 +2790,35 @@ public class NativeArray extends ScriptableObject implements List {
         }
     }
 
+    private static boolean isIntegerOrDouble(Object value) {
+        return value instanceof Integer || value instanceof Double;
+    }
+
+    /**
+     * Search numeric storage for "d" from index "from" up or down to "to", which is excluded.
+     * Numbers are compared as by ===, or as by SameValueZero, where NaN matches itself, if
+     * "sameValueZero" is true. Return the index that was found or -1.
+     */
+    private int searchNumbers(double d, int from, int to, boolean sameValueZero) {
+        int step = from <= to ? 1 : -1;
+        if (ints != null) {
+            for (int i = from; i != to; i += step) {
+                if (ints[i] == d) {
+                    return i;
+                }
+            }
+        } else {
+            boolean nan = sameValueZero && Double.isNaN(d);
+            for (int i = from; i != to; i += step) {
+                double e = doubles[i];
+                if (e == d || (nan && Double.isNaN(e))) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
     /** Internal representation of the JavaScript array's length property. */
     private long length;
 
@@ -2557,7 +2834,19 @@ public class NativeArray extends ScriptableObject implements List {
      */
     private Object[] dense;
 
-    /** True if all numeric properties are stored in {@code dense}. */
+    /**
+     * Storage for dense arrays with no holes whose elements are all {@code Integer}s, or all
+     * {@code Integer}s and {@code Double}s. At most one of {@code dense}, {@code ints} and {@code
+     * doubles} is used, and the numeric ones only while {@code denseOnly} is true. Elements at and
+     * above {@code length} are unused. Numbers stored as doubles are read back as {@code Double}.
+     */
+    private int[] ints;
+
+    private double[] doubles;
+
+    /**
+     * True if all numeric properties are stored in {@code dense}, {@code ints} or {@code doubles}.
+     */
     private boolean denseOnly;
 
     /** The maximum size of {@code dense} that will be allocated initially. */
@@ -6,13 +6,13 @@
 
 package org.mozilla.javascript;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.Array;
 import java.math.BigInteger;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import org.mozilla.javascript.json.JsonParser;
@@ -92,8 +92,33 @@ public final class NativeJSON extends ScriptableObject {
 
     public static Object parse(Context cx, Scriptable scope, String jtext, Callable reviver) {
         Object unfiltered = parse(cx, scope, jtext);
+        return revive(cx, scope, unfiltered, reviver);
+    }
+
+    /**
+     * Parse JSON text from a stream of characters, as JSON.parse does for a string. Objects and
+     * arrays are created while the text is read, so a large document is never held in memory as
+     * a single string. The reader is not closed.
+     *
+     * @param reviver a function to transform the parsed values as JSON.parse does, or null
+     * @since 1.9.1
+     */
+    public static Object parse(Context cx, Scriptable scope, Reader json, Callable reviver) {
+        Object unfiltered;
+        try {
+            unfiltered = new JsonParser(cx, scope).parse(json);
+        } catch (JsonParser.ParseException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw Context.throwAsScriptRuntimeEx(ex.getCause());
+            }
+            throw ScriptRuntime.constructError("SyntaxError", ex.getMessage());
+        }
+        return reviver == null ? unfiltered : revive(cx, scope, unfiltered, reviver);
+    }
+
+    private static Object revive(Context cx, Scriptable scope, Object value, Callable reviver) {
         Scriptable root = cx.newObject(scope);
-        root.put("", root, unfiltered);
+        root.put("", root, value);
         return walk(cx, scope, reviver, root, "");
     }
 
@@ -161,7 +186,8 @@ public final class NativeJSON extends ScriptableObject {
                 String indent,
                 String gap,
                 Callable replacer,
-                Object[] propertyList) {
+                Object[] propertyList,
+                Appendable out) {
             this.cx = cx;
             this.scope = scope;
 
@@ -169,6 +195,7 @@ public final class NativeJSON extends ScriptableObject {
             this.gap = gap;
             this.replacer = replacer;
             this.propertyList = propertyList;
+            this.out = out;
         }
 
         ArrayDeque<Object> stack = new ArrayDeque<>();
@@ -176,6 +203,7 @@ public final class NativeJSON extends ScriptableObject {
         String gap;
         Callable replacer;
         Object[] propertyList;
+        Appendable out;
 
         Context cx;
         Scriptable scope;
@@ -183,6 +211,49 @@ public final class NativeJSON extends ScriptableObject {
 
     public static Object stringify(
             Context cx, Scriptable scope, Object value, Object replacer, Object space) {
+        StringBuilder out = new StringBuilder();
+        try {
+            if (!stringify(cx, scope, value, replacer, space, out)) {
+                return Undefined.instance;
+            }
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw Kit.codeBug();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Serialize "value" like {@code JSON.stringify(value)}, writing the result directly to "out"
+     * rather than building a string. Nothing is written if the value can not be serialized, such
+     * as a function or undefined.
+     *
+     * @return true if the value was written, false if it was not
+     * @throws IOException if writing to "out" failed
+     * @since 1.9.1
+     */
+    public static boolean stringify(Context cx, Scriptable scope, Object value, Appendable out)
+            throws IOException {
+        return stringify(cx, scope, value, null, null, out);
+    }
+
+    /**
+     * Serialize "value" like {@code JSON.stringify(value, replacer, space)}, writing the result
+     * directly to "out" rather than building a string. Nothing is written if the value can not be
+     * serialized, such as a function or undefined.
+     *
+     * @return true if the value was written, false if it was not
+     * @throws IOException if writing to "out" failed
+     * @since 1.9.1
+     */
+    public static boolean stringify(
+            Context cx,
+            Scriptable scope,
+            Object value,
+            Object replacer,
+            Object space,
+            Appendable out)
+            throws IOException {
         String indent = "";
         String gap = "";
 
@@ -236,16 +307,27 @@ public final class NativeJSON extends ScriptableObject {
         }
 
         StringifyState state =
-                new StringifyState(cx, scope, indent, gap, replacerFunction, propertyList);
+                new StringifyState(cx, scope, indent, gap, replacerFunction, propertyList, out);
 
         ScriptableObject wrapper = new NativeObject();
         wrapper.setParentScope(scope);
         wrapper.setPrototype(ScriptableObject.getObjectPrototype(scope));
         wrapper.defineProperty("", value, 0);
-        return str("", wrapper, state);
+        Object v = serializableValue("", wrapper, state);
+        if (v == Undefined.instance) {
+            return false;
+        }
+        write(v, state);
+        return true;
     }
 
-    private static Object str(Object key, Scriptable holder, StringifyState state) {
+    /**
+     * Implements the first half of SerializeJSONProperty: look up the property, and apply toJSON,
+     * the replacer function and the unwrapping of primitive wrappers. Return the value that
+     * {@link #write} should serialize, or Undefined.instance if the property is to be skipped.
+     * Because this is decided before anything is written, the output never needs to be undone.
+     */
+    private static Object serializableValue(Object key, Scriptable holder, StringifyState state) {
         Object value = null;
         Object unwrappedJavaValue = null;
 
@@ -317,25 +399,15 @@ public final class NativeJSON extends ScriptableObject {
             value = value.toString();
         }
 
-        if (value == null) return "null";
-        if (value.equals(Boolean.TRUE)) return "true";
-        if (value.equals(Boolean.FALSE)) return "false";
-
-        if (value instanceof CharSequence) {
-            return quote(value.toString());
+        if (value == null || value instanceof Boolean || value instanceof CharSequence) {
+            return value;
         }
 
         if (value instanceof Number) {
             if (value instanceof BigInteger) {
                 throw ScriptRuntime.typeErrorById("msg.json.cant.serialize", "BigInt");
             }
-            double d = ((Number) value).doubleValue();
-            if (!Double.isNaN(d)
-                    && d != Double.POSITIVE_INFINITY
-                    && d != Double.NEGATIVE_INFINITY) {
-                return ScriptRuntime.toString(value);
-            }
-            return "null";
+            return value;
         }
 
         if (unwrappedJavaValue != null) {
@@ -343,28 +415,40 @@ public final class NativeJSON extends ScriptableObject {
         }
 
         if ((value instanceof Scriptable) && !(value instanceof Callable)) {
-            if (isObjectArrayLike(value)) {
-                return ja((Scriptable) value, state);
-            }
-            return jo((Scriptable) value, state);
+            return value;
         }
         return Undefined.instance;
     }
 
-    private static String join(Collection<Object> objs, String delimiter) {
-        if (objs == null || objs.isEmpty()) {
-            return "";
-        }
-        Iterator<Object> iter = objs.iterator();
-        if (!iter.hasNext()) return "";
-        StringBuilder builder = new StringBuilder(iter.next().toString());
-        while (iter.hasNext()) {
-            builder.append(delimiter).append(iter.next());
+    /**
+     * Implements the second half of SerializeJSONProperty: write a value that was returned by
+     * {@link #serializableValue}.
+     */
+    private static void write(Object value, StringifyState state) throws IOException {
+        Appendable out = state.out;
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Boolean) {
+            out.append(((Boolean) value).booleanValue() ? "true" : "false");
+        } else if (value instanceof CharSequence) {
+            quote(out, value.toString());
+        } else if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            if (!Double.isNaN(d)
+                    && d != Double.POSITIVE_INFINITY
+                    && d != Double.NEGATIVE_INFINITY) {
+                out.append(ScriptRuntime.toString(value));
+            } else {
+                out.append("null");
+            }
+        } else if (isObjectArrayLike(value)) {
+            ja((Scriptable) value, state);
+        } else {
+            jo((Scriptable) value, state);
         }
-        return builder.toString();
     }
 
-    private static String jo(Scriptable value, StringifyState state) {
+    private static void jo(Scriptable value, StringifyState state) throws IOException {
         Object trackValue = value, unwrapped = null;
         if (value instanceof Wrapper) {
             trackValue = unwrapped = ((Wrapper) value).unwrap();
@@ -413,40 +497,37 @@ public final class NativeJSON extends ScriptableObject {
             k = value.getIds();
         }
 
-        ArrayList<Object> partial = new ArrayList<>();
-
+        Appendable out = state.out;
+        out.append('{');
+        boolean empty = true;
         for (Object p : k) {
-            Object strP = str(p, value, state);
-            if (strP != Undefined.instance) {
-                String member = quote(p.toString()) + ":";
+            Object v = serializableValue(p, value, state);
+            if (v != Undefined.instance) {
+                if (!empty) {
+                    out.append(',');
+                }
+                if (state.gap.length() > 0) {
+                    out.append('\n').append(state.indent);
+                }
+                quote(out, p.toString());
+                out.append(':');
                 if (state.gap.length() > 0) {
-                    member = member + " ";
+                    out.append(' ');
                 }
-                member = member + strP;
-                partial.add(member);
+                write(v, state);
+                empty = false;
             }
         }
-
-        final String finalValue;
-
-        if (partial.isEmpty()) {
-            finalValue = "{}";
-        } else {
-            if (state.gap.length() == 0) {
-                finalValue = '{' + join(partial, ",") + '}';
-            } else {
-                String separator = ",\n" + state.indent;
-                String properties = join(partial, separator);
-                finalValue = "{\n" + state.indent + properties + '\n' + stepback + '}';
-            }
+        if (!empty && state.gap.length() > 0) {
+            out.append('\n').append(stepback);
         }
+        out.append('}');
 
         state.stack.pop();
         state.indent = stepback;
-        return finalValue;
     }
 
-    private static String ja(Scriptable value, StringifyState state) {
+    private static void ja(Scriptable value, StringifyState state) throws IOException {
         Object trackValue = value, unwrapped = null;
         if (value instanceof Wrapper) {
             trackValue = unwrapped = ((Wrapper) value).unwrap();
@@ -458,7 +539,6 @@ public final class NativeJSON extends ScriptableObject {
 
         String stepback = state.indent;
         state.indent = state.indent + state.gap;
-        ArrayList<Object> partial = new ArrayList<>();
 
         if (unwrapped != null) {
             Object[] elements = null;
@@ -483,47 +563,54 @@ public final class NativeJSON extends ScriptableObject {
 
         long len = ((NativeArray) value).getLength();
 
+        Appendable out = state.out;
+        out.append('[');
         for (long index = 0; index < len; index++) {
-            Object strP;
+            if (index > 0) {
+                out.append(',');
+            }
+            if (state.gap.length() > 0) {
+                out.append('\n').append(state.indent);
+            }
+            Object v;
             if (index > Integer.MAX_VALUE) {
-                strP = str(Long.toString(index), value, state);
+                v = serializableValue(Long.toString(index), value, state);
             } else {
-                strP = str(Integer.valueOf((int) index), value, state);
+                v = serializableValue(Integer.valueOf((int) index), value, state);
             }
-            if (strP == Undefined.instance) {
-                partial.add("null");
+            if (v == Undefined.instance) {
+                out.append("null");
             } else {
-                partial.add(strP);
+                write(v, state);
             }
         }
-
-        final String finalValue;
-
-        if (partial.isEmpty()) {
-            finalValue = "[]";
-        } else {
-            if (state.gap.length() == 0) {
-                finalValue = '[' + join(partial, ",") + ']';
-            } else {
-                String separator = ",\n" + state.indent;
-                String properties = join(partial, separator);
-                finalValue = "[\n" + state.indent + properties + '\n' + stepback + ']';
-            }
+        if (len > 0 && state.gap.length() > 0) {
+            out.append('\n').append(stepback);
         }
+        out.append(']');
 
         state.stack.pop();
         state.indent = stepback;
-        return finalValue;
     }
 
-    private static String quote(String string) {
-        StringBuilder product =
-                new StringBuilder(string.length() + 2); // two extra chars for " on either side
+    private static void quote(Appendable product, String string) throws IOException {
         product.append('"');
         int length = string.length();
         char prev = 0;
+        // Copy runs of characters that need no escaping in one call
+        int start = 0;
         for (int i = 0; i < length; i++) {
             char c = string.charAt(i);
+            if (c >= ' '
+                    && c != '"'
+                    && c != '\\'
+                    && !isLeadingSurrogate(c)
+                    && !isTrailingSurrogate(c)) {
+                prev = c;
+                continue;
+            }
+            product.append(string, start, i);
+            start = i + 1;
             switch (c) {
                 case '"':
                     product.append("\\\"");
@@ -554,19 +641,17 @@ public final class NativeJSON extends ScriptableObject {
                         break;
                     } else if (isTrailingSurrogate(c) && isLeadingSurrogate(prev)) {
                         product.append(prev).append(c);
-                    } else if (c < ' ' || isLeadingSurrogate(c) || isTrailingSurrogate(c)) {
+                    } else {
                         product.append("\\u");
                         String hex = String.format("%04x", Integer.valueOf(c));
                         product.append(hex);
-                    } else {
-                        product.append(c);
                     }
                     break;
             }
             prev = c;
         }
+        product.append(string, start, length);
         product.append('"');
-        return product.toString();
     }
 
     static boolean isLeadingSurrogate(char c) {
@@ -585,7 +670,7 @@ public final class NativeJSON extends ScriptableObject {
         wrapper.setParentScope(state.scope);
         wrapper.setPrototype(ScriptableObject.getObjectPrototype(state.scope));
         wrapper.defineProperty("", value, 0);
-        return str("", wrapper, state);
+        return serializableValue("", wrapper, state);
     }
 
     private static boolean isObjectArrayLike(Object o) {
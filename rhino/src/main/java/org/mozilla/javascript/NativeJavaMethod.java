@@ -6,6 +6,9 @@
 
 package org.mozilla.javascript;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.TypeVariable;
 import java.util.Arrays;
@@ -18,6 +21,8 @@ import org.mozilla.javascript.lc.type.ParameterizedTypeInfo;
 import org.mozilla.javascript.lc.type.TypeInfo;
 import org.mozilla.javascript.lc.type.TypeInfoFactory;
 import org.mozilla.javascript.lc.type.VariableTypeInfo;
+import org.mozilla.javascript.lc.type.impl.ArrayTypeInfo;
+import org.mozilla.javascript.lc.type.impl.ClassTypeInfo;
 
 /**
  * This class reflects Java methods into the JavaScript environment and handles overloading of
@@ -203,24 +208,7 @@ public class NativeJavaMethod extends BaseFunction {
         if (meth.isStatic()) {
             javaObject = null; // don't need an object
         } else {
-            Scriptable o = thisObj;
-            Class<?> c = meth.getDeclaringClass();
-            for (; ; ) {
-                if (o == null) {
-                    throw Context.reportRuntimeErrorById(
-                            "msg.nonjava.method",
-                            getFunctionName(),
-                            ScriptRuntime.toString(thisObj),
-                            c.getName());
-                }
-                if (o instanceof Wrapper) {
-                    javaObject = ((Wrapper) o).unwrap();
-                    if (c.isInstance(javaObject)) {
-                        break;
-                    }
-                }
-                o = o.getPrototype();
-            }
+            javaObject = findJavaObject(meth.getDeclaringClass(), thisObj);
         }
         if (debug) {
             printDebug("Calling ", meth, args);
@@ -258,6 +246,225 @@ public class NativeJavaMethod extends BaseFunction {
         return wrapped;
     }
 
+    /** Find the Java object that "thisObj" or one of its prototypes wraps. */
+    private Object findJavaObject(Class<?> c, Scriptable thisObj) {
+        Scriptable o = thisObj;
+        for (; ; ) {
+            if (o == null) {
+                throw Context.reportRuntimeErrorById(
+                        "msg.nonjava.method",
+                        getFunctionName(),
+                        ScriptRuntime.toString(thisObj),
+                        c.getName());
+            }
+            if (o instanceof Wrapper) {
+                Object javaObject = ((Wrapper) o).unwrap();
+                if (c.isInstance(javaObject)) {
+                    return javaObject;
+                }
+            }
+            o = o.getPrototype();
+        }
+    }
+
+    /**
+     * Return a method handle that calls this method with arguments of the same classes as "args",
+     * without choosing an overload again. The handle has the type (Context, Scriptable scope,
+     * Scriptable thisObj, Object[] args)Object, like {@link #call}. It checks that its arguments
+     * still have the same classes, and otherwise falls back to {@link #call}. Returns null if no
+     * overload matches or the call cannot be made directly, for example because the method takes
+     * variable arguments, has generic parameter types, or is not public.
+     *
+     * <p>This is used to link call sites in compiled scripts.
+     *
+     * @since 1.9.1
+     */
+    public MethodHandle getDirectCallHandle(Context cx, Object[] args) {
+        DirectCall call = findDirectCall(cx, args);
+        if (call == null) {
+            return null;
+        }
+        MethodHandle test =
+                MethodHandles.dropArguments(
+                        MATCHES.bindTo(call.overload),
+                        0,
+                        Context.class,
+                        Scriptable.class,
+                        Scriptable.class);
+        return MethodHandles.guardWithTest(test, call.target, CALL.bindTo(this));
+    }
+
+    /**
+     * Return the direct call for arguments of the same classes as "args", linking it the first
+     * time that they are seen, or null if there is none.
+     */
+    DirectCall findDirectCall(Context cx, Object[] args) {
+        for (DirectCall call : directCalls) {
+            if (call.overload.matches(args)) {
+                return call.target == null ? null : call;
+            }
+        }
+        // Like the overload cache, don't let this grow without bounds. Calls with arguments of
+        // further classes always go through "call".
+        if (directCalls.size() >= Math.max(4, methods.length * 2)) {
+            return null;
+        }
+        int index = findCachedFunction(cx, args);
+        if (index < 0) {
+            return null;
+        }
+        DirectCall call =
+                new DirectCall(
+                        this, new ResolvedOverload(args, index), linkDirectCall(methods[index]));
+        directCalls.add(call);
+        return call.target == null ? null : call;
+    }
+
+    /**
+     * Build a handle of type (Context, Scriptable scope, Scriptable thisObj, Object[] args)Object
+     * that converts the arguments to the parameter types of "meth", finds the Java "this" object,
+     * calls the method and wraps its result, as {@link #call} does.
+     */
+    private MethodHandle linkDirectCall(MemberBox meth) {
+        if (meth.vararg || !meth.isMethod()) {
+            return null;
+        }
+        List<TypeInfo> argTypes = meth.getArgTypes();
+        for (TypeInfo argType : argTypes) {
+            // Generic parameters depend on the "this" object, so they are converted in "call"
+            if (!isFixedType(argType)) {
+                return null;
+            }
+        }
+        MethodHandle mh = meth.methodHandle();
+        if (mh == null) {
+            return null;
+        }
+        MethodType type = mh.type();
+        int first = meth.isStatic() ? 0 : 1;
+        MethodHandle[] converters = new MethodHandle[argTypes.size()];
+        for (int i = 0; i < converters.length; i++) {
+            Class<?> paramType = type.parameterType(first + i);
+            converters[i] =
+                    MethodHandles.insertArguments(CONVERT_ARG, 1, argTypes.get(i))
+                            .asType(MethodType.methodType(paramType, Object.class));
+        }
+        mh = MethodHandles.filterArguments(mh, first, converters);
+        if (meth.isStatic()) {
+            mh = MethodHandles.dropArguments(mh, 0, Scriptable.class);
+        } else {
+            Class<?> c = meth.getDeclaringClass();
+            MethodHandle findThis =
+                    MethodHandles.insertArguments(FIND_JAVA_OBJECT.bindTo(this), 0, c)
+                            .asType(MethodType.methodType(type.parameterType(0), Scriptable.class));
+            mh = MethodHandles.filterArguments(mh, 0, findThis);
+        }
+        // (Scriptable thisObj, Object[] args)R
+        mh = mh.asSpreader(Object[].class, converters.length);
+
+        MethodHandle wrap;
+        if (meth.getReturnType() == TypeInfo.PRIMITIVE_VOID) {
+            mh = mh.asType(mh.type().changeReturnType(void.class));
+            wrap =
+                    MethodHandles.dropArguments(
+                            MethodHandles.constant(Object.class, Undefined.instance),
+                            0,
+                            Context.class,
+                            Scriptable.class);
+        } else {
+            mh = mh.asType(mh.type().changeReturnType(Object.class));
+            wrap = MethodHandles.insertArguments(WRAP_RESULT, 3, meth.getReturnType());
+        }
+        // (Context, Scriptable scope, Scriptable thisObj, Object[] args)Object
+        mh = MethodHandles.collectArguments(wrap, 2, mh);
+        return MethodHandles.catchException(mh, Throwable.class, RETHROW);
+    }
+
+    static boolean isFixedType(TypeInfo type) {
+        return type instanceof ClassTypeInfo
+                || (type instanceof ArrayTypeInfo && isFixedType(type.getComponentType()));
+    }
+
+    @SuppressWarnings("unused")
+    private static Object convertArg(Object arg, TypeInfo type) {
+        Object value = Context.jsToJava(arg, type);
+        return value instanceof Delegator ? ((Delegator) value).getDelegee() : value;
+    }
+
+    @SuppressWarnings("unused")
+    private Object findJavaObjectUnwrapped(Class<?> c, Scriptable thisObj) {
+        Object javaObject = findJavaObject(c, thisObj);
+        return javaObject instanceof Delegator ? ((Delegator) javaObject).getDelegee() : javaObject;
+    }
+
+    @SuppressWarnings("unused")
+    private static Object wrapResult(Context cx, Scriptable scope, Object result, TypeInfo type) {
+        return cx.getWrapFactory().wrap(cx, scope, result, type);
+    }
+
+    @SuppressWarnings("unused")
+    private static Object rethrow(Throwable e) {
+        if (e instanceof ContinuationPending) {
+            throw (ContinuationPending) e;
+        }
+        throw Context.throwAsScriptRuntimeEx(e);
+    }
+
+    private static final MethodHandle MATCHES;
+    private static final MethodHandle CALL;
+    private static final MethodHandle CONVERT_ARG;
+    private static final MethodHandle FIND_JAVA_OBJECT;
+    private static final MethodHandle WRAP_RESULT;
+    private static final MethodHandle RETHROW;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MATCHES =
+                    lookup.findVirtual(
+                            ResolvedOverload.class,
+                            "matches",
+                            MethodType.methodType(boolean.class, Object[].class));
+            CALL =
+                    lookup.findVirtual(
+                            NativeJavaMethod.class,
+                            "call",
+                            MethodType.methodType(
+                                    Object.class,
+                                    Context.class,
+                                    Scriptable.class,
+                                    Scriptable.class,
+                                    Object[].class));
+            CONVERT_ARG =
+                    lookup.findStatic(
+                            NativeJavaMethod.class,
+                            "convertArg",
+                            MethodType.methodType(Object.class, Object.class, TypeInfo.class));
+            FIND_JAVA_OBJECT =
+                    lookup.findVirtual(
+                            NativeJavaMethod.class,
+                            "findJavaObjectUnwrapped",
+                            MethodType.methodType(Object.class, Class.class, Scriptable.class));
+            WRAP_RESULT =
+                    lookup.findStatic(
+                            NativeJavaMethod.class,
+                            "wrapResult",
+                            MethodType.methodType(
+                                    Object.class,
+                                    Context.class,
+                                    Scriptable.class,
+                                    Object.class,
+                                    TypeInfo.class));
+            RETHROW =
+                    lookup.findStatic(
+                            NativeJavaMethod.class,
+                            "rethrow",
+                            MethodType.methodType(Object.class, Throwable.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     int findCachedFunction(Context cx, Object[] args) {
         if (methods.length > 1) {
             for (ResolvedOverload ovl : overloadCache) {
@@ -582,6 +789,34 @@ public class NativeJavaMethod extends BaseFunction {
     private String functionName;
     private final transient CopyOnWriteArrayList<ResolvedOverload> overloadCache =
             new CopyOnWriteArrayList<>();
+    private final transient CopyOnWriteArrayList<DirectCall> directCalls =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * A call to one overload of a method that was linked for arguments of particular classes. The
+     * target is null if that overload cannot be called directly.
+     */
+    static final class DirectCall {
+        final NativeJavaMethod function;
+        final ResolvedOverload overload;
+        final MethodHandle target;
+
+        DirectCall(NativeJavaMethod function, ResolvedOverload overload, MethodHandle target) {
+            this.function = function;
+            this.overload = overload;
+            this.target = target;
+        }
+
+        Object invoke(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
+            try {
+                return target.invokeExact(cx, scope, thisObj, args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw Context.throwAsScriptRuntimeEx(e);
+            }
+        }
+    }
 }
 
 class ResolvedOverload {
@@ -294,8 +294,9 @@ final class NativeString extends ScriptableObject {
 
     private static Object js_indexOf(
             Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
-        String target =
-                ScriptRuntime.toString(requireObjectCoercible(cx, thisObj, CLASS_NAME, "indexOf"));
+        CharSequence target =
+                ScriptRuntime.toCharSequence(
+                        requireObjectCoercible(cx, thisObj, CLASS_NAME, "indexOf"));
         String searchStr = ScriptRuntime.toString(args, 0);
         double position = ScriptRuntime.toInteger(args, 1);
 
@@ -306,26 +307,42 @@ final class NativeString extends ScriptableObject {
             return -1;
         }
         if (position < 0) position = 0;
-        return target.indexOf(searchStr, (int) position);
+        return indexOf(target, searchStr, (int) position);
+    }
+
+    /** Search a string without flattening it if it is a shallow {@link ConsString}. */
+    private static int indexOf(CharSequence target, String searchStr, int position) {
+        if (target instanceof ConsString) {
+            return ((ConsString) target).indexOf(searchStr, position);
+        }
+        return target.toString().indexOf(searchStr, position);
+    }
+
+    private static boolean startsWith(CharSequence target, String searchStr, int position) {
+        if (target instanceof ConsString) {
+            return ((ConsString) target).startsWith(searchStr, position);
+        }
+        return target.toString().startsWith(searchStr, position);
     }
 
     private static Object js_startsWith(
             Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
-        String target =
-                ScriptRuntime.toString(
+        CharSequence target =
+                ScriptRuntime.toCharSequence(
                         requireObjectCoercible(cx, thisObj, CLASS_NAME, "startsWith"));
         checkValidRegex(cx, args, 0, "startsWith");
         String searchStr = ScriptRuntime.toString(args, 0);
         double position = ScriptRuntime.toInteger(args, 1);
         if (position < 0) position = 0;
         else if (position > target.length()) position = target.length();
-        return target.startsWith(searchStr, (int) position);
+        return startsWith(target, searchStr, (int) position);
     }
 
     private static Object js_endsWith(
             Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
-        String target =
-                ScriptRuntime.toString(requireObjectCoercible(cx, thisObj, CLASS_NAME, "endsWith"));
+        CharSequence target =
+                ScriptRuntime.toCharSequence(
+                        requireObjectCoercible(cx, thisObj, CLASS_NAME, "endsWith"));
         checkValidRegex(cx, args, 0, "endsWith");
         String searchStr = ScriptRuntime.toString(args, 0);
         double position = ScriptRuntime.toInteger(args, 1);
@@ -334,17 +351,19 @@ final class NativeString extends ScriptableObject {
         if (args.length == 0
                 || args.length == 1
                 || (args.length == 2 && Undefined.isUndefined(args[1]))) position = target.length();
-        return target.substring(0, (int) position).endsWith(searchStr);
+        int start = (int) position - searchStr.length();
+        return start >= 0 && startsWith(target, searchStr, start);
     }
 
     private static Object js_includes(
             Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
-        String target =
-                ScriptRuntime.toString(requireObjectCoercible(cx, thisObj, CLASS_NAME, "includes"));
+        CharSequence target =
+                ScriptRuntime.toCharSequence(
+                        requireObjectCoercible(cx, thisObj, CLASS_NAME, "includes"));
         String searchStr = ScriptRuntime.toString(args, 0);
         checkValidRegex(cx, args, 0, "includes");
         int position = (int) ScriptRuntime.toInteger(args, 1);
-        return target.indexOf(searchStr, position) != -1;
+        return indexOf(target, searchStr, position) != -1;
     }
 
     private static void checkValidRegex(Context cx, Object[] args, int pos, String functionName) {
@@ -0,0 +1,155 @@
+package org.mozilla.javascript;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * This class represents a compound operation that only reads a thread safe slot map, started with
+ * {@link SlotMapOwner#startOptimisticReadOp()}. It holds no lock while nothing is written to the
+ * map: each read is validated against the stamp that was obtained when the operation started, so
+ * many threads can read a shared object without contending for its lock. When a validation fails
+ * the operation takes the read lock and repeats the read. Reads made before that point may
+ * therefore not be consistent with reads made after it, and the operation cannot write.
+ */
+class OptimisticReadOperationMap extends CompoundOperationMap {
+    private boolean closed = false;
+    private boolean optimistic = false;
+    private long lockStamp = 0;
+    private int copySize = -1;
+
+    public OptimisticReadOperationMap(SlotMapOwner owner, LockAwareSlotMap map) {
+        super(owner);
+        long stamp = map.tryOptimisticRead();
+        if (stamp == 0) {
+            // Somebody is writing, so wait for them like a regular read would
+            this.lockStamp = map.getReadLock();
+        } else {
+            this.lockStamp = stamp;
+            this.optimistic = true;
+        }
+        // The map may have been promoted before we got the stamp, so read it again. Promotion
+        // keeps the lock, and is done with the write lock held, which invalidates the stamp.
+        this.map = owner.getMap();
+    }
+
+    @Override
+    public void add(SlotMapOwner owner, Slot newSlot) {
+        throw readOnly();
+    }
+
+    @Override
+    public <S extends Slot> S compute(
+            SlotMapOwner owner, Object key, int index, SlotComputer<S> compute) {
+        throw readOnly();
+    }
+
+    @Override
+    public <S extends Slot> S compute(
+            SlotMapOwner owner,
+            CompoundOperationMap compoundOp,
+            Object key,
+            int index,
+            SlotComputer<S> compute) {
+        throw readOnly();
+    }
+
+    @Override
+    public Slot modify(SlotMapOwner owner, Object key, int index, int attributes) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (optimistic) {
+            boolean e = ((LockAwareSlotMap) map).isEmptyWithLock();
+            if (((LockAwareSlotMap) map).validate(lockStamp)) {
+                return e;
+            }
+            lockForReading();
+        }
+        return ((LockAwareSlotMap) map).isEmptyWithLock();
+    }
+
+    @Override
+    public Slot query(Object key, int index) {
+        if (optimistic) {
+            Slot s = ((LockAwareSlotMap) map).queryWithLock(key, index);
+            if (((LockAwareSlotMap) map).validate(lockStamp)) {
+                return s;
+            }
+            lockForReading();
+        }
+        return ((LockAwareSlotMap) map).queryWithLock(key, index);
+    }
+
+    @Override
+    public int size() {
+        if (optimistic) {
+            int s = ((LockAwareSlotMap) map).sizeWithLock();
+            if (((LockAwareSlotMap) map).validate(lockStamp)) {
+                return s;
+            }
+            lockForReading();
+        }
+        return ((LockAwareSlotMap) map).sizeWithLock();
+    }
+
+    @Override
+    public int dirtySize() {
+        if (optimistic && copySize >= 0) {
+            // Callers size their arrays for the slots that the iterator returned
+            return copySize;
+        }
+        lockForReading();
+        return map.dirtySize();
+    }
+
+    @Override
+    public Iterator<Slot> iterator() {
+        if (optimistic) {
+            // We can't validate the reads of an iterator we hand out, so take a copy and validate
+            // that instead. A concurrent writer may break the copy in any number of ways, in
+            // which case we try again with the lock.
+            try {
+                ArrayList<Slot> copy = new ArrayList<>(((LockAwareSlotMap) map).sizeWithLock());
+                for (Slot slot : map) {
+                    copy.add(slot);
+                }
+                if (((LockAwareSlotMap) map).validate(lockStamp)) {
+                    copySize = copy.size();
+                    return copy.iterator();
+                }
+            } catch (RuntimeException e) {
+                if (((LockAwareSlotMap) map).validate(lockStamp)) {
+                    // Not caused by a concurrent write
+                    throw e;
+                }
+            }
+            lockForReading();
+        }
+        return new ThreadSafeCompoundOperationMap.Iter(map.iterator());
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            if (!optimistic) {
+                ((LockAwareSlotMap) owner.getMap()).releaseLock(lockStamp);
+            }
+            closed = true;
+        }
+    }
+
+    /** Replace the optimistic read with a read lock. */
+    private void lockForReading() {
+        if (optimistic) {
+            lockStamp = ((LockAwareSlotMap) map).getReadLock();
+            optimistic = false;
+            map = owner.getMap();
+        }
+    }
+
+    private static IllegalStateException readOnly() {
+        return new IllegalStateException("Optimistic read operations cannot write");
+    }
+}
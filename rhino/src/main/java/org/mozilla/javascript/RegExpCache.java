@@ -0,0 +1,147 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache of compiled regular expressions, shared by the contexts of a {@link ContextFactory}.
+ * When a cache is set using {@link ContextFactory#setRegExpCache(RegExpCache)}, regular expression
+ * literals, the RegExp constructor and the String methods that turn a string into a regular
+ * expression reuse the program compiled for the same source and flags rather than compiling it
+ * again. Compiled programs hold no state of their own, so contexts on any thread may share them.
+ *
+ * <p>The cache keeps at most a given number of programs, and evicts the least recently used ones
+ * when it is full. Its keys and values are created by the regular expression implementation and
+ * are opaque to the cache. Warnings reported while compiling a regular expression are only
+ * reported the first time it is compiled. Contexts that turn warnings into errors do not share
+ * programs with contexts that do not, so they still fail to compile an expression that warns.
+ *
+ * @since 1.9.1
+ */
+public class RegExpCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<Object, Object> entries;
+    // A lock rather than a monitor, so that virtual threads waiting for it do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create a cache.
+     *
+     * @param maxEntries the maximum number of compiled regular expressions to keep
+     */
+    public RegExpCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.maxEntries = maxEntries;
+        this.entries =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                        if (size() > RegExpCache.this.maxEntries) {
+                            evictions++;
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+    }
+
+    /**
+     * Return the program that was stored for "key", or null if there is none.
+     *
+     * @param key identifies the source and flags of the regular expression
+     */
+    public Object get(Object key) {
+        lock.lock();
+        try {
+            Object compiled = entries.get(key);
+            if (compiled == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return compiled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Store a compiled program, evicting the least recently used one if the cache is full.
+     *
+     * @param key identifies the source and flags of the regular expression
+     * @param compiled the compiled program
+     */
+    public void put(Object key, Object compiled) {
+        lock.lock();
+        try {
+            entries.put(key, compiled);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Remove all entries from the cache. The counters are not reset. */
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Return the number of compiled regular expressions currently in the cache. */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Return the number of lookups that found a compiled regular expression. */
+    public long getHitCount() {
+        lock.lock();
+        try {
+            return hits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Return the number of lookups that found nothing, so that the expression was compiled. */
+    public long getMissCount() {
+        lock.lock();
+        try {
+            return misses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Return the number of compiled regular expressions evicted because the cache was full. */
+    public long getEvictionCount() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import org.mozilla.javascript.config.RhinoConfig;
+
+/**
+ * Binds the current context with a {@code java.lang.ScopedValue} rather than a ThreadLocal while a
+ * {@link ContextAction} runs through {@link ContextFactory#call(ContextAction)}. A virtual thread
+ * that runs a single script then never creates a thread local map for it.
+ *
+ * <p>The binding is used when the system property (or Rhino property) {@code
+ * rhino.useScopedContext} is true and the Java runtime provides ScopedValue. Rhino is compiled for
+ * Java 11, so ScopedValue is looked up at runtime. Contexts entered with {@link
+ * ContextFactory#enterContext()} are always bound with the ThreadLocal.
+ */
+@SuppressWarnings("AndroidJdkLibsChecker")
+final class ScopedContext {
+
+    /** True if contexts are bound with a ScopedValue. */
+    static final boolean ENABLED;
+
+    // () -> Object, returns the bound context or null
+    private static final MethodHandle GET;
+    // (Object) -> Object, returns the carrier that binds the context
+    private static final MethodHandle WHERE;
+    // (Object, Runnable) -> void, runs the Runnable with the carrier's binding
+    private static final MethodHandle RUN;
+
+    static {
+        MethodHandle get = null, where = null, run = null;
+        if (RhinoConfig.get("rhino.useScopedContext", false)) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+                Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+                Object value =
+                        lookup.findStatic(
+                                        scopedValue,
+                                        "newInstance",
+                                        MethodType.methodType(scopedValue))
+                                .invoke();
+                get =
+                        MethodHandles.insertArguments(
+                                        lookup.findVirtual(
+                                                scopedValue,
+                                                "orElse",
+                                                MethodType.methodType(Object.class, Object.class)),
+                                        0,
+                                        value,
+                                        null)
+                                .asType(MethodType.methodType(Object.class));
+                where =
+                        MethodHandles.insertArguments(
+                                        lookup.findStatic(
+                                                scopedValue,
+                                                "where",
+                                                MethodType.methodType(
+                                                        carrier, scopedValue, Object.class)),
+                                        0,
+                                        value)
+                                .asType(MethodType.methodType(Object.class, Object.class));
+                run =
+                        lookup.findVirtual(
+                                        carrier,
+                                        "run",
+                                        MethodType.methodType(void.class, Runnable.class))
+                                .asType(
+                                        MethodType.methodType(
+                                                void.class, Object.class, Runnable.class));
+                // ScopedValue is a preview API before Java 25, check that it may be used
+                get.invoke();
+            } catch (Throwable t) {
+                get = null;
+            }
+        }
+        ENABLED = get != null;
+        GET = get;
+        WHERE = where;
+        RUN = run;
+    }
+
+    private ScopedContext() {}
+
+    /** Return the context bound to the current thread, or null if there is none. */
+    static Context get() {
+        try {
+            return (Context) (Object) GET.invokeExact();
+        } catch (Throwable t) {
+            throw Kit.codeBug(t.toString());
+        }
+    }
+
+    /** Run the action with "cx" bound as the current context. */
+    static <T> T call(Context cx, ContextAction<T> action) {
+        Object[] result = new Object[1];
+        Runnable runnable = () -> result[0] = action.run(cx);
+        try {
+            RUN.invokeExact((Object) WHERE.invokeExact((Object) cx), runnable);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw Kit.codeBug(t.toString());
+        }
+        @SuppressWarnings("unchecked")
+        T r = (T) result[0];
+        return r;
+    }
+}
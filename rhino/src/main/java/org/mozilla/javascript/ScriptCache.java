@@ -0,0 +1,178 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.Objects;
+
+/**
+ * A cache of compiled scripts. When a cache is set using {@link
+ * ContextFactory#setScriptCache(ScriptCache)}, {@link Context#compileString} and {@link
+ * Context#compileReader} look up the source in the cache before parsing it, and store the
+ * resulting script afterwards. A compiled {@link Script} holds no state of its own, so the same
+ * instance may be executed by many contexts and threads at once.
+ *
+ * <p>Implementations must be thread-safe. {@link LruScriptCache} is a bounded implementation which
+ * is suitable for most uses.
+ *
+ * @since 1.9.1
+ */
+public interface ScriptCache {
+
+    /**
+     * Return the script that was stored for "key", or null if there is none.
+     *
+     * @param key the key that identifies the source and how it is compiled
+     */
+    Script get(Key key);
+
+    /**
+     * Store a compiled script. The cache may evict this or any other entry at any time.
+     *
+     * @param key the key that identifies the source and how it is compiled
+     * @param script the compiled script
+     */
+    void put(Key key, Script script);
+
+    /** Remove all entries from the cache. */
+    void clear();
+
+    /**
+     * Identifies a compiled script: the source text, the source name and line number, the security
+     * domain, and every setting of the compiler that changes the generated code. Two keys are
+     * equal only if all of these are equal, so the source hash is used to find an entry quickly
+     * but never alone to decide that it matches.
+     */
+    final class Key {
+        private static final int DEBUG_INFO = 1 << 0;
+        private static final int RESERVED_KEYWORDS = 1 << 1;
+        private static final int MEMBER_EXPR_FUNCTION_NAME = 1 << 2;
+        private static final int XML = 1 << 3;
+        private static final int INTERPRETED = 1 << 4;
+        private static final int GENERATING_SOURCE = 1 << 5;
+        private static final int STRICT = 1 << 6;
+        private static final int WARNING_AS_ERROR = 1 << 7;
+        private static final int OBSERVER_COUNT = 1 << 8;
+        private static final int TIERED = 1 << 9;
+
+        private final String source;
+        private final String sourceName;
+        private final int lineno;
+        private final Object securityDomain;
+        private final int languageVersion;
+        private final int flags;
+        private final int hash;
+        private final CompilerEnvirons compilerEnv;
+
+        Key(
+                String source,
+                String sourceName,
+                int lineno,
+                Object securityDomain,
+                CompilerEnvirons compilerEnv) {
+            this.source = source;
+            this.sourceName = sourceName;
+            this.lineno = lineno;
+            this.securityDomain = securityDomain;
+            this.languageVersion = compilerEnv.getLanguageVersion();
+            int f = 0;
+            if (compilerEnv.isGenerateDebugInfo()) f |= DEBUG_INFO;
+            if (compilerEnv.isReservedKeywordAsIdentifier()) f |= RESERVED_KEYWORDS;
+            if (compilerEnv.isAllowMemberExprAsFunctionName()) f |= MEMBER_EXPR_FUNCTION_NAME;
+            if (compilerEnv.isXmlAvailable()) f |= XML;
+            if (compilerEnv.isInterpretedMode()) f |= INTERPRETED;
+            if (compilerEnv.isGeneratingSource()) f |= GENERATING_SOURCE;
+            if (compilerEnv.isStrictMode()) f |= STRICT;
+            if (compilerEnv.reportWarningAsError()) f |= WARNING_AS_ERROR;
+            if (compilerEnv.isGenerateObserverCount()) f |= OBSERVER_COUNT;
+            if (compilerEnv.isTieredCompilation()) f |= TIERED;
+            this.flags = f;
+            this.compilerEnv = compilerEnv;
+            this.hash =
+                    Objects.hash(
+                            source.hashCode(),
+                            sourceName,
+                            lineno,
+                            securityDomain,
+                            languageVersion,
+                            flags);
+        }
+
+        /** Return the source text of the script. */
+        public String getSource() {
+            return source;
+        }
+
+        /** Return the name of the source, such as a file name. */
+        public String getSourceName() {
+            return sourceName;
+        }
+
+        /** Return the line number of the first line of the source. */
+        public int getLineno() {
+            return lineno;
+        }
+
+        /** Return the security domain the script is compiled for, which is usually null. */
+        public Object getSecurityDomain() {
+            return securityDomain;
+        }
+
+        /** Return the language version the script is compiled for. */
+        public int getLanguageVersion() {
+            return languageVersion;
+        }
+
+        /**
+         * Return the compiler settings that are part of this key, encoded as an int. Together with
+         * the other properties of the key, this may be used to build a persistent identifier.
+         */
+        public int getCompilerFlags() {
+            return flags;
+        }
+
+        /** Return true if the script is compiled for the interpreter rather than to bytecode. */
+        public boolean isInterpretedMode() {
+            return (flags & INTERPRETED) != 0;
+        }
+
+        /**
+         * Return the environment that the script is being compiled with. This is not part of the
+         * identity of the key, but allows a cache to compile the script itself.
+         */
+        public CompilerEnvirons getCompilerEnvirons() {
+            return compilerEnv;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return hash == k.hash
+                    && lineno == k.lineno
+                    && languageVersion == k.languageVersion
+                    && flags == k.flags
+                    && securityDomain == k.securityDomain
+                    && Objects.equals(sourceName, k.sourceName)
+                    && source.equals(k.source);
+        }
+
+        @Override
+        public String toString() {
+            return "ScriptCache.Key[" + sourceName + ':' + lineno + ']';
+        }
+    }
+}
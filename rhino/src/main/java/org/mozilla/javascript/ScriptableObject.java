@@ -663,7 +663,7 @@ public abstract class ScriptableObject extends SlotMapOwner
      * @return whether the property is a getter or a setter
      */
     protected boolean isGetterOrSetter(String name, int index, boolean setter) {
-        try (var map = startCompoundOp(false)) {
+        try (var map = startOptimisticReadOp()) {
             return isGetterOrSetter(map, name, index, setter);
         }
     }
@@ -765,7 +765,7 @@ public abstract class ScriptableObject extends SlotMapOwner
      */
     @Override
     public Object[] getIds() {
-        try (var map = startCompoundOp(false)) {
+        try (var map = startOptimisticReadOp()) {
             return getIds(map, false, false);
         }
     }
@@ -781,7 +781,7 @@ public abstract class ScriptableObject extends SlotMapOwner
      */
     @Override
     public Object[] getAllIds() {
-        try (var map = startCompoundOp(false)) {
+        try (var map = startOptimisticReadOp()) {
             return getIds(map, true, false);
         }
     }
@@ -1629,7 +1629,7 @@ public abstract class ScriptableObject extends SlotMapOwner
      */
     public void defineOwnProperties(Context cx, ScriptableObject props) {
         Object[] ids;
-        try (var map = props.startCompoundOp(false)) {
+        try (var map = props.startOptimisticReadOp()) {
             ids = props.getIds(map, false, true);
         }
         DescriptorInfo[] descs = new DescriptorInfo[ids.length];
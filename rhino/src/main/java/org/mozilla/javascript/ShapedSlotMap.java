@@ -0,0 +1,211 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class implements the SlotMap interface using a shared {@link SlotShape} plus a compact array
+ * of slots. The shape maps each property key to its position in the array, and is shared by all
+ * objects which added the same keys in the same order, so an object only pays for the array and
+ * its slots rather than for a private hash table. A lookup is a search of the (shared, cached)
+ * shape followed by an array load.
+ *
+ * <p>Only String and Symbol keys are stored in a shape. Adding an index key, removing a property,
+ * or growing past the limits of the shape tree replaces this map with an {@link EmbeddedSlotMap}
+ * holding the same slots. Changing the attributes or the kind of a slot does not change the shape,
+ * because the slot itself still belongs to this object alone.
+ *
+ * <p>This map is used when {@link Context#FEATURE_SHARED_SHAPES} is enabled. It is not thread-safe.
+ */
+public class ShapedSlotMap implements SlotMap {
+
+    private static final Slot[] EMPTY_SLOTS = new Slot[0];
+
+    private static final int INITIAL_SLOT_SIZE = 4;
+
+    private SlotShape shape;
+    private Slot[] slots;
+
+    public ShapedSlotMap() {
+        shape = SlotShape.ROOT;
+        slots = EMPTY_SLOTS;
+    }
+
+    public ShapedSlotMap(int capacity) {
+        shape = SlotShape.ROOT;
+        slots = new Slot[capacity];
+    }
+
+    /** Return the shape of the object that owns this map. */
+    SlotShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Return a token that identifies the property layout of "obj", or null if the object does not
+     * currently use a ShapedSlotMap. Two objects with the same token have the same keys stored at
+     * the same slot indices, so this may be used to guard inline caches.
+     */
+    public static Object getShape(ScriptableObject obj) {
+        SlotMap map = obj.getMap();
+        if (map instanceof ShapedSlotMap) {
+            return ((ShapedSlotMap) map).shape;
+        }
+        return null;
+    }
+
+    /**
+     * Return the index of the slot for "name" in objects with the given shape token, or -1 if the
+     * shape does not contain that key.
+     */
+    public static int getSlotIndex(Object shape, String name) {
+        return ((SlotShape) shape).indexOf(name);
+    }
+
+    /**
+     * Return the slot at "index" of "obj". The caller must have checked that the object has a shape
+     * that contains this index.
+     */
+    public static Slot getSlot(ScriptableObject obj, int index) {
+        return ((ShapedSlotMap) obj.getMap()).slots[index];
+    }
+
+    @Override
+    public int size() {
+        return shape.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return shape.size() == 0;
+    }
+
+    @Override
+    public Iterator<Slot> iterator() {
+        return new Iter();
+    }
+
+    @Override
+    public Slot query(Object key, int index) {
+        if (key == null) {
+            return null;
+        }
+        int ix = shape.indexOf(key);
+        return ix < 0 ? null : slots[ix];
+    }
+
+    @Override
+    public Slot modify(SlotMapOwner owner, Object key, int index, int attributes) {
+        if (key != null) {
+            int ix = shape.indexOf(key);
+            if (ix >= 0) {
+                return slots[ix];
+            }
+        }
+        Slot newSlot = new Slot(key, index, attributes);
+        createNewSlot(owner, newSlot);
+        return newSlot;
+    }
+
+    @Override
+    public void add(SlotMapOwner owner, Slot newSlot) {
+        createNewSlot(owner, newSlot);
+    }
+
+    @Override
+    public <S extends Slot> S compute(
+            SlotMapOwner owner,
+            CompoundOperationMap compoundOp,
+            Object key,
+            int index,
+            SlotComputer<S> c) {
+        int ix = key == null ? -1 : shape.indexOf(key);
+        if (ix < 0) {
+            if (key == null) {
+                // Index keys never live in a shape, so the slot cannot exist
+                return promoteMap(owner).compute(owner, compoundOp, key, index, c);
+            }
+            S newSlot = c.compute(key, index, null, compoundOp, owner);
+            if (newSlot != null) {
+                if (!compoundOp.touched) {
+                    createNewSlot(owner, newSlot);
+                } else {
+                    owner.getMap().add(owner, newSlot);
+                }
+            }
+            return newSlot;
+        }
+
+        Slot existing = slots[ix];
+        S newSlot = c.compute(key, index, existing, compoundOp, owner);
+        if (compoundOp.touched) {
+            return compoundOp.compute(owner, compoundOp, key, index, (k, i, s, m, o) -> newSlot);
+        }
+        if (newSlot == null) {
+            // Deleting a property would leave a hole in the shape
+            removeSlot(owner, ix);
+        } else if (newSlot != existing) {
+            slots[ix] = newSlot;
+        }
+        return newSlot;
+    }
+
+    private void createNewSlot(SlotMapOwner owner, Slot newSlot) {
+        SlotShape newShape = newSlot.name == null ? null : shape.addKey(newSlot.name);
+        if (newShape == null) {
+            promoteMap(owner).add(owner, newSlot);
+            return;
+        }
+        int ix = shape.size();
+        if (ix == slots.length) {
+            Slot[] newSlots = new Slot[Math.max(INITIAL_SLOT_SIZE, slots.length * 2)];
+            System.arraycopy(slots, 0, newSlots, 0, ix);
+            slots = newSlots;
+        }
+        slots[ix] = newSlot;
+        shape = newShape;
+    }
+
+    private void removeSlot(SlotMapOwner owner, int removed) {
+        var newMap = new EmbeddedSlotMap(shape.size());
+        for (int i = 0; i < shape.size(); i++) {
+            if (i != removed) {
+                newMap.add(owner, slots[i]);
+            }
+        }
+        owner.setMap(newMap);
+    }
+
+    /** Replace this map with an ordinary one containing the same slots. */
+    private SlotMap promoteMap(SlotMapOwner owner) {
+        var newMap = new EmbeddedSlotMap(shape.size() + 1);
+        for (int i = 0; i < shape.size(); i++) {
+            newMap.add(owner, slots[i]);
+        }
+        owner.setMap(newMap);
+        return newMap;
+    }
+
+    private final class Iter implements Iterator<Slot> {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < shape.size();
+        }
+
+        @Override
+        public Slot next() {
+            if (next >= shape.size()) {
+                throw new NoSuchElementException();
+            }
+            return slots[next++];
+        }
+    }
+}
@@ -91,4 +91,12 @@ public interface SlotMap extends Iterable<Slot> {
     default CompoundOperationMap startCompoundOp(SlotMapOwner owner, boolean forWriting) {
         return new CompoundOperationMap(owner);
     }
+
+    /**
+     * Start a compound operation that only reads, and whose reads need not be atomic with each
+     * other. See {@link SlotMapOwner#startOptimisticReadOp()}.
+     */
+    default CompoundOperationMap startOptimisticReadOp(SlotMapOwner owner) {
+        return startCompoundOp(owner, false);
+    }
 }
@@ -21,6 +21,8 @@ public abstract class SlotMapOwner {
 
     static final SlotMap THREAD_SAFE_EMPTY_SLOT_MAP = new ThreadSafeEmptySlotMap();
 
+    static final SlotMap SHAPED_EMPTY_SLOT_MAP = new ShapedEmptySlotMap();
+
     @SuppressWarnings("AndroidJdkLibsChecker")
     // https://developer.android.com/reference/java/lang/invoke/VarHandle added in API level 33
     // Note: Due presence of this class, dexing of rhino will not be possible for APIs < 26
@@ -154,6 +156,45 @@ public abstract class SlotMapOwner {
         }
     }
 
+    private static final class ShapedEmptySlotMap extends EmptySlotMap {
+
+        @Override
+        public Slot modify(SlotMapOwner owner, Object key, int index, int attributes) {
+            var map = new ShapedSlotMap();
+            owner.setMap(map);
+            return map.modify(owner, key, index, attributes);
+        }
+
+        @Override
+        public void add(SlotMapOwner owner, Slot newSlot) {
+            if (newSlot != null) {
+                var map = new ShapedSlotMap();
+                owner.setMap(map);
+                map.add(owner, newSlot);
+            }
+        }
+
+        @Override
+        public <S extends Slot> S compute(
+                SlotMapOwner owner,
+                CompoundOperationMap compoundOp,
+                Object key,
+                int index,
+                SlotComputer<S> c) {
+            var newSlot = c.compute(key, index, null, compoundOp, owner);
+            if (newSlot != null) {
+                if (!compoundOp.isTouched()) {
+                    var map = new ShapedSlotMap();
+                    owner.setMap(map);
+                    map.add(owner, newSlot);
+                } else {
+                    compoundOp.add(owner, newSlot);
+                }
+            }
+            return newSlot;
+        }
+    }
+
     private static final class Iter implements Iterator<Slot> {
         private Slot next;
 
@@ -323,6 +364,16 @@ public abstract class SlotMapOwner {
             } else {
                 return new ThreadSafeEmbeddedSlotMap();
             }
+        } else if ((cx != null) && cx.hasFeature(Context.FEATURE_SHARED_SHAPES)) {
+            if (initialSize == 0) {
+                return SHAPED_EMPTY_SLOT_MAP;
+            } else if (initialSize <= SlotShape.MAX_SIZE) {
+                return new ShapedSlotMap(initialSize);
+            } else if (initialSize > LARGE_HASH_SIZE) {
+                return new HashSlotMap();
+            } else {
+                return new EmbeddedSlotMap();
+            }
         } else if (initialSize == 0) {
             return EMPTY_SLOT_MAP;
         } else if (initialSize > LARGE_HASH_SIZE) {
@@ -372,4 +423,21 @@ public abstract class SlotMapOwner {
     final CompoundOperationMap startCompoundOp(boolean forWriting) {
         return slotMap.startCompoundOp(this, forWriting);
     }
+
+    /**
+     * Returns a {@link CompoundOperationMap} for an operation that only reads the map, and whose
+     * reads do not need to be atomic with each other, such as listing the ids of an object. If the
+     * underlying map is thread safe, the operation takes no lock as long as no other thread writes
+     * to the map, so that many threads can read a shared object without contending for its lock.
+     * Each read still sees a consistent map, but if another thread writes to the map during the
+     * operation, later reads may see the write while earlier ones did not. The operation must not
+     * write through the returned map, and with a thread safe map doing so throws an {@link
+     * IllegalStateException}. Use {@link #startCompoundOp(boolean)} for anything that checks and
+     * then acts. Like that method, the returned map must be closed.
+     *
+     * @return the {@link CompoundOperationMap} which can be used for the operation.
+     */
+    final CompoundOperationMap startOptimisticReadOp() {
+        return slotMap.startOptimisticReadOp(this);
+    }
 }
@@ -0,0 +1,139 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A SlotShape describes the layout of a {@link ShapedSlotMap}: the ordered sequence of property
+ * keys that were added to an object, and the index at which each key's slot is stored. Shapes are
+ * immutable and form a global transition tree rooted at {@link #ROOT}, so all objects that add the
+ * same keys in the same order share the same shape instance and only need to store their slots.
+ *
+ * <p>The tree is bounded in depth, in fan-out per shape and in total size. When any of these limits
+ * is hit, {@link #addKey} returns null and the caller falls back to an ordinary slot map. This
+ * keeps objects that are used as dictionaries from filling the tree with shapes that are never
+ * shared.
+ */
+final class SlotShape {
+
+    /** Maximum number of keys in a shape. */
+    static final int MAX_SIZE = 64;
+
+    /** Maximum number of distinct transitions out of a single shape. */
+    private static final int MAX_TRANSITIONS = 512;
+
+    /** Maximum number of shapes in the whole tree. */
+    private static final int MAX_SHAPES = 1 << 18;
+
+    /** Shapes with more keys than this build a hash table for lookups. */
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    private static final AtomicInteger shapeCount = new AtomicInteger();
+
+    static final SlotShape ROOT = new SlotShape(null, null);
+
+    private final SlotShape parent;
+    private final Object key;
+    private final int keyHash;
+    private final int size;
+
+    private volatile ConcurrentHashMap<Object, SlotShape> transitions;
+    private volatile Map<Object, Integer> table;
+
+    private SlotShape(SlotShape parent, Object key) {
+        this.parent = parent;
+        this.key = key;
+        this.keyHash = key == null ? 0 : key.hashCode();
+        this.size = parent == null ? 0 : parent.size + 1;
+    }
+
+    /** Return the number of keys in this shape. */
+    int size() {
+        return size;
+    }
+
+    /** Return the key that was added last, or null for the root shape. */
+    Object lastKey() {
+        return key;
+    }
+
+    SlotShape getParent() {
+        return parent;
+    }
+
+    /**
+     * Return the index of the slot for "key", or -1 if the key is not part of this shape.
+     *
+     * @param key a String or Symbol. Index keys are never stored in a shape.
+     */
+    int indexOf(Object key) {
+        if (size <= LINEAR_SEARCH_LIMIT) {
+            final int hash = key.hashCode();
+            for (SlotShape s = this; s.parent != null; s = s.parent) {
+                if (s.keyHash == hash && Objects.equals(s.key, key)) {
+                    return s.size - 1;
+                }
+            }
+            return -1;
+        }
+        Integer ix = getTable().get(key);
+        return ix == null ? -1 : ix;
+    }
+
+    /**
+     * Return the shape that results from adding "key" to this shape, creating and caching the
+     * transition if necessary. Return null if the tree is full and the caller must store the
+     * object some other way.
+     */
+    SlotShape addKey(Object key) {
+        if (size >= MAX_SIZE) {
+            return null;
+        }
+        ConcurrentHashMap<Object, SlotShape> t = transitions;
+        if (t == null) {
+            synchronized (this) {
+                t = transitions;
+                if (t == null) {
+                    t = new ConcurrentHashMap<>(4);
+                    transitions = t;
+                }
+            }
+        }
+        SlotShape next = t.get(key);
+        if (next != null) {
+            return next;
+        }
+        if (t.size() >= MAX_TRANSITIONS || shapeCount.get() >= MAX_SHAPES) {
+            return null;
+        }
+        SlotShape created = new SlotShape(this, key);
+        next = t.putIfAbsent(key, created);
+        if (next == null) {
+            shapeCount.incrementAndGet();
+            return created;
+        }
+        return next;
+    }
+
+    private Map<Object, Integer> getTable() {
+        Map<Object, Integer> t = table;
+        if (t == null) {
+            // Racing threads may both build the table, but the result is the same
+            t = new HashMap<>(size * 2);
+            for (SlotShape s = this; s.parent != null; s = s.parent) {
+                t.put(s.key, s.size - 1);
+            }
+            table = t;
+        }
+        return t;
+    }
+}
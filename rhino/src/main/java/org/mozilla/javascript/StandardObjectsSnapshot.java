@@ -0,0 +1,135 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The standard objects, built once and sealed so that the scopes of many scripts can share them,
+ * also on different threads. Initializing the standard objects for each script builds the whole
+ * graph of constructors and prototypes again; a snapshot builds it once, and {@link
+ * #newScope(Context)} then creates a scope for a script that inherits the standard objects from
+ * the snapshot.
+ *
+ * <p>When the snapshot is created, every lazily loaded constructor and built-in method is
+ * initialized, and every standard object is sealed. As nothing is written to these objects
+ * afterwards, they are read without locking. If the snapshot is created with a context that has
+ * {@link Context#FEATURE_THREAD_SAFE_OBJECTS}, the property maps of the sealed objects are replaced
+ * by maps that do not lock either. Objects that give access to Java packages and classes are not
+ * sealed, because they add the classes that scripts look up to themselves.
+ *
+ * <p>Scripts can neither add properties to the standard objects nor change them. Global variables
+ * and functions that a script defines, also those that replace a standard object, are stored in
+ * the scope returned by {@link #newScope(Context)}.
+ *
+ * @since 1.9.1
+ */
+public final class StandardObjectsSnapshot {
+
+    private final ScriptableObject scope;
+
+    private StandardObjectsSnapshot(ScriptableObject scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Create a snapshot of the standard objects, as {@link Context#initStandardObjects()} creates
+     * them.
+     *
+     * @param cx the current Context
+     */
+    public static StandardObjectsSnapshot create(Context cx) {
+        return new StandardObjectsSnapshot(freeze(cx.initStandardObjects(new TopLevel(), true)));
+    }
+
+    /**
+     * Create a snapshot of the standard objects without those that give access to Java, as {@link
+     * Context#initSafeStandardObjects()} creates them.
+     *
+     * @param cx the current Context
+     */
+    public static StandardObjectsSnapshot createSafe(Context cx) {
+        return new StandardObjectsSnapshot(
+                freeze(cx.initSafeStandardObjects(new TopLevel(), true)));
+    }
+
+    /** Return the sealed scope that holds the standard objects. */
+    public ScriptableObject getScope() {
+        return scope;
+    }
+
+    /**
+     * Create an empty top-level scope for a script, which reads the standard objects from this
+     * snapshot and keeps the global variables of the script to itself.
+     *
+     * @param cx the current Context
+     * @see CopyOnWriteScope
+     */
+    public CopyOnWriteScope newScope(Context cx) {
+        return new CopyOnWriteScope(scope);
+    }
+
+    /**
+     * Seal every object reachable from "root", initializing lazily loaded values on the way, and
+     * replace the locking property maps of the sealed objects.
+     */
+    private static ScriptableObject freeze(ScriptableObject root) {
+        Map<Object, Boolean> seen = new IdentityHashMap<>();
+        List<Object> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Object value = pending.remove(pending.size() - 1);
+            if (!(value instanceof ScriptableObject)
+                    || value instanceof NativeJavaPackage
+                    || value instanceof NativeJavaObject
+                    || seen.put(value, Boolean.TRUE) != null) {
+                continue;
+            }
+            ScriptableObject obj = (ScriptableObject) value;
+            obj.sealObject();
+            if (obj instanceof IdScriptableObject) {
+                ((IdScriptableObject) obj).initAllPrototypeIds(pending);
+            }
+            if (obj instanceof BaseFunction) {
+                pending.add(((BaseFunction) obj).getPrototypeProperty());
+            }
+            SlotMap map = obj.getMap();
+            for (Slot slot : map) {
+                pending.add(slot.value);
+                if (slot instanceof AccessorSlot) {
+                    AccessorSlot accessor = (AccessorSlot) slot;
+                    if (accessor.getter instanceof AccessorSlot.FunctionGetter) {
+                        pending.add(((AccessorSlot.FunctionGetter) accessor.getter).target);
+                    }
+                    if (accessor.setter instanceof AccessorSlot.FunctionSetter) {
+                        pending.add(((AccessorSlot.FunctionSetter) accessor.setter).target);
+                    }
+                }
+            }
+            if (map instanceof LockAwareSlotMap) {
+                obj.setMap(copyWithoutLocking(obj, map));
+            }
+            pending.add(obj.getPrototype());
+            pending.add(obj.getParentScope());
+        }
+        return root;
+    }
+
+    private static SlotMap copyWithoutLocking(ScriptableObject owner, SlotMap map) {
+        if (map.size() > SlotMapOwner.LARGE_HASH_SIZE) {
+            return new HashSlotMap(map);
+        }
+        SlotMap copy = new EmbeddedSlotMap(map.size());
+        for (Slot slot : map) {
+            copy.add(owner, slot.copySlot());
+        }
+        return copy;
+    }
+}
@@ -88,10 +88,10 @@ class ThreadSafeCompoundOperationMap extends CompoundOperationMap {
         }
     }
 
-    private static class Iter implements Iterator<Slot> {
+    static class Iter implements Iterator<Slot> {
         private final Iterator<Slot> mapIterator;
 
-        private Iter(Iterator<Slot> mapIterator) {
+        Iter(Iterator<Slot> mapIterator) {
             this.mapIterator = mapIterator;
         }
 
@@ -150,6 +150,16 @@ class ThreadSafeEmbeddedSlotMap extends EmbeddedSlotMap implements LockAwareSlot
         lock.unlock(stamp);
     }
 
+    @Override
+    public long tryOptimisticRead() {
+        return lock.tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+        return lock.validate(stamp);
+    }
+
     @Override
     protected void promoteMap(SlotMapOwner owner, Slot newSlot) {
         // We can use `setMap` here as this promotion can only be done
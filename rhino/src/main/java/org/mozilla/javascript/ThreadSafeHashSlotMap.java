@@ -174,4 +174,14 @@ class ThreadSafeHashSlotMap extends HashSlotMap implements LockAwareSlotMap {
     public void releaseLock(long stamp) {
         lock.unlock(stamp);
     }
+
+    @Override
+    public long tryOptimisticRead() {
+        return lock.tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+        return lock.validate(stamp);
+    }
 }
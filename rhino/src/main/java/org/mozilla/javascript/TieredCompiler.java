@@ -0,0 +1,164 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.mozilla.javascript.ast.AstRoot;
+import org.mozilla.javascript.ast.FunctionNode;
+import org.mozilla.javascript.ast.ScriptNode;
+import org.mozilla.javascript.config.RhinoConfig;
+
+/**
+ * Compiles interpreted functions that are called often to JVM bytecode, as enabled by {@link
+ * Context#FEATURE_TIERED_COMPILATION}.
+ *
+ * <p>The interpreter counts down {@link InterpreterData#tierCountdown} each time a function is
+ * called and each time one of its loops jumps back, and calls {@link #compile} when the count
+ * reaches zero. The source of the function is then compiled again, on its own, by the bytecode
+ * compiler, and the compiled code replaces the interpreted code in the {@link JSDescriptor} of the
+ * function, which all function objects created from the same function expression or declaration
+ * share. Calls that are running when the code is replaced go on in the interpreter; there is no
+ * replacement of running frames.
+ *
+ * <p>The new code is only used if it was compiled for exactly the same parameters, variables and
+ * frame layout as the interpreted code. If the function cannot be compiled, for example because
+ * its bytecode would be too large, it stays interpreted.
+ */
+final class TieredCompiler {
+
+    /** Number of calls and loop iterations after which a function is compiled. */
+    static final int THRESHOLD = RhinoConfig.get("rhino.tieredCompileThreshold", 1000);
+
+    private static final boolean IN_BACKGROUND =
+            RhinoConfig.get("rhino.tieredCompileInBackground", true);
+
+    private static final Class<?> codegenClass =
+            ScriptRuntime.androidApi > 0
+                    ? null
+                    : Kit.classOrNull("org.mozilla.javascript.optimizer.Codegen");
+
+    // Warnings are not reported again, as the function was compiled once already, and errors
+    // only abort the compilation.
+    private static final ErrorReporter QUIET_REPORTER =
+            new ErrorReporter() {
+                @Override
+                public void warning(
+                        String message,
+                        String sourceName,
+                        int line,
+                        String lineSource,
+                        int lineOffset) {}
+
+                @Override
+                public void error(
+                        String message,
+                        String sourceName,
+                        int line,
+                        String lineSource,
+                        int lineOffset) {
+                    throw runtimeError(message, sourceName, line, lineSource, lineOffset);
+                }
+
+                @Override
+                public EvaluatorException runtimeError(
+                        String message,
+                        String sourceName,
+                        int line,
+                        String lineSource,
+                        int lineOffset) {
+                    return new EvaluatorException(
+                            message, sourceName, line, lineSource, lineOffset);
+                }
+            };
+
+    private static final class Background {
+        static final ExecutorService executor =
+                Executors.newSingleThreadExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "Rhino tiered compiler");
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    private TieredCompiler() {}
+
+    /** Return true if the interpreted code of the given function should count its calls. */
+    static boolean canCompile(CompilerEnvirons compilerEnv, FunctionNode fn) {
+        return compilerEnv.isTieredCompilation()
+                && compilerEnv.isGeneratingSource()
+                && THRESHOLD > 0
+                && codegenClass != null
+                && fn.getFunctionType() != FunctionNode.ARROW_FUNCTION
+                && !fn.isGenerator()
+                && !fn.isMethod()
+                && !fn.isMethodDefinition()
+                && !fn.isShorthand();
+    }
+
+    /**
+     * Compile the given function, whose interpreted code has been run often enough, with the
+     * settings of the given context.
+     */
+    static void compile(Context cx, JSFunction f, int lineno) {
+        JSDescriptor<JSFunction> desc = f.getDescriptor();
+        CompilerEnvirons compilerEnv = new CompilerEnvirons();
+        compilerEnv.initFromContext(cx);
+        compilerEnv.setErrorReporter(QUIET_REPORTER);
+        compilerEnv.setInterpretedMode(false);
+        compilerEnv.setTieredCompilation(false);
+        compilerEnv.setStrictMode(desc.isStrict());
+        compilerEnv.setSecurityDomain(desc.getSecurityDomain());
+        if (IN_BACKGROUND) {
+            ContextFactory factory = cx.getFactory();
+            Background.executor.execute(
+                    () ->
+                            factory.call(
+                                    c -> {
+                                        compile(compilerEnv, desc, lineno);
+                                        return null;
+                                    }));
+        } else {
+            compile(compilerEnv, desc, lineno);
+        }
+    }
+
+    private static void compile(
+            CompilerEnvirons compilerEnv, JSDescriptor<JSFunction> desc, int lineno) {
+        // Compile the function where the interpreter found it, so that it gets the same type
+        String source = desc.getRawSource();
+        switch (desc.getFunctionType()) {
+            case FunctionNode.FUNCTION_EXPRESSION:
+                source = '(' + source + ')';
+                break;
+            case FunctionNode.FUNCTION_EXPRESSION_STATEMENT:
+                source = '{' + source + '}';
+                break;
+        }
+        String sourceName = desc.getSourceName();
+        try {
+            Parser p = new Parser(compilerEnv, QUIET_REPORTER);
+            AstRoot ast = p.parse(source, sourceName, lineno);
+            IRFactory irf = new IRFactory(compilerEnv, sourceName, source, QUIET_REPORTER);
+            ScriptNode tree = irf.transformTree(ast);
+            if (tree.getFunctionCount() != 1) {
+                return;
+            }
+            tree.setRawSource(source);
+            tree.setRawSourceBounds(0, source.length());
+
+            Evaluator codegen = (Evaluator) Kit.newInstanceOrNull(codegenClass);
+            Object bytecode = codegen.compile(compilerEnv, tree, source, false);
+            JSScript script =
+                    (JSScript) codegen.createScriptObject(bytecode, desc.getSecurityDomain());
+            desc.replaceInterpretedCode(script.getDescriptor().getFunction(0));
+        } catch (RuntimeException e) {
+            // The function stays interpreted
+        }
+    }
+}
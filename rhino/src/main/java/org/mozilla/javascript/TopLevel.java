@@ -142,6 +142,12 @@ public class TopLevel extends ScriptableObject {
         errors = null;
     }
 
+    /** Use the cache of another top-level scope, whose built-in objects this scope shares. */
+    void copyBuiltins(TopLevel other) {
+        ctors = other.ctors;
+        errors = other.errors;
+    }
+
     /**
      * Static helper method to get a built-in object constructor with the given {@code type} from
      * the given {@code scope}. If the scope is not an instance of this class or does have a cache
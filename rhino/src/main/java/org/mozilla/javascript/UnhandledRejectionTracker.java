@@ -24,7 +24,7 @@ import java.util.function.Consumer;
  */
 public class UnhandledRejectionTracker {
     private boolean enabled = false;
-    private static final IdentityHashMap<NativePromise, NativePromise> unhandled =
+    private final IdentityHashMap<NativePromise, NativePromise> unhandled =
             new IdentityHashMap<>(0);
 
     /**
@@ -63,6 +63,15 @@ public class UnhandledRejectionTracker {
         this.enabled = enabled;
     }
 
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Forget all unhandled rejections, for a context that goes back to its pool. */
+    void clear() {
+        unhandled.clear();
+    }
+
     void promiseRejected(NativePromise p) {
         if (enabled) {
             unhandled.put(p, p);
@@ -0,0 +1,124 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.commonjs.module.provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.commonjs.module.ModuleScript;
+import org.mozilla.javascript.commonjs.module.ModuleScriptProvider;
+import org.mozilla.javascript.optimizer.ClassCompiler;
+
+/**
+ * A module script provider that loads modules that were compiled to Java classes ahead of time, so
+ * that requiring a module neither parses nor compiles any source. The classes are loaded through a
+ * class loader, together with an index that maps the path of each module source, relative to the
+ * directory it was compiled from, to the name of its main class. The {@code -jar} option of {@code
+ * org.mozilla.javascript.tools.jsc.Main} builds a jar that holds both.
+ *
+ * <p>The module with the ID "lib/util" is the one compiled from "lib/util.js". Each module gets a
+ * URI that is the path of its source resolved against the base URI of this provider, so that
+ * modules can require each other by relative IDs, and so that sandboxed require() functions accept
+ * them. Modules that are not in the index are not found; combine this provider with another one in
+ * a {@link MultiModuleScriptProvider} to load such modules from their source.
+ *
+ * <p>Each module class is instantiated once and the script is then shared by all require()
+ * functions that use this provider.
+ *
+ * @since 1.9.1
+ */
+public class PrecompiledModuleScriptProvider implements ModuleScriptProvider {
+
+    /** The name of the resource that maps module source paths to class names. */
+    public static final String INDEX_RESOURCE = "META-INF/rhino/modules.properties";
+
+    private static final URI DEFAULT_BASE = URI.create("precompiled:/");
+
+    private final ClassLoader loader;
+    private final URI base;
+    private final Map<String, String> classNames = new HashMap<>();
+    private final Map<String, ModuleScript> modules = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a provider for the modules listed in all indexes that the given class loader finds,
+     * with module URIs under "precompiled:/".
+     *
+     * @param loader the class loader for the indexes and the module classes
+     * @throws IOException if an index could not be read
+     */
+    public PrecompiledModuleScriptProvider(ClassLoader loader) throws IOException {
+        this(loader, DEFAULT_BASE);
+    }
+
+    /**
+     * Creates a provider for the modules listed in all indexes that the given class loader finds.
+     * If more than one index lists the same source path, the first one found is used.
+     *
+     * @param loader the class loader for the indexes and the module classes
+     * @param base the URI against which the source paths are resolved to get module URIs; it
+     *     should end with a slash
+     * @throws IOException if an index could not be read
+     */
+    public PrecompiledModuleScriptProvider(ClassLoader loader, URI base) throws IOException {
+        this.loader = loader;
+        this.base = base;
+        Enumeration<URL> indexes = loader.getResources(INDEX_RESOURCE);
+        while (indexes.hasMoreElements()) {
+            Properties index = new Properties();
+            try (InputStream in = indexes.nextElement().openStream()) {
+                index.load(in);
+            }
+            for (String path : index.stringPropertyNames()) {
+                classNames.putIfAbsent(path, index.getProperty(path));
+            }
+        }
+    }
+
+    @Override
+    public ModuleScript getModuleScript(
+            Context cx, String moduleId, URI moduleUri, URI baseUri, Scriptable paths)
+            throws Exception {
+        String id = moduleId;
+        if (moduleUri != null) {
+            URI relative = base.relativize(moduleUri);
+            if (relative.isAbsolute() || relative.getPath() == null) {
+                // Not one of our modules
+                return null;
+            }
+            id = relative.getPath();
+        }
+        String path = findPath(id);
+        if (path == null) {
+            return null;
+        }
+        ModuleScript module = modules.get(path);
+        if (module == null) {
+            Script script = ClassCompiler.loadScript(loader, classNames.get(path));
+            module = new ModuleScript(script, base.resolve(path), base);
+            ModuleScript existing = modules.putIfAbsent(path, module);
+            if (existing != null) {
+                module = existing;
+            }
+        }
+        return module;
+    }
+
+    private String findPath(String moduleId) {
+        String path = moduleId + ".js";
+        if (classNames.containsKey(path)) {
+            return path;
+        }
+        return classNames.containsKey(moduleId) ? moduleId : null;
+    }
+}
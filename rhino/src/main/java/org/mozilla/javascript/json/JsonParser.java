@@ -6,8 +6,10 @@
 
 package org.mozilla.javascript.json;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.ScriptRuntime.StringIdOrIndex;
@@ -23,12 +25,37 @@ import org.mozilla.javascript.Scriptable;
  */
 public class JsonParser {
 
+    /** The size of the buffer used when reading from a {@link Reader}. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The number of entries in the cache of property names, which must be a power of two. */
+    private static final int KEY_CACHE_SIZE = 256;
+
+    /** Property names longer than this are not looked up in the cache. */
+    private static final int MAX_CACHED_KEY_LENGTH = 32;
+
     private Context cx;
     private Scriptable scope;
 
+    /*
+     * The input is read from "buf" between "pos" and "limit". When it is read from a Reader, the
+     * buffer is refilled as it is consumed. Characters from "mark" onwards, if it is not -1, are
+     * kept when the buffer is refilled so that a token can be taken from the buffer in one piece.
+     */
+    private char[] buf;
     private int pos;
-    private int length;
-    private String src;
+    private int limit;
+    private int mark;
+    private Reader reader;
+    // The number of characters that were discarded from the front of the buffer
+    private long discarded;
+
+    // Elements of the arrays that are being parsed, so that each one is created at its final size
+    private Object[] elements = new Object[16];
+    private int elementCount;
+
+    // Property names that were read recently, so that repeated names share one String
+    private String[] keys;
 
     public JsonParser(Context cx, Scriptable scope) {
         this.cx = cx;
@@ -39,21 +66,111 @@ public class JsonParser {
         if (json == null) {
             throw new ParseException("Input string may not be null");
         }
+        if (json.length() <= BUFFER_SIZE) {
+            buf = json.toCharArray();
+            reader = null;
+        } else {
+            // Avoid holding a second copy of a large document
+            buf = new char[BUFFER_SIZE];
+            reader = new StringReader(json);
+        }
+        limit = reader == null ? buf.length : 0;
+        return parseInput();
+    }
+
+    /**
+     * Parse a JSON value from a stream of characters. The value is built while the input is read,
+     * so the document is never held in memory as a whole. The reader is read up to its end, but
+     * not closed.
+     *
+     * @since 1.9.1
+     */
+    public synchronized Object parse(Reader json) throws ParseException {
+        if (json == null) {
+            throw new ParseException("Input reader may not be null");
+        }
+        buf = new char[BUFFER_SIZE];
+        limit = 0;
+        reader = json;
+        return parseInput();
+    }
+
+    private Object parseInput() throws ParseException {
         pos = 0;
-        length = json.length();
-        src = json;
-        Object value = readValue();
-        consumeWhitespace();
-        if (pos < length) {
-            throw new ParseException("Expected end of stream at char " + pos);
+        mark = -1;
+        discarded = 0;
+        elementCount = 0;
+        try {
+            Object value = readValue();
+            consumeWhitespace();
+            if (more()) {
+                throw new ParseException("Expected end of stream at char " + (discarded + pos));
+            }
+            return value;
+        } finally {
+            buf = null;
+            reader = null;
+            Arrays.fill(elements, 0, elementCount, null);
+        }
+    }
+
+    /**
+     * Return true if there is at least one more character to read, refilling the buffer if
+     * necessary.
+     */
+    private boolean more() throws ParseException {
+        return pos < limit || fill();
+    }
+
+    /**
+     * Return true if there are at least "n" more characters to read, refilling the buffer if
+     * necessary.
+     */
+    private boolean more(int n) throws ParseException {
+        while (limit - pos < n) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill() throws ParseException {
+        if (reader == null) {
+            return false;
+        }
+        int keep = mark >= 0 ? mark : pos;
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            discarded += keep;
+            pos -= keep;
+            limit -= keep;
+            if (mark >= 0) {
+                mark = 0;
+            }
+        }
+        if (limit == buf.length) {
+            // A single token is larger than the buffer
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int n;
+        try {
+            n = reader.read(buf, limit, buf.length - limit);
+        } catch (IOException e) {
+            throw new ParseException(e);
+        }
+        if (n <= 0) {
+            reader = null;
+            return false;
         }
-        return value;
+        limit += n;
+        return true;
     }
 
     private Object readValue() throws ParseException {
         consumeWhitespace();
-        while (pos < length) {
-            char c = src.charAt(pos++);
+        while (more()) {
+            char c = buf[pos++];
             switch (c) {
                 case '{':
                     return readObject();
@@ -64,7 +181,7 @@ public class JsonParser {
                 case 'f':
                     return readFalse();
                 case '"':
-                    return readString();
+                    return readString(false);
                 case 'n':
                     return readNull();
                 case '1':
@@ -90,15 +207,15 @@ public class JsonParser {
         consumeWhitespace();
         Scriptable object = cx.newObject(scope);
         // handle empty object literal case early
-        if (pos < length && src.charAt(pos) == '}') {
+        if (more() && buf[pos] == '}') {
             pos += 1;
             return object;
         }
         String id;
         Object value;
         boolean needsComma = false;
-        while (pos < length) {
-            char c = src.charAt(pos++);
+        while (more()) {
+            char c = buf[pos++];
             switch (c) {
                 case '}':
                     if (!needsComma) {
@@ -115,7 +232,7 @@ public class JsonParser {
                     if (needsComma) {
                         throw new ParseException("Missing comma in object literal");
                     }
-                    id = readString();
+                    id = readString(true);
                     consume(':');
                     value = readValue();
 
@@ -138,21 +255,25 @@ public class JsonParser {
     private Object readArray() throws ParseException {
         consumeWhitespace();
         // handle empty array literal case early
-        if (pos < length && src.charAt(pos) == ']') {
+        if (more() && buf[pos] == ']') {
             pos += 1;
             return cx.newArray(scope, 0);
         }
-        List<Object> list = new ArrayList<>();
+        // Elements are collected after those of any enclosing array
+        final int start = elementCount;
         boolean needsComma = false;
-        while (pos < length) {
-            char c = src.charAt(pos);
+        while (more()) {
+            char c = buf[pos];
             switch (c) {
                 case ']':
                     if (!needsComma) {
                         throw new ParseException("Unexpected comma in array literal");
                     }
                     pos += 1;
-                    return cx.newArray(scope, list.toArray());
+                    Object[] array = Arrays.copyOfRange(elements, start, elementCount);
+                    Arrays.fill(elements, start, elementCount, null);
+                    elementCount = start;
+                    return cx.newArray(scope, array);
                 case ',':
                     if (!needsComma) {
                         throw new ParseException("Unexpected comma in array literal");
@@ -164,7 +285,11 @@ public class JsonParser {
                     if (needsComma) {
                         throw new ParseException("Missing comma in array literal");
                     }
-                    list.add(readValue());
+                    Object element = readValue();
+                    if (elementCount == elements.length) {
+                        elements = Arrays.copyOf(elements, elements.length * 2);
+                    }
+                    elements[elementCount++] = element;
                     needsComma = true;
             }
             consumeWhitespace();
@@ -172,20 +297,23 @@ public class JsonParser {
         throw new ParseException("Unterminated array literal");
     }
 
-    private String readString() throws ParseException {
+    private String readString(boolean isKey) throws ParseException {
         /*
          * Optimization: if the source contains no escaped characters, create the
          * string directly from the source text.
          */
-        int stringStart = pos;
-        while (pos < length) {
-            char c = src.charAt(pos++);
+        mark = pos;
+        while (more()) {
+            char c = buf[pos++];
             if (c <= '\u001F') {
                 throw new ParseException("String contains control character");
             } else if (c == '\\') {
                 break;
             } else if (c == '"') {
-                return src.substring(stringStart, pos - 1);
+                int start = mark;
+                int length = pos - 1 - start;
+                mark = -1;
+                return isKey ? key(start, length) : new String(buf, start, length);
             }
         }
 
@@ -195,13 +323,14 @@ public class JsonParser {
          * character, and repeat until the entire string is consumed.
          */
         StringBuilder b = new StringBuilder();
-        while (pos < length) {
-            assert src.charAt(pos - 1) == '\\';
-            b.append(src, stringStart, pos - 1);
-            if (pos >= length) {
+        while (pos > mark && buf[pos - 1] == '\\') {
+            // mark is the start of the unescaped run before the backslash
+            b.append(buf, mark, pos - 1 - mark);
+            mark = -1;
+            if (!more()) {
                 throw new ParseException("Unterminated string");
             }
-            char c = src.charAt(pos++);
+            char c = buf[pos++];
             switch (c) {
                 case '"':
                     b.append('"');
@@ -228,18 +357,18 @@ public class JsonParser {
                     b.append('\t');
                     break;
                 case 'u':
-                    if (length - pos < 5) {
+                    if (!more(5)) {
                         throw new ParseException(
-                                "Invalid character code: \\u" + src.substring(pos));
+                                "Invalid character code: \\u" + new String(buf, pos, limit - pos));
                     }
                     int code =
-                            fromHex(src.charAt(pos + 0)) << 12
-                                    | fromHex(src.charAt(pos + 1)) << 8
-                                    | fromHex(src.charAt(pos + 2)) << 4
-                                    | fromHex(src.charAt(pos + 3));
+                            fromHex(buf[pos + 0]) << 12
+                                    | fromHex(buf[pos + 1]) << 8
+                                    | fromHex(buf[pos + 2]) << 4
+                                    | fromHex(buf[pos + 3]);
                     if (code < 0) {
                         throw new ParseException(
-                                "Invalid character code: " + src.substring(pos, pos + 4));
+                                "Invalid character code: " + new String(buf, pos, 4));
                     }
                     pos += 4;
                     b.append((char) code);
@@ -247,15 +376,16 @@ public class JsonParser {
                 default:
                     throw new ParseException("Unexpected character in string: '\\" + c + "'");
             }
-            stringStart = pos;
-            while (pos < length) {
-                c = src.charAt(pos++);
+            mark = pos;
+            while (more()) {
+                c = buf[pos++];
                 if (c <= '\u001F') {
                     throw new ParseException("String contains control character");
                 } else if (c == '\\') {
                     break;
                 } else if (c == '"') {
-                    b.append(src, stringStart, pos - 1);
+                    b.append(buf, mark, pos - 1 - mark);
+                    mark = -1;
                     return b.toString();
                 }
             }
@@ -263,6 +393,38 @@ public class JsonParser {
         throw new ParseException("Unterminated string literal");
     }
 
+    /**
+     * Return a property name read from the buffer. Objects in a document often share their
+     * property names, so short names are kept in a small cache and reused rather than copied
+     * again.
+     */
+    private String key(int start, int length) {
+        if (length > MAX_CACHED_KEY_LENGTH) {
+            return new String(buf, start, length);
+        }
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        if (keys == null) {
+            keys = new String[KEY_CACHE_SIZE];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (KEY_CACHE_SIZE - 1);
+        String cached = keys[slot];
+        if (cached != null && cached.length() == length && cached.hashCode() == hash) {
+            int i = 0;
+            while (i < length && cached.charAt(i) == buf[start + i]) {
+                i++;
+            }
+            if (i == length) {
+                return cached;
+            }
+        }
+        String key = new String(buf, start, length);
+        keys[slot] = key;
+        return key;
+    }
+
     private static int fromHex(char c) {
         return c >= '0' && c <= '9'
                 ? c - '0'
@@ -271,44 +433,45 @@ public class JsonParser {
 
     private Number readNumber(char c) throws ParseException {
         assert c == '-' || (c >= '0' && c <= '9');
-        final int numberStart = pos - 1;
+        mark = pos - 1;
         if (c == '-') {
-            c = nextOrNumberError(numberStart);
+            c = nextOrNumberError();
             if (!(c >= '0' && c <= '9')) {
-                throw numberError(numberStart, pos);
+                throw numberError();
             }
         }
         if (c != '0') {
             readDigits();
         }
         // read optional fraction part
-        if (pos < length) {
-            c = src.charAt(pos);
+        if (more()) {
+            c = buf[pos];
             if (c == '.') {
                 pos += 1;
-                c = nextOrNumberError(numberStart);
+                c = nextOrNumberError();
                 if (!(c >= '0' && c <= '9')) {
-                    throw numberError(numberStart, pos);
+                    throw numberError();
                 }
                 readDigits();
             }
         }
         // read optional exponent part
-        if (pos < length) {
-            c = src.charAt(pos);
+        if (more()) {
+            c = buf[pos];
             if (c == 'e' || c == 'E') {
                 pos += 1;
-                c = nextOrNumberError(numberStart);
+                c = nextOrNumberError();
                 if (c == '-' || c == '+') {
-                    c = nextOrNumberError(numberStart);
+                    c = nextOrNumberError();
                 }
                 if (!(c >= '0' && c <= '9')) {
-                    throw numberError(numberStart, pos);
+                    throw numberError();
                 }
                 readDigits();
             }
         }
-        String num = src.substring(numberStart, pos);
+        String num = new String(buf, mark, pos - mark);
+        mark = -1;
         final double dval = Double.parseDouble(num);
         final int ival = (int) dval;
         if (ival == dval) {
@@ -317,20 +480,21 @@ public class JsonParser {
         return Double.valueOf(dval);
     }
 
-    private ParseException numberError(int start, int end) {
-        return new ParseException("Unsupported number format: " + src.substring(start, end));
+    private ParseException numberError() {
+        return new ParseException(
+                "Unsupported number format: " + new String(buf, mark, pos - mark));
     }
 
-    private char nextOrNumberError(int numberStart) throws ParseException {
-        if (pos >= length) {
-            throw numberError(numberStart, length);
+    private char nextOrNumberError() throws ParseException {
+        if (!more()) {
+            throw numberError();
         }
-        return src.charAt(pos++);
+        return buf[pos++];
     }
 
-    private void readDigits() {
-        for (; pos < length; ++pos) {
-            char c = src.charAt(pos);
+    private void readDigits() throws ParseException {
+        for (; more(); ++pos) {
+            char c = buf[pos];
             if (!(c >= '0' && c <= '9')) {
                 break;
             }
@@ -338,10 +502,7 @@ public class JsonParser {
     }
 
     private Boolean readTrue() throws ParseException {
-        if (length - pos < 3
-                || src.charAt(pos) != 'r'
-                || src.charAt(pos + 1) != 'u'
-                || src.charAt(pos + 2) != 'e') {
+        if (!more(3) || buf[pos] != 'r' || buf[pos + 1] != 'u' || buf[pos + 2] != 'e') {
             throw new ParseException("Unexpected token: t");
         }
         pos += 3;
@@ -349,11 +510,11 @@ public class JsonParser {
     }
 
     private Boolean readFalse() throws ParseException {
-        if (length - pos < 4
-                || src.charAt(pos) != 'a'
-                || src.charAt(pos + 1) != 'l'
-                || src.charAt(pos + 2) != 's'
-                || src.charAt(pos + 3) != 'e') {
+        if (!more(4)
+                || buf[pos] != 'a'
+                || buf[pos + 1] != 'l'
+                || buf[pos + 2] != 's'
+                || buf[pos + 3] != 'e') {
             throw new ParseException("Unexpected token: f");
         }
         pos += 4;
@@ -361,19 +522,16 @@ public class JsonParser {
     }
 
     private Object readNull() throws ParseException {
-        if (length - pos < 3
-                || src.charAt(pos) != 'u'
-                || src.charAt(pos + 1) != 'l'
-                || src.charAt(pos + 2) != 'l') {
+        if (!more(3) || buf[pos] != 'u' || buf[pos + 1] != 'l' || buf[pos + 2] != 'l') {
             throw new ParseException("Unexpected token: n");
         }
         pos += 3;
         return null;
     }
 
-    private void consumeWhitespace() {
-        while (pos < length) {
-            char c = src.charAt(pos);
+    private void consumeWhitespace() throws ParseException {
+        while (more()) {
+            char c = buf[pos];
             switch (c) {
                 case ' ':
                 case '\t':
@@ -389,10 +547,10 @@ public class JsonParser {
 
     private void consume(char token) throws ParseException {
         consumeWhitespace();
-        if (pos >= length) {
+        if (!more()) {
             throw new ParseException("Expected " + token + " but reached end of stream");
         }
-        char c = src.charAt(pos++);
+        char c = buf[pos++];
         if (c == token) {
             return;
         }
@@ -1996,7 +1996,7 @@ class BodyCodegen {
         cfw.addALoad(variableObjectLocal);
         cfw.add(
                 ByteCode.GETSTATIC,
-                cfw.getClassName(),
+                codegen.mainClassName,
                 Codegen.DESCRIPTORS_FIELD_NAME,
                 Codegen.DESCRIPTORS_FIELD_SIGNATURE);
         cfw.addPush(fnIndex);
@@ -2152,7 +2152,7 @@ class BodyCodegen {
             cfw.addALoad(argsLocal);
             cfw.addInvoke(
                     ByteCode.INVOKESTATIC,
-                    codegen.mainClassName,
+                    cfw.getClassName(),
                     methodName,
                     "(Lorg/mozilla/javascript/Context;"
                             + scriptOrFnType
@@ -2515,7 +2515,7 @@ class BodyCodegen {
             cfw.addALoad(argsLocal);
             cfw.addInvoke(
                     ByteCode.INVOKESTATIC,
-                    codegen.mainClassName,
+                    cfw.getClassName(),
                     methodName,
                     "(Lorg/mozilla/javascript/Context;"
                             + scriptOrFnType
@@ -2730,15 +2730,7 @@ class BodyCodegen {
         // stack: ... functionObj cx scope thisObj
         cfw.addALoad(argsLocal);
 
-        cfw.addInvoke(
-                ByteCode.INVOKEINTERFACE,
-                "org/mozilla/javascript/Callable",
-                "call",
-                "(Lorg/mozilla/javascript/Context;"
-                        + "Lorg/mozilla/javascript/Scriptable;"
-                        + "Lorg/mozilla/javascript/Scriptable;"
-                        + "[Ljava/lang/Object;"
-                        + ")Ljava/lang/Object;");
+        addDynamicInvoke("FUNCTION:CALL", Signatures.FUNCTION_CALL);
 
         if (afterLabel != null) {
             cfw.markLabel(afterLabel);
@@ -2809,7 +2801,7 @@ class BodyCodegen {
                 "()" + Codegen.DESCRIPTOR_CLASS_SIGNATURE);
         cfw.add(
                 ByteCode.GETSTATIC,
-                cfw.getClassName(),
+                codegen.mainClassName,
                 Codegen.DESCRIPTORS_FIELD_NAME,
                 Codegen.DESCRIPTORS_FIELD_SIGNATURE);
         cfw.addPush(codegen.getIndex(target.fnode));
@@ -3103,8 +3095,7 @@ class BodyCodegen {
             handlerLabels[JAVASCRIPT_EXCEPTION] = cfw.acquireLabel();
             handlerLabels[EVALUATOR_EXCEPTION] = cfw.acquireLabel();
             handlerLabels[ECMAERROR_EXCEPTION] = cfw.acquireLabel();
-            Context cx = Context.getCurrentContext();
-            if (cx != null && cx.hasFeature(Context.FEATURE_ENHANCED_JAVA_ACCESS)) {
+            if (codegen.enhancedJavaAccess) {
                 handlerLabels[THROWABLE_EXCEPTION] = cfw.acquireLabel();
             }
         }
@@ -3181,8 +3172,7 @@ class BodyCodegen {
                     exceptionLocal,
                     handlerLabels[ECMAERROR_EXCEPTION]);
 
-            Context cx = Context.getCurrentContext();
-            if (cx != null && cx.hasFeature(Context.FEATURE_ENHANCED_JAVA_ACCESS)) {
+            if (codegen.enhancedJavaAccess) {
                 generateCatchBlock(
                         THROWABLE_EXCEPTION,
                         savedVariableObject,
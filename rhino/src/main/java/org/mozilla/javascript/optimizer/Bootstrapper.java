@@ -58,13 +58,15 @@ public class Bootstrapper {
                 new CompositeTypeBasedGuardingDynamicLinker(
                         Arrays.asList(
                                 new ConstAwareLinker(),
+                                new NativeObjectLinker(),
                                 new BooleanLinker(),
                                 new IntegerLinker(),
                                 new DoubleLinker(),
                                 new StringLinker(),
                                 new ConsStringLinker(),
                                 new NativeArrayLinker(),
-                                new BaseFunctionLinker()));
+                                new BaseFunctionLinker(),
+                                new NativeJavaMethodLinker()));
         // Add the default linker, which can link anything no matter what.
         factory.setPrioritizedLinkers(typeLinker, new DefaultLinker());
         linker = factory.createLinker();
@@ -219,6 +221,11 @@ public class Bootstrapper {
                 case "COMPARELE":
                     return RhinoOperation.COMPARE_LE.withNamespace(RhinoNamespace.MATH);
             }
+        } else if ("FUNCTION".equals(namespaceName)) {
+            if ("CALL".equals(opName)) {
+                // Call a function with a "this" object and an array of arguments
+                return StandardOperation.CALL.withNamespace(RhinoNamespace.FUNCTION);
+            }
         }
 
         // Fall through to no match. This will only happen if the name in the bytecode
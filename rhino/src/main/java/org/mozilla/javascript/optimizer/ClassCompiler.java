@@ -10,18 +10,24 @@ import static org.mozilla.classfile.ClassFileWriter.ACC_PUBLIC;
 import static org.mozilla.classfile.ClassFileWriter.ACC_STATIC;
 
 import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.mozilla.classfile.ByteCode;
 import org.mozilla.classfile.ClassFileWriter;
 import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
 import org.mozilla.javascript.IRFactory;
 import org.mozilla.javascript.JSCode;
 import org.mozilla.javascript.JSDescriptor;
+import org.mozilla.javascript.JSFunction;
+import org.mozilla.javascript.JSScript;
 import org.mozilla.javascript.JavaAdapter;
 import org.mozilla.javascript.Parser;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.ast.AstRoot;
 import org.mozilla.javascript.ast.FunctionNode;
@@ -153,6 +159,15 @@ public class ClassCompiler {
                 codegen.compileToClassFile(
                         compilerEnv, builder, builderEnv, scriptClassName, tree, source, false);
         Object[] auxilaryClasses = buildDescriptorsAndMain(scriptClassName, builder);
+        if (codegen.parts != null) {
+            // Wait for the part classes, which are generated in parallel
+            int count = auxilaryClasses.length;
+            auxilaryClasses = Arrays.copyOf(auxilaryClasses, count + codegen.parts.size() * 2);
+            for (OptJSCode.PartClass part : codegen.parts) {
+                auxilaryClasses[count++] = part.className;
+                auxilaryClasses[count++] = part.getBytes();
+            }
+        }
         if (isPrimary) {
             var result = new Object[auxilaryClasses.length + 2];
             System.arraycopy(auxilaryClasses, 0, result, 2, auxilaryClasses.length);
@@ -185,6 +200,40 @@ public class ClassCompiler {
         return result;
     }
 
+    /**
+     * Return a script for the classes that {@link #compileToClassFiles} generated for a script
+     * without a super class or interfaces, once they can be loaded through the given class loader.
+     * Loading the class that holds the descriptors builds them, and the regular expression and
+     * template literals of the script are initialized as when {@link Codegen} defines the classes
+     * itself.
+     *
+     * @param loader the class loader that can load the generated classes
+     * @param scriptClassName the name of the first generated class
+     * @return the script
+     * @throws ReflectiveOperationException if the classes cannot be loaded or are not script
+     *     classes
+     * @since 1.9.1
+     */
+    @SuppressWarnings("unchecked")
+    public static Script loadScript(ClassLoader loader, String scriptClassName)
+            throws ReflectiveOperationException {
+        Class<?> scriptClass = Class.forName(scriptClassName, true, loader);
+        Class.forName(scriptClassName + "Main", true, loader);
+        JSDescriptor<?>[] descs =
+                (JSDescriptor<?>[]) scriptClass.getField(Codegen.DESCRIPTORS_FIELD_NAME).get(null);
+        for (Method m : scriptClass.getMethods()) {
+            if (m.getDeclaringClass() != scriptClass) {
+                continue;
+            }
+            if (m.getName().equals(Codegen.REGEXP_INIT_METHOD_NAME)) {
+                m.invoke(null, Context.getCurrentContext());
+            } else if (m.getName().equals(Codegen.TEMPLATE_LITERAL_INIT_METHOD_NAME)) {
+                m.invoke(null);
+            }
+        }
+        return JSFunction.createScript((JSDescriptor<JSScript>) descs[0], null, null);
+    }
+
     /**
      * Build script class initialisation method and main method. The init method will create all the
      * class descriptors, and the main method will create a {@link JSDescriptor} object based on the
@@ -368,7 +417,8 @@ public class ClassCompiler {
                 "Ljava/util/List;");
 
         cfw.add(ByteCode.ARETURN);
-        cfw.stopMethod(2);
+        // Locals are the parent descriptor, the new descriptor, and the loop counter
+        cfw.stopMethod(3);
         for (var child : builder.nestedFunctions) {
             buildDescriptor(cfw, (JSDescriptor.Builder) child, classes, builders);
         }
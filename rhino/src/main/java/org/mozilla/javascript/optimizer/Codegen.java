@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Pattern;
 import org.mozilla.classfile.ByteCode;
 import org.mozilla.classfile.ClassFileWriter;
@@ -39,14 +40,45 @@ import org.mozilla.javascript.ast.FunctionNode;
 import org.mozilla.javascript.ast.Name;
 import org.mozilla.javascript.ast.ScriptNode;
 import org.mozilla.javascript.ast.TemplateCharacters;
+import org.mozilla.javascript.config.RhinoConfig;
 
 /**
  * This class generates code for a given IR tree.
  *
+ * <p>Scripts with more than {@link #FUNCTIONS_PER_CLASS} functions are split into several classes.
+ * The main class holds the script, the functions that are called directly and the fields for
+ * literals, and part classes hold the bodies of the other functions. The part classes are generated
+ * on the common fork-join pool while the main class is generated on the calling thread, which then
+ * waits for them, so that compilation fails as a whole if one of them cannot be generated. When the
+ * classes are defined at runtime, a part class is only defined when one of its functions is first
+ * called.
+ *
  * @author Norris Boyd
  * @author Roger Lawrence
  */
 public class Codegen implements Evaluator {
+
+    /**
+     * The number of functions of a script above which their bodies are generated into part
+     * classes, each of which holds at most this many functions. Zero or less generates one class.
+     */
+    static final int FUNCTIONS_PER_CLASS = RhinoConfig.get("rhino.codegenFunctionsPerClass", 200);
+
+    public Codegen() {}
+
+    /** Create a code generator for a part class, that shares the state of the given one. */
+    private Codegen(Codegen main) {
+        compilerEnv = main.compilerEnv;
+        directCallTargets = main.directCallTargets;
+        scriptOrFnNodes = main.scriptOrFnNodes;
+        builders = main.builders;
+        scriptOrFnIndexes = main.scriptOrFnIndexes;
+        mainMethodClass = main.mainMethodClass;
+        mainClassName = main.mainClassName;
+        mainClassSignature = main.mainClassSignature;
+        enhancedJavaAccess = main.enhancedJavaAccess;
+    }
+
     @Override
     public void captureStackInfo(RhinoException ex) {
         throw new UnsupportedOperationException();
@@ -192,6 +224,9 @@ public class Codegen implements Evaluator {
             String rawSource,
             boolean returnFunction) {
         this.compilerEnv = compilerEnv;
+        // Part classes are generated on threads without a context
+        Context cx = Context.getCurrentContext();
+        this.enhancedJavaAccess = cx != null && cx.hasFeature(Context.FEATURE_ENHANCED_JAVA_ACCESS);
 
         transform(scriptOrFn);
 
@@ -320,6 +355,7 @@ public class Codegen implements Evaluator {
 
     static byte[] generateOptJSCode(
             String mainClass,
+            String bodyClass,
             String methodName,
             String methodType,
             String resumeName,
@@ -335,8 +371,8 @@ public class Codegen implements Evaluator {
                                 : "org.mozilla.javascript.optimizer.OptJSScriptCode",
                         sourceFile);
         generateOptJSCodeCtor(cfw, isFunction);
-        generateOptJSCodeExecute(cfw, mainClass, methodName, methodType);
-        generateOptJSCodeResume(cfw, mainClass, resumeName, GENERATOR_METHOD_SIGNATURE);
+        generateOptJSCodeExecute(cfw, bodyClass, methodName, methodType);
+        generateOptJSCodeResume(cfw, bodyClass, resumeName, GENERATOR_METHOD_SIGNATURE);
         return cfw.toByteArray();
     }
 
@@ -355,7 +391,7 @@ public class Codegen implements Evaluator {
     }
 
     private static void generateOptJSCodeExecute(
-            ClassFileWriter cfw, String mainClass, String methodName, String methodType) {
+            ClassFileWriter cfw, String bodyClass, String methodName, String methodType) {
         cfw.startMethod("execute", methodType, (short) (ACC_PUBLIC | ACC_FINAL));
         cfw.addALoad(1);
         cfw.addALoad(2);
@@ -363,14 +399,14 @@ public class Codegen implements Evaluator {
         cfw.addALoad(4);
         cfw.addALoad(5);
         cfw.addALoad(6);
-        cfw.addInvoke(ByteCode.INVOKESTATIC, mainClass, methodName, methodType);
+        cfw.addInvoke(ByteCode.INVOKESTATIC, bodyClass, methodName, methodType);
         cfw.add(ByteCode.ARETURN);
         cfw.stopMethod(7);
         // 5: this, cx, js function, new.target, scope, js this, args[]
     }
 
     private static void generateOptJSCodeResume(
-            ClassFileWriter cfw, String mainClass, String methodName, String methodType) {
+            ClassFileWriter cfw, String bodyClass, String methodName, String methodType) {
         cfw.startMethod("resume", methodType, (short) (ACC_PUBLIC | ACC_FINAL));
         if (methodName == null) {
             cfw.add(ByteCode.ACONST_NULL);
@@ -381,7 +417,7 @@ public class Codegen implements Evaluator {
             cfw.addALoad(4);
             cfw.addILoad(5);
             cfw.addALoad(6);
-            cfw.addInvoke(ByteCode.INVOKESTATIC, mainClass, methodName, methodType);
+            cfw.addInvoke(ByteCode.INVOKESTATIC, bodyClass, methodName, methodType);
         }
         cfw.add(ByteCode.ARETURN);
         cfw.stopMethod(7);
@@ -403,45 +439,115 @@ public class Codegen implements Evaluator {
 
         generateLookupAccessor(cfw);
 
-        int count = scriptOrFnNodes.length;
-        for (int i = 0; i != count; ++i) {
-            ScriptNode n = scriptOrFnNodes[i];
-
-            BodyCodegen bodygen = new BodyCodegen();
-            bodygen.cfw = cfw;
-            bodygen.codegen = this;
-            bodygen.compilerEnv = compilerEnv;
-            bodygen.scriptOrFn = n;
-            bodygen.scriptOrFnIndex = i;
-            if (n instanceof FunctionNode) {
-                bodygen.scriptOrFnType = "Lorg/mozilla/javascript/JSFunction;";
-                bodygen.scriptOrFnClass = "org.mozilla.javascript.JSFunction";
-            } else {
-                bodygen.scriptOrFnType = "Lorg/mozilla/javascript/JSScript;";
-                bodygen.scriptOrFnClass = "org.mozilla.javascript.JSScript";
+        startParts();
+        try {
+            int count = scriptOrFnNodes.length;
+            for (int i = 0; i != count; ++i) {
+                if (((OptJSCode.Builder<?>) builders[i].code).part == null) {
+                    generateBody(cfw, i);
+                }
             }
 
-            bodygen.generateBodyCode();
+            emitRegExpInit(cfw);
+            emitTemplateLiteralInit(cfw);
+            emitConstantDudeInitializers(cfw);
 
-            if (n.getType() == Token.FUNCTION) {
-                OptFunctionNode ofn = OptFunctionNode.get(n);
-                if (ofn.isTargetOfDirectCall()) {
-                    emitDirectConstructor(cfw, ofn);
-                    int pcount = ofn.fnode.getParamCount();
-                    if (pcount != 0) {
-                        emitNonDirectCall(cfw, ofn);
-                    }
+            byte[] bytes = cfw.toByteArray();
+            if (parts != null) {
+                // Wait for the part classes, so that a class file limit hit by one of them is
+                // thrown here and the caller can fall back to the interpreter
+                for (OptJSCode.PartClass part : parts) {
+                    part.getBytes();
+                }
+            }
+            return bytes;
+        } catch (RuntimeException e) {
+            // The caller may compile the script again in another way
+            if (parts != null) {
+                for (OptJSCode.PartClass part : parts) {
+                    part.bytes.cancel(false);
                 }
             }
+            throw e;
         }
+    }
 
-        emitRegExpInit(cfw);
-        emitTemplateLiteralInit(cfw);
-        emitConstantDudeInitializers(cfw);
+    /**
+     * If the script has enough functions, assign the bodies of those functions that are not
+     * called directly to part classes and start to generate them. Bodies that are called directly
+     * stay in the main class, as the calls go to that class.
+     */
+    private void startParts() {
+        if (FUNCTIONS_PER_CLASS <= 0) {
+            return;
+        }
+        List<Integer> bodies = new ArrayList<>();
+        for (int i = 1; i < scriptOrFnNodes.length; ++i) {
+            ScriptNode n = scriptOrFnNodes[i];
+            if (n.getType() == Token.FUNCTION && !OptFunctionNode.get(n).isTargetOfDirectCall()) {
+                bodies.add(i);
+            }
+        }
+        if (bodies.size() <= FUNCTIONS_PER_CLASS) {
+            return;
+        }
+        parts = new ArrayList<>();
+        for (int start = 0; start < bodies.size(); start += FUNCTIONS_PER_CLASS) {
+            List<Integer> partBodies =
+                    bodies.subList(start, Math.min(start + FUNCTIONS_PER_CLASS, bodies.size()));
+            var part = new OptJSCode.PartClass(mainClassName + "Part" + parts.size());
+            for (int i : partBodies) {
+                ((OptJSCode.Builder<?>) builders[i].code).part = part;
+            }
+            Codegen partCodegen = new Codegen(this);
+            part.bytes =
+                    ForkJoinPool.commonPool()
+                            .submit(() -> partCodegen.generatePart(part.className, partBodies));
+            parts.add(part);
+        }
+    }
 
+    private byte[] generatePart(String className, List<Integer> bodies) {
+        String sourceFile = scriptOrFnNodes[0].getSourceName();
+        ClassFileWriter cfw = new ClassFileWriter(className, SUPER_CLASS_NAME, sourceFile);
+        for (int i : bodies) {
+            generateBody(cfw, i);
+        }
+        emitConstantDudeInitializers(cfw);
         return cfw.toByteArray();
     }
 
+    private void generateBody(ClassFileWriter cfw, int i) {
+        ScriptNode n = scriptOrFnNodes[i];
+
+        BodyCodegen bodygen = new BodyCodegen();
+        bodygen.cfw = cfw;
+        bodygen.codegen = this;
+        bodygen.compilerEnv = compilerEnv;
+        bodygen.scriptOrFn = n;
+        bodygen.scriptOrFnIndex = i;
+        if (n instanceof FunctionNode) {
+            bodygen.scriptOrFnType = "Lorg/mozilla/javascript/JSFunction;";
+            bodygen.scriptOrFnClass = "org.mozilla.javascript.JSFunction";
+        } else {
+            bodygen.scriptOrFnType = "Lorg/mozilla/javascript/JSScript;";
+            bodygen.scriptOrFnClass = "org.mozilla.javascript.JSScript";
+        }
+
+        bodygen.generateBodyCode();
+
+        if (n.getType() == Token.FUNCTION) {
+            OptFunctionNode ofn = OptFunctionNode.get(n);
+            if (ofn.isTargetOfDirectCall()) {
+                emitDirectConstructor(cfw, ofn);
+                int pcount = ofn.fnode.getParamCount();
+                if (pcount != 0) {
+                    emitNonDirectCall(cfw, ofn);
+                }
+            }
+        }
+    }
+
     private void emitNonDirectCall(ClassFileWriter cfw, OptFunctionNode ofn) {
         // We'll make a method with the same name as the body method but with a non direct
         // signature.
@@ -616,7 +722,7 @@ public class Codegen implements Evaluator {
                 String reFieldType = "Ljava/lang/Object;";
                 String reString = n.getRegexpString(j);
                 String reFlags = n.getRegexpFlags(j);
-                cfw.addField(reFieldName, reFieldType, (short) (ACC_STATIC | ACC_PRIVATE));
+                cfw.addField(reFieldName, reFieldType, ACC_STATIC);
                 cfw.addALoad(1); // proxy
                 cfw.addALoad(0); // context
                 cfw.addPush(reString);
@@ -683,7 +789,7 @@ public class Codegen implements Evaluator {
             if (qCount == 0) continue;
             String qFieldName = getTemplateLiteralName(n);
             String qFieldType = "[Ljava/lang/Object;";
-            cfw.addField(qFieldName, qFieldType, (short) (ACC_STATIC | ACC_PRIVATE));
+            cfw.addField(qFieldName, qFieldType, ACC_STATIC);
             cfw.addPush(qCount);
             cfw.add(ByteCode.ANEWARRAY, "java/lang/Object");
             for (int j = 0; j < qCount; ++j) {
@@ -744,7 +850,7 @@ public class Codegen implements Evaluator {
                 cfw.addPush(num);
                 addDoubleWrap(cfw);
             }
-            cfw.add(ByteCode.PUTSTATIC, mainClassName, constantName, constantType);
+            cfw.add(ByteCode.PUTSTATIC, cfw.getClassName(), constantName, constantType);
         }
 
         cfw.add(ByteCode.RETURN);
@@ -817,7 +923,7 @@ public class Codegen implements Evaluator {
             }
             String constantName = "_k" + index;
             String constantType = getStaticConstantWrapperType(num);
-            cfw.add(ByteCode.GETSTATIC, mainClassName, constantName, constantType);
+            cfw.add(ByteCode.GETSTATIC, cfw.getClassName(), constantName, constantType);
         }
     }
 
@@ -1001,6 +1107,13 @@ public class Codegen implements Evaluator {
     String mainClassName;
     String mainClassSignature;
 
+    /** Whether the context that compiles has {@link Context#FEATURE_ENHANCED_JAVA_ACCESS}. */
+    boolean enhancedJavaAccess;
+
+    /** The part classes, or null if all bodies are in the main class. */
+    List<OptJSCode.PartClass> parts;
+
+    // Numbers in static fields of the class being generated
     private double[] itsConstantList;
     private int itsConstantListSize;
 }
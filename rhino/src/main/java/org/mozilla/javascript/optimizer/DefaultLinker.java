@@ -9,6 +9,7 @@ import jdk.dynalink.linker.GuardedInvocation;
 import jdk.dynalink.linker.GuardingDynamicLinker;
 import jdk.dynalink.linker.LinkRequest;
 import jdk.dynalink.linker.LinkerServices;
+import org.mozilla.javascript.Callable;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.Scriptable;
@@ -55,6 +56,8 @@ class DefaultLinker implements GuardingDynamicLinker {
             return getNameInvocation(lookup, mType, op);
         } else if (op.isNamespace(RhinoNamespace.MATH)) {
             return getMathInvocation(lookup, mType, op);
+        } else if (op.isNamespace(RhinoNamespace.FUNCTION)) {
+            return getFunctionInvocation(lookup, mType, op);
         }
         throw new UnsupportedOperationException(op.toString());
     }
@@ -220,6 +223,17 @@ class DefaultLinker implements GuardingDynamicLinker {
         throw new UnsupportedOperationException(op.toString());
     }
 
+    private GuardedInvocation getFunctionInvocation(
+            MethodHandles.Lookup lookup, MethodType mType, ParsedOperation op)
+            throws NoSuchMethodException, IllegalAccessException {
+        if (op.isOperation(StandardOperation.CALL)) {
+            MethodHandle mh =
+                    lookup.findVirtual(Callable.class, "call", mType.dropParameterTypes(0, 1));
+            return new GuardedInvocation(mh);
+        }
+        throw new UnsupportedOperationException(op.toString());
+    }
+
     /**
      * The "compare" operation in ScriptRuntime uses an integer flag to determine how to compare,
      * but in our bytecode we've split this into four separate instructions for future optimization
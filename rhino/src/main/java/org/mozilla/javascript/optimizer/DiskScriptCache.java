@@ -0,0 +1,430 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.optimizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.mozilla.classfile.ClassFileWriter.ClassFileFormatException;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.GeneratedClassLoader;
+import org.mozilla.javascript.ImplementationVersion;
+import org.mozilla.javascript.JSDescriptor;
+import org.mozilla.javascript.LruScriptCache;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.ScriptCache;
+
+/**
+ * A {@link ScriptCache} that keeps the class files generated for compiled scripts in a directory,
+ * so that they survive a restart of the JVM. Each entry is stored in a file named after a SHA-256
+ * digest of the source, the Rhino version, and everything else that makes up the {@link
+ * ScriptCache.Key}. The class files are the same ones that {@link ClassCompiler} generates, which
+ * build their {@link JSDescriptor}s when they are loaded, so no other metadata needs to be stored.
+ * Builds of Rhino without a version in their manifest are told apart by a digest of their classes;
+ * if those cannot be read, nothing is stored on disk.
+ *
+ * <p>When a script is not found on disk, this cache compiles it itself using the environment in
+ * the key, writes the class files, and returns the loaded script, so that the source is only
+ * compiled once. Scripts that are interpreted, or that are compiled for a security domain, are
+ * never stored on disk. Each entry carries a checksum of its contents, and an entry that fails to
+ * verify is deleted and treated as missing. When the total size of the directory grows beyond the
+ * given limit, the entries that were used least recently are deleted. The time of last use is
+ * updated at most once an hour, so that reading an entry does not usually write to the disk.
+ *
+ * <p>Loading classes is much cheaper than generating them, but it still creates a class loader,
+ * so loaded scripts are also kept in a {@link LruScriptCache} in memory.
+ *
+ * @since 1.9.1
+ */
+public class DiskScriptCache implements ScriptCache {
+
+    private static final int MAGIC = 0x52484343; // "RHCC"
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".rcc";
+    private static final String CLASS_PREFIX = "org.mozilla.javascript.gen.cached_";
+    private static final long TOUCH_INTERVAL = 60 * 60 * 1000L;
+
+    /** Identifies the build of Rhino, or is null if the disk must not be used. */
+    private static final class Build {
+        static final String ID = computeBuildId();
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final ScriptCache memory;
+    private final AtomicLong totalBytes = new AtomicLong(-1);
+
+    /**
+     * Create a cache that stores class files in "directory", which is created if necessary.
+     *
+     * @param directory the directory for the class files
+     * @param maxBytes the maximum total size of the files in the directory
+     */
+    public DiskScriptCache(Path directory, long maxBytes) {
+        this(directory, maxBytes, new LruScriptCache(256, 1 << 22));
+    }
+
+    /**
+     * Create a cache that stores class files in "directory", which is created if necessary, and
+     * keeps loaded scripts in "memory".
+     *
+     * @param directory the directory for the class files
+     * @param maxBytes the maximum total size of the files in the directory
+     * @param memory the cache for loaded scripts
+     */
+    public DiskScriptCache(Path directory, long maxBytes, ScriptCache memory) {
+        if (directory == null || memory == null || maxBytes <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.memory = memory;
+    }
+
+    @Override
+    public Script get(Key key) {
+        Script script = memory.get(key);
+        if (script != null) {
+            return script;
+        }
+        if (key.isInterpretedMode()
+                || Build.ID == null
+                || key.getSecurityDomain() != null
+                || key.getCompilerEnvirons().securityController() != null) {
+            return null;
+        }
+
+        String digest = digest(key);
+        Path file = directory.resolve(digest + SUFFIX);
+        Object[] classFiles = read(file);
+        if (classFiles == null) {
+            ClassCompiler compiler = new ClassCompiler(key.getCompilerEnvirons());
+            try {
+                classFiles =
+                        compiler.compileToClassFiles(
+                                key.getSource(),
+                                key.getSourceName(),
+                                key.getLineno(),
+                                CLASS_PREFIX + digest.substring(0, 16));
+            } catch (ClassFileFormatException e) {
+                // Let the context fall back to the interpreter
+                return null;
+            }
+            write(file, classFiles);
+        }
+        script = load(classFiles);
+        memory.put(key, script);
+        return script;
+    }
+
+    /**
+     * Scripts that are found in this cache are stored by {@link #get}, so this only stores the
+     * script in memory.
+     */
+    @Override
+    public void put(Key key, Script script) {
+        memory.put(key, script);
+    }
+
+    /** Remove all entries from memory and from the directory. */
+    @Override
+    public void clear() {
+        memory.clear();
+        for (Path p : listEntries()) {
+            try {
+                Files.deleteIfExists(p);
+            } catch (IOException e) {
+                // Another process may be using it
+            }
+        }
+        totalBytes.set(-1);
+    }
+
+    private static String digest(Key key) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String header =
+                FORMAT_VERSION
+                        + "\0"
+                        + Build.ID
+                        + "\0"
+                        + key.getSourceName()
+                        + "\0"
+                        + key.getLineno()
+                        + "\0"
+                        + key.getLanguageVersion()
+                        + "\0"
+                        + key.getCompilerFlags()
+                        + "\0";
+        md.update(header.getBytes(StandardCharsets.UTF_8));
+        md.update(key.getSource().getBytes(StandardCharsets.UTF_8));
+        return toHex(md.digest());
+    }
+
+    /**
+     * Return the version of Rhino from its manifest. Without one, return a digest of the jar or
+     * of the class files that this class was loaded from, or null if they cannot be found.
+     */
+    private static String computeBuildId() {
+        String version = ImplementationVersion.get();
+        if (version != null && !version.equals("Rhino Snapshot")) {
+            return version;
+        }
+        try {
+            CodeSource source = DiskScriptCache.class.getProtectionDomain().getCodeSource();
+            if (source == null || source.getLocation() == null) {
+                return null;
+            }
+            Path location = Paths.get(source.getLocation().toURI());
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            if (Files.isDirectory(location)) {
+                List<Path> classes;
+                try (Stream<Path> s = Files.walk(location)) {
+                    classes =
+                            s.filter(p -> p.toString().endsWith(".class"))
+                                    .sorted()
+                                    .collect(Collectors.toList());
+                }
+                for (Path p : classes) {
+                    md.update(location.relativize(p).toString().getBytes(StandardCharsets.UTF_8));
+                    digestFile(md, p);
+                }
+            } else {
+                digestFile(md, location);
+            }
+            return "Rhino " + toHex(md.digest());
+        } catch (IOException
+                | URISyntaxException
+                | NoSuchAlgorithmException
+                | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void digestFile(MessageDigest md, Path file) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), md)) {
+            while (in.read(buffer) != -1) {
+                // The stream updates the digest
+            }
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] checksum(byte[] payload) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(payload);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Return the class files stored in "file", or null if it is missing or damaged. */
+    private Object[] read(Path file) {
+        byte[] contents;
+        try {
+            contents = Files.readAllBytes(file);
+        } catch (IOException e) {
+            // Usually a NoSuchFileException
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(contents))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a cache entry");
+            }
+            byte[] sum = new byte[32];
+            in.readFully(sum);
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            if (!Arrays.equals(sum, checksum(payload))) {
+                throw new IOException("Checksum mismatch");
+            }
+
+            DataInputStream p = new DataInputStream(new ByteArrayInputStream(payload));
+            int count = p.readInt();
+            Object[] classFiles = new Object[count * 2];
+            for (int i = 0; i < count; i++) {
+                classFiles[i * 2] = p.readUTF();
+                byte[] bytes = new byte[p.readInt()];
+                p.readFully(bytes);
+                classFiles[i * 2 + 1] = bytes;
+            }
+            long now = System.currentTimeMillis();
+            if (now - Files.getLastModifiedTime(file).toMillis() > TOUCH_INTERVAL) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+            }
+            return classFiles;
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e2) {
+                // Nothing more we can do
+            }
+            totalBytes.set(-1);
+            return null;
+        }
+    }
+
+    private void write(Path file, Object[] classFiles) {
+        try {
+            ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+            try (DataOutputStream p = new DataOutputStream(payloadBytes)) {
+                p.writeInt(classFiles.length / 2);
+                for (int i = 0; i < classFiles.length; i += 2) {
+                    byte[] bytes = (byte[]) classFiles[i + 1];
+                    p.writeUTF((String) classFiles[i]);
+                    p.writeInt(bytes.length);
+                    p.write(bytes);
+                }
+            }
+            byte[] payload = payloadBytes.toByteArray();
+
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.write(checksum(payload));
+                    out.writeInt(payload.length);
+                    out.write(payload);
+                }
+                try {
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            addBytes(payload.length + 44);
+        } catch (IOException e) {
+            // The cache is only an optimization, so carry on without it
+        }
+    }
+
+    /** Account for a new entry, and evict the least recently used entries if necessary. */
+    private void addBytes(long bytes) {
+        long total = totalBytes.get();
+        if (total >= 0 && totalBytes.addAndGet(bytes) <= maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            List<Path> entries = listEntries();
+            List<Object[]> sized = new ArrayList<>(entries.size());
+            long size = 0;
+            for (Path p : entries) {
+                try {
+                    long s = Files.size(p);
+                    sized.add(new Object[] {p, Files.getLastModifiedTime(p), s});
+                    size += s;
+                } catch (IOException e) {
+                    // Deleted by somebody else
+                }
+            }
+            if (size > maxBytes) {
+                sized.sort(Comparator.comparing(e -> (FileTime) e[1]));
+                // Evict down to a bit below the limit so that this doesn't happen on every write
+                long target = maxBytes - maxBytes / 4;
+                for (Object[] e : sized) {
+                    if (size <= target) {
+                        break;
+                    }
+                    try {
+                        Files.deleteIfExists((Path) e[0]);
+                        size -= (Long) e[2];
+                    } catch (IOException x) {
+                        // Try the next one
+                    }
+                }
+            }
+            totalBytes.set(size);
+        }
+    }
+
+    private List<Path> listEntries() {
+        List<Path> result = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path p : ds) {
+                result.add(p);
+            }
+        } catch (IOException e) {
+            // Treat as empty
+        }
+        return result;
+    }
+
+    /**
+     * Define the classes generated by {@link ClassCompiler} and return a script for the first
+     * descriptor. Loading the class that holds the descriptors builds them, like it does for
+     * classes that were compiled ahead of time. The classes are defined in a loader from the
+     * factory of the current context, so that they see the same Java classes as classes that
+     * were compiled by the context.
+     */
+    private static Script load(Object[] classFiles) {
+        Context cx = Context.getCurrentContext();
+        GeneratedClassLoader loader = cx.createClassLoader(cx.getApplicationClassLoader());
+        String scriptClassName = (String) classFiles[0];
+        Exception e;
+        try {
+            for (int i = 0; i < classFiles.length; i += 2) {
+                Class<?> cl =
+                        loader.defineClass((String) classFiles[i], (byte[]) classFiles[i + 1]);
+                loader.linkClass(cl);
+            }
+            return ClassCompiler.loadScript((ClassLoader) loader, scriptClassName);
+        } catch (InvocationTargetException x) {
+            var cause = x.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            e = x;
+        } catch (ReflectiveOperationException | SecurityException | IllegalArgumentException x) {
+            e = x;
+        }
+        throw new RuntimeException(e);
+    }
+}
@@ -12,12 +12,14 @@ import jdk.dynalink.linker.TypeBasedGuardingDynamicLinker;
 import jdk.dynalink.linker.support.Guards;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.Scriptable;
 
 /**
  * This linker optimizes accesses to the "length" property of native arrays by delegating directly
  * to the native code. It helps in the common case that code is iterating over the length of an
- * array.
+ * array. It also reads and replaces elements of dense arrays directly, falling back to the
+ * generic code for holes, new elements, and arrays that are not dense.
  */
 @SuppressWarnings("AndroidJdkLibsChecker")
 class NativeArrayLinker implements TypeBasedGuardingDynamicLinker {
@@ -44,6 +46,23 @@ class NativeArrayLinker implements TypeBasedGuardingDynamicLinker {
                 MethodType mType = req.getCallSiteDescriptor().getMethodType();
                 mh = lookup.findStatic(NativeArrayLinker.class, "getLength", mType);
                 guard = Guards.getInstanceOfGuard(NativeArray.class);
+            } else if (op.isOperation(RhinoOperation.GETINDEX, RhinoOperation.GETELEMENT)
+                    || op.isOperation(RhinoOperation.SETINDEX, RhinoOperation.SETELEMENT)) {
+                // Subclasses may override get and put, so only link arrays of this exact class
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodType mType = req.getCallSiteDescriptor().getMethodType();
+                String name;
+                if (op.isOperation(RhinoOperation.GETINDEX)) {
+                    name = "getIndex";
+                } else if (op.isOperation(RhinoOperation.GETELEMENT)) {
+                    name = "getElement";
+                } else if (op.isOperation(RhinoOperation.SETINDEX)) {
+                    name = "setIndex";
+                } else {
+                    name = "setElement";
+                }
+                mh = lookup.findStatic(NativeArrayLinker.class, name, mType);
+                guard = Guards.getClassGuard(NativeArray.class);
             }
         }
 
@@ -66,4 +85,52 @@ class NativeArrayLinker implements TypeBasedGuardingDynamicLinker {
         }
         return (double) length;
     }
+
+    @SuppressWarnings("unused")
+    private static Object getIndex(Object o, double index, Context cx, Scriptable scope) {
+        int i = (int) index;
+        if (i == index) {
+            Object value = ((NativeArray) o).getDenseElementOrNotFound(i);
+            if (value != Scriptable.NOT_FOUND) {
+                return value;
+            }
+        }
+        return ScriptRuntime.getObjectIndex(o, index, cx, scope);
+    }
+
+    @SuppressWarnings("unused")
+    private static Object getElement(Object o, Object elem, Context cx, Scriptable scope) {
+        if (elem instanceof Integer) {
+            Object value = ((NativeArray) o).getDenseElementOrNotFound((Integer) elem);
+            if (value != Scriptable.NOT_FOUND) {
+                return value;
+            }
+        } else if (elem instanceof Double) {
+            return getIndex(o, (Double) elem, cx, scope);
+        }
+        return ScriptRuntime.getObjectElem(o, elem, cx, scope);
+    }
+
+    @SuppressWarnings("unused")
+    private static Object setIndex(
+            Object o, double index, Object value, Context cx, Scriptable scope) {
+        int i = (int) index;
+        if (i == index && ((NativeArray) o).putExistingDenseElement(i, value)) {
+            return value;
+        }
+        return ScriptRuntime.setObjectIndex(o, index, value, cx, scope);
+    }
+
+    @SuppressWarnings("unused")
+    private static Object setElement(
+            Object o, Object elem, Object value, Context cx, Scriptable scope) {
+        if (elem instanceof Integer) {
+            if (((NativeArray) o).putExistingDenseElement((Integer) elem, value)) {
+                return value;
+            }
+        } else if (elem instanceof Double) {
+            return setIndex(o, (Double) elem, value, cx, scope);
+        }
+        return ScriptRuntime.setObjectElem(o, elem, value, cx, scope);
+    }
 }
@@ -0,0 +1,54 @@
+package org.mozilla.javascript.optimizer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import jdk.dynalink.StandardOperation;
+import jdk.dynalink.linker.GuardedInvocation;
+import jdk.dynalink.linker.LinkRequest;
+import jdk.dynalink.linker.LinkerServices;
+import jdk.dynalink.linker.TypeBasedGuardingDynamicLinker;
+import jdk.dynalink.linker.support.Guards;
+import org.mozilla.javascript.Callable;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.NativeJavaMethod;
+
+/**
+ * This linker links calls to Java methods directly to a method handle for the overload that matches
+ * the classes of the arguments, with the conversion of each argument built in. That way the
+ * overload is not chosen again and the method is not called using reflection. The invocation is
+ * guarded on the identity of the method object, and the handle itself falls back to the regular
+ * call if the arguments have different classes the next time.
+ */
+@SuppressWarnings("AndroidJdkLibsChecker")
+class NativeJavaMethodLinker implements TypeBasedGuardingDynamicLinker {
+    @Override
+    public boolean canLinkType(Class<?> type) {
+        return NativeJavaMethod.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public GuardedInvocation getGuardedInvocation(LinkRequest req, LinkerServices svc)
+            throws Exception {
+        if (req.isCallSiteUnstable()) {
+            return null;
+        }
+
+        ParsedOperation op = new ParsedOperation(req.getCallSiteDescriptor().getOperation());
+        if (!op.isNamespace(RhinoNamespace.FUNCTION) || !op.isOperation(StandardOperation.CALL)) {
+            return null;
+        }
+
+        // The arguments are the function, the context, the scope, "this" and the arguments
+        Object[] args = req.getArguments();
+        NativeJavaMethod method = (NativeJavaMethod) args[0];
+        MethodHandle mh = method.getDirectCallHandle((Context) args[1], (Object[]) args[4]);
+        if (mh == null) {
+            return null;
+        }
+        mh = MethodHandles.dropArguments(mh, 0, Callable.class);
+        if (DefaultLinker.DEBUG) {
+            System.out.println(op + " direct Java call to " + method.getFunctionName());
+        }
+        return new GuardedInvocation(mh, Guards.getIdentityGuard(method));
+    }
+}
@@ -0,0 +1,218 @@
+package org.mozilla.javascript.optimizer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import jdk.dynalink.StandardNamespace;
+import jdk.dynalink.StandardOperation;
+import jdk.dynalink.linker.GuardedInvocation;
+import jdk.dynalink.linker.LinkRequest;
+import jdk.dynalink.linker.LinkerServices;
+import jdk.dynalink.linker.TypeBasedGuardingDynamicLinker;
+import jdk.dynalink.linker.support.Guards;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.ShapedSlotMap;
+import org.mozilla.javascript.Slot;
+
+/**
+ * This linker builds inline caches for named property accesses on plain objects that store their
+ * properties in a {@link ShapedSlotMap}, which is the case when {@link
+ * Context#FEATURE_SHARED_SHAPES} is enabled. When the property is found on the object itself, or
+ * on its immediate prototype, the call site is linked to code that reads or writes the slot at a
+ * fixed index, guarded by a check that the object (and prototype) still have the same shape.
+ *
+ * <p>Shapes are immutable, so any change to an object's layout -- adding or deleting a property,
+ * or falling back to an ordinary slot map -- gives it a different shape and makes the guard fail,
+ * at which point the call site is relinked. Because each call site is a ChainedCallSite, it keeps
+ * a small number of these guarded invocations, which makes the cache polymorphic. Changing the
+ * value, attributes or kind of a slot does not change the shape, so the cached code always calls
+ * the slot itself to get or set the value.
+ */
+@SuppressWarnings("AndroidJdkLibsChecker")
+class NativeObjectLinker implements TypeBasedGuardingDynamicLinker {
+    private static final MethodType CHECK_TYPE =
+            MethodType.methodType(Boolean.TYPE, Object.class, Object.class);
+    private static final MethodType CHECK_PROTO_TYPE =
+            MethodType.methodType(
+                    Boolean.TYPE, Object.class, Scriptable.class, Object.class, Object.class);
+    private static final MethodType GET_TYPE =
+            MethodType.methodType(
+                    Object.class, Integer.TYPE, Object.class, Context.class, Scriptable.class);
+    private static final MethodType GET_THIS_TYPE =
+            MethodType.methodType(
+                    ScriptRuntime.LookupResult.class,
+                    Integer.TYPE,
+                    String.class,
+                    Object.class,
+                    Context.class,
+                    Scriptable.class);
+    private static final MethodType GET_PROTO_TYPE =
+            MethodType.methodType(
+                    Object.class,
+                    Scriptable.class,
+                    Integer.TYPE,
+                    Object.class,
+                    Context.class,
+                    Scriptable.class);
+    private static final MethodType GET_PROTO_THIS_TYPE =
+            MethodType.methodType(
+                    ScriptRuntime.LookupResult.class,
+                    Scriptable.class,
+                    Integer.TYPE,
+                    String.class,
+                    Object.class,
+                    Context.class,
+                    Scriptable.class);
+    private static final MethodType SET_TYPE =
+            MethodType.methodType(
+                    Object.class,
+                    Integer.TYPE,
+                    String.class,
+                    Object.class,
+                    Object.class,
+                    Context.class,
+                    Scriptable.class);
+
+    @Override
+    public boolean canLinkType(Class<?> type) {
+        return NativeObject.class.equals(type);
+    }
+
+    @Override
+    public GuardedInvocation getGuardedInvocation(LinkRequest req, LinkerServices svc)
+            throws Exception {
+        if (req.isCallSiteUnstable()) {
+            return null;
+        }
+
+        ParsedOperation op = new ParsedOperation(req.getCallSiteDescriptor().getOperation());
+        if (!op.isNamespace(StandardNamespace.PROPERTY)) {
+            return null;
+        }
+        ScriptableObject target = (ScriptableObject) req.getReceiver();
+        Object shape = ShapedSlotMap.getShape(target);
+        if (shape == null) {
+            return null;
+        }
+
+        String name = op.getName();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType mType = req.getCallSiteDescriptor().getMethodType();
+        int index = ShapedSlotMap.getSlotIndex(shape, name);
+        MethodHandle mh = null;
+        MethodHandle guard = null;
+
+        if (index >= 0) {
+            if (op.isOperation(StandardOperation.GET, RhinoOperation.GETNOWARN)) {
+                mh = lookup.findStatic(NativeObjectLinker.class, "getOwn", GET_TYPE);
+                mh = MethodHandles.insertArguments(mh, 0, index);
+            } else if (op.isOperation(RhinoOperation.GETWITHTHIS)) {
+                mh = lookup.findStatic(NativeObjectLinker.class, "getOwnWithThis", GET_THIS_TYPE);
+                mh = MethodHandles.insertArguments(mh, 0, index, name);
+            } else if (op.isOperation(StandardOperation.SET)) {
+                mh = lookup.findStatic(NativeObjectLinker.class, "setOwn", SET_TYPE);
+                mh = MethodHandles.insertArguments(mh, 0, index, name);
+            }
+            if (mh != null) {
+                guard = lookup.findStatic(NativeObjectLinker.class, "checkShape", CHECK_TYPE);
+                guard = MethodHandles.insertArguments(guard, 0, shape);
+            }
+        } else if (op.isOperation(StandardOperation.GET, RhinoOperation.GETNOWARN)
+                || op.isOperation(RhinoOperation.GETWITHTHIS)) {
+            // Try the immediate prototype, which is where class-style methods live
+            Scriptable proto = target.getPrototype();
+            if (proto != null && NativeObject.class.equals(proto.getClass())) {
+                Object protoShape = ShapedSlotMap.getShape((ScriptableObject) proto);
+                int protoIndex =
+                        protoShape == null ? -1 : ShapedSlotMap.getSlotIndex(protoShape, name);
+                if (protoIndex >= 0) {
+                    if (op.isOperation(StandardOperation.GET, RhinoOperation.GETNOWARN)) {
+                        mh =
+                                lookup.findStatic(
+                                        NativeObjectLinker.class, "getProto", GET_PROTO_TYPE);
+                        mh = MethodHandles.insertArguments(mh, 0, proto, protoIndex);
+                    } else {
+                        mh =
+                                lookup.findStatic(
+                                        NativeObjectLinker.class,
+                                        "getProtoWithThis",
+                                        GET_PROTO_THIS_TYPE);
+                        mh = MethodHandles.insertArguments(mh, 0, proto, protoIndex, name);
+                    }
+                    guard =
+                            lookup.findStatic(
+                                    NativeObjectLinker.class, "checkProtoShape", CHECK_PROTO_TYPE);
+                    guard = MethodHandles.insertArguments(guard, 0, shape, proto, protoShape);
+                }
+            }
+        }
+
+        if (mh != null) {
+            if (DefaultLinker.DEBUG) {
+                System.out.println(op + ": shape-guarded slot access");
+            }
+            return new GuardedInvocation(mh.asType(mType), Guards.asType(guard, mType));
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unused")
+    private static boolean checkShape(Object shape, Object o) {
+        return o != null
+                && o.getClass() == NativeObject.class
+                && ShapedSlotMap.getShape((NativeObject) o) == shape;
+    }
+
+    @SuppressWarnings("unused")
+    private static boolean checkProtoShape(
+            Object shape, Scriptable proto, Object protoShape, Object o) {
+        return checkShape(shape, o)
+                && ((NativeObject) o).getPrototype() == proto
+                && ShapedSlotMap.getShape((NativeObject) proto) == protoShape;
+    }
+
+    @SuppressWarnings("unused")
+    private static Object getOwn(int index, Object o, Context cx, Scriptable scope) {
+        NativeObject obj = (NativeObject) o;
+        return ShapedSlotMap.getSlot(obj, index).getValue(obj);
+    }
+
+    @SuppressWarnings("unused")
+    private static ScriptRuntime.LookupResult getOwnWithThis(
+            int index, String name, Object o, Context cx, Scriptable scope) {
+        NativeObject obj = (NativeObject) o;
+        Object value = ShapedSlotMap.getSlot(obj, index).getValue(obj);
+        return new ScriptRuntime.LookupResult(value, obj, name);
+    }
+
+    @SuppressWarnings("unused")
+    private static Object getProto(
+            Scriptable proto, int index, Object o, Context cx, Scriptable scope) {
+        return ShapedSlotMap.getSlot((ScriptableObject) proto, index).getValue((NativeObject) o);
+    }
+
+    @SuppressWarnings("unused")
+    private static ScriptRuntime.LookupResult getProtoWithThis(
+            Scriptable proto, int index, String name, Object o, Context cx, Scriptable scope) {
+        NativeObject obj = (NativeObject) o;
+        Object value = ShapedSlotMap.getSlot((ScriptableObject) proto, index).getValue(obj);
+        return new ScriptRuntime.LookupResult(value, obj, name);
+    }
+
+    @SuppressWarnings("unused")
+    private static Object setOwn(
+            int index, String name, Object o, Object value, Context cx, Scriptable scope) {
+        NativeObject obj = (NativeObject) o;
+        if (obj.isSealed() || !obj.isExtensible()) {
+            // Let the regular code path produce the right error
+            return ScriptRuntime.setObjectProp(obj, name, value, cx);
+        }
+        Slot slot = ShapedSlotMap.getSlot(obj, index);
+        slot.setValue(value, obj, obj, cx.isStrictMode());
+        return value;
+    }
+}
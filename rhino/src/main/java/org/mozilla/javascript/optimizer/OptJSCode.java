@@ -1,7 +1,9 @@
 package org.mozilla.javascript.optimizer;
 
+import java.util.concurrent.ForkJoinTask;
 import org.mozilla.classfile.ByteCode;
 import org.mozilla.classfile.ClassFileWriter;
+import org.mozilla.javascript.GeneratedClassLoader;
 import org.mozilla.javascript.JSCode;
 import org.mozilla.javascript.ScriptOrFn;
 
@@ -26,10 +28,44 @@ public abstract class OptJSCode<T extends ScriptOrFn<T>> extends JSCode<T> {
         }
     }
 
+    /**
+     * A class that holds the bodies of some of the functions of a large script. {@link Codegen}
+     * generates such classes on the common fork-join pool while it generates the main class, and
+     * the functions whose bodies they hold run deferred code until the class is defined.
+     */
+    static final class PartClass {
+        final String className;
+        ForkJoinTask<byte[]> bytes;
+        private boolean defined;
+
+        PartClass(String className) {
+            this.className = className;
+        }
+
+        /**
+         * Return the bytes of the class, waiting for them to be generated. If generation failed,
+         * the exception is thrown again.
+         */
+        byte[] getBytes() {
+            return bytes.join();
+        }
+
+        /** Define the class in the class loader of the main class, unless that was done before. */
+        synchronized void define(BuilderEnv env) {
+            if (!defined) {
+                var loader = (GeneratedClassLoader) env.compiledClass.getClassLoader();
+                Class<?> cl = loader.defineClass(className, getBytes());
+                loader.linkClass(cl);
+                defined = true;
+            }
+        }
+    }
+
     /**
      * A builder for {@link OptJSCode}. Holds the builder environment, names and types of execute
      * and resume methods, an index within the set of descriptors owned by the class, and the built
-     * version of the object (used to avoid generating duplicate classes at runtime).
+     * version of the object (used to avoid generating duplicate classes at runtime). The body
+     * method is in the part class, if there is one, and otherwise in the main class.
      */
     public abstract static class Builder<T extends ScriptOrFn<T>> extends JSCode.Builder<T> {
         final BuilderEnv env;
@@ -38,12 +74,18 @@ public abstract class OptJSCode<T extends ScriptOrFn<T>> extends JSCode<T> {
         String resumeName;
         String resumeType;
         int index;
+        PartClass part;
         OptJSCode<T> built;
 
         public Builder(BuilderEnv env) {
             this.env = env;
         }
 
+        /** Return the name of the class that holds the body method. */
+        String getBodyClassName() {
+            return part == null ? env.className : part.className;
+        }
+
         /** Return the name of the generated {@link OptJSCode} subclass. */
         abstract String getClassName();
 
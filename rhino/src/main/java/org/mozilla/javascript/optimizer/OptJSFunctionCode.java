@@ -40,9 +40,13 @@ public abstract class OptJSFunctionCode extends OptJSCode<JSFunction> {
 
         @Override
         public JSCode<JSFunction> build() {
-            if (built != null) {
-                return built;
+            if (built == null) {
+                built = part == null ? newInstance() : new Deferred(this);
             }
+            return built;
+        }
+
+        private OptJSFunctionCode newInstance() {
             try {
                 var subClassName = getClassName();
                 var subClassBytes = getClassBytes();
@@ -51,9 +55,7 @@ public abstract class OptJSFunctionCode extends OptJSCode<JSFunction> {
                 Class<?> subClass = loader.defineClass(subClassName, subClassBytes);
                 loader.linkClass(subClass);
 
-                var instance = (OptJSFunctionCode) subClass.getConstructor().newInstance();
-                built = instance;
-                return instance;
+                return (OptJSFunctionCode) subClass.getConstructor().newInstance();
             } catch (Throwable e) {
                 throw new RuntimeException(e);
             }
@@ -68,6 +70,7 @@ public abstract class OptJSFunctionCode extends OptJSCode<JSFunction> {
         byte[] getClassBytes() {
             return Codegen.generateOptJSCode(
                     env.className,
+                    getBodyClassName(),
                     methodName,
                     methodType,
                     resumeName,
@@ -76,4 +79,54 @@ public abstract class OptJSFunctionCode extends OptJSCode<JSFunction> {
                     index); // TODO Auto-generated method stub
         }
     }
+
+    /**
+     * Code for a function whose body is in a part class that is not defined yet. The first call
+     * defines the part class and creates the real code, to which this and all later calls go.
+     */
+    private static final class Deferred extends OptJSFunctionCode {
+        private final Builder builder;
+        private volatile OptJSFunctionCode code;
+
+        Deferred(Builder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public Object execute(
+                Context cx,
+                JSFunction executableObject,
+                Object newTarget,
+                Scriptable scope,
+                Object thisObj,
+                Object[] args) {
+            return getCode().execute(cx, executableObject, newTarget, scope, thisObj, args);
+        }
+
+        @Override
+        public Object resume(
+                Context cx,
+                JSFunction executableObject,
+                Object state,
+                Scriptable scope,
+                int operation,
+                Object value) {
+            return getCode().resume(cx, executableObject, state, scope, operation, value);
+        }
+
+        private OptJSFunctionCode getCode() {
+            OptJSFunctionCode c = code;
+            if (c == null) {
+                synchronized (this) {
+                    c = code;
+                    if (c == null) {
+                        builder.part.define(builder.env);
+                        c = builder.newInstance();
+                        code = c;
+                    }
+                }
+            }
+            return c;
+        }
+    }
 }
@@ -66,7 +66,14 @@ public abstract class OptJSScriptCode extends OptJSCode<JSScript> {
         @Override
         byte[] getClassBytes() {
             return Codegen.generateOptJSCode(
-                    env.className, methodName, methodType, resumeName, resumeType, false, index);
+                    env.className,
+                    getBodyClassName(),
+                    methodName,
+                    methodType,
+                    resumeName,
+                    resumeType,
+                    false,
+                    index);
         }
     }
 }
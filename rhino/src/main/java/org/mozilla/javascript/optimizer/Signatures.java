@@ -247,4 +247,16 @@ interface Signatures {
 
     /** MATH:TOUINT32: Convert the object to a Java "long" that represents an unsigned integer. */
     String MATH_TO_UINT32 = "(Ljava/lang/Object;)J";
+
+    /**
+     * FUNCTION:CALL: Call the function on the stack with a "this" object and an array of
+     * arguments. Falls back to Callable.call.
+     */
+    String FUNCTION_CALL =
+            "(Lorg/mozilla/javascript/Callable;"
+                    + "Lorg/mozilla/javascript/Context;"
+                    + "Lorg/mozilla/javascript/Scriptable;"
+                    + "Lorg/mozilla/javascript/Scriptable;"
+                    + "[Ljava/lang/Object;"
+                    + ")Ljava/lang/Object;";
 }
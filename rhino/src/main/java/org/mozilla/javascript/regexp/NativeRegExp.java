@@ -8,10 +8,12 @@ package org.mozilla.javascript.regexp;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import org.mozilla.javascript.AbstractEcmaObjectOperations;
 import org.mozilla.javascript.AbstractEcmaStringOperations;
 import org.mozilla.javascript.AbstractEcmaStringOperations.ReplacementOperation;
@@ -24,6 +26,7 @@ import org.mozilla.javascript.IdScriptableObject;
 import org.mozilla.javascript.Kit;
 import org.mozilla.javascript.NativeArray;
 import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.RegExpCache;
 import org.mozilla.javascript.ScriptRuntime;
 import org.mozilla.javascript.ScriptRuntimeES6;
 import org.mozilla.javascript.Scriptable;
@@ -48,6 +51,7 @@ public class NativeRegExp extends IdScriptableObject {
     private static final long serialVersionUID = 4965263491464903264L;
 
     private static final Object REGEXP_TAG = new Object();
+    private static final Object GLOBAL_DATA_KEY = new Object();
 
     public static final int JSREG_GLOB = 0x1; // 'g' flag: global
     public static final int JSREG_FOLD = 0x2; // 'i' flag: fold
@@ -63,89 +67,79 @@ public class NativeRegExp extends IdScriptableObject {
 
     private static final boolean debug = RhinoConfig.get("rhino.debugRegexp", false);
 
-    private static final byte REOP_SIMPLE_START = 1; /* start of 'simple opcodes' */
-    private static final byte REOP_EMPTY =
-            REOP_SIMPLE_START; /* match rest of input against rest of r.e. */
-    private static final byte REOP_BOL =
-            REOP_EMPTY + 1; /* beginning of input (or line if multiline) */
-    private static final byte REOP_EOL = REOP_BOL + 1; /* end of input (or line if multiline) */
-    private static final byte REOP_WBDRY = REOP_EOL + 1; /* match "" at word boundary */
-    private static final byte REOP_WNONBDRY = REOP_WBDRY + 1; /* match "" at word non-boundary */
-    private static final byte REOP_DOT = REOP_WNONBDRY + 1; /* stands for any character */
-    private static final byte REOP_DIGIT = REOP_DOT + 1; /* match a digit char: [0-9] */
-    private static final byte REOP_NONDIGIT = REOP_DIGIT + 1; /* match a non-digit char: [^0-9] */
-    private static final byte REOP_ALNUM =
-            REOP_NONDIGIT + 1; /* match an alphanumeric char: [0-9a-z_A-Z] */
-    private static final byte REOP_NONALNUM =
+    static final byte REOP_SIMPLE_START = 1; /* start of 'simple opcodes' */
+    static final byte REOP_EMPTY = REOP_SIMPLE_START; /* match rest of input against rest of r.e. */
+    static final byte REOP_BOL = REOP_EMPTY + 1; /* beginning of input (or line if multiline) */
+    static final byte REOP_EOL = REOP_BOL + 1; /* end of input (or line if multiline) */
+    static final byte REOP_WBDRY = REOP_EOL + 1; /* match "" at word boundary */
+    static final byte REOP_WNONBDRY = REOP_WBDRY + 1; /* match "" at word non-boundary */
+    static final byte REOP_DOT = REOP_WNONBDRY + 1; /* stands for any character */
+    static final byte REOP_DIGIT = REOP_DOT + 1; /* match a digit char: [0-9] */
+    static final byte REOP_NONDIGIT = REOP_DIGIT + 1; /* match a non-digit char: [^0-9] */
+    static final byte REOP_ALNUM = REOP_NONDIGIT + 1; /* match an alphanumeric char: [0-9a-z_A-Z] */
+    static final byte REOP_NONALNUM =
             REOP_ALNUM + 1; /* match a non-alphanumeric char: [^0-9a-z_A-Z] */
-    private static final byte REOP_SPACE = REOP_NONALNUM + 1; /* match a whitespace char */
-    private static final byte REOP_NONSPACE = REOP_SPACE + 1; /* match a non-whitespace char */
-    private static final byte REOP_BACKREF =
+    static final byte REOP_SPACE = REOP_NONALNUM + 1; /* match a whitespace char */
+    static final byte REOP_NONSPACE = REOP_SPACE + 1; /* match a non-whitespace char */
+    static final byte REOP_BACKREF =
             REOP_NONSPACE + 1; /* back-reference (e.g., \1) to a parenthetical */
-    private static final byte REOP_FLAT = REOP_BACKREF + 1; /* match a flat string */
-    private static final byte REOP_FLAT1 = REOP_FLAT + 1; /* match a single char */
-    private static final byte REOP_FLATi = REOP_FLAT1 + 1; /* case-independent REOP_FLAT */
-    private static final byte REOP_FLAT1i = REOP_FLATi + 1; /* case-independent REOP_FLAT1 */
-    private static final byte REOP_UCFLAT1 = REOP_FLAT1i + 1; /* single Unicode char */
-    private static final byte REOP_UCFLAT1i = REOP_UCFLAT1 + 1; /* case-independent REOP_UCFLAT1 */
-    private static final byte REOP_UCSPFLAT1 =
-            REOP_UCFLAT1i + 1; /* single Unicode surrogate pair */
-    private static final byte REOP_CLASS = REOP_UCSPFLAT1 + 1; /* character class with index */
-    private static final byte REOP_NCLASS = REOP_CLASS + 1; /* negated character class with index */
-    private static final byte REOP_NAMED_BACKREF = REOP_NCLASS + 1; /* named back-reference */
-    private static final byte REOP_UPROP = REOP_NAMED_BACKREF + 1; /* unicode property */
-    private static final byte REOP_UPROP_NOT = REOP_UPROP + 1; /* negated unicode property */
-    private static final byte REOP_SIMPLE_END = REOP_UPROP_NOT; /* end of 'simple opcodes' */
+    static final byte REOP_FLAT = REOP_BACKREF + 1; /* match a flat string */
+    static final byte REOP_FLAT1 = REOP_FLAT + 1; /* match a single char */
+    static final byte REOP_FLATi = REOP_FLAT1 + 1; /* case-independent REOP_FLAT */
+    static final byte REOP_FLAT1i = REOP_FLATi + 1; /* case-independent REOP_FLAT1 */
+    static final byte REOP_UCFLAT1 = REOP_FLAT1i + 1; /* single Unicode char */
+    static final byte REOP_UCFLAT1i = REOP_UCFLAT1 + 1; /* case-independent REOP_UCFLAT1 */
+    static final byte REOP_UCSPFLAT1 = REOP_UCFLAT1i + 1; /* single Unicode surrogate pair */
+    static final byte REOP_CLASS = REOP_UCSPFLAT1 + 1; /* character class with index */
+    static final byte REOP_NCLASS = REOP_CLASS + 1; /* negated character class with index */
+    static final byte REOP_NAMED_BACKREF = REOP_NCLASS + 1; /* named back-reference */
+    static final byte REOP_UPROP = REOP_NAMED_BACKREF + 1; /* unicode property */
+    static final byte REOP_UPROP_NOT = REOP_UPROP + 1; /* negated unicode property */
+    static final byte REOP_SIMPLE_END = REOP_UPROP_NOT; /* end of 'simple opcodes' */
     // REOP_SIMPLE_END is not a real opcode, but a sentinel for the end of the simple opcodes
 
-    private static final byte REOP_QUANT = REOP_SIMPLE_END + 1; /* quantified atom: atom{1,2} */
-    private static final byte REOP_STAR = REOP_QUANT + 1; /* zero or more occurrences of kid */
-    private static final byte REOP_PLUS = REOP_STAR + 1; /* one or more occurrences of kid */
-    private static final byte REOP_OPT = REOP_PLUS + 1; /* optional subexpression in kid */
-    private static final byte REOP_LPAREN =
+    static final byte REOP_QUANT = REOP_SIMPLE_END + 1; /* quantified atom: atom{1,2} */
+    static final byte REOP_STAR = REOP_QUANT + 1; /* zero or more occurrences of kid */
+    static final byte REOP_PLUS = REOP_STAR + 1; /* one or more occurrences of kid */
+    static final byte REOP_OPT = REOP_PLUS + 1; /* optional subexpression in kid */
+    static final byte REOP_LPAREN =
             REOP_OPT + 1; /* left paren bytecode: kid is u.num'th sub-regexp */
-    private static final byte REOP_RPAREN = REOP_LPAREN + 1; /* right paren bytecode */
-    private static final byte REOP_ALT =
-            REOP_RPAREN + 1; /* alternative subexpressions in kid and next */
-    private static final byte REOP_JUMP = REOP_ALT + 1; /* for deoptimized closure loops */
-    private static final byte REOP_ASSERT =
-            REOP_JUMP + 1; /* zero width positive lookahead assertion */
-    private static final byte REOP_ASSERT_NOT =
+    static final byte REOP_RPAREN = REOP_LPAREN + 1; /* right paren bytecode */
+    static final byte REOP_ALT = REOP_RPAREN + 1; /* alternative subexpressions in kid and next */
+    static final byte REOP_JUMP = REOP_ALT + 1; /* for deoptimized closure loops */
+    static final byte REOP_ASSERT = REOP_JUMP + 1; /* zero width positive lookahead assertion */
+    static final byte REOP_ASSERT_NOT =
             REOP_ASSERT + 1; /* zero width negative lookahead assertion */
-    private static final byte REOP_ASSERTTEST =
+    static final byte REOP_ASSERTTEST =
             REOP_ASSERT_NOT + 1; /* sentinel at end of assertion child */
-    private static final byte REOP_ASSERTNOTTEST =
+    static final byte REOP_ASSERTNOTTEST =
             REOP_ASSERTTEST + 1; /* sentinel at end of !assertion child */
-    private static final byte REOP_MINIMALSTAR =
-            REOP_ASSERTNOTTEST + 1; /* non-greedy version of * */
-    private static final byte REOP_MINIMALPLUS = REOP_MINIMALSTAR + 1; /* non-greedy version of + */
-    private static final byte REOP_MINIMALOPT = REOP_MINIMALPLUS + 1; /* non-greedy version of ? */
-    private static final byte REOP_MINIMALQUANT =
-            REOP_MINIMALOPT + 1; /* non-greedy version of {} */
-    private static final byte REOP_ENDCHILD =
+    static final byte REOP_MINIMALSTAR = REOP_ASSERTNOTTEST + 1; /* non-greedy version of * */
+    static final byte REOP_MINIMALPLUS = REOP_MINIMALSTAR + 1; /* non-greedy version of + */
+    static final byte REOP_MINIMALOPT = REOP_MINIMALPLUS + 1; /* non-greedy version of ? */
+    static final byte REOP_MINIMALQUANT = REOP_MINIMALOPT + 1; /* non-greedy version of {} */
+    static final byte REOP_ENDCHILD =
             REOP_MINIMALQUANT + 1; /* sentinel at end of quantifier child */
-    private static final byte REOP_REPEAT =
-            REOP_ENDCHILD + 1; /* directs execution of greedy quantifier */
-    private static final byte REOP_MINIMALREPEAT =
+    static final byte REOP_REPEAT = REOP_ENDCHILD + 1; /* directs execution of greedy quantifier */
+    static final byte REOP_MINIMALREPEAT =
             REOP_REPEAT + 1; /* directs execution of non-greedy quantifier */
-    private static final byte REOP_ALTPREREQ =
+    static final byte REOP_ALTPREREQ =
             REOP_MINIMALREPEAT + 1; /* prerequisite for ALT, either of two chars */
-    private static final byte REOP_ALTPREREQi =
-            REOP_ALTPREREQ + 1; /* case-independent REOP_ALTPREREQ */
-    private static final byte REOP_ALTPREREQ2 =
+    static final byte REOP_ALTPREREQi = REOP_ALTPREREQ + 1; /* case-independent REOP_ALTPREREQ */
+    static final byte REOP_ALTPREREQ2 =
             REOP_ALTPREREQi + 1; /* prerequisite for ALT, a char or a class */
-    private static final byte REOP_ASSERTBACK =
+    static final byte REOP_ASSERTBACK =
             REOP_ALTPREREQ2 + 1; /* zero width positive lookbehind assertion */
-    private static final byte REOP_ASSERTBACK_NOT =
+    static final byte REOP_ASSERTBACK_NOT =
             REOP_ASSERTBACK + 1; /* zero width negative lookbehind assertion */
-    private static final byte REOP_ASSERTBACKTEST =
+    static final byte REOP_ASSERTBACKTEST =
             REOP_ASSERTBACK_NOT + 1; /* sentinel at end of assertion child */
-    private static final byte REOP_ASSERTBACKNOTTEST =
+    static final byte REOP_ASSERTBACKNOTTEST =
             REOP_ASSERTBACKTEST + 1; /* sentinel at end of !assertion child */
 
-    private static final byte REOP_END = REOP_ASSERTBACKNOTTEST + 1;
+    static final byte REOP_END = REOP_ASSERTBACKNOTTEST + 1;
 
-    private static final int ANCHOR_BOL = -2;
+    static final int ANCHOR_BOL = -2;
 
     static Object init(Context cx, Scriptable scope, boolean sealed) {
 
@@ -636,6 +630,29 @@ public class NativeRegExp extends IdScriptableObject {
     }
 
     static RECompiled compileRE(Context cx, String str, String global, boolean flat) {
+        RegExpCache cache = cx.getFactory().getRegExpCache();
+        if (cache == null) {
+            return compileREImpl(cx, str, global, flat);
+        }
+        RECompiled.Key key =
+                new RECompiled.Key(
+                        str,
+                        global,
+                        flat,
+                        cx.getLanguageVersion(),
+                        cx.hasFeature(Context.FEATURE_STRICT_MODE)
+                                && cx.hasFeature(Context.FEATURE_WARNING_AS_ERROR));
+        RECompiled regexp = (RECompiled) cache.get(key);
+        if (regexp == null) {
+            regexp = compileREImpl(cx, str, global, flat);
+            if (regexp != null) {
+                cache.put(key, regexp);
+            }
+        }
+        return regexp;
+    }
+
+    private static RECompiled compileREImpl(Context cx, String str, String global, boolean flat) {
         RECompiled regexp = new RECompiled(str);
         int length = str.length();
         int flags = 0;
@@ -784,7 +801,7 @@ public class NativeRegExp extends IdScriptableObject {
         return '0' <= c && c <= '9';
     }
 
-    private static boolean isWord(char c) {
+    static boolean isWord(char c) {
         return ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z') || isDigit(c) || c == '_';
     }
 
@@ -792,11 +809,11 @@ public class NativeRegExp extends IdScriptableObject {
         return ('a' <= c && c <= 'z') || ('A' <= c && c <= 'Z');
     }
 
-    private static boolean isLineTerm(char c) {
+    static boolean isLineTerm(char c) {
         return ScriptRuntime.isJSLineTerminator(c);
     }
 
-    private static boolean isREWhiteSpace(int c) {
+    static boolean isREWhiteSpace(int c) {
         return ScriptRuntime.isJSWhitespaceOrLineTerminator(c);
     }
 
@@ -811,7 +828,7 @@ public class NativeRegExp extends IdScriptableObject {
      *    code point value is less than decimal 128, then return ch.
      * 6. Return cu.
      */
-    private static char upcase(char ch) {
+    static char upcase(char ch) {
         if (ch < 128) {
             if ('a' <= ch && ch <= 'z') {
                 return (char) (ch + ('A' - 'a'));
@@ -2044,7 +2061,7 @@ public class NativeRegExp extends IdScriptableObject {
         addIndex(array, from, pc - from);
     }
 
-    private static int getOffset(byte[] array, int pc) {
+    static int getOffset(byte[] array, int pc) {
         return getIndex(array, pc);
     }
 
@@ -2056,11 +2073,11 @@ public class NativeRegExp extends IdScriptableObject {
         return pc + 2;
     }
 
-    private static int getIndex(byte[] array, int pc) {
+    static int getIndex(byte[] array, int pc) {
         return ((array[pc] & 0xFF) << 8) | (array[pc + 1] & 0xFF);
     }
 
-    private static final int INDEX_LEN = 2;
+    static final int INDEX_LEN = 2;
 
     private static int emitREBytecode(CompilerState state, RECompiled re, int pc, RENode t) {
         RENode nextAlt;
@@ -2225,38 +2242,30 @@ public class NativeRegExp extends IdScriptableObject {
             int max,
             int cp,
             boolean matchBackward,
-            REBackTrackData backTrackLastToSave,
+            int backTrackLastToSave,
             int continuationOp,
             int continuationPc) {
-        gData.stateStackTop =
-                new REProgState(
-                        gData.stateStackTop,
-                        min,
-                        max,
-                        cp,
-                        backTrackLastToSave,
-                        matchBackward,
-                        continuationOp,
-                        continuationPc);
-    }
-
-    private static REProgState popProgState(REGlobalData gData) {
-        REProgState state = gData.stateStackTop;
-        gData.stateStackTop = state.previous;
-        return state;
+        gData.pushProgState(
+                min, max, cp, matchBackward, backTrackLastToSave, continuationOp, continuationPc);
+    }
+
+    private static int popProgState(REGlobalData gData) {
+        return gData.popProgState();
     }
 
     private static void pushBackTrackState(REGlobalData gData, byte op, int pc) {
-        REProgState state = gData.stateStackTop;
-        gData.backTrackStackTop =
-                new REBackTrackData(
-                        gData, op, pc, gData.cp, state.continuationOp, state.continuationPc);
+        int state = gData.stateStackTop;
+        gData.pushBackTrackState(
+                op,
+                pc,
+                gData.cp,
+                gData.stateContinuationOp(state),
+                gData.stateContinuationPc(state));
     }
 
     private static void pushBackTrackState(
             REGlobalData gData, byte op, int pc, int cp, int continuationOp, int continuationPc) {
-        gData.backTrackStackTop =
-                new REBackTrackData(gData, op, pc, cp, continuationOp, continuationPc);
+        gData.pushBackTrackState(op, pc, cp, continuationOp, continuationPc);
     }
 
     /*
@@ -2350,7 +2359,7 @@ public class NativeRegExp extends IdScriptableObject {
             REGlobalData gData, int parenIndex, String input, int end, boolean matchBackward) {
         int len;
         int i;
-        if (gData.parens == null || parenIndex >= gData.parens.length) return false;
+        if (parenIndex >= gData.regexp.parenCount) return false;
         int parenContent = gData.parensIndex(parenIndex);
         if (parenContent == -1) return true;
 
@@ -2507,7 +2516,7 @@ public class NativeRegExp extends IdScriptableObject {
      *   Initialize the character set if it is the first call.
      *   Test the bit - if the ^ flag was specified, non-inclusion is a success
      */
-    private static boolean classMatcher(REGlobalData gData, RECharSet charSet, int codePoint) {
+    static boolean classMatcher(REGlobalData gData, RECharSet charSet, int codePoint) {
         if (!charSet.converted) {
             processCharSet(gData, charSet);
         }
@@ -2678,7 +2687,7 @@ public class NativeRegExp extends IdScriptableObject {
                 {
                     int backRefNameIndex = getIndex(program, pc);
                     pc += INDEX_LEN;
-                    if (gData.parens == null
+                    if (gData.regexp.parenCount == 0
                             || backRefNameIndex >= gData.regexp.namedBackRefs.size()) {
                         break;
                     }
@@ -3121,12 +3130,12 @@ public class NativeRegExp extends IdScriptableObject {
                     case REOP_ASSERTNOTTEST:
                     case REOP_ASSERTBACKNOTTEST:
                         {
-                            REProgState state = popProgState(gData);
-                            gData.cp = state.index;
-                            gData.backTrackStackTop = state.backTrack;
-                            matchBackward = state.matchBackward;
-                            continuationPc = state.continuationPc;
-                            continuationOp = state.continuationOp;
+                            int state = popProgState(gData);
+                            gData.cp = gData.stateIndex(state);
+                            gData.truncateBackTrackStack(gData.stateBackTrack(state));
+                            matchBackward = gData.stateMatchBackward(state);
+                            continuationPc = gData.stateContinuationPc(state);
+                            continuationOp = gData.stateContinuationOp(state);
                             if (op == REOP_ASSERTNOTTEST || op == REOP_ASSERTBACKNOTTEST) {
                                 result = !result;
                             }
@@ -3185,7 +3194,7 @@ public class NativeRegExp extends IdScriptableObject {
                                     max,
                                     gData.cp,
                                     matchBackward,
-                                    null,
+                                    0,
                                     continuationOp,
                                     continuationPc);
                             if (greedy) {
@@ -3224,33 +3233,38 @@ public class NativeRegExp extends IdScriptableObject {
                         {
                             int nextpc, nextop;
                             do {
-                                REProgState state = popProgState(gData);
+                                int state = popProgState(gData);
+                                int stateMin = gData.stateMin(state);
+                                int stateMax = gData.stateMax(state);
+                                int stateIndex = gData.stateIndex(state);
+                                int stateContinuationOp = gData.stateContinuationOp(state);
+                                int stateContinuationPc = gData.stateContinuationPc(state);
                                 if (!result) {
                                     // Failed, see if we have enough children.
-                                    if (state.min == 0) result = true;
-                                    continuationPc = state.continuationPc;
-                                    continuationOp = state.continuationOp;
+                                    if (stateMin == 0) result = true;
+                                    continuationPc = stateContinuationPc;
+                                    continuationOp = stateContinuationOp;
                                     pc += 2 * INDEX_LEN; /* <parencount> & <parenindex> */
                                     pc += getOffset(program, pc);
                                     break switchStatement;
                                 }
-                                if (state.min == 0 && (gData.cp == state.index || state.max == 0)) {
+                                if (stateMin == 0 && (gData.cp == stateIndex || stateMax == 0)) {
                                     // matched an empty string or an {0} quantifier, that'll get us
                                     // nowhere
                                     result = false;
-                                    continuationPc = state.continuationPc;
-                                    continuationOp = state.continuationOp;
+                                    continuationPc = stateContinuationPc;
+                                    continuationOp = stateContinuationOp;
                                     pc += 2 * INDEX_LEN;
                                     pc += getOffset(program, pc);
                                     break switchStatement;
                                 }
-                                int new_min = state.min, new_max = state.max;
+                                int new_min = stateMin, new_max = stateMax;
                                 if (new_min != 0) new_min--;
                                 if (new_max != -1) new_max--;
                                 if (new_max == 0) {
                                     result = true;
-                                    continuationPc = state.continuationPc;
-                                    continuationOp = state.continuationOp;
+                                    continuationPc = stateContinuationPc;
+                                    continuationOp = stateContinuationOp;
                                     pc += 2 * INDEX_LEN;
                                     pc += getOffset(program, pc);
                                     break switchStatement;
@@ -3272,8 +3286,8 @@ public class NativeRegExp extends IdScriptableObject {
                                                     matchBackward);
                                     if (match < 0) {
                                         result = (new_min == 0);
-                                        continuationPc = state.continuationPc;
-                                        continuationOp = state.continuationOp;
+                                        continuationPc = stateContinuationPc;
+                                        continuationOp = stateContinuationOp;
                                         pc += 2 * INDEX_LEN; /* <parencount> & <parenindex> */
                                         pc += getOffset(program, pc);
                                         break switchStatement;
@@ -3289,17 +3303,17 @@ public class NativeRegExp extends IdScriptableObject {
                                         new_max,
                                         startcp,
                                         matchBackward,
-                                        null,
-                                        state.continuationOp,
-                                        state.continuationPc);
+                                        0,
+                                        stateContinuationOp,
+                                        stateContinuationPc);
                                 if (new_min == 0) {
                                     pushBackTrackState(
                                             gData,
                                             REOP_REPEAT,
                                             pc,
                                             startcp,
-                                            state.continuationOp,
-                                            state.continuationPc);
+                                            stateContinuationOp,
+                                            stateContinuationPc);
                                 }
                                 int parenCount = getIndex(program, pc);
                                 int parenIndex = getIndex(program, pc + INDEX_LEN);
@@ -3315,21 +3329,26 @@ public class NativeRegExp extends IdScriptableObject {
 
                     case REOP_MINIMALREPEAT:
                         {
-                            REProgState state = popProgState(gData);
+                            int state = popProgState(gData);
+                            int stateMin = gData.stateMin(state);
+                            int stateMax = gData.stateMax(state);
+                            int stateIndex = gData.stateIndex(state);
+                            int stateContinuationOp = gData.stateContinuationOp(state);
+                            int stateContinuationPc = gData.stateContinuationPc(state);
                             if (!result) {
                                 //
                                 // Non-greedy failure - try to consume another child.
                                 //
-                                if (state.max == -1 || state.max > 0) {
+                                if (stateMax == -1 || stateMax > 0) {
                                     pushProgState(
                                             gData,
-                                            state.min,
-                                            state.max,
+                                            stateMin,
+                                            stateMax,
                                             gData.cp,
                                             matchBackward,
-                                            null,
-                                            state.continuationOp,
-                                            state.continuationPc);
+                                            0,
+                                            stateContinuationOp,
+                                            stateContinuationPc);
                                     continuationOp = REOP_MINIMALREPEAT;
                                     continuationPc = pc;
                                     int parenCount = getIndex(program, pc);
@@ -3343,18 +3362,18 @@ public class NativeRegExp extends IdScriptableObject {
                                     continue;
                                 }
                                 // Don't need to adjust pc since we're going to pop.
-                                continuationPc = state.continuationPc;
-                                continuationOp = state.continuationOp;
+                                continuationPc = stateContinuationPc;
+                                continuationOp = stateContinuationOp;
                                 break;
                             }
-                            if (state.min == 0 && gData.cp == state.index) {
+                            if (stateMin == 0 && gData.cp == stateIndex) {
                                 // Matched an empty string, that'll get us nowhere.
                                 result = false;
-                                continuationPc = state.continuationPc;
-                                continuationOp = state.continuationOp;
+                                continuationPc = stateContinuationPc;
+                                continuationOp = stateContinuationOp;
                                 break;
                             }
-                            int new_min = state.min, new_max = state.max;
+                            int new_min = stateMin, new_max = stateMax;
                             if (new_min != 0) new_min--;
                             if (new_max != -1) new_max--;
                             pushProgState(
@@ -3363,9 +3382,9 @@ public class NativeRegExp extends IdScriptableObject {
                                     new_max,
                                     gData.cp,
                                     matchBackward,
-                                    null,
-                                    state.continuationOp,
-                                    state.continuationPc);
+                                    0,
+                                    stateContinuationOp,
+                                    stateContinuationPc);
                             if (new_min != 0) {
                                 continuationOp = REOP_MINIMALREPEAT;
                                 continuationPc = pc;
@@ -3377,8 +3396,8 @@ public class NativeRegExp extends IdScriptableObject {
                                     gData.setParens(parenIndex + k, -1, 0);
                                 }
                             } else {
-                                continuationPc = state.continuationPc;
-                                continuationOp = state.continuationOp;
+                                continuationPc = stateContinuationPc;
+                                continuationOp = stateContinuationOp;
                                 pushBackTrackState(gData, REOP_MINIMALREPEAT, pc);
                                 popProgState(gData);
                                 pc += 2 * INDEX_LEN;
@@ -3400,16 +3419,12 @@ public class NativeRegExp extends IdScriptableObject {
              *  Otherwise this is a complete and utter failure.
              */
             if (!result) {
-                REBackTrackData backTrackData = gData.backTrackStackTop;
-                if (backTrackData != null) {
-                    gData.backTrackStackTop = backTrackData.previous;
-                    gData.parens = backTrackData.parens;
-                    gData.cp = backTrackData.cp;
-                    gData.stateStackTop = backTrackData.stateStackTop;
-                    continuationOp = backTrackData.continuationOp;
-                    continuationPc = backTrackData.continuationPc;
-                    pc = backTrackData.pc;
-                    op = backTrackData.op;
+                int frame = gData.popBackTrackState();
+                if (frame >= 0) {
+                    continuationOp = gData.frameContinuationOp(frame);
+                    continuationPc = gData.frameContinuationPc(frame);
+                    pc = gData.framePc(frame);
+                    op = gData.frameOp(frame);
                     continue;
                 }
                 return false;
@@ -3427,17 +3442,15 @@ public class NativeRegExp extends IdScriptableObject {
             int start,
             int end,
             boolean multiline) {
-        if (re.parenCount != 0) {
-            gData.parens = new long[re.parenCount];
-        } else {
-            gData.parens = null;
-        }
-
-        gData.backTrackStackTop = null;
-        gData.stateStackTop = null;
-
+        gData.reset(re);
         gData.multiline = multiline || (re.flags & JSREG_MULTILINE) != 0;
-        gData.regexp = re;
+
+        if (cx.hasFeature(Context.FEATURE_LINEAR_REGEXP)) {
+            RENfa nfa = re.getNfa();
+            if (nfa != null) {
+                return nfa.match(cx, gData, input, start, end);
+            }
+        }
 
         int anchorCodePoint = gData.regexp.anchorCodePoint;
         //
@@ -3487,8 +3500,7 @@ public class NativeRegExp extends IdScriptableObject {
             }
             boolean result = executeREBytecode(cx, gData, input, end);
 
-            gData.backTrackStackTop = null;
-            gData.stateStackTop = null;
+            gData.clearStacks();
             if (result) {
                 return true;
             }
@@ -3571,8 +3583,37 @@ public class NativeRegExp extends IdScriptableObject {
      */
     ExecResult executeRegExpInternal(
             Context cx, Scriptable scope, RegExpImpl res, String str, int[] indexp, int matchType) {
-        REGlobalData gData = new REGlobalData();
+        REGlobalData gData = acquireGlobalData(cx);
+        try {
+            return executeRegExpInternal(cx, res, str, indexp, matchType, gData);
+        } finally {
+            gData.release();
+        }
+    }
 
+    /**
+     * Return the matcher state kept by the context, or a new one if the context has none or is
+     * already matching, as when an instruction observer runs a script in the middle of a match.
+     */
+    private static REGlobalData acquireGlobalData(Context cx) {
+        REGlobalData gData = (REGlobalData) cx.getThreadLocal(GLOBAL_DATA_KEY);
+        if (gData == null || gData.inUse) {
+            gData = new REGlobalData();
+            if (!cx.isSealed() && cx.getThreadLocal(GLOBAL_DATA_KEY) == null) {
+                cx.putThreadLocal(GLOBAL_DATA_KEY, gData);
+            }
+        }
+        gData.inUse = true;
+        return gData;
+    }
+
+    private ExecResult executeRegExpInternal(
+            Context cx,
+            RegExpImpl res,
+            String str,
+            int[] indexp,
+            int matchType,
+            REGlobalData gData) {
         int start = indexp[0];
         int end = str.length();
         if (start > end) start = end;
@@ -4656,9 +4697,70 @@ class RECompiled implements Serializable {
     RECharSet[] classList; /* list of [...] bitmaps */
     int anchorCodePoint = -1; /* if >= 0, then re starts with this literal char */
 
+    private transient volatile RENfa nfa; /* the automaton, built on first use */
+    private transient volatile boolean nfaCompiled;
+
     RECompiled(String str) {
         this.source = str.toCharArray();
     }
+
+    /**
+     * Identifies a compiled expression in a {@link RegExpCache}: the source, the flags, whether the
+     * source is matched literally, the language version, which decides which flags are valid, and
+     * whether compile warnings are errors. An expression that warns is only cached by contexts
+     * that ignore the warning, and must not be found by contexts that would fail to compile it.
+     */
+    static final class Key {
+        private final String source;
+        private final String flags;
+        private final boolean flat;
+        private final int languageVersion;
+        private final boolean warningsAsErrors;
+
+        Key(
+                String source,
+                String flags,
+                boolean flat,
+                int languageVersion,
+                boolean warningsAsErrors) {
+            this.source = source;
+            this.flags = flags == null ? "" : flags;
+            this.flat = flat;
+            this.languageVersion = languageVersion;
+            this.warningsAsErrors = warningsAsErrors;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return source.equals(other.source)
+                    && flags.equals(other.flags)
+                    && flat == other.flat
+                    && languageVersion == other.languageVersion
+                    && warningsAsErrors == other.warningsAsErrors;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, flags, flat, languageVersion, warningsAsErrors);
+        }
+    }
+
+    /**
+     * Return the expression compiled to an automaton, or null if it cannot be. This takes no lock:
+     * threads sharing a cached expression may each build the automaton once, and the volatile
+     * fields publish whichever one was stored last.
+     */
+    RENfa getNfa() {
+        if (!nfaCompiled) {
+            nfa = RENfa.compile(this);
+            nfaCompiled = true;
+        }
+        return nfa;
+    }
 }
 
 class RENode {
@@ -4736,63 +4838,42 @@ class CompilerState {
     RENode result;
 }
 
-class REProgState {
-    REProgState(
-            REProgState previous,
-            int min,
-            int max,
-            int index,
-            REBackTrackData backTrack,
-            boolean matchBackward,
-            int continuationOp,
-            int continuationPc) {
-        this.previous = previous;
-        this.min = min;
-        this.max = max;
-        this.index = index;
-        this.continuationOp = continuationOp;
-        this.continuationPc = continuationPc;
-        this.backTrack = backTrack;
-        this.matchBackward = matchBackward;
-    }
-
-    final REProgState previous; // previous state in stack
-
-    final int min; /* current quantifier min */
-    final int max; /* current quantifier max */
-    final int index; /* progress in text */
-    final int continuationOp;
-    final int continuationPc;
-    final REBackTrackData backTrack; // used by ASSERT_  to recover state
-    final boolean matchBackward;
-}
-
-class REBackTrackData {
+/*
+ * The state of a match in progress. It is kept by the Context and reused by the matches that run
+ * on it, so its stacks are int arrays that grow as needed rather than linked objects, and a match
+ * that does not need to grow them does not allocate.
+ */
+class REGlobalData {
+    /* Stacks larger than this are not kept once the match is over */
+    private static final int MAX_RETAINED_LENGTH = 4096;
 
-    REBackTrackData(
-            REGlobalData gData, int op, int pc, int cp, int continuationOp, int continuationPc) {
-        previous = gData.backTrackStackTop;
-        this.op = op;
-        this.pc = pc;
-        this.cp = cp;
-        this.continuationOp = continuationOp;
-        this.continuationPc = continuationPc;
-        parens = gData.parens;
-        stateStackTop = gData.stateStackTop;
-    }
-
-    final REBackTrackData previous;
-
-    final int op; /* operator */
-    final int pc; /* bytecode pointer */
-    final int cp; /* char buffer index */
-    final int continuationOp; /* continuation op */
-    final int continuationPc; /* continuation pc */
-    final long[] parens; /* parenthesis captures */
-    final REProgState stateStackTop; /* state of op that backtracked */
-}
+    /*
+     * A prog state holds the progress of the quantifier or assertion being matched. States are
+     * never changed once pushed, and each links to the one below it: a backtrack frame refers to
+     * the top state at the time it is pushed, so popped states stay in the array until they are
+     * above every frame.
+     */
+    private static final int STATE_PREVIOUS = 0; /* previous state in stack, or -1 */
+    private static final int STATE_MIN = 1; /* current quantifier min */
+    private static final int STATE_MAX = 2; /* current quantifier max */
+    private static final int STATE_INDEX = 3; /* progress in text */
+    private static final int STATE_CONTINUATION_OP = 4;
+    private static final int STATE_CONTINUATION_PC = 5;
+    private static final int STATE_BACKTRACK = 6; /* used by ASSERT_ to recover state */
+    private static final int STATE_MATCH_BACKWARD = 7;
+    private static final int STATE_SIZE = 8;
+
+    /* A backtrack frame holds a position to resume matching from if the current path fails */
+    private static final int FRAME_OP = 0; /* operator */
+    private static final int FRAME_PC = 1; /* bytecode pointer */
+    private static final int FRAME_CP = 2; /* char buffer index */
+    private static final int FRAME_CONTINUATION_OP = 3;
+    private static final int FRAME_CONTINUATION_PC = 4;
+    private static final int FRAME_STATE = 5; /* state of op that backtracked */
+    private static final int FRAME_STATES_LENGTH = 6; /* states in use when pushed */
+    private static final int FRAME_TRAIL_LENGTH = 7; /* captures changed before it was pushed */
+    private static final int FRAME_SIZE = 8;
 
-class REGlobalData {
     boolean multiline;
     RECompiled regexp; /* the RE in execution */
     int skipped; /* chars skipped anchoring this r.e. */
@@ -4800,9 +4881,52 @@ class REGlobalData {
     int cp; /* char buffer index */
     long[] parens; /* parens captures */
 
-    REProgState stateStackTop; /* stack of state of current ancestors */
+    boolean inUse; /* whether a match is running with this data */
 
-    REBackTrackData backTrackStackTop; /* last matched-so-far position */
+    int[] states = new int[8 * STATE_SIZE];
+    int statesLength;
+    int stateStackTop = -1; /* stack of state of current ancestors */
+
+    int[] backTrackStack = new int[8 * FRAME_SIZE];
+    int backTrackStackTop; /* length of the stack, the last frame is the last matched-so-far */
+
+    /*
+     * The captures changed while there is a frame to backtrack to, as pairs of the capture and
+     * its previous value, undone when backtracking instead of copying the captures into frames.
+     */
+    long[] trail = new long[8];
+    int trailLength;
+
+    /** Prepare to match "re", keeping the arrays of a previous match. */
+    void reset(RECompiled re) {
+        regexp = re;
+        if (re.parenCount != 0 && (parens == null || parens.length < re.parenCount)) {
+            parens = new long[re.parenCount];
+        }
+        clearStacks();
+    }
+
+    void clearStacks() {
+        statesLength = 0;
+        stateStackTop = -1;
+        backTrackStackTop = 0;
+        trailLength = 0;
+    }
+
+    /** Forget the match, and drop the stacks if a long match grew them too much. */
+    void release() {
+        regexp = null;
+        if (states.length > MAX_RETAINED_LENGTH) {
+            states = new int[8 * STATE_SIZE];
+        }
+        if (backTrackStack.length > MAX_RETAINED_LENGTH) {
+            backTrackStack = new int[8 * FRAME_SIZE];
+        }
+        if (trail.length > MAX_RETAINED_LENGTH) {
+            trail = new long[8];
+        }
+        inUse = false;
+    }
 
     /** Get start of parenthesis capture contents, -1 for empty. */
     int parensIndex(int i) {
@@ -4815,12 +4939,148 @@ class REGlobalData {
     }
 
     void setParens(int i, int index, int length) {
-        // clone parens array if it is shared with backtrack state
-        if (backTrackStackTop != null && backTrackStackTop.parens == parens) {
-            parens = parens.clone();
+        // remember the old value if a frame may backtrack to it
+        if (backTrackStackTop != 0) {
+            if (trailLength == trail.length) {
+                trail = Arrays.copyOf(trail, trailLength * 2);
+            }
+            trail[trailLength++] = i;
+            trail[trailLength++] = parens[i];
         }
         parens[i] = (index & 0xffffffffL) | ((long) length << 32);
     }
+
+    void pushProgState(
+            int min,
+            int max,
+            int index,
+            boolean matchBackward,
+            int backTrack,
+            int continuationOp,
+            int continuationPc) {
+        int state = statesLength;
+        if (state == states.length) {
+            states = Arrays.copyOf(states, state * 2);
+        }
+        states[state + STATE_PREVIOUS] = stateStackTop;
+        states[state + STATE_MIN] = min;
+        states[state + STATE_MAX] = max;
+        states[state + STATE_INDEX] = index;
+        states[state + STATE_CONTINUATION_OP] = continuationOp;
+        states[state + STATE_CONTINUATION_PC] = continuationPc;
+        states[state + STATE_BACKTRACK] = backTrack;
+        states[state + STATE_MATCH_BACKWARD] = matchBackward ? 1 : 0;
+        statesLength = state + STATE_SIZE;
+        stateStackTop = state;
+    }
+
+    /**
+     * Pop the top state and return its offset in "states". It may be overwritten by the next push,
+     * so its fields must be read first.
+     */
+    int popProgState() {
+        int state = stateStackTop;
+        stateStackTop = states[state + STATE_PREVIOUS];
+        int framesStates =
+                backTrackStackTop == 0
+                        ? 0
+                        : backTrackStack[backTrackStackTop - FRAME_SIZE + FRAME_STATES_LENGTH];
+        if (state >= framesStates) {
+            // No frame refers to this state or any above it
+            statesLength = state;
+        }
+        return state;
+    }
+
+    void pushBackTrackState(int op, int pc, int cp, int continuationOp, int continuationPc) {
+        int frame = backTrackStackTop;
+        if (frame == backTrackStack.length) {
+            backTrackStack = Arrays.copyOf(backTrackStack, frame * 2);
+        }
+        backTrackStack[frame + FRAME_OP] = op;
+        backTrackStack[frame + FRAME_PC] = pc;
+        backTrackStack[frame + FRAME_CP] = cp;
+        backTrackStack[frame + FRAME_CONTINUATION_OP] = continuationOp;
+        backTrackStack[frame + FRAME_CONTINUATION_PC] = continuationPc;
+        backTrackStack[frame + FRAME_STATE] = stateStackTop;
+        backTrackStack[frame + FRAME_STATES_LENGTH] = statesLength;
+        backTrackStack[frame + FRAME_TRAIL_LENGTH] = trailLength;
+        backTrackStackTop = frame + FRAME_SIZE;
+    }
+
+    /**
+     * Pop the last frame, restoring the captures and states to what they were when it was pushed,
+     * and return its offset in "backTrackStack", or -1 if there is none.
+     */
+    int popBackTrackState() {
+        if (backTrackStackTop == 0) {
+            return -1;
+        }
+        int frame = backTrackStackTop - FRAME_SIZE;
+        backTrackStackTop = frame;
+        int trailMark = backTrackStack[frame + FRAME_TRAIL_LENGTH];
+        while (trailLength > trailMark) {
+            long value = trail[--trailLength];
+            parens[(int) trail[--trailLength]] = value;
+        }
+        stateStackTop = backTrackStack[frame + FRAME_STATE];
+        statesLength = backTrackStack[frame + FRAME_STATES_LENGTH];
+        cp = backTrackStack[frame + FRAME_CP];
+        return frame;
+    }
+
+    /** Drop the frames pushed since the stack had the given length. */
+    void truncateBackTrackStack(int length) {
+        backTrackStackTop = length;
+        if (length == 0) {
+            // No frame is left to restore captures for
+            trailLength = 0;
+        }
+    }
+
+    int stateMin(int state) {
+        return states[state + STATE_MIN];
+    }
+
+    int stateMax(int state) {
+        return states[state + STATE_MAX];
+    }
+
+    int stateIndex(int state) {
+        return states[state + STATE_INDEX];
+    }
+
+    int stateContinuationOp(int state) {
+        return states[state + STATE_CONTINUATION_OP];
+    }
+
+    int stateContinuationPc(int state) {
+        return states[state + STATE_CONTINUATION_PC];
+    }
+
+    int stateBackTrack(int state) {
+        return states[state + STATE_BACKTRACK];
+    }
+
+    boolean stateMatchBackward(int state) {
+        return states[state + STATE_MATCH_BACKWARD] != 0;
+    }
+
+    int frameOp(int frame) {
+        return backTrackStack[frame + FRAME_OP];
+    }
+
+    int framePc(int frame) {
+        return backTrackStack[frame + FRAME_PC];
+    }
+
+    int frameContinuationOp(int frame) {
+        return backTrackStack[frame + FRAME_CONTINUATION_OP];
+    }
+
+    int frameContinuationPc(int frame) {
+        return backTrackStack[frame + FRAME_CONTINUATION_PC];
+    }
 }
 
 /*
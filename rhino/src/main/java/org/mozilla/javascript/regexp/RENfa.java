@@ -0,0 +1,577 @@
+/* -*- Mode: java; tab-width: 8; indent-tabs-mode: nil; c-basic-offset: 4 -*-
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.regexp;
+
+import static org.mozilla.javascript.regexp.NativeRegExp.*;
+
+import java.util.Arrays;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Kit;
+import org.mozilla.javascript.ScriptRuntime;
+
+/**
+ * A regular expression compiled to a Thompson NFA. {@link #match} runs it as a Pike VM: all the
+ * threads of the automaton advance through the input together, one character at a time, and a
+ * thread that reaches an instruction already reached by a thread of higher priority is dropped.
+ * The time taken is therefore linear in the length of the input, whatever the expression, and
+ * threads are kept in arrays allocated once per match. Threads are ordered like the alternatives
+ * of the backtracking matcher, so both find the same match and captures.
+ *
+ * <p>The NFA is translated from the bytecode of the backtracking matcher. Expressions with back
+ * references or lookaround are not regular and cannot be translated, nor can unicode expressions,
+ * which step through the input by code points. Repetitions that are not required by the minimum
+ * of their quantifier must not be able to match the empty string: such an iteration fails in
+ * ECMAScript, which the automaton cannot express without remembering where it started.
+ */
+final class RENfa {
+
+    // Instructions that consume one character
+    private static final int CHAR = 0; /* the character in arg */
+    private static final int CHAR_I = 1; /* the character in arg, ignoring case */
+    private static final int ANY = 2; /* any character but a line terminator */
+    private static final int ANY_ALL = 3; /* any character, for the 's' flag */
+    private static final int DIGIT = 4;
+    private static final int NONDIGIT = 5;
+    private static final int ALNUM = 6;
+    private static final int NONALNUM = 7;
+    private static final int SPACE = 8;
+    private static final int NONSPACE = 9;
+    private static final int CLASS = 10; /* the character class with index arg */
+    // Instructions that consume nothing
+    private static final int MATCH = 11;
+    private static final int BOL = 12;
+    private static final int EOL = 13;
+    private static final int WBDRY = 14;
+    private static final int WNONBDRY = 15;
+    private static final int JUMP = 16; /* continue at arg */
+    private static final int SPLIT = 17; /* continue at arg, then at arg2 */
+    private static final int SAVE = 18; /* store the position in capture slot arg */
+    private static final int RESET = 19; /* clear arg2 capture slots from arg */
+
+    /* Larger expressions, typically long counted repetitions, are left to backtracking */
+    private static final int MAX_INSTRUCTIONS = 10000;
+
+    private int[] ops = new int[16];
+    private int[] args = new int[16];
+    private int[] args2 = new int[16];
+    private int length;
+
+    /* Number of instructions that threads can wait on, which bounds the length of a queue */
+    private int threadCount;
+    /* Number of entries of the stack used to follow the instructions that consume nothing */
+    private int stackSize;
+    /* Capture slots: the start of the match, then the start and end of each group */
+    private final int slotCount;
+
+    private final RECompiled regexp;
+
+    private RENfa(RECompiled regexp) {
+        this.regexp = regexp;
+        this.slotCount = 1 + 2 * regexp.parenCount;
+    }
+
+    /**
+     * Translate the bytecode of the expression, or return null if it cannot be matched by an
+     * automaton.
+     */
+    static RENfa compile(RECompiled regexp) {
+        if ((regexp.flags & JSREG_UNICODE) != 0) {
+            return null;
+        }
+        RENfa nfa = new RENfa(regexp);
+        try {
+            int pc = nfa.translate(0);
+            if (regexp.program[pc] != REOP_END) {
+                return null;
+            }
+        } catch (UnsupportedException e) {
+            return null;
+        }
+        nfa.emit(MATCH, 0, 0);
+
+        int stack = 1;
+        for (int i = 0; i < nfa.length; i++) {
+            switch (nfa.ops[i]) {
+                case SPLIT:
+                case SAVE:
+                    stack++;
+                    break;
+                case RESET:
+                    stack += nfa.args2[i];
+                    break;
+                default:
+                    if (nfa.ops[i] <= MATCH) {
+                        nfa.threadCount++;
+                    }
+                    break;
+            }
+        }
+        nfa.stackSize = 2 * stack;
+        return nfa;
+    }
+
+    private static final class UnsupportedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private int emit(int op, int arg, int arg2) {
+        if (length == MAX_INSTRUCTIONS) {
+            throw new UnsupportedException();
+        }
+        if (length == ops.length) {
+            ops = Arrays.copyOf(ops, length * 2);
+            args = Arrays.copyOf(args, length * 2);
+            args2 = Arrays.copyOf(args2, length * 2);
+        }
+        ops[length] = op;
+        args[length] = arg;
+        args2[length] = arg2;
+        return length++;
+    }
+
+    /* Set by translate: whether the terms translated last can match the empty string */
+    private boolean nullable;
+
+    /**
+     * Translate the terms starting at pc up to the end of the enclosing alternative, group or
+     * quantifier, and return the pc of the opcode that ends them.
+     */
+    private int translate(int pc) {
+        byte[] program = regexp.program;
+        boolean seqNullable = true;
+        for (; ; ) {
+            byte op = program[pc];
+            if (op == REOP_END || op == REOP_JUMP || op == REOP_RPAREN || op == REOP_ENDCHILD) {
+                nullable = seqNullable;
+                return pc;
+            }
+            pc++;
+            switch (op) {
+                case REOP_BOL:
+                    emit(BOL, 0, 0);
+                    break;
+                case REOP_EOL:
+                    emit(EOL, 0, 0);
+                    break;
+                case REOP_WBDRY:
+                    emit(WBDRY, 0, 0);
+                    break;
+                case REOP_WNONBDRY:
+                    emit(WNONBDRY, 0, 0);
+                    break;
+                case REOP_DOT:
+                    emit((regexp.flags & JSREG_DOTALL) != 0 ? ANY_ALL : ANY, 0, 0);
+                    seqNullable = false;
+                    break;
+                case REOP_DIGIT:
+                case REOP_NONDIGIT:
+                case REOP_ALNUM:
+                case REOP_NONALNUM:
+                case REOP_SPACE:
+                case REOP_NONSPACE:
+                    emit(DIGIT + (op - REOP_DIGIT), 0, 0);
+                    seqNullable = false;
+                    break;
+                case REOP_FLAT:
+                case REOP_FLATi:
+                    {
+                        int offset = getIndex(program, pc);
+                        int count = getIndex(program, pc + INDEX_LEN);
+                        pc += 2 * INDEX_LEN;
+                        for (int i = 0; i < count; i++) {
+                            emit(op == REOP_FLAT ? CHAR : CHAR_I, regexp.source[offset + i], 0);
+                        }
+                        seqNullable = false;
+                    }
+                    break;
+                case REOP_FLAT1:
+                case REOP_FLAT1i:
+                    emit(op == REOP_FLAT1 ? CHAR : CHAR_I, program[pc++] & 0xFF, 0);
+                    seqNullable = false;
+                    break;
+                case REOP_UCFLAT1:
+                case REOP_UCFLAT1i:
+                    emit(op == REOP_UCFLAT1 ? CHAR : CHAR_I, getIndex(program, pc), 0);
+                    pc += INDEX_LEN;
+                    seqNullable = false;
+                    break;
+                case REOP_CLASS:
+                case REOP_NCLASS:
+                    emit(CLASS, getIndex(program, pc), 0);
+                    pc += INDEX_LEN;
+                    seqNullable = false;
+                    break;
+                case REOP_LPAREN:
+                    {
+                        int parenIndex = getIndex(program, pc);
+                        emit(SAVE, 1 + 2 * parenIndex, 0);
+                        pc = translate(pc + INDEX_LEN);
+                        // Skip the RPAREN and its index
+                        pc += 1 + INDEX_LEN;
+                        emit(SAVE, 2 + 2 * parenIndex, 0);
+                        seqNullable &= nullable;
+                    }
+                    break;
+                case REOP_ALTPREREQ:
+                case REOP_ALTPREREQi:
+                case REOP_ALTPREREQ2:
+                    // The prerequisite only filters the input, the alternatives follow
+                    pc += 2 * INDEX_LEN;
+                // fall through
+                case REOP_ALT:
+                    {
+                        int nextAlt = pc + getOffset(program, pc);
+                        int split = emit(SPLIT, length + 1, 0);
+                        pc = translate(pc + INDEX_LEN);
+                        boolean firstNullable = nullable;
+                        // The alternative ends with a JUMP to the term after the last one
+                        int next = pc + 1 + getOffset(program, pc + 1);
+                        int jump = emit(JUMP, 0, 0);
+                        args2[split] = length;
+                        translate(nextAlt);
+                        args[jump] = length;
+                        seqNullable &= firstNullable || nullable;
+                        pc = next;
+                    }
+                    break;
+                case REOP_STAR:
+                case REOP_PLUS:
+                case REOP_OPT:
+                case REOP_QUANT:
+                case REOP_MINIMALSTAR:
+                case REOP_MINIMALPLUS:
+                case REOP_MINIMALOPT:
+                case REOP_MINIMALQUANT:
+                    pc = translateQuantifier(op, pc);
+                    seqNullable &= nullable;
+                    break;
+                default:
+                    // Back references, lookaround, unicode properties and surrogate pairs
+                    throw new UnsupportedException();
+            }
+        }
+    }
+
+    /**
+     * Translate a quantifier whose operands start at pc, unrolling the iterations that its
+     * minimum and maximum count, and return the pc of the term that follows it.
+     */
+    private int translateQuantifier(byte op, int pc) {
+        byte[] program = regexp.program;
+        int min, max;
+        boolean greedy =
+                op == REOP_STAR || op == REOP_PLUS || op == REOP_OPT || op == REOP_QUANT;
+        if (op == REOP_STAR || op == REOP_MINIMALSTAR) {
+            min = 0;
+            max = -1;
+        } else if (op == REOP_PLUS || op == REOP_MINIMALPLUS) {
+            min = 1;
+            max = -1;
+        } else if (op == REOP_OPT || op == REOP_MINIMALOPT) {
+            min = 0;
+            max = 1;
+        } else {
+            min = getOffset(program, pc);
+            max = getOffset(program, pc + INDEX_LEN) - 1;
+            pc += 2 * INDEX_LEN;
+        }
+        int parenCount = getIndex(program, pc);
+        int parenIndex = getIndex(program, pc + INDEX_LEN);
+        int nextField = pc + 2 * INDEX_LEN;
+        int next = nextField + getOffset(program, nextField);
+        int kid = nextField + INDEX_LEN;
+
+        boolean kidNullable = true;
+        for (int i = 0; i < min; i++) {
+            translateIteration(kid, parenIndex, parenCount);
+            kidNullable = nullable;
+        }
+        if (max == -1) {
+            int split = emit(SPLIT, 0, 0);
+            translateIteration(kid, parenIndex, parenCount);
+            checkNotNullable();
+            emit(JUMP, split, 0);
+            setBranches(split, greedy);
+        } else if (max > min) {
+            // x{0,3} is translated as (x(x(x)?)?)?
+            int[] splits = new int[max - min];
+            for (int i = 0; i < splits.length; i++) {
+                splits[i] = emit(SPLIT, 0, 0);
+                translateIteration(kid, parenIndex, parenCount);
+                checkNotNullable();
+            }
+            for (int split : splits) {
+                setBranches(split, greedy);
+            }
+        }
+        nullable = min == 0 || kidNullable;
+        return next;
+    }
+
+    private void translateIteration(int kid, int parenIndex, int parenCount) {
+        // Each iteration starts with the groups inside the quantifier undefined
+        if (parenCount > 0) {
+            emit(RESET, 1 + 2 * parenIndex, 2 * parenCount);
+        }
+        translate(kid);
+    }
+
+    private void checkNotNullable() {
+        if (nullable) {
+            throw new UnsupportedException();
+        }
+    }
+
+    /* Branch from split to the iteration that follows it or past the end of the quantifier */
+    private void setBranches(int split, boolean greedy) {
+        if (greedy) {
+            args[split] = split + 1;
+            args2[split] = length;
+        } else {
+            args[split] = length;
+            args2[split] = split + 1;
+        }
+    }
+
+    /** The threads waiting at one position of the input, in order of priority. */
+    private static final class Queue {
+        final int[] pcs;
+        final int[] slots;
+        int size;
+
+        // Sparse set of the instructions that threads have reached at this position
+        final int[] dense;
+        final int[] sparse;
+        int visited;
+
+        Queue(RENfa nfa) {
+            pcs = new int[nfa.threadCount];
+            slots = new int[nfa.threadCount * nfa.slotCount];
+            dense = new int[nfa.length];
+            sparse = new int[nfa.length];
+        }
+
+        boolean visit(int pc) {
+            int i = sparse[pc];
+            if (i < visited && dense[i] == pc) {
+                return false;
+            }
+            sparse[pc] = visited;
+            dense[visited++] = pc;
+            return true;
+        }
+
+        void clear() {
+            size = 0;
+            visited = 0;
+        }
+    }
+
+    /**
+     * Find the first match starting at or after start, like the backtracking matcher, and store
+     * its end, start and captures in gData.
+     */
+    boolean match(Context cx, REGlobalData gData, String input, int start, int end) {
+        boolean anchored =
+                (regexp.flags & JSREG_STICKY) != 0
+                        || (regexp.anchorCodePoint == ANCHOR_BOL && !gData.multiline);
+        int anchorChar = regexp.anchorCodePoint >= 0 ? regexp.anchorCodePoint : -1;
+        boolean fold = (regexp.flags & JSREG_FOLD) != 0;
+        boolean instructionCounting = cx.getInstructionObserverThreshold() != 0;
+
+        Queue current = new Queue(this);
+        Queue next = new Queue(this);
+        int[] slots = new int[slotCount];
+        int[] stack = new int[stackSize];
+        int[] found = new int[slotCount];
+        int matchEnd = -1;
+
+        for (int p = start; p <= end; p++) {
+            if (matchEnd < 0 && (p == start || !anchored)) {
+                if (current.size == 0 && anchorChar >= 0) {
+                    // No thread is running, so skip to where the first character matches
+                    while (p < end && !sameChar(anchorChar, input.charAt(p), fold)) {
+                        if (anchored) {
+                            return false;
+                        }
+                        p++;
+                    }
+                    if (p == end) {
+                        return false;
+                    }
+                }
+                Arrays.fill(slots, -1);
+                slots[0] = p;
+                follow(gData, current, 0, p, slots, stack, input, end);
+            }
+            if (current.size == 0) {
+                if (matchEnd >= 0 || anchored) {
+                    break;
+                }
+                // Forget the instructions the failed seed visited at this position
+                current.clear();
+                continue;
+            }
+            if (instructionCounting) {
+                ScriptRuntime.addInstructionCount(cx, current.size);
+            }
+
+            next.clear();
+            for (int i = 0; i < current.size; i++) {
+                int pc = current.pcs[i];
+                if (ops[pc] == MATCH) {
+                    // Threads after this one have lower priority, drop them
+                    System.arraycopy(current.slots, i * slotCount, found, 0, slotCount);
+                    matchEnd = p;
+                    break;
+                }
+                if (p < end && step(gData, pc, input.charAt(p))) {
+                    System.arraycopy(current.slots, i * slotCount, slots, 0, slotCount);
+                    follow(gData, next, pc + 1, p + 1, slots, stack, input, end);
+                }
+            }
+            Queue q = current;
+            current = next;
+            next = q;
+        }
+
+        if (matchEnd < 0) {
+            return false;
+        }
+        gData.cp = matchEnd;
+        gData.skipped = found[0] - start;
+        for (int i = 0; i < regexp.parenCount; i++) {
+            int from = found[1 + 2 * i];
+            int to = found[2 + 2 * i];
+            gData.parens[i] =
+                    from < 0 || to < 0 ? -1L : (from & 0xffffffffL) | ((long) (to - from) << 32);
+        }
+        return true;
+    }
+
+    private static boolean sameChar(int c, char inputChar, boolean fold) {
+        return c == inputChar || (fold && upcase((char) c) == upcase(inputChar));
+    }
+
+    /* Whether the instruction at pc, which consumes a character, accepts c */
+    private boolean step(REGlobalData gData, int pc, char c) {
+        switch (ops[pc]) {
+            case CHAR:
+                return c == args[pc];
+            case CHAR_I:
+                return sameChar(args[pc], c, true);
+            case ANY:
+                return !isLineTerm(c);
+            case ANY_ALL:
+                return true;
+            case DIGIT:
+                return isDigit(c);
+            case NONDIGIT:
+                return !isDigit(c);
+            case ALNUM:
+                return isWord(c);
+            case NONALNUM:
+                return !isWord(c);
+            case SPACE:
+                return isREWhiteSpace(c);
+            case NONSPACE:
+                return !isREWhiteSpace(c);
+            case CLASS:
+                return classMatcher(gData, regexp.classList[args[pc]], c);
+            default:
+                throw Kit.codeBug();
+        }
+    }
+
+    /**
+     * Add to q a thread at pc and position p with the given capture slots, following the
+     * instructions that consume nothing until every thread waits on a character or a match.
+     * Threads are added depth first, preferring the first branch of each split, so q stays in
+     * order of priority. The slots are restored before returning.
+     */
+    private void follow(
+            REGlobalData gData,
+            Queue q,
+            int pc0,
+            int p,
+            int[] slots,
+            int[] stack,
+            String input,
+            int end) {
+        int sp = 0;
+        stack[sp++] = pc0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int value = stack[--sp];
+            int pc = stack[--sp];
+            if (pc < 0) {
+                // Restore a slot changed on the path that just ended
+                slots[-pc - 1] = value;
+                continue;
+            }
+            thread:
+            while (q.visit(pc)) {
+                switch (ops[pc]) {
+                    case JUMP:
+                        pc = args[pc];
+                        continue;
+                    case SPLIT:
+                        stack[sp++] = args2[pc];
+                        stack[sp++] = 0;
+                        pc = args[pc];
+                        continue;
+                    case SAVE:
+                        stack[sp++] = -args[pc] - 1;
+                        stack[sp++] = slots[args[pc]];
+                        slots[args[pc]] = p;
+                        pc++;
+                        continue;
+                    case RESET:
+                        for (int s = args[pc], n = s + args2[pc]; s < n; s++) {
+                            stack[sp++] = -s - 1;
+                            stack[sp++] = slots[s];
+                            slots[s] = -1;
+                        }
+                        pc++;
+                        continue;
+                    case BOL:
+                        if (p != 0 && !(gData.multiline && isLineTerm(input.charAt(p - 1)))) {
+                            break thread;
+                        }
+                        pc++;
+                        continue;
+                    case EOL:
+                        if (p != end && !(gData.multiline && isLineTerm(input.charAt(p)))) {
+                            break thread;
+                        }
+                        pc++;
+                        continue;
+                    case WBDRY:
+                    case WNONBDRY:
+                        {
+                            boolean before = p != 0 && isWord(input.charAt(p - 1));
+                            boolean after = p < end && isWord(input.charAt(p));
+                            if ((before != after) != (ops[pc] == WBDRY)) {
+                                break thread;
+                            }
+                        }
+                        pc++;
+                        continue;
+                    default:
+                        q.pcs[q.size] = pc;
+                        System.arraycopy(slots, 0, q.slots, q.size * slotCount, slotCount);
+                        q.size++;
+                        break thread;
+                }
+            }
+        }
+    }
+}
@@ -6,7 +6,140 @@
 
 package org.mozilla.javascript.typedarrays;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads and writes primitive values at byte offsets in a byte array or a {@link ByteBuffer}. Values
+ * wider than a byte are assembled from single bytes, or, where the platform has {@link VarHandle},
+ * accessed through byte array and byte buffer views, which the JIT compiles to single loads and
+ * stores. The offsets of ByteBuffer accesses are absolute, so the position and limit of the buffer
+ * are ignored, as is its byte order.
+ */
 public class ByteIo {
+
+    /** Whether {@link Views} can be used. Android only has VarHandle from API level 33. */
+    private static final boolean HAS_VIEWS = hasVarHandle();
+
+    private static boolean hasVarHandle() {
+        try {
+            Class.forName("java.lang.invoke.VarHandle");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("AndroidJdkLibsChecker")
+    // https://developer.android.com/reference/java/lang/invoke/VarHandle added in API level 33
+    private static final class Views {
+        static final VarHandle SHORT_LE = arrayView(short[].class, ByteOrder.LITTLE_ENDIAN);
+        static final VarHandle SHORT_BE = arrayView(short[].class, ByteOrder.BIG_ENDIAN);
+        static final VarHandle INT_LE = arrayView(int[].class, ByteOrder.LITTLE_ENDIAN);
+        static final VarHandle INT_BE = arrayView(int[].class, ByteOrder.BIG_ENDIAN);
+        static final VarHandle LONG_LE = arrayView(long[].class, ByteOrder.LITTLE_ENDIAN);
+        static final VarHandle LONG_BE = arrayView(long[].class, ByteOrder.BIG_ENDIAN);
+
+        static final VarHandle BUF_SHORT_LE = bufferView(short[].class, ByteOrder.LITTLE_ENDIAN);
+        static final VarHandle BUF_SHORT_BE = bufferView(short[].class, ByteOrder.BIG_ENDIAN);
+        static final VarHandle BUF_INT_LE = bufferView(int[].class, ByteOrder.LITTLE_ENDIAN);
+        static final VarHandle BUF_INT_BE = bufferView(int[].class, ByteOrder.BIG_ENDIAN);
+        static final VarHandle BUF_LONG_LE = bufferView(long[].class, ByteOrder.LITTLE_ENDIAN);
+        static final VarHandle BUF_LONG_BE = bufferView(long[].class, ByteOrder.BIG_ENDIAN);
+
+        private static VarHandle arrayView(Class<?> type, ByteOrder order) {
+            return MethodHandles.byteArrayViewVarHandle(type, order);
+        }
+
+        private static VarHandle bufferView(Class<?> type, ByteOrder order) {
+            return MethodHandles.byteBufferViewVarHandle(type, order);
+        }
+
+        static short getShort(byte[] buf, int offset, boolean littleEndian) {
+            return littleEndian
+                    ? (short) SHORT_LE.get(buf, offset)
+                    : (short) SHORT_BE.get(buf, offset);
+        }
+
+        static void setShort(byte[] buf, int offset, short val, boolean littleEndian) {
+            if (littleEndian) {
+                SHORT_LE.set(buf, offset, val);
+            } else {
+                SHORT_BE.set(buf, offset, val);
+            }
+        }
+
+        static int getInt(byte[] buf, int offset, boolean littleEndian) {
+            return littleEndian ? (int) INT_LE.get(buf, offset) : (int) INT_BE.get(buf, offset);
+        }
+
+        static void setInt(byte[] buf, int offset, int val, boolean littleEndian) {
+            if (littleEndian) {
+                INT_LE.set(buf, offset, val);
+            } else {
+                INT_BE.set(buf, offset, val);
+            }
+        }
+
+        static long getLong(byte[] buf, int offset, boolean littleEndian) {
+            return littleEndian
+                    ? (long) LONG_LE.get(buf, offset)
+                    : (long) LONG_BE.get(buf, offset);
+        }
+
+        static void setLong(byte[] buf, int offset, long val, boolean littleEndian) {
+            if (littleEndian) {
+                LONG_LE.set(buf, offset, val);
+            } else {
+                LONG_BE.set(buf, offset, val);
+            }
+        }
+
+        static short getShort(ByteBuffer buf, int offset, boolean littleEndian) {
+            return littleEndian
+                    ? (short) BUF_SHORT_LE.get(buf, offset)
+                    : (short) BUF_SHORT_BE.get(buf, offset);
+        }
+
+        static void setShort(ByteBuffer buf, int offset, short val, boolean littleEndian) {
+            if (littleEndian) {
+                BUF_SHORT_LE.set(buf, offset, val);
+            } else {
+                BUF_SHORT_BE.set(buf, offset, val);
+            }
+        }
+
+        static int getInt(ByteBuffer buf, int offset, boolean littleEndian) {
+            return littleEndian
+                    ? (int) BUF_INT_LE.get(buf, offset)
+                    : (int) BUF_INT_BE.get(buf, offset);
+        }
+
+        static void setInt(ByteBuffer buf, int offset, int val, boolean littleEndian) {
+            if (littleEndian) {
+                BUF_INT_LE.set(buf, offset, val);
+            } else {
+                BUF_INT_BE.set(buf, offset, val);
+            }
+        }
+
+        static long getLong(ByteBuffer buf, int offset, boolean littleEndian) {
+            return littleEndian
+                    ? (long) BUF_LONG_LE.get(buf, offset)
+                    : (long) BUF_LONG_BE.get(buf, offset);
+        }
+
+        static void setLong(ByteBuffer buf, int offset, long val, boolean littleEndian) {
+            if (littleEndian) {
+                BUF_LONG_LE.set(buf, offset, val);
+            } else {
+                BUF_LONG_BE.set(buf, offset, val);
+            }
+        }
+    }
+
     public static Byte readInt8(byte[] buf, int offset) {
         return Byte.valueOf(buf[offset]);
     }
@@ -24,6 +157,9 @@ public class ByteIo {
     }
 
     private static short doReadInt16(byte[] buf, int offset, boolean littleEndian) {
+        if (HAS_VIEWS) {
+            return Views.getShort(buf, offset, littleEndian);
+        }
         // Need to coalesce to short here so that we stay in range
         if (littleEndian) {
             return (short) ((buf[offset] & 0xff) | ((buf[offset + 1] & 0xff) << 8));
@@ -32,7 +168,9 @@ public class ByteIo {
     }
 
     private static void doWriteInt16(byte[] buf, int offset, int val, boolean littleEndian) {
-        if (littleEndian) {
+        if (HAS_VIEWS) {
+            Views.setShort(buf, offset, (short) val, littleEndian);
+        } else if (littleEndian) {
             buf[offset] = (byte) (val & 0xff);
             buf[offset + 1] = (byte) ((val >>> 8) & 0xff);
         } else {
@@ -57,23 +195,30 @@ public class ByteIo {
         doWriteInt16(buf, offset, val & 0xffff, littleEndian);
     }
 
-    public static Integer readInt32(byte[] buf, int offset, boolean littleEndian) {
+    private static int doReadInt32(byte[] buf, int offset, boolean littleEndian) {
+        if (HAS_VIEWS) {
+            return Views.getInt(buf, offset, littleEndian);
+        }
         if (littleEndian) {
-            return Integer.valueOf(
-                    (buf[offset] & 0xff)
-                            | ((buf[offset + 1] & 0xff) << 8)
-                            | ((buf[offset + 2] & 0xff) << 16)
-                            | ((buf[offset + 3] & 0xff) << 24));
+            return (buf[offset] & 0xff)
+                    | ((buf[offset + 1] & 0xff) << 8)
+                    | ((buf[offset + 2] & 0xff) << 16)
+                    | ((buf[offset + 3] & 0xff) << 24);
         }
-        return Integer.valueOf(
-                ((buf[offset] & 0xff) << 24)
-                        | ((buf[offset + 1] & 0xff) << 16)
-                        | ((buf[offset + 2] & 0xff) << 8)
-                        | (buf[offset + 3] & 0xff));
+        return ((buf[offset] & 0xff) << 24)
+                | ((buf[offset + 1] & 0xff) << 16)
+                | ((buf[offset + 2] & 0xff) << 8)
+                | (buf[offset + 3] & 0xff);
+    }
+
+    public static Integer readInt32(byte[] buf, int offset, boolean littleEndian) {
+        return Integer.valueOf(doReadInt32(buf, offset, littleEndian));
     }
 
     public static void writeInt32(byte[] buf, int offset, int val, boolean littleEndian) {
-        if (littleEndian) {
+        if (HAS_VIEWS) {
+            Views.setInt(buf, offset, val, littleEndian);
+        } else if (littleEndian) {
             buf[offset] = (byte) (val & 0xff);
             buf[offset + 1] = (byte) ((val >>> 8) & 0xff);
             buf[offset + 2] = (byte) ((val >>> 16) & 0xff);
@@ -87,32 +232,11 @@ public class ByteIo {
     }
 
     public static long readUint32Primitive(byte[] buf, int offset, boolean littleEndian) {
-        if (littleEndian) {
-            return ((buf[offset] & 0xffL)
-                            | ((buf[offset + 1] & 0xffL) << 8L)
-                            | ((buf[offset + 2] & 0xffL) << 16L)
-                            | ((buf[offset + 3] & 0xffL) << 24L))
-                    & 0xffffffffL;
-        }
-        return (((buf[offset] & 0xffL) << 24L)
-                        | ((buf[offset + 1] & 0xffL) << 16L)
-                        | ((buf[offset + 2] & 0xffL) << 8L)
-                        | (buf[offset + 3] & 0xffL))
-                & 0xffffffffL;
+        return doReadInt32(buf, offset, littleEndian) & 0xffffffffL;
     }
 
     public static void writeUint32(byte[] buf, int offset, long val, boolean littleEndian) {
-        if (littleEndian) {
-            buf[offset] = (byte) (val & 0xffL);
-            buf[offset + 1] = (byte) ((val >>> 8L) & 0xffL);
-            buf[offset + 2] = (byte) ((val >>> 16L) & 0xffL);
-            buf[offset + 3] = (byte) ((val >>> 24L) & 0xffL);
-        } else {
-            buf[offset] = (byte) ((val >>> 24L) & 0xffL);
-            buf[offset + 1] = (byte) ((val >>> 16L) & 0xffL);
-            buf[offset + 2] = (byte) ((val >>> 8L) & 0xffL);
-            buf[offset + 3] = (byte) (val & 0xffL);
-        }
+        writeInt32(buf, offset, (int) val, littleEndian);
     }
 
     public static Object readUint32(byte[] buf, int offset, boolean littleEndian) {
@@ -120,6 +244,9 @@ public class ByteIo {
     }
 
     public static long readUint64Primitive(byte[] buf, int offset, boolean littleEndian) {
+        if (HAS_VIEWS) {
+            return Views.getLong(buf, offset, littleEndian);
+        }
         if (littleEndian) {
             return ((buf[offset] & 0xffL)
                     | ((buf[offset + 1] & 0xffL) << 8L)
@@ -141,7 +268,9 @@ public class ByteIo {
     }
 
     public static void writeUint64(byte[] buf, int offset, long val, boolean littleEndian) {
-        if (littleEndian) {
+        if (HAS_VIEWS) {
+            Views.setLong(buf, offset, val, littleEndian);
+        } else if (littleEndian) {
             buf[offset] = (byte) (val & 0xffL);
             buf[offset + 1] = (byte) ((val >>> 8L) & 0xffL);
             buf[offset + 2] = (byte) ((val >>> 16L) & 0xffL);
@@ -163,13 +292,11 @@ public class ByteIo {
     }
 
     public static Float readFloat32(byte[] buf, int offset, boolean littleEndian) {
-        long base = readUint32Primitive(buf, offset, littleEndian);
-        return Float.valueOf(Float.intBitsToFloat((int) base));
+        return Float.valueOf(Float.intBitsToFloat(doReadInt32(buf, offset, littleEndian)));
     }
 
     public static void writeFloat32(byte[] buf, int offset, double val, boolean littleEndian) {
-        long base = Float.floatToIntBits((float) val);
-        writeUint32(buf, offset, base, littleEndian);
+        writeInt32(buf, offset, Float.floatToIntBits((float) val), littleEndian);
     }
 
     public static Double readFloat64(byte[] buf, int offset, boolean littleEndian) {
@@ -181,4 +308,134 @@ public class ByteIo {
         long base = Double.doubleToLongBits(val);
         writeUint64(buf, offset, base, littleEndian);
     }
+
+    /** Read "size" bytes from "buf" as an unsigned number, without a view. */
+    private static long readBytes(ByteBuffer buf, int offset, int size, boolean littleEndian) {
+        long val = 0;
+        for (int i = 0; i < size; i++) {
+            int index = littleEndian ? offset + size - 1 - i : offset + i;
+            val = (val << 8) | (buf.get(index) & 0xffL);
+        }
+        return val;
+    }
+
+    /** Write the low "size" bytes of "val" to "buf", without a view. */
+    private static void writeBytes(
+            ByteBuffer buf, int offset, int size, long val, boolean littleEndian) {
+        for (int i = 0; i < size; i++) {
+            int index = littleEndian ? offset + i : offset + size - 1 - i;
+            buf.put(index, (byte) (val >>> (i * 8)));
+        }
+    }
+
+    public static Byte readInt8(ByteBuffer buf, int offset) {
+        return Byte.valueOf(buf.get(offset));
+    }
+
+    public static void writeInt8(ByteBuffer buf, int offset, int val) {
+        buf.put(offset, (byte) val);
+    }
+
+    public static Integer readUint8(ByteBuffer buf, int offset) {
+        return Integer.valueOf(buf.get(offset) & 0xff);
+    }
+
+    public static void writeUint8(ByteBuffer buf, int offset, int val) {
+        buf.put(offset, (byte) (val & 0xff));
+    }
+
+    private static short doReadInt16(ByteBuffer buf, int offset, boolean littleEndian) {
+        if (HAS_VIEWS) {
+            return Views.getShort(buf, offset, littleEndian);
+        }
+        return (short) readBytes(buf, offset, 2, littleEndian);
+    }
+
+    private static void doWriteInt16(ByteBuffer buf, int offset, int val, boolean littleEndian) {
+        if (HAS_VIEWS) {
+            Views.setShort(buf, offset, (short) val, littleEndian);
+        } else {
+            writeBytes(buf, offset, 2, val, littleEndian);
+        }
+    }
+
+    public static Short readInt16(ByteBuffer buf, int offset, boolean littleEndian) {
+        return Short.valueOf(doReadInt16(buf, offset, littleEndian));
+    }
+
+    public static void writeInt16(ByteBuffer buf, int offset, int val, boolean littleEndian) {
+        doWriteInt16(buf, offset, val, littleEndian);
+    }
+
+    public static Integer readUint16(ByteBuffer buf, int offset, boolean littleEndian) {
+        return Integer.valueOf(doReadInt16(buf, offset, littleEndian) & 0xffff);
+    }
+
+    public static void writeUint16(ByteBuffer buf, int offset, int val, boolean littleEndian) {
+        doWriteInt16(buf, offset, val & 0xffff, littleEndian);
+    }
+
+    private static int doReadInt32(ByteBuffer buf, int offset, boolean littleEndian) {
+        if (HAS_VIEWS) {
+            return Views.getInt(buf, offset, littleEndian);
+        }
+        return (int) readBytes(buf, offset, 4, littleEndian);
+    }
+
+    public static Integer readInt32(ByteBuffer buf, int offset, boolean littleEndian) {
+        return Integer.valueOf(doReadInt32(buf, offset, littleEndian));
+    }
+
+    public static void writeInt32(ByteBuffer buf, int offset, int val, boolean littleEndian) {
+        if (HAS_VIEWS) {
+            Views.setInt(buf, offset, val, littleEndian);
+        } else {
+            writeBytes(buf, offset, 4, val, littleEndian);
+        }
+    }
+
+    public static long readUint32Primitive(ByteBuffer buf, int offset, boolean littleEndian) {
+        return doReadInt32(buf, offset, littleEndian) & 0xffffffffL;
+    }
+
+    public static void writeUint32(ByteBuffer buf, int offset, long val, boolean littleEndian) {
+        writeInt32(buf, offset, (int) val, littleEndian);
+    }
+
+    public static Object readUint32(ByteBuffer buf, int offset, boolean littleEndian) {
+        return Long.valueOf(readUint32Primitive(buf, offset, littleEndian));
+    }
+
+    public static long readUint64Primitive(ByteBuffer buf, int offset, boolean littleEndian) {
+        if (HAS_VIEWS) {
+            return Views.getLong(buf, offset, littleEndian);
+        }
+        return readBytes(buf, offset, 8, littleEndian);
+    }
+
+    public static void writeUint64(ByteBuffer buf, int offset, long val, boolean littleEndian) {
+        if (HAS_VIEWS) {
+            Views.setLong(buf, offset, val, littleEndian);
+        } else {
+            writeBytes(buf, offset, 8, val, littleEndian);
+        }
+    }
+
+    public static Float readFloat32(ByteBuffer buf, int offset, boolean littleEndian) {
+        return Float.valueOf(Float.intBitsToFloat(doReadInt32(buf, offset, littleEndian)));
+    }
+
+    public static void writeFloat32(ByteBuffer buf, int offset, double val, boolean littleEndian) {
+        writeInt32(buf, offset, Float.floatToIntBits((float) val), littleEndian);
+    }
+
+    public static Double readFloat64(ByteBuffer buf, int offset, boolean littleEndian) {
+        long base = readUint64Primitive(buf, offset, littleEndian);
+        return Double.valueOf(Double.longBitsToDouble(base));
+    }
+
+    public static void writeFloat64(ByteBuffer buf, int offset, double val, boolean littleEndian) {
+        long base = Double.doubleToLongBits(val);
+        writeUint64(buf, offset, base, littleEndian);
+    }
 }
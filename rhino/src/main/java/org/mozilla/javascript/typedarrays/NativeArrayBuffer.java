@@ -6,6 +6,10 @@
 
 package org.mozilla.javascript.typedarrays;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import org.mozilla.javascript.AbstractEcmaObjectOperations;
 import org.mozilla.javascript.Constructable;
 import org.mozilla.javascript.Context;
@@ -19,7 +23,9 @@ import org.mozilla.javascript.Undefined;
 
 /**
  * A NativeArrayBuffer is the backing buffer for a typed array. Used inside JavaScript code, it
- * implements the ArrayBuffer interface. Used directly from Java, it simply holds a byte array.
+ * implements the ArrayBuffer interface. Used directly from Java, it simply holds a byte array, or
+ * wraps a {@link ByteBuffer} that was passed to {@link #wrap}. A wrapped buffer may be direct or
+ * memory-mapped, so scripts can read large amounts of binary data without copying it.
  */
 public class NativeArrayBuffer extends ScriptableObject {
     private static final long serialVersionUID = 3110411773054879549L;
@@ -28,8 +34,15 @@ public class NativeArrayBuffer extends ScriptableObject {
 
     private static final byte[] EMPTY_BUF = new byte[0];
 
+    /** The bytes of the buffer, or null if it is detached or wraps a buffer without an array. */
     byte[] buffer;
 
+    /**
+     * A view of the bytes of the buffer that starts at index 0. All element access by views goes
+     * through this, whether or not the bytes are in an array. Null if the buffer is detached.
+     */
+    transient ByteBuffer data;
+
     @Override
     public String getClassName() {
         return CLASS_NAME;
@@ -64,7 +77,7 @@ public class NativeArrayBuffer extends ScriptableObject {
 
     /** Create an empty buffer. */
     public NativeArrayBuffer() {
-        buffer = EMPTY_BUF;
+        setBytes(EMPTY_BUF);
     }
 
     /** Create a buffer of the specified length in bytes. */
@@ -86,31 +99,96 @@ public class NativeArrayBuffer extends ScriptableObject {
             throw ScriptRuntime.rangeError("Negative array length " + len);
         }
         if (intLen == 0) {
-            buffer = EMPTY_BUF;
+            setBytes(EMPTY_BUF);
         } else {
-            buffer = new byte[intLen];
+            setBytes(new byte[intLen]);
+        }
+    }
+
+    /**
+     * Create a buffer that holds the remaining bytes of a ByteBuffer, from its position to its
+     * limit, without copying them. Changes made by scripts are visible in the ByteBuffer and the
+     * other way around. The position, limit and byte order of the ByteBuffer are not used
+     * afterwards. If the ByteBuffer is read-only, writing to the buffer from a typed array or a
+     * DataView throws a {@link java.nio.ReadOnlyBufferException}.
+     *
+     * @param bytes the bytes to wrap, which may be a heap, direct or memory-mapped buffer
+     * @since 1.9.1
+     */
+    public NativeArrayBuffer(ByteBuffer bytes) {
+        data = bytes.slice();
+        if (data.hasArray()
+                && data.arrayOffset() == 0
+                && data.capacity() == data.array().length) {
+            buffer = data.array();
         }
     }
 
+    /**
+     * Create a buffer that wraps a ByteBuffer as described in {@link
+     * #NativeArrayBuffer(ByteBuffer)}, with the prototype and parent scope of an ArrayBuffer that
+     * was created by a script in "scope".
+     *
+     * @since 1.9.1
+     */
+    public static NativeArrayBuffer wrap(Scriptable scope, ByteBuffer bytes) {
+        NativeArrayBuffer buf = new NativeArrayBuffer(bytes);
+        ScriptRuntime.setBuiltinProtoAndParent(buf, scope, TopLevel.Builtins.ArrayBuffer);
+        return buf;
+    }
+
+    private void setBytes(byte[] bytes) {
+        buffer = bytes;
+        data = ByteBuffer.wrap(bytes);
+    }
+
     /** Get the number of bytes in the buffer. */
     public int getLength() {
-        return buffer != null ? buffer.length : 0;
+        return data != null ? data.capacity() : 0;
     }
 
     /**
      * Return the actual bytes that back the buffer. This is a reference to the real buffer, so
-     * changes to bytes here will be reflected in the actual object and all its views.
+     * changes to bytes here will be reflected in the actual object and all its views. Returns null
+     * if the buffer wraps a ByteBuffer that is not backed by a whole array; use {@link
+     * #getByteBuffer} in that case.
      */
     public byte[] getBuffer() {
         return buffer;
     }
 
+    /**
+     * Return a ByteBuffer that shares the bytes of this buffer, whether or not they are held in an
+     * array. Its position is zero and its limit is the length of the buffer. Returns null if the
+     * buffer is detached.
+     *
+     * @since 1.9.1
+     */
+    public ByteBuffer getByteBuffer() {
+        return data != null ? data.duplicate() : null;
+    }
+
     public void detach() {
         buffer = null;
+        data = null;
     }
 
     public boolean isDetached() {
-        return buffer == null;
+        return data == null;
+    }
+
+    /** Copy "len" bytes between two buffers, using an array copy if both of them have arrays. */
+    static void copy(
+            NativeArrayBuffer from, int fromIndex, NativeArrayBuffer to, int toIndex, int len) {
+        if (from.buffer != null && to.buffer != null) {
+            System.arraycopy(from.buffer, fromIndex, to.buffer, toIndex, len);
+            return;
+        }
+        ByteBuffer src = from.data.duplicate();
+        src.position(fromIndex).limit(fromIndex + len);
+        ByteBuffer dst = to.data.duplicate();
+        dst.position(toIndex);
+        dst.put(src);
     }
 
     /**
@@ -134,7 +212,7 @@ public class NativeArrayBuffer extends ScriptableObject {
         int len = end - start;
 
         NativeArrayBuffer newBuf = new NativeArrayBuffer(len);
-        System.arraycopy(buffer, start, newBuf.buffer, 0, len);
+        copy(this, start, newBuf, 0, len);
         return newBuf;
     }
 
@@ -198,7 +276,7 @@ public class NativeArrayBuffer extends ScriptableObject {
             throw ScriptRuntime.typeErrorById("msg.arraybuf.smaller.len", len, actualLength);
         }
 
-        System.arraycopy(self.buffer, startI, buf.buffer, 0, len);
+        copy(self, startI, buf, 0, len);
         return buf;
     }
 
@@ -248,7 +326,7 @@ public class NativeArrayBuffer extends ScriptableObject {
 
         // 8-11. Copy data from old buffer to new buffer
         if (copyLength > 0) {
-            System.arraycopy(self.buffer, 0, newBuffer.buffer, 0, copyLength);
+            copy(self, 0, newBuffer, 0, copyLength);
         }
 
         // 12. Perform ! DetachArrayBuffer(O)
@@ -309,7 +387,7 @@ public class NativeArrayBuffer extends ScriptableObject {
         //     ArrayBuffer are observable. Implementations may implement this method
         //     as a zero-copy move or a realloc
         if (copyLength > 0) {
-            System.arraycopy(self.buffer, 0, newBuffer.buffer, 0, copyLength);
+            copy(self, 0, newBuffer, 0, copyLength);
         }
 
         // 16. Perform ! DetachArrayBuffer(O)
@@ -352,4 +430,23 @@ public class NativeArrayBuffer extends ScriptableObject {
 
         return (int) newLength;
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // A wrapped ByteBuffer is written as an array, so it is read back as an ordinary buffer
+        byte[] bytes = buffer;
+        if (bytes == null && data != null) {
+            bytes = new byte[data.capacity()];
+            data.duplicate().get(bytes);
+        }
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("buffer", bytes);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (buffer != null) {
+            data = ByteBuffer.wrap(buffer);
+        }
+    }
 }
@@ -85,7 +85,7 @@ public class NativeBigInt64Array extends NativeBigIntArrayView {
         }
         long base =
                 ByteIo.readUint64Primitive(
-                        arrayBuffer.buffer,
+                        arrayBuffer.data,
                         (index * BYTES_PER_ELEMENT) + offset,
                         useLittleEndian());
         return BigInteger.valueOf(base);
@@ -101,7 +101,7 @@ public class NativeBigInt64Array extends NativeBigIntArrayView {
         long base = val.longValue();
 
         ByteIo.writeUint64(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, base, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, base, useLittleEndian());
         return null;
     }
 
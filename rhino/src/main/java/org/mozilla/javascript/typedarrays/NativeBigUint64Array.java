@@ -85,7 +85,7 @@ public class NativeBigUint64Array extends NativeBigIntArrayView {
         }
         long base =
                 ByteIo.readUint64Primitive(
-                        arrayBuffer.buffer,
+                        arrayBuffer.data,
                         (index * BYTES_PER_ELEMENT) + offset,
                         useLittleEndian());
         if ((base & 0x8000000000000000l) == 0) {
@@ -108,7 +108,7 @@ public class NativeBigUint64Array extends NativeBigIntArrayView {
         long base = val.longValue();
 
         ByteIo.writeUint64(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, base, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, base, useLittleEndian());
         return null;
     }
 
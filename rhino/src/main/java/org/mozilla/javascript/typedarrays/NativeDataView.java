@@ -201,20 +201,20 @@ public class NativeDataView extends NativeArrayBufferView {
         switch (bytes) {
             case 1:
                 if (signed) {
-                    return ByteIo.readInt8(arrayBuffer.buffer, offset + pos);
+                    return ByteIo.readInt8(arrayBuffer.data, offset + pos);
                 } else {
-                    return ByteIo.readUint8(arrayBuffer.buffer, offset + pos);
+                    return ByteIo.readUint8(arrayBuffer.data, offset + pos);
                 }
             case 2:
                 if (signed) {
-                    return ByteIo.readInt16(arrayBuffer.buffer, offset + pos, littleEndian);
+                    return ByteIo.readInt16(arrayBuffer.data, offset + pos, littleEndian);
                 } else {
-                    return ByteIo.readUint16(arrayBuffer.buffer, offset + pos, littleEndian);
+                    return ByteIo.readUint16(arrayBuffer.data, offset + pos, littleEndian);
                 }
             case 4:
                 return signed
-                        ? ByteIo.readInt32(arrayBuffer.buffer, offset + pos, littleEndian)
-                        : ByteIo.readUint32(arrayBuffer.buffer, offset + pos, littleEndian);
+                        ? ByteIo.readInt32(arrayBuffer.data, offset + pos, littleEndian)
+                        : ByteIo.readUint32(arrayBuffer.data, offset + pos, littleEndian);
             default:
                 throw new AssertionError();
         }
@@ -248,9 +248,9 @@ public class NativeDataView extends NativeArrayBufferView {
 
         switch (bytes) {
             case 4:
-                return ByteIo.readFloat32(arrayBuffer.buffer, offset + pos, littleEndian);
+                return ByteIo.readFloat32(arrayBuffer.data, offset + pos, littleEndian);
             case 8:
-                return ByteIo.readFloat64(arrayBuffer.buffer, offset + pos, littleEndian);
+                return ByteIo.readFloat64(arrayBuffer.data, offset + pos, littleEndian);
             default:
                 throw new AssertionError();
         }
@@ -321,13 +321,13 @@ public class NativeDataView extends NativeArrayBufferView {
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeErrorById("msg.dataview.offset.range");
                     }
-                    ByteIo.writeInt8(arrayBuffer.buffer, offset + pos, value);
+                    ByteIo.writeInt8(arrayBuffer.data, offset + pos, value);
                 } else {
                     int value = Conversions.toUint8(val);
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeErrorById("msg.dataview.offset.range");
                     }
-                    ByteIo.writeUint8(arrayBuffer.buffer, offset + pos, value);
+                    ByteIo.writeUint8(arrayBuffer.data, offset + pos, value);
                 }
                 break;
             case 2:
@@ -336,13 +336,13 @@ public class NativeDataView extends NativeArrayBufferView {
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeErrorById("msg.dataview.offset.range");
                     }
-                    ByteIo.writeInt16(arrayBuffer.buffer, offset + pos, value, littleEndian);
+                    ByteIo.writeInt16(arrayBuffer.data, offset + pos, value, littleEndian);
                 } else {
                     int value = Conversions.toUint16(val);
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeErrorById("msg.dataview.offset.range");
                     }
-                    ByteIo.writeUint16(arrayBuffer.buffer, offset + pos, value, littleEndian);
+                    ByteIo.writeUint16(arrayBuffer.data, offset + pos, value, littleEndian);
                 }
                 break;
             case 4:
@@ -351,13 +351,13 @@ public class NativeDataView extends NativeArrayBufferView {
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeErrorById("msg.dataview.offset.range");
                     }
-                    ByteIo.writeInt32(arrayBuffer.buffer, offset + pos, value, littleEndian);
+                    ByteIo.writeInt32(arrayBuffer.data, offset + pos, value, littleEndian);
                 } else {
                     long value = Conversions.toUint32(val);
                     if (pos + bytes > byteLength) {
                         throw ScriptRuntime.rangeErrorById("msg.dataview.offset.range");
                     }
-                    ByteIo.writeUint32(arrayBuffer.buffer, offset + pos, value, littleEndian);
+                    ByteIo.writeUint32(arrayBuffer.data, offset + pos, value, littleEndian);
                 }
                 break;
             default:
@@ -397,10 +397,10 @@ public class NativeDataView extends NativeArrayBufferView {
 
         switch (bytes) {
             case 4:
-                ByteIo.writeFloat32(arrayBuffer.buffer, offset + pos, val, littleEndian);
+                ByteIo.writeFloat32(arrayBuffer.data, offset + pos, val, littleEndian);
                 break;
             case 8:
-                ByteIo.writeFloat64(arrayBuffer.buffer, offset + pos, val, littleEndian);
+                ByteIo.writeFloat64(arrayBuffer.data, offset + pos, val, littleEndian);
                 break;
             default:
                 throw new AssertionError();
@@ -83,7 +83,7 @@ public class NativeFloat32Array extends NativeTypedArrayView<Float> {
             return Undefined.instance;
         }
         return ByteIo.readFloat32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
     }
 
     @Override
@@ -93,7 +93,7 @@ public class NativeFloat32Array extends NativeTypedArrayView<Float> {
             return Undefined.instance;
         }
         ByteIo.writeFloat32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
         return null;
     }
 
@@ -84,7 +84,7 @@ public class NativeFloat64Array extends NativeTypedArrayView<Double> {
         }
         long base =
                 ByteIo.readUint64Primitive(
-                        arrayBuffer.buffer,
+                        arrayBuffer.data,
                         (index * BYTES_PER_ELEMENT) + offset,
                         useLittleEndian());
         return Double.valueOf(Double.longBitsToDouble(base));
@@ -98,7 +98,7 @@ public class NativeFloat64Array extends NativeTypedArrayView<Double> {
         }
         long base = Double.doubleToLongBits(val);
         ByteIo.writeUint64(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, base, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, base, useLittleEndian());
         return null;
     }
 
@@ -82,7 +82,7 @@ public class NativeInt16Array extends NativeTypedArrayView<Short> {
             return Undefined.instance;
         }
         return ByteIo.readInt16(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
     }
 
     @Override
@@ -92,7 +92,7 @@ public class NativeInt16Array extends NativeTypedArrayView<Short> {
             return Undefined.instance;
         }
         ByteIo.writeInt16(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
         return null;
     }
 
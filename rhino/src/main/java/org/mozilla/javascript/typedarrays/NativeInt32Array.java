@@ -83,7 +83,7 @@ public class NativeInt32Array extends NativeTypedArrayView<Integer> {
             return Undefined.instance;
         }
         return ByteIo.readInt32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
     }
 
     @Override
@@ -93,7 +93,7 @@ public class NativeInt32Array extends NativeTypedArrayView<Integer> {
             return Undefined.instance;
         }
         ByteIo.writeInt32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
         return null;
     }
 
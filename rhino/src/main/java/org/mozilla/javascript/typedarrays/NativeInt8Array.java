@@ -75,7 +75,7 @@ public class NativeInt8Array extends NativeTypedArrayView<Byte> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readInt8(arrayBuffer.buffer, index + offset);
+        return ByteIo.readInt8(arrayBuffer.data, index + offset);
     }
 
     @Override
@@ -84,7 +84,7 @@ public class NativeInt8Array extends NativeTypedArrayView<Byte> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        ByteIo.writeInt8(arrayBuffer.buffer, index + offset, val);
+        ByteIo.writeInt8(arrayBuffer.data, index + offset, val);
         return null;
     }
 
@@ -82,7 +82,7 @@ public class NativeUint16Array extends NativeTypedArrayView<Integer> {
             return Undefined.instance;
         }
         return ByteIo.readUint16(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
     }
 
     @Override
@@ -92,7 +92,7 @@ public class NativeUint16Array extends NativeTypedArrayView<Integer> {
             return Undefined.instance;
         }
         ByteIo.writeUint16(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
         return null;
     }
 
@@ -82,7 +82,7 @@ public class NativeUint32Array extends NativeTypedArrayView<Long> {
             return Undefined.instance;
         }
         return ByteIo.readUint32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, useLittleEndian());
     }
 
     @Override
@@ -92,7 +92,7 @@ public class NativeUint32Array extends NativeTypedArrayView<Long> {
             return Undefined.instance;
         }
         ByteIo.writeUint32(
-                arrayBuffer.buffer, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
+                arrayBuffer.data, (index * BYTES_PER_ELEMENT) + offset, val, useLittleEndian());
         return null;
     }
 
@@ -75,7 +75,7 @@ public class NativeUint8Array extends NativeTypedArrayView<Integer> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readUint8(arrayBuffer.buffer, index + offset);
+        return ByteIo.readUint8(arrayBuffer.data, index + offset);
     }
 
     @Override
@@ -84,7 +84,7 @@ public class NativeUint8Array extends NativeTypedArrayView<Integer> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        ByteIo.writeUint8(arrayBuffer.buffer, index + offset, val);
+        ByteIo.writeUint8(arrayBuffer.data, index + offset, val);
         return null;
     }
 
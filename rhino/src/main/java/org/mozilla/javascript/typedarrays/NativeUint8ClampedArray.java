@@ -77,7 +77,7 @@ public class NativeUint8ClampedArray extends NativeTypedArrayView<Integer> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        return ByteIo.readUint8(arrayBuffer.buffer, index + offset);
+        return ByteIo.readUint8(arrayBuffer.data, index + offset);
     }
 
     @Override
@@ -86,7 +86,7 @@ public class NativeUint8ClampedArray extends NativeTypedArrayView<Integer> {
         if (checkIndex(index)) {
             return Undefined.instance;
         }
-        ByteIo.writeUint8(arrayBuffer.buffer, index + offset, val);
+        ByteIo.writeUint8(arrayBuffer.data, index + offset, val);
         return null;
     }
 
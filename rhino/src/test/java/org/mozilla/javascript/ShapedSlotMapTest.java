@@ -0,0 +1,94 @@
+package org.mozilla.javascript;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.mozilla.javascript.testutils.Utils;
+
+class ShapedSlotMapTest {
+
+    @Test
+    public void objectLiteralsShareShape() {
+        Utils.runWithAllModes(
+                Utils.contextFactoryWithFeatures(Context.FEATURE_SHARED_SHAPES),
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    NativeArray result =
+                            (NativeArray)
+                                    cx.evaluateString(
+                                            scope,
+                                            "var a = [];"
+                                                    + "for (var i = 0; i < 3; i++) {"
+                                                    + "  a.push({x: i, y: 'y' + i});"
+                                                    + "}"
+                                                    + "a.push({y: 0, x: 0});"
+                                                    + "a",
+                                            "test",
+                                            1,
+                                            null);
+                    SlotShape first = shapeOf(result.get(0));
+                    assertEquals(2, first.size());
+                    assertSame(first, shapeOf(result.get(1)));
+                    assertSame(first, shapeOf(result.get(2)));
+                    // Same keys in a different order have a different layout
+                    assertNotSame(first, shapeOf(result.get(3)));
+                    Object x = ScriptableObject.getProperty((Scriptable) result.get(2), "x");
+                    assertEquals(2, ((Number) x).intValue());
+                    return null;
+                });
+    }
+
+    @Test
+    public void deleteFallsBackToEmbeddedMap() {
+        Utils.runWithAllModes(
+                Utils.contextFactoryWithFeatures(Context.FEATURE_SHARED_SHAPES),
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    Object result =
+                            cx.evaluateString(
+                                    scope,
+                                    "var o = {a: 1, b: 2, c: 3}; delete o.b; o.d = 4;"
+                                            + "Object.keys(o).join() + ':' + o.a + o.c + o.d",
+                                    "test",
+                                    1,
+                                    null);
+                    assertEquals("a,c,d:134", result);
+                    ScriptableObject o = (ScriptableObject) scope.get("o", scope);
+                    assertInstanceOf(EmbeddedSlotMap.class, o.getMap());
+                    return null;
+                });
+    }
+
+    @Test
+    public void attributeChangesKeepShape() {
+        Utils.runWithAllModes(
+                Utils.contextFactoryWithFeatures(Context.FEATURE_SHARED_SHAPES),
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    Object result =
+                            cx.evaluateString(
+                                    scope,
+                                    "var o = {a: 1, b: 2};"
+                                            + "Object.defineProperty(o, 'a', {writable: false});"
+                                            + "Object.defineProperty(o, 'b',"
+                                            + "  {get: function() { return 3; }});"
+                                            + "o.a = 5; o.a + o.b",
+                                    "test",
+                                    1,
+                                    null);
+                    assertEquals(4, ((Number) result).intValue());
+                    ScriptableObject o = (ScriptableObject) scope.get("o", scope);
+                    assertInstanceOf(ShapedSlotMap.class, o.getMap());
+                    return null;
+                });
+    }
+
+    private static SlotShape shapeOf(Object obj) {
+        SlotMap map = ((ScriptableObject) obj).getMap();
+        assertInstanceOf(ShapedSlotMap.class, map);
+        return ((ShapedSlotMap) map).getShape();
+    }
+}
@@ -55,6 +55,24 @@ class SlotMapPromotionTest {
                 ThreadSafeHashSlotMap.class);
     }
 
+    @Test
+    public void promotionFromShapedEmptyToShaped() {
+        assertPromotes(() -> SlotMapOwner.SHAPED_EMPTY_SLOT_MAP, ShapedSlotMap.class);
+    }
+
+    @Test
+    public void promotionFromShapedToEmbeddedOnIndex() {
+        ScriptableObject obj = new TestScriptableObject();
+        obj.setMap(new ShapedSlotMap());
+        obj.put("xxx", obj, "one property");
+        assertEquals(ShapedSlotMap.class, obj.getMap().getClass());
+
+        // Index keys are never part of a shape
+        obj.put(0, obj, "one index");
+        assertEquals(EmbeddedSlotMap.class, obj.getMap().getClass());
+        assertEquals("one property", obj.get("xxx", obj));
+    }
+
     private static void fillToCapacity(int size, EmbeddedSlotMap map) {
         for (int i = 0; i < size; ++i) {
             map.add(null, new Slot(Integer.toString(i), i, 0));
@@ -55,7 +55,9 @@ public class SlotMapTest {
                                 new SlotMapOwner.ThreadSafeSingleEntrySlotMap(
                                         new Slot(new Object(), 0, 0)),
                         () -> new ThreadSafeEmbeddedSlotMap(),
-                        () -> new ThreadSafeHashSlotMap());
+                        () -> new ThreadSafeHashSlotMap(),
+                        () -> SlotMapOwner.SHAPED_EMPTY_SLOT_MAP,
+                        () -> new ShapedSlotMap());
         return suppliers.stream().map(i -> new Object[] {i}).collect(Collectors.toList());
     }
 
@@ -1,6 +1,10 @@
 package org.mozilla.javascript;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 import org.mozilla.javascript.testutils.Utils;
@@ -20,4 +24,68 @@ public class ThreadSafeScriptableObjectTest {
             assertNotNull(global.get("Packages", global));
         }
     }
+
+    @Test
+    public void readOperationBlocksWriters() throws InterruptedException {
+        ContextFactory factory =
+                Utils.contextFactoryWithFeatures(Context.FEATURE_THREAD_SAFE_OBJECTS);
+        try (Context cx = factory.enterContext()) {
+            ScriptableObject obj = (ScriptableObject) cx.newObject(cx.initStandardObjects());
+            obj.put("a", obj, 1);
+
+            Thread writer = new Thread(() -> obj.put("b", obj, 2));
+            try (var map = obj.startCompoundOp(false)) {
+                assertNull(map.query("b", 0));
+                writer.start();
+                writer.join(200);
+                assertTrue(writer.isAlive());
+                assertNull(map.query("b", 0));
+                assertEquals(1, map.size());
+            }
+            writer.join(10000);
+            assertFalse(writer.isAlive());
+            assertEquals(2, obj.get("b", obj));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void optimisticReadOperationCannotWrite() {
+        ContextFactory factory =
+                Utils.contextFactoryWithFeatures(Context.FEATURE_THREAD_SAFE_OBJECTS);
+        try (Context cx = factory.enterContext()) {
+            ScriptableObject obj = (ScriptableObject) cx.newObject(cx.initStandardObjects());
+            obj.put("a", obj, 1);
+            obj.put("b", obj, 2);
+            try (var map = obj.startOptimisticReadOp()) {
+                map.modify(obj, "c", 0, 0);
+            }
+        }
+    }
+
+    @Test
+    public void readOperationsAreConsistentWhileWriting() throws InterruptedException {
+        ContextFactory factory =
+                Utils.contextFactoryWithFeatures(Context.FEATURE_THREAD_SAFE_OBJECTS);
+        try (Context cx = factory.enterContext()) {
+            ScriptableObject obj = (ScriptableObject) cx.newObject(cx.initStandardObjects());
+            final int count = 2000;
+
+            Thread writer =
+                    new Thread(
+                            () -> {
+                                for (int i = 0; i < count; i++) {
+                                    obj.put("k" + i, obj, i);
+                                }
+                            });
+            writer.start();
+            Object[] ids;
+            do {
+                ids = obj.getIds();
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals("k" + i, ids[i]);
+                }
+            } while (ids.length < count);
+            writer.join();
+        }
+    }
 }
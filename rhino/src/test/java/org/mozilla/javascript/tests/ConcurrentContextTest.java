@@ -0,0 +1,101 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.mozilla.javascript.ClassCache;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.LruScriptCache;
+import org.mozilla.javascript.RegExpCache;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+/** Runs scripts on many threads that share a factory, its caches and a sealed scope. */
+public class ConcurrentContextTest {
+
+    @Test
+    public void callsOnManyThreadsUseTheirOwnContext() throws Exception {
+        ContextFactory factory = new ContextFactory();
+        factory.setContextPoolSize(4);
+        factory.setScriptCache(new LruScriptCache(16, 100_000));
+        factory.setRegExpCache(new RegExpCache(16));
+        ScriptableObject shared;
+        try (Context cx = factory.enterContext()) {
+            shared = cx.initStandardObjects(null, true);
+            shared.sealObject();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String input = "item-" + i;
+                results.add(
+                        executor.submit(
+                                () ->
+                                        factory.call(
+                                                cx -> {
+                                                    assertSame(cx, Context.getCurrentContext());
+                                                    Scriptable scope = cx.newObject(shared);
+                                                    scope.setPrototype(shared);
+                                                    scope.setParentScope(null);
+                                                    ScriptableObject.putProperty(
+                                                            scope, "input", input);
+                                                    return Context.toString(
+                                                            cx.evaluateString(
+                                                                    scope,
+                                                                    "/-(\\d+)$/.exec(input)[1]",
+                                                                    "test.js",
+                                                                    1,
+                                                                    null));
+                                                })));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(String.valueOf(i), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertNull(Context.getCurrentContext());
+    }
+
+    @Test
+    public void classSerialNumbersAreUnique() throws Exception {
+        ClassCache cache = new ClassCache();
+        Set<Integer> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(
+                        executor.submit(
+                                () -> {
+                                    for (int j = 0; j < 1000; j++) {
+                                        numbers.add(cache.newClassSerialNumber());
+                                    }
+                                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(8000, numbers.size());
+        assertEquals(8001, cache.newClassSerialNumber());
+    }
+}
@@ -2,6 +2,7 @@ package org.mozilla.javascript.tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.lang.reflect.Method;
 import org.junit.Assert;
@@ -54,6 +55,89 @@ public class ConsStringTest {
         }
     }
 
+    @Test
+    public void readWithoutFlattening() {
+        // Mix short pieces, which are merged, with long ones, which are not
+        String[] pieces = {"ab", "cdefghijklmnopqrstuvwxyz0123456789".repeat(2), ""};
+        for (int depth = 1; depth < 40; depth += 7) {
+            CharSequence rope = "x";
+            String flat = "x";
+            for (int i = 0; i < depth * 3; i++) {
+                String piece = pieces[i % pieces.length] + i;
+                rope = i % 2 == 0 ? new ConsString(rope, piece) : new ConsString(piece, rope);
+                flat = i % 2 == 0 ? flat + piece : piece + flat;
+            }
+            ConsString cons = (ConsString) rope;
+            assertEquals(flat.length(), cons.length());
+            for (int start = 0; start < flat.length(); start += 5) {
+                for (int end = start; end <= flat.length(); end += 11) {
+                    assertEquals(flat.substring(start, end), cons.subSequence(start, end));
+                }
+                for (String search : new String[] {"", "b", "9ab", "z01", "xyz0", flat}) {
+                    assertEquals(flat.indexOf(search, start), cons.indexOf(search, start));
+                    assertEquals(flat.startsWith(search, start), cons.startsWith(search, start));
+                }
+                String tail = flat.substring(start, Math.min(flat.length(), start + 70));
+                assertEquals(start, cons.indexOf(tail, start));
+                assertTrue(cons.startsWith(tail, start));
+            }
+            // charAt flattens the rope
+            for (int i = 0; i < flat.length(); i++) {
+                assertEquals(flat.charAt(i), cons.charAt(i));
+            }
+            assertEquals(flat, cons.toString());
+        }
+    }
+
+    @Test
+    public void flattenFromManyThreads() throws Exception {
+        String longPiece = "0123456789".repeat(7);
+        ConsString current = new ConsString("a", "b");
+        for (int i = 0; i < 10000; i++) {
+            current = new ConsString(current, i % 2 == 0 ? "c" : longPiece);
+        }
+        final ConsString shared = current;
+        final String expected = new StringBuilder(shared).toString();
+        Thread[] threads = new Thread[4];
+        String[] results = new String[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int n = i;
+            threads[i] = new Thread(() -> results[n] = shared.toString());
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            assertEquals(expected, results[i]);
+        }
+    }
+
+    @Test
+    public void stringMethodsOnRopes() {
+        try (Context cx = Context.enter()) {
+            final ScriptableObject scope = cx.initStandardObjects();
+            final String script =
+                    "var s = 'start';\n"
+                            + "var found = 0;\n"
+                            + "for (var i = 0; i < 500; i++) {\n"
+                            + "  s += ' line ' + i + ' of the report,';\n"
+                            + "  if (s.indexOf('line ' + i + ' of') > 0\n"
+                            + "      && s.includes('report,')\n"
+                            + "      && s.startsWith('start')\n"
+                            + "      && s.endsWith(i + ' of the report,')\n"
+                            + "      && s.substring(5, 11) === ' line ' && s.charAt(0) === 's') {\n"
+                            + "    found++;\n"
+                            + "  }\n"
+                            + "}\n"
+                            + "found + ':' + s.length";
+            Object result = cx.evaluateString(scope, script, "myScript", 1, null);
+            StringBuilder expected = new StringBuilder("start");
+            for (int i = 0; i < 500; i++) {
+                expected.append(" line ").append(i).append(" of the report,");
+            }
+            assertEquals("500:" + expected.length(), result);
+        }
+    }
+
     @Test
     public void doNotLeakConsStringIntoSetter() throws Exception {
         try (Context cx = Context.enter()) {
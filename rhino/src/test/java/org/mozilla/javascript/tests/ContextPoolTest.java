@@ -0,0 +1,169 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Scriptable;
+
+public class ContextPoolTest {
+
+    private static class CountingFactory extends ContextFactory {
+        int created;
+        int released;
+
+        CountingFactory(int poolSize) {
+            setContextPoolSize(poolSize);
+        }
+
+        @Override
+        protected void onContextCreated(Context cx) {
+            super.onContextCreated(cx);
+            created++;
+            cx.setInstructionObserverThreshold(1000);
+        }
+
+        @Override
+        protected void onContextReleased(Context cx) {
+            super.onContextReleased(cx);
+            released++;
+        }
+    }
+
+    private static String eval(Context cx, String script) {
+        Scriptable scope = cx.initStandardObjects();
+        return Context.toString(cx.evaluateString(scope, script, "test.js", 1, null));
+    }
+
+    @Test
+    public void contextIsReusedWithItsInitialSettings() {
+        CountingFactory factory = new CountingFactory(2);
+        Context first =
+                factory.call(
+                        cx -> {
+                            cx.setLanguageVersion(Context.VERSION_1_8);
+                            cx.setInterpretedMode(!cx.isInterpretedMode());
+                            cx.setInstructionObserverThreshold(0);
+                            cx.setLocale(Locale.JAPAN);
+                            cx.setGeneratingDebug(true);
+                            cx.putThreadLocal("key", "value");
+                            return cx;
+                        });
+        Context fresh = factory.call(cx -> cx);
+        assertSame(first, fresh);
+        assertEquals(1, factory.created);
+        assertEquals(2, factory.released);
+
+        factory.call(
+                cx -> {
+                    assertEquals(Context.VERSION_ES6, cx.getLanguageVersion());
+                    assertEquals(1000, cx.getInstructionObserverThreshold());
+                    assertEquals(Locale.getDefault(), cx.getLocale());
+                    assertFalse(cx.isGeneratingDebug());
+                    assertNull(cx.getThreadLocal("key"));
+                    return null;
+                });
+    }
+
+    @Test
+    public void regExpStateIsNotShared() {
+        ContextFactory factory = new CountingFactory(1);
+        assertEquals(
+                "secret", factory.call(cx -> eval(cx, "/(s\\w+)/.exec('a secret'); RegExp.$1")));
+        assertEquals("", factory.call(cx -> eval(cx, "RegExp.$1")));
+    }
+
+    @Test
+    public void unhandledRejectionsAreNotShared() {
+        ContextFactory factory = new CountingFactory(1);
+        assertEquals(
+                1,
+                (int)
+                        factory.call(
+                                cx -> {
+                                    cx.setTrackUnhandledPromiseRejections(true);
+                                    eval(cx, "Promise.reject('secret')");
+                                    return cx.getUnhandledPromiseTracker().enumerate().size();
+                                }));
+        assertEquals(
+                List.of(),
+                factory.call(
+                        cx -> {
+                            cx.setTrackUnhandledPromiseRejections(true);
+                            return cx.getUnhandledPromiseTracker().enumerate();
+                        }));
+    }
+
+    @Test
+    public void nestedEntryUsesTheSameContext() {
+        CountingFactory factory = new CountingFactory(1);
+        try (Context outer = factory.enterContext()) {
+            Context inner = factory.call(cx -> cx);
+            assertSame(outer, inner);
+            assertSame(outer, Context.getCurrentContext());
+        }
+        assertNull(Context.getCurrentContext());
+        assertEquals(1, factory.created);
+    }
+
+    @Test
+    public void poolIsBounded() {
+        CountingFactory factory = new CountingFactory(1);
+        Context a = factory.enterContext();
+        Context.exit();
+        Context b = factory.enterContext();
+        Context.exit();
+        assertSame(a, b);
+
+        // Two contexts are live at once on different threads, only one is kept
+        Context[] other = new Context[1];
+        try (Context c = factory.enterContext()) {
+            Thread t = new Thread(() -> other[0] = factory.call(cx -> cx));
+            t.start();
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            assertNotSame(c, other[0]);
+        }
+        assertEquals(2, factory.created);
+        assertEquals(1, (int) factory.call(cx -> cx == other[0] || cx == a ? 1 : 0));
+    }
+
+    @Test
+    public void contextsNotMadeByTheFactoryOrSealedAreNotPooled() {
+        CountingFactory factory = new CountingFactory(2);
+        Context sealed =
+                factory.call(
+                        cx -> {
+                            cx.seal("key");
+                            return cx;
+                        });
+        Context made = factory.call(cx -> cx);
+        assertNotSame(sealed, made);
+        assertEquals(2, factory.created);
+
+        Context own = new ContextFactory().enterContext();
+        Context.exit();
+        factory.enterContext(own);
+        Context.exit();
+        assertSame(made, factory.call(cx -> cx));
+
+        factory.setContextPoolSize(0);
+        assertNotSame(factory.call(cx -> cx), factory.call(cx -> cx));
+        assertTrue(factory.created > 2);
+    }
+}
@@ -0,0 +1,107 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.CopyOnWriteScope;
+import org.mozilla.javascript.EcmaError;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.TopLevel;
+import org.mozilla.javascript.testutils.Utils;
+
+public class CopyOnWriteScopeTest {
+
+    private static final String SHARED =
+            "var counter = 0;\n"
+                    + "function helper() { return 'shared' }\n"
+                    + "Object.defineProperty(this, 'fixed', {value: 1, writable: false});\n"
+                    + "var written = [];\n"
+                    + "Object.defineProperty(this, 'logged',"
+                    + " {set: function(v) { written.push(v) }, get: function() { return 0 }});";
+
+    private static String eval(Context cx, Scriptable scope, String script) {
+        return Context.toString(cx.evaluateString(scope, script, "test.js", 1, null));
+    }
+
+    private static ScriptableObject newShared(Context cx) {
+        ScriptableObject shared = cx.initStandardObjects(new TopLevel(), false);
+        eval(cx, shared, SHARED);
+        return shared;
+    }
+
+    @Test
+    public void writesStayInTheScope() {
+        Utils.runWithAllModes(
+                cx -> {
+                    ScriptableObject shared = newShared(cx);
+                    CopyOnWriteScope scope = new CopyOnWriteScope(shared);
+                    assertSame(shared, scope.getSharedScope());
+                    assertEquals(
+                            "4,overlay,1",
+                            eval(
+                                    cx,
+                                    scope,
+                                    "counter = 3; var counter; counter++;\n"
+                                            + "function helper() { return 'overlay' }\n"
+                                            + "(function() { added = 1 })();\n"
+                                            + "globalThis.viaGlobal = 1;\n"
+                                            + "[counter, helper(), added]"));
+                    assertEquals(
+                            "0,shared,undefined,undefined",
+                            eval(
+                                    cx,
+                                    shared,
+                                    "[counter, helper(), typeof added, typeof viaGlobal]"));
+                    assertEquals("0", eval(cx, new CopyOnWriteScope(shared), "counter"));
+                    return null;
+                });
+    }
+
+    @Test
+    public void readsSeeTheSharedScope() {
+        Utils.runWithAllModes(
+                cx -> {
+                    ScriptableObject shared = newShared(cx);
+                    CopyOnWriteScope scope = new CopyOnWriteScope(shared);
+                    assertEquals(
+                            "true,true,true,true",
+                            eval(
+                                    cx,
+                                    scope,
+                                    "[globalThis === this, this.hasOwnProperty('counter'),"
+                                            + " [] instanceof Array,"
+                                            + " Object.getPrototypeOf({}) === Object.prototype]"));
+                    eval(cx, shared, "counter = 5");
+                    assertEquals("5", eval(cx, scope, "counter"));
+                    assertEquals("5", eval(cx, scope, "counter = 6; delete counter; counter"));
+                    return null;
+                });
+    }
+
+    @Test
+    public void readOnlyPropertiesAndSettersOfTheSharedScope() {
+        Utils.runWithAllModes(
+                cx -> {
+                    ScriptableObject shared = newShared(cx);
+                    CopyOnWriteScope scope = new CopyOnWriteScope(shared);
+                    assertEquals("1,0", eval(cx, scope, "fixed = 2; logged = 7; [fixed, logged]"));
+                    assertEquals("7", eval(cx, shared, "written.join()"));
+                    try {
+                        eval(cx, scope, "'use strict'; fixed = 3");
+                        fail();
+                    } catch (EcmaError e) {
+                        assertTrue(e.getMessage(), e.getMessage().contains("readonly"));
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,158 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.GeneratedClassLoader;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.optimizer.DiskScriptCache;
+
+public class DiskScriptCacheTest {
+
+    private static final String SOURCE =
+            "function f(s) { return /b+/.exec(s)[0]; }\n"
+                    + "var o = { g() { return `${f('abbbc')}-${[1, 2, 3].map(x => x * 2)}`; } };\n"
+                    + "o.g()";
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("rhino-cache");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path p : s.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.collect(Collectors.toList());
+        }
+    }
+
+    private static Object run(ContextFactory factory, String source, String name) {
+        try (Context cx = factory.enterContext()) {
+            cx.setInterpretedMode(false);
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            Script script = cx.compileString(source, name, 1, null);
+            Scriptable scope = cx.initStandardObjects();
+            return script.exec(cx, scope, scope);
+        }
+    }
+
+    private static ContextFactory factory(DiskScriptCache cache) {
+        ContextFactory factory = new ContextFactory();
+        factory.setScriptCache(cache);
+        return factory;
+    }
+
+    @Test
+    public void scriptsSurviveANewCache() throws IOException {
+        assertEquals("bbb-2,4,6", run(factory(new DiskScriptCache(dir, 1 << 20)), SOURCE, "a.js"));
+        assertEquals(1, entries().size());
+
+        // A new cache, as after a restart, loads the same entry from disk
+        assertEquals("bbb-2,4,6", run(factory(new DiskScriptCache(dir, 1 << 20)), SOURCE, "a.js"));
+        assertEquals(1, entries().size());
+
+        run(factory(new DiskScriptCache(dir, 1 << 20)), SOURCE, "b.js");
+        assertEquals(2, entries().size());
+    }
+
+    @Test
+    public void loadedScriptsAreKeptInMemory() {
+        ContextFactory factory = factory(new DiskScriptCache(dir, 1 << 20));
+        try (Context cx = factory.enterContext()) {
+            cx.setInterpretedMode(false);
+            Script first = cx.compileString("1 + 1", "a.js", 1, null);
+            assertSame(first, cx.compileString("1 + 1", "a.js", 1, null));
+            assertNotSame(first, cx.compileString("1 + 1", "a.js", 2, null));
+        }
+    }
+
+    @Test
+    public void damagedEntryIsReplaced() throws IOException {
+        run(factory(new DiskScriptCache(dir, 1 << 20)), SOURCE, "a.js");
+        Path entry = entries().get(0);
+        byte[] bytes = Files.readAllBytes(entry);
+        bytes[bytes.length - 10] ^= 0x55;
+        Files.write(entry, bytes);
+
+        assertEquals("bbb-2,4,6", run(factory(new DiskScriptCache(dir, 1 << 20)), SOURCE, "a.js"));
+        assertEquals(1, entries().size());
+        assertEquals("bbb-2,4,6", run(factory(new DiskScriptCache(dir, 1 << 20)), SOURCE, "a.js"));
+    }
+
+    @Test
+    public void interpretedScriptsAreNotStored() throws IOException {
+        ContextFactory factory = factory(new DiskScriptCache(dir, 1 << 20));
+        try (Context cx = factory.enterContext()) {
+            cx.setInterpretedMode(true);
+            cx.compileString("1 + 1", "a.js", 1, null);
+        }
+        assertEquals(0, entries().size());
+    }
+
+    @Test
+    public void evictsWhenFull() throws IOException {
+        DiskScriptCache cache = new DiskScriptCache(dir, 8000);
+        ContextFactory factory = factory(cache);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, ((Number) run(factory, "var x = " + i + "; x", "e.js")).intValue());
+        }
+        long total = 0;
+        for (Path p : entries()) {
+            total += Files.size(p);
+        }
+        assertTrue(total <= 8000);
+        assertTrue(entries().size() < 20);
+    }
+
+    @Test
+    public void loadsWithTheClassLoaderOfTheFactory() {
+        run(factory(new DiskScriptCache(dir, 1 << 20)), SOURCE, "a.js");
+
+        List<ClassLoader> parents = new ArrayList<>();
+        ContextFactory factory =
+                new ContextFactory() {
+                    @Override
+                    protected GeneratedClassLoader createClassLoader(ClassLoader parent) {
+                        parents.add(parent);
+                        return super.createClassLoader(parent);
+                    }
+                };
+        ClassLoader application = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        factory.initApplicationClassLoader(application);
+        factory.setScriptCache(new DiskScriptCache(dir, 1 << 20));
+        assertEquals("bbb-2,4,6", run(factory, SOURCE, "a.js"));
+        assertEquals(List.of(application), parents);
+    }
+}
@@ -0,0 +1,55 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+import org.mozilla.javascript.testutils.Utils;
+
+/**
+ * Runs scripts whose interpreted calls reuse the stack arrays of calls that returned before, and
+ * checks that no values leak from one call into the next and that generators and closures keep
+ * their own values.
+ */
+public class InterpreterStackReuseTest {
+
+    @Test
+    public void localsStartUndefined() {
+        Utils.assertWithAllModes_ES6(
+                "undefined,undefined,1",
+                "function f(set) { var a, b; if (set) { a = 1; b = 2; } return a; }\n"
+                        + "function g() { var x, y; return y; }\n"
+                        + "f(true); var r1 = g(); var r2 = f(false); f(true);\n"
+                        + "[String(r1), String(r2), f(true)].join()");
+    }
+
+    @Test
+    public void recursionAtManyDepths() {
+        Utils.assertWithAllModes_ES6(
+                "832040,55,3",
+                "function fib(n) { var a = n < 2 ? n : fib(n - 1) + fib(n - 2); return a; }\n"
+                        + "function depth(n) { return n == 0 ? 0 : 1 + depth(n - 1); }\n"
+                        + "function thrower(n) { if (n == 0) throw 3; return thrower(n - 1); }\n"
+                        + "var e; try { thrower(50) } catch (x) { e = x }\n"
+                        + "depth(2000);\n"
+                        + "[fib(30), fib(10), e].join()");
+    }
+
+    @Test
+    public void generatorsAndClosuresKeepTheirValues() {
+        Utils.assertWithAllModes_ES6(
+                "0,1,2,a,b,10,11",
+                "function* count(n) { for (var i = 0; i < n; i++) { noise(i); yield i; } }\n"
+                        + "function noise(i) { var x = 'x' + i, y = [x]; return y; }\n"
+                        + "function keep(v) { var held = v; return function() { return held } }\n"
+                        + "var r = [];\n"
+                        + "for (var v of count(3)) { noise(v); r.push(v); }\n"
+                        + "var a = keep('a'); noise(1); var b = keep('b'); noise(2);\n"
+                        + "r.push(a(), b());\n"
+                        + "var gen = count(20); gen.next(); noise(5);\n"
+                        + "for (var k = 0; k < 9; k++) gen.next();\n"
+                        + "r.push(gen.next().value, gen.next().value);\n"
+                        + "r.join()");
+    }
+}
@@ -0,0 +1,153 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.testutils.Utils;
+
+/**
+ * Calls Java methods repeatedly from the same call sites, so that the calls are linked directly,
+ * and checks that they behave like calls through reflection.
+ */
+public class JavaMethodCallSiteTest {
+
+    public static class Target {
+        private final List<String> calls = new ArrayList<>();
+
+        public String f(int i) {
+            return "int:" + i;
+        }
+
+        public String f(String s) {
+            return "string:" + s;
+        }
+
+        public long add(long a, double b) {
+            return a + (long) b;
+        }
+
+        public void record(String s) {
+            calls.add(s);
+        }
+
+        public String calls() {
+            return String.join(",", calls);
+        }
+
+        public static String twice(String s) {
+            return s + s;
+        }
+
+        public void fail(String message) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    private static void assertResult(Object expected, String script) {
+        Utils.runWithAllModes(
+                cx -> {
+                    Scriptable scope = cx.initStandardObjects();
+                    ScriptableObject.putProperty(
+                            scope, "t", Context.javaToJS(new Target(), scope));
+                    Object result = cx.evaluateString(scope, script, "test.js", 1, null);
+                    assertEquals(expected, Context.toString(result));
+                    return null;
+                });
+    }
+
+    @Test
+    public void overloadFollowsArgumentClasses() {
+        assertResult(
+                "int:0,string:1,int:2,string:3,int:4,string:5",
+                "var r = [];\n"
+                        + "for (var i = 0; i < 6; i++) {\n"
+                        + "  r.push(String(t.f(i % 2 == 0 ? i : String(i))));\n"
+                        + "}\n"
+                        + "r.join()");
+    }
+
+    @Test
+    public void argumentsAndResultsAreConverted() {
+        assertResult(
+                "10,undefined,undefined,a,b,abab,number",
+                "var r = [];\n"
+                        + "for (var i = 0; i < 3; i++) { r[0] = t.add(3, 7.9); }\n"
+                        + "r.push(String(t.record('a')), String(t.record('b')));\n"
+                        + "r.push(t.calls(), t.twice('ab'), typeof t.add(1, 2));\n"
+                        + "r.join()");
+    }
+
+    @Test
+    public void thisIsFoundOnPrototypeChain() {
+        assertResult(
+                "string:x,string:x",
+                "var o = Object.create(t);\n"
+                        + "var r = [];\n"
+                        + "for (var i = 0; i < 2; i++) { r.push(String(o.f('x'))); }\n"
+                        + "r.join()");
+    }
+
+    @Test
+    public void exceptionsReachScript() {
+        assertResult(
+                "java.lang.IllegalStateException: boom,java.lang.IllegalStateException: boom",
+                "var r = [];\n"
+                        + "for (var i = 0; i < 2; i++) {\n"
+                        + "  try { t.fail('boom'); }\n"
+                        + "  catch (e) { r.push(String(e.javaException)); }\n"
+                        + "}\n"
+                        + "r.join()");
+    }
+
+    @Test
+    public void methodOfNonPublicClass() {
+        assertResult(
+                "2,2,true",
+                "var l = java.util.Collections.unmodifiableList(java.util.Arrays.asList(1, 2));\n"
+                        + "var r = [];\n"
+                        + "for (var i = 0; i < 2; i++) { r.push(l.size()); }\n"
+                        + "var c = java.lang.Class.forName('java.lang.String');\n"
+                        + "r.push(c == java.lang.String);\n"
+                        + "r.join()");
+    }
+
+    @Test
+    public void sharedScriptDoesNotKeepScopeAlive() throws InterruptedException {
+        Script script;
+        WeakReference<Scriptable> scope;
+        try (Context cx = Context.enter()) {
+            cx.setInterpretedMode(true);
+            script =
+                    cx.compileString(
+                            "for (var i = 0; i < 10; i++) t.record(String(i));", "test.js", 1, null);
+            scope = runInNewScope(cx, script);
+        }
+        for (int i = 0; i < 50 && scope.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(scope.get());
+        // The script, and the interpreter data with its call sites, must still be alive
+        assertNotNull(script);
+    }
+
+    private static WeakReference<Scriptable> runInNewScope(Context cx, Script script) {
+        Scriptable scope = cx.initStandardObjects();
+        ScriptableObject.putProperty(scope, "t", Context.javaToJS(new Target(), scope));
+        script.exec(cx, scope, scope);
+        return new WeakReference<>(scope);
+    }
+}
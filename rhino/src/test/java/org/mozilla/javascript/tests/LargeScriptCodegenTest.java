@@ -0,0 +1,131 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.DefiningClassLoader;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.optimizer.ClassCompiler;
+import org.mozilla.javascript.testutils.Utils;
+
+/**
+ * Compiles scripts with enough functions to have their bodies generated into several classes, and
+ * checks that the functions in those classes give the same results as in the interpreter.
+ */
+public class LargeScriptCodegenTest {
+
+    private static final int COUNT = 250;
+
+    private static final String SCRIPT = script();
+
+    private static String script() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("function twice(x) { return x * 2 }\n");
+        sb.append("function counter() { var n = 0; return function() { return ++n } }\n");
+        sb.append("var fns = [];\n");
+        for (int i = 0; i < COUNT; i++) {
+            sb.append("fns.push(function(x) { var a = [1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12];")
+                    .append(" return twice(x) + ")
+                    .append(i)
+                    .append(".25 + a.length + /b+/.exec('abbc')[0].length + `${x}`.length });\n");
+        }
+        sb.append("var gen = function*(n) { for (var i = 0; i < n; i++) yield i * 1.5 };\n");
+        sb.append("var fail = function() {\n  null.foo;\n};\n");
+        sb.append("var inPart = function() {\n")
+                .append("  return java.lang.Thread.currentThread().getStackTrace()")
+                .append(".some(function(e) { return /Part\\d+$/.test(e.getClassName()) });\n")
+                .append("};\n");
+        sb.append("var sum = 0;\n");
+        sb.append("for (var i = 0; i < fns.length; i++) sum += fns[i](1);\n");
+        sb.append("var c = counter(); c();\n");
+        sb.append("var line; try { fail() } catch (e) { line = e.lineNumber }\n");
+        sb.append("[sum, c(), Array.from(gen(4)).join('/'), line].join()");
+        return sb.toString();
+    }
+
+    private static String expected() {
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += 2 + i + 0.25 + 12 + 2 + 1;
+        }
+        int failLine = COUNT + 6;
+        return Context.toString(sum) + ",2,0/1.5/3/4.5," + failLine;
+    }
+
+    @Test
+    public void sameResultsInAllModes() {
+        Utils.assertWithAllModes_ES6(expected(), SCRIPT);
+    }
+
+    @Test
+    public void fallsBackToTheInterpreterIfAPartClassIsTooLarge() {
+        StringBuilder sb = new StringBuilder("var fns = [];\n");
+        for (int i = 0; i < COUNT; i++) {
+            sb.append("fns.push(function() { return ").append(i).append(" });\n");
+        }
+        // The body of this function is too large for a method
+        sb.append("var big = function() {\n  var x = 0;\n");
+        for (int i = 0; i < 12000; i++) {
+            sb.append("  x += ").append(i % 10).append(";\n");
+        }
+        sb.append("  return x;\n};\n");
+        sb.append("fns[4]() + ' ' + big()");
+        String script = sb.toString();
+        Utils.runWithMode(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    assertEquals("4 54000", cx.evaluateString(scope, script, "test.js", 1, null));
+                    return null;
+                },
+                false);
+    }
+
+    @Test
+    public void functionsRunInPartClasses() {
+        Utils.runWithMode(
+                cx -> {
+                    cx.setLanguageVersion(Context.VERSION_ES6);
+                    Scriptable scope = cx.initStandardObjects();
+                    cx.evaluateString(scope, SCRIPT, "test.js", 1, null);
+                    assertEquals(Boolean.TRUE, cx.evaluateString(scope, "inPart()", "", 1, null));
+                    return null;
+                },
+                false);
+    }
+
+    @Test
+    public void classCompilerWritesPartClasses() throws Exception {
+        CompilerEnvirons env = new CompilerEnvirons();
+        env.setLanguageVersion(Context.VERSION_ES6);
+        Object[] classes =
+                new ClassCompiler(env).compileToClassFiles(SCRIPT, "test.js", 1, "large.Test");
+        DefiningClassLoader loader = new DefiningClassLoader();
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < classes.length; i += 2) {
+            String name = (String) classes[i];
+            if (name.startsWith("large.TestPart")) {
+                parts.add(name);
+            }
+            loader.defineClass(name, (byte[]) classes[i + 1]);
+        }
+        assertTrue(parts.toString(), parts.size() >= 2);
+
+        try (Context cx = Context.enter()) {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            Scriptable scope = cx.initStandardObjects();
+            Script script = ClassCompiler.loadScript(loader, "large.Test");
+            assertEquals(expected(), Context.toString(script.exec(cx, scope, scope)));
+        }
+    }
+}
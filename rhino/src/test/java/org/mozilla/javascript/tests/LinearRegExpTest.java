@@ -0,0 +1,104 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Scriptable;
+
+/**
+ * Runs regular expressions with and without {@link Context#FEATURE_LINEAR_REGEXP} and checks that
+ * the automaton finds the same matches and captures as the backtracking matcher.
+ */
+public class LinearRegExpTest {
+
+    private static class LinearContextFactory extends ContextFactory {
+        private final boolean linear;
+
+        LinearContextFactory(boolean linear) {
+            this.linear = linear;
+        }
+
+        @Override
+        protected boolean hasFeature(Context cx, int featureIndex) {
+            if (featureIndex == Context.FEATURE_LINEAR_REGEXP) {
+                return linear;
+            }
+            return super.hasFeature(cx, featureIndex);
+        }
+    }
+
+    private static String run(boolean linear, String script) {
+        try (Context cx = new LinearContextFactory(linear).enterContext()) {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            Scriptable scope = cx.initStandardObjects();
+            return Context.toString(cx.evaluateString(scope, script, "test.js", 1, null));
+        }
+    }
+
+    private static void assertSameMatches(String regexp, String input) {
+        String script =
+                "var re = "
+                        + regexp
+                        + ", s = '"
+                        + input
+                        + "', r = [];\n"
+                        + "r.push(JSON.stringify(re.exec(s)), re.lastIndex);\n"
+                        + "re.lastIndex = 0;\n"
+                        + "r.push(JSON.stringify(s.match(re)), s.replace(re, '<$&|$1>'));\n"
+                        + "r.join(';')";
+        assertEquals(regexp + " on '" + input + "'", run(false, script), run(true, script));
+    }
+
+    @Test
+    public void alternationAndQuantifiers() {
+        assertSameMatches("/a|ab|abc/", "xabcx");
+        assertSameMatches("/(a|ab)(c|bcd)(d*)/", "abcd");
+        assertSameMatches("/a*?b/g", "aaab ab b");
+        assertSameMatches("/(a+?)(a*)/", "aaaa");
+        assertSameMatches("/x{2,3}/g", "xxxxxxx");
+        assertSameMatches("/x{2,}?y/", "xxxxy");
+        assertSameMatches("/(?:ab){1,2}?c/", "ababc");
+        assertSameMatches("/[a-c]+[^a-c]?\\d/g", "abz1 cc2 3");
+    }
+
+    @Test
+    public void capturesAreResetInEachIteration() {
+        assertSameMatches("/(?:(a)|b)+/", "ab");
+        assertSameMatches("/(z)((a+)?(b+)?(c))*/", "zaacbbbcac");
+        assertSameMatches("/((a)|(b))*/g", "abba");
+    }
+
+    @Test
+    public void flagsAndAssertions() {
+        assertSameMatches("/^b/gm", "a\\nb\\nb");
+        assertSameMatches("/a$/m", "ba\\nc");
+        assertSameMatches("/A.C/is", "xa\\ncx");
+        assertSameMatches("/b/y", "ab");
+        assertSameMatches("/\\bc\\w*\\b/g", "a cat, cow");
+        assertSameMatches("/\\B\\s?\\B/", "1\\na1AB c");
+        assertSameMatches("/$/g", "abc");
+        assertSameMatches("/\\b/g", "a b");
+    }
+
+    @Test
+    public void unsupportedExpressionsBacktrack() {
+        assertSameMatches("/(a)\\1/", "baab");
+        assertSameMatches("/a(?=b)/", "acab");
+        assertSameMatches("/(?<!a)b/", "abcb");
+        assertSameMatches("/(a*)*b/", "aab");
+        assertSameMatches("/\\u{61}+/u", "baa");
+    }
+
+    @Test
+    public void nestedQuantifiersTakeLinearTime() {
+        String input = "a".repeat(5000) + "b";
+        String script = "/(a+)+$/.test('" + input + "') + ',' + /^(a|aa)*c/.test('" + input + "')";
+        assertEquals("false,false", run(true, script));
+    }
+}
@@ -4,11 +4,20 @@
 
 package org.mozilla.javascript.tests;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.Undefined;
+import org.mozilla.javascript.typedarrays.NativeArrayBuffer;
 
 public class NativeArrayBufferTest {
 
@@ -26,4 +35,70 @@ public class NativeArrayBufferTest {
             Assert.assertEquals(Undefined.instance, result);
         }
     }
+
+    private static Object eval(ByteBuffer bytes, String script) {
+        try (Context cx = Context.enter()) {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            Scriptable global = cx.initStandardObjects();
+            ScriptableObject.putProperty(global, "buf", NativeArrayBuffer.wrap(global, bytes));
+            return cx.evaluateString(global, script, "", 1, null);
+        }
+    }
+
+    @Test
+    public void wrapDirectBuffer() {
+        // Typed arrays are big-endian unless FEATURE_LITTLE_ENDIAN is set, as is a ByteBuffer
+        ByteBuffer bytes = ByteBuffer.allocateDirect(16);
+        bytes.putInt(4, 0x01020304);
+        bytes.putDouble(8, 1.5);
+
+        Object result =
+                eval(
+                        bytes,
+                        "var i = new Int32Array(buf, 4, 1);\n"
+                                + "var d = new Float64Array(buf, 8, 1);\n"
+                                + "new Uint8Array(buf)[0] = 255;\n"
+                                + "new DataView(buf).setInt16(2, -2);\n"
+                                + "(buf instanceof ArrayBuffer) + ',' + buf.byteLength + ','\n"
+                                + "  + i[0] + ',' + d[0] + ',' + buf.slice(4, 8).byteLength");
+        Assert.assertEquals("true,16,16909060,1.5,4", result);
+        Assert.assertEquals((byte) 255, bytes.get(0));
+        Assert.assertEquals((short) -2, bytes.getShort(2));
+    }
+
+    @Test
+    public void wrapHeapBufferWithOffset() {
+        byte[] array = new byte[] {9, 9, 1, 2, 3, 9};
+        ByteBuffer bytes = ByteBuffer.wrap(array, 2, 3);
+
+        Object result = eval(bytes, "var a = new Uint8Array(buf); a[1] = 7; Array.from(a).join()");
+        Assert.assertEquals("1,7,3", result);
+        Assert.assertEquals(7, array[3]);
+
+        NativeArrayBuffer buf = new NativeArrayBuffer(bytes);
+        Assert.assertNull(buf.getBuffer());
+        Assert.assertEquals(3, buf.getByteBuffer().remaining());
+        Assert.assertSame(array, new NativeArrayBuffer(ByteBuffer.wrap(array)).getBuffer());
+    }
+
+    @Test
+    public void wrapMappedFile() throws IOException {
+        Path file = Files.createTempFile("rhino-buffer", ".bin");
+        try {
+            Files.write(file, new byte[] {0, 0, 0, 42, 0, 0, 0, 7});
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                Object result =
+                        eval(
+                                mapped,
+                                "var n = new DataView(buf).getInt32(0);\n"
+                                        + "var t = buf.transfer();\n"
+                                        + "n + ',' + buf.detached + ','\n"
+                                        + "  + new DataView(t).getInt32(4)");
+                Assert.assertEquals("42,true,7", result);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
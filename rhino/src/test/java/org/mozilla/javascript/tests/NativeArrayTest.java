@@ -166,4 +166,47 @@ public class NativeArrayTest {
             assertNotNull(cx.evaluateString(scope, script, "test", 1, null));
         }
     }
+
+    @Test
+    public void numericArraysBehaveLikeGenericArrays() {
+        String script =
+                "function run(a) {\n"
+                        + "  var r = [];\n"
+                        + "  for (var i = 0; i < 20; i++) a.push(i);\n"
+                        + "  a[20] = 20;\n"
+                        + "  r.push(a[3] + a[20], a.length, a.indexOf(7), a.includes(19));\n"
+                        + "  a[5] = 1.5;\n"
+                        + "  r.push(a[5], a[6], a.lastIndexOf(1.5), a.pop());\n"
+                        + "  a.push(NaN);\n"
+                        + "  r.push(a.indexOf(NaN), a.includes(NaN));\n"
+                        + "  a.length = 4;\n"
+                        + "  r.push(a.join(), a[4], 4 in a);\n"
+                        + "  a.length = 6;\n"
+                        + "  r.push(a.join(), 5 in a);\n"
+                        + "  a[1] = 'x';\n"
+                        + "  delete a[2];\n"
+                        + "  r.push(a.join(), 2 in a, a.concat([7, 8]).join());\n"
+                        + "  return r.join('|');\n"
+                        + "}\n"
+                        + "var generic = ['s'];\n"
+                        + "generic.pop();\n"
+                        + "run([]) + '/' + run(generic);";
+        String half =
+                "23|21|7|true|1.5|6|5|20|-1|true|0,1,2,3||false|0,1,2,3,,|false"
+                        + "|0,x,,3,,|false|0,x,,3,,,7,8";
+        Utils.assertWithAllModes_ES6(half + "/" + half, script);
+    }
+
+    @Test
+    public void numericArraysAreVisibleToJava() {
+        NativeArray a = new NativeArray(new Object[] {1, 2, 3});
+        a.put(3, a, 4.5);
+        assertEquals(4L, a.getLength());
+        assertEquals(4.5, a.get(3, a));
+        assertEquals(2.0, a.get(1, a));
+        assertArrayEquals(new Object[] {0, 1, 2, 3}, a.getIds());
+        a.put(1, a, "two");
+        assertEquals("two", a.get(1, a));
+        assertEquals(1.0, a.get(0, a));
+    }
 }
@@ -6,10 +6,20 @@
 package org.mozilla.javascript.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import org.junit.Test;
+import org.mozilla.javascript.Callable;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EcmaError;
+import org.mozilla.javascript.NativeJSON;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.Undefined;
 
 /**
  * @author Ronald Brill
@@ -28,4 +38,59 @@ public class NativeJsonTest {
             assertEquals("java.lang.String", result.getClass().getName());
         }
     }
+
+    @Test
+    public void stringifyToAppendable() throws IOException {
+        try (Context cx = Context.enter()) {
+            Scriptable scope = cx.initStandardObjects();
+            Object value =
+                    cx.evaluateString(
+                            scope,
+                            "({a: [1, 'x', {b: null}], c: undefined, d: function() {}})",
+                            "myscript.js",
+                            1,
+                            null);
+
+            StringWriter out = new StringWriter();
+            assertTrue(NativeJSON.stringify(cx, scope, value, out));
+            assertEquals("{\"a\":[1,\"x\",{\"b\":null}]}", out.toString());
+
+            out = new StringWriter();
+            assertTrue(NativeJSON.stringify(cx, scope, value, null, 1, out));
+            assertEquals(
+                    "{\n \"a\": [\n  1,\n  \"x\",\n  {\n   \"b\": null\n  }\n ]\n}",
+                    out.toString());
+
+            out = new StringWriter();
+            assertFalse(NativeJSON.stringify(cx, scope, Undefined.instance, out));
+            assertEquals("", out.toString());
+        }
+    }
+
+    @Test
+    public void parseFromReaderWithReviver() {
+        try (Context cx = Context.enter()) {
+            Scriptable scope = cx.initStandardObjects();
+            Callable reviver =
+                    (Callable)
+                            cx.evaluateString(
+                                    scope,
+                                    "(function(k, v) { return typeof v == 'number' ? v * 2 : v; })",
+                                    "myscript.js",
+                                    1,
+                                    null);
+            StringReader json = new StringReader("{\"a\": [1, 2], \"b\": 3}");
+            Object value = NativeJSON.parse(cx, scope, json, reviver);
+            assertEquals(
+                    "{\"a\":[2,4],\"b\":6}",
+                    NativeJSON.stringify(cx, scope, value, null, null));
+
+            try {
+                NativeJSON.parse(cx, scope, new StringReader("{\"a\": }"), null);
+                fail();
+            } catch (EcmaError e) {
+                assertEquals("SyntaxError", e.getName());
+            }
+        }
+    }
 }
@@ -1129,4 +1129,23 @@ public class NativeRegExpTest {
                 "\uD806\uDE45",
                 "'\\u{11A45}'.match(/\\p{sc=Zanabazar_Square}/u)[0]");
     }
+
+    @Test
+    public void capturesAreRestoredWhenBacktracking() {
+        Utils.assertWithAllModes_ES6(
+                "aab,a,,",
+                "var m = /(?:(a)|(b)|(c))+?b$/.exec('aab'); [m[0], m[1], m[2], m[3]].join()");
+        Utils.assertWithAllModes_ES6(
+                "undefined,abd,a,",
+                "var m = /(a)?(?:(b)c|bd)/.exec('abd'); String(m[2]) + ',' + m.join()");
+    }
+
+    @Test
+    public void deepBacktrackingThenReuse() {
+        Utils.assertWithAllModes_ES6(
+                "20001,true,b",
+                "var s = Array(10001).join('ab') + 'c';\n"
+                        + "var m = /^(?:(a)|(b))*c$/.exec(s);\n"
+                        + "[m[0].length, /^(a|b)*d|c$/.test(s), /(a|b)c/.exec(s)[1]].join()");
+    }
 }
@@ -0,0 +1,135 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.EcmaError;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.RegExpCache;
+import org.mozilla.javascript.Scriptable;
+
+public class RegExpCacheTest {
+
+    private static ContextFactory factoryWithCache(RegExpCache cache) {
+        ContextFactory factory = new ContextFactory();
+        factory.setRegExpCache(cache);
+        return factory;
+    }
+
+    private static String eval(ContextFactory factory, String script) {
+        try (Context cx = factory.enterContext()) {
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            Scriptable scope = cx.initStandardObjects();
+            return Context.toString(cx.evaluateString(scope, script, "test.js", 1, null));
+        }
+    }
+
+    @Test
+    public void sameSourceAndFlagsCompileOnce() {
+        RegExpCache cache = new RegExpCache(10);
+        ContextFactory factory = factoryWithCache(cache);
+        String script =
+                "var r = [];\n"
+                        + "for (var i = 0; i < 5; i++) {\n"
+                        + "  var re = new RegExp('a(b+)', 'g');\n"
+                        + "  r.push(re.exec('xabbb')[1], re.lastIndex);\n"
+                        + "}\n"
+                        + "r.join()";
+        assertEquals("bbb,5,bbb,5,bbb,5,bbb,5,bbb,5", eval(factory, script));
+        // The empty expression of RegExp.prototype, then 'a(b+)'
+        assertEquals(2, cache.getMissCount());
+        long hits = cache.getHitCount();
+
+        // Another context of the same factory finds both compiled expressions
+        assertEquals("bbb,5,bbb,5,bbb,5,bbb,5,bbb,5", eval(factory, script));
+        assertEquals(2, cache.getMissCount());
+        assertEquals(hits + 6, cache.getHitCount());
+    }
+
+    @Test
+    public void literalsConstructorAndStringMethodsShareEntries() {
+        RegExpCache cache = new RegExpCache(10);
+        ContextFactory factory = factoryWithCache(cache);
+        assertEquals(
+                "a.b,A.B,[,],a.b",
+                eval(
+                        factory,
+                        "var r = [];\n"
+                                + "r.push('a.b'.match(/a.b/)[0], 'A.B'.match(/a.b/i)[0]);\n"
+                                + "r.push('[a.b]'.match('a.b')[0] && '[a.b]'.split('a.b'));\n"
+                                + "r.push(new RegExp('a.b').source);\n"
+                                + "r.join()"));
+        // The empty expression, /a.b/ for all but the 'i' flag, and /a.b/i
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void invalidExpressionsAreNotCached() {
+        RegExpCache cache = new RegExpCache(10);
+        ContextFactory factory = factoryWithCache(cache);
+        for (int i = 0; i < 2; i++) {
+            try {
+                eval(factory, "new RegExp('a', 'gg')");
+                fail();
+            } catch (EcmaError e) {
+                assertEquals("SyntaxError", e.getName());
+            }
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void warningsAsErrorsAreNotHiddenByCachedEntries() {
+        RegExpCache cache = new RegExpCache(10);
+        ContextFactory factory = factoryWithCache(cache);
+        // A back reference to a group that does not exist only warns
+        String script = "new RegExp('(a)\\\\2').source;";
+        assertEquals("(a)\\2", eval(factory, script));
+
+        ContextFactory strictFactory =
+                new ContextFactory() {
+                    @Override
+                    protected boolean hasFeature(Context cx, int featureIndex) {
+                        if (featureIndex == Context.FEATURE_STRICT_MODE
+                                || featureIndex == Context.FEATURE_WARNING_AS_ERROR) {
+                            return true;
+                        }
+                        return super.hasFeature(cx, featureIndex);
+                    }
+                };
+        strictFactory.setRegExpCache(cache);
+        for (int i = 0; i < 2; i++) {
+            try {
+                eval(strictFactory, script);
+                fail();
+            } catch (EvaluatorException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("back-reference"));
+            }
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        RegExpCache cache = new RegExpCache(2);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals("A", cache.get("a"));
+        cache.put("c", "C");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+}
@@ -0,0 +1,93 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.LruScriptCache;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+
+public class ScriptCacheTest {
+
+    private static final String SOURCE = "var x = 1; x + 41";
+
+    private static ContextFactory factoryWithCache(LruScriptCache cache) {
+        ContextFactory factory = new ContextFactory();
+        factory.setScriptCache(cache);
+        return factory;
+    }
+
+    @Test
+    public void sameSourceReturnsSameScript() throws IOException {
+        LruScriptCache cache = new LruScriptCache(10, 10000);
+        ContextFactory factory = factoryWithCache(cache);
+        Script first;
+        try (Context cx = factory.enterContext()) {
+            first = cx.compileString(SOURCE, "test.js", 1, null);
+        }
+        try (Context cx = factory.enterContext()) {
+            Script second = cx.compileReader(new StringReader(SOURCE), "test.js", 1, null);
+            assertSame(first, second);
+            Scriptable scope = cx.initStandardObjects();
+            assertEquals(42, ((Number) second.exec(cx, scope, scope)).intValue());
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void differentSettingsCompileSeparately() {
+        LruScriptCache cache = new LruScriptCache(10, 10000);
+        ContextFactory factory = factoryWithCache(cache);
+        try (Context cx = factory.enterContext()) {
+            cx.setInterpretedMode(false);
+            Script compiled = cx.compileString(SOURCE, "test.js", 1, null);
+            cx.setInterpretedMode(true);
+            Script interpreted = cx.compileString(SOURCE, "test.js", 1, null);
+            assertNotSame(compiled, interpreted);
+            assertNotSame(interpreted, cx.compileString(SOURCE, "other.js", 1, null));
+            assertNotSame(interpreted, cx.compileString(SOURCE, "test.js", 2, null));
+            cx.setLanguageVersion(Context.VERSION_1_8);
+            assertNotSame(interpreted, cx.compileString(SOURCE, "test.js", 1, null));
+        }
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        LruScriptCache cache = new LruScriptCache(2, 10000);
+        ContextFactory factory = factoryWithCache(cache);
+        try (Context cx = factory.enterContext()) {
+            Script a = cx.compileString("'a'", "a.js", 1, null);
+            Script b = cx.compileString("'b'", "b.js", 1, null);
+            assertSame(a, cx.compileString("'a'", "a.js", 1, null));
+            cx.compileString("'c'", "c.js", 1, null);
+            assertEquals(2, cache.size());
+            assertSame(a, cx.compileString("'a'", "a.js", 1, null));
+            assertNotSame(b, cx.compileString("'b'", "b.js", 1, null));
+        }
+    }
+
+    @Test
+    public void evictsBySourceSize() {
+        LruScriptCache cache = new LruScriptCache(100, 20);
+        ContextFactory factory = factoryWithCache(cache);
+        try (Context cx = factory.enterContext()) {
+            cx.compileString("'0123456789'", "a.js", 1, null);
+            cx.compileString("'0123456789'", "b.js", 1, null);
+            assertEquals(1, cache.size());
+            // Too large to be cached at all
+            cx.compileString("'01234567890123456789'", "c.js", 1, null);
+            assertEquals(1, cache.size());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.testutils.Utils;
+
+/**
+ * Property accesses on objects with shared shapes, which compiled code links to shape-guarded
+ * inline caches and which the interpreter caches for each instruction. Each script warms up a call
+ * site and then changes the objects behind it.
+ */
+public class ShapeInlineCacheTest {
+    private static final ContextFactory FACTORY =
+            Utils.contextFactoryWithFeatures(Context.FEATURE_SHARED_SHAPES);
+
+    private static void assertResult(Object expected, String script) {
+        Utils.assertWithAllModes(FACTORY, Context.VERSION_ES6, null, expected, script);
+    }
+
+    @Test
+    public void polymorphicGet() {
+        assertResult(
+                "1,2,3,4,5,6,7,8,9,10,11",
+                Utils.lines(
+                        "function getX(o) { return o.x; }",
+                        "var objs = [{x: 1}, {a: 0, x: 2}, {b: 0, x: 3}, {c: 0, x: 4},",
+                        "  {d: 0, x: 5}, {e: 0, x: 6}, {f: 0, x: 7}, {g: 0, x: 8},",
+                        "  {h: 0, x: 9}, {get x() { return 10; }}, Object.create({x: 11})];",
+                        "var r = [];",
+                        "for (var i = 0; i < 3; i++) {",
+                        "  r = objs.map(getX);",
+                        "}",
+                        "r.join()"));
+    }
+
+    @Test
+    public void setAfterLayoutChange() {
+        assertResult(
+                "2,undefined,5",
+                Utils.lines(
+                        "function setX(o, v) { o.x = v; return o.x; }",
+                        "var o = {x: 0, y: 0};",
+                        "for (var i = 0; i < 10; i++) { setX(o, i); }",
+                        "var a = setX(o, 2);",
+                        "delete o.x;",
+                        "var b = o.x;",
+                        "var c = setX(o, 5);",
+                        "[a, String(b), c].join()"));
+    }
+
+    @Test
+    public void setOnFrozenObject() {
+        assertResult(
+                "TypeError",
+                Utils.lines(
+                        "'use strict';",
+                        "function setX(o, v) { o.x = v; }",
+                        "var o = {x: 0};",
+                        "for (var i = 0; i < 10; i++) { setX(o, i); }",
+                        "Object.freeze(o);",
+                        "var r;",
+                        "try { setX(o, 42); r = 'no error'; } catch (e) { r = e.name; }",
+                        "r"));
+    }
+
+    @Test
+    public void setterInstalledAfterWarmup() {
+        assertResult(
+                "0,7",
+                Utils.lines(
+                        "var seen = 0;",
+                        "function setX(o, v) { o.x = v; }",
+                        "var o = {x: 0};",
+                        "for (var i = 0; i < 10; i++) { setX(o, i); }",
+                        "Object.defineProperty(o, 'x', {",
+                        "  get: function() { return 0; },",
+                        "  set: function(v) { seen = v; }",
+                        "});",
+                        "setX(o, 7);",
+                        "[o.x, seen].join()"));
+    }
+
+    @Test
+    public void prototypeMethodCalls() {
+        assertResult(
+                "a1,b2,c3",
+                Utils.lines(
+                        "function P(v) { this.v = v; }",
+                        "P.prototype.name = function() { return 'a' + this.v; };",
+                        "function call(o) { return o.name(); }",
+                        "var p = new P(1);",
+                        "var r = [];",
+                        "for (var i = 0; i < 10; i++) { call(p); }",
+                        "r.push(call(p));",
+                        "P.prototype.name = function() { return 'b' + this.v; };",
+                        "r.push(call(new P(2)));",
+                        "Object.setPrototypeOf(p, {name: function() { return 'c3'; }});",
+                        "r.push(call(p));",
+                        "r.join()"));
+    }
+
+    @Test
+    public void ownPropertyShadowsPrototype() {
+        assertResult(
+                "proto,own",
+                Utils.lines(
+                        "var proto = {x: 'proto'};",
+                        "function getX(o) { return o.x; }",
+                        "var o = Object.create(proto);",
+                        "o.y = 1;",
+                        "for (var i = 0; i < 10; i++) { getX(o); }",
+                        "var a = getX(o);",
+                        "o.x = 'own';",
+                        "[a, getX(o)].join()"));
+    }
+
+    @Test
+    public void accessorsAndReadOnlyProperties() {
+        assertResult(
+                "p1,p2,1,1",
+                Utils.lines(
+                        "var n = 0;",
+                        "var proto = { get x() { return 'p' + ++n; } };",
+                        "function getX(o) { return o.x; }",
+                        "function setY(o, v) { o.y = v; return o.y; }",
+                        "var o = Object.create(proto);",
+                        "var r = [getX(o), getX(o)];",
+                        "var f = {y: 1};",
+                        "Object.defineProperty(f, 'y', {writable: false});",
+                        "for (var i = 0; i < 10; i++) { setY(f, i); }",
+                        "r.push(setY(f, 2), f.y);",
+                        "r.join()"));
+    }
+
+    @Test
+    public void sameShapeDifferentPrototypes() {
+        assertResult(
+                "a,b,a,b",
+                Utils.lines(
+                        "var pa = {x: 'a'}, pb = {x: 'b'};",
+                        "function getX(o) { return o.x; }",
+                        "var a = Object.create(pa), b = Object.create(pb);",
+                        "var r = [];",
+                        "for (var i = 0; i < 2; i++) { r.push(getX(a), getX(b)); }",
+                        "r.join()"));
+    }
+}
@@ -0,0 +1,127 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.StandardObjectsSnapshot;
+
+public class StandardObjectsSnapshotTest {
+
+    private static String eval(Context cx, Scriptable scope, String script) {
+        return Context.toString(cx.evaluateString(scope, script, "test.js", 1, null));
+    }
+
+    @Test
+    public void newScopesDoNotShareGlobals() {
+        try (Context cx = Context.enter()) {
+            StandardObjectsSnapshot snapshot = StandardObjectsSnapshot.createSafe(cx);
+            ScriptableObject first = snapshot.newScope(cx);
+            ScriptableObject second = snapshot.newScope(cx);
+            assertNotSame(first, second);
+            assertSame(snapshot.getScope(), first.getPrototype());
+
+            assertEquals(
+                    "3,2",
+                    eval(cx, first, "var x = 1; y = 2; function f() { return x + y; } [f(), y]"));
+            assertEquals("undefined,undefined", eval(cx, second, "[typeof x, typeof f]"));
+            assertEquals("1", eval(cx, second, "parseInt = function() { return 1 }; parseInt()"));
+            assertEquals("42", eval(cx, first, "parseInt('42')"));
+        }
+    }
+
+    @Test
+    public void standardObjectsAreSealed() {
+        try (Context cx = Context.enter()) {
+            StandardObjectsSnapshot snapshot = StandardObjectsSnapshot.createSafe(cx);
+            Scriptable scope = snapshot.newScope(cx);
+            for (String script :
+                    new String[] {
+                        "Object.prototype.extra = 1",
+                        "Array.prototype.push = null",
+                        "Math.PI2 = 6.28",
+                        "JSON.parse = null"
+                    }) {
+                try {
+                    eval(cx, scope, script);
+                    fail(script);
+                } catch (EvaluatorException e) {
+                    assertTrue(e.getMessage(), e.getMessage().contains("sealed"));
+                }
+            }
+            assertTrue(snapshot.getScope().isSealed());
+        }
+    }
+
+    @Test
+    public void javaAccessDependsOnTheSnapshot() {
+        try (Context cx = Context.enter()) {
+            Scriptable full = StandardObjectsSnapshot.create(cx).newScope(cx);
+            assertEquals("3", eval(cx, full, "new java.util.ArrayList([1, 2, 3]).size()"));
+            assertEquals("2", eval(cx, full, "java.lang.Math.max(1, 2)"));
+
+            Scriptable safe = StandardObjectsSnapshot.createSafe(cx).newScope(cx);
+            assertEquals("undefined", eval(cx, safe, "typeof java"));
+        }
+    }
+
+    @Test
+    public void scopesOfOneSnapshotRunConcurrently() throws Exception {
+        ContextFactory factory =
+                new ContextFactory() {
+                    @Override
+                    protected boolean hasFeature(Context cx, int featureIndex) {
+                        if (featureIndex == Context.FEATURE_THREAD_SAFE_OBJECTS) {
+                            return true;
+                        }
+                        return super.hasFeature(cx, featureIndex);
+                    }
+                };
+        StandardObjectsSnapshot snapshot = factory.call(StandardObjectsSnapshot::create);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                int n = i;
+                results.add(
+                        executor.submit(
+                                () ->
+                                        factory.call(
+                                                cx -> {
+                                                    Scriptable scope = snapshot.newScope(cx);
+                                                    ScriptableObject.putProperty(scope, "n", n);
+                                                    return eval(
+                                                            cx,
+                                                            scope,
+                                                            "var m = new Map([['n', n]]);\n"
+                                                                    + "JSON.stringify([m.get('n'),"
+                                                                    + " 'a-b'.split('-'),"
+                                                                    + " Math.abs(-n)])");
+                                                })));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("[" + i + ",[\"a\",\"b\"]," + i + "]", results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.javascript.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.testutils.Utils;
+
+/**
+ * Runs functions often enough with {@link Context#FEATURE_TIERED_COMPILATION} to have them
+ * compiled to bytecode while the script runs, and checks that they give the same results before and
+ * after.
+ */
+public class TieredCompilationTest {
+
+    /** Called by scripts to find out whether the calling function runs as bytecode. */
+    public static class Probe {
+        public boolean compiled() {
+            for (StackTraceElement e : new Throwable().getStackTrace()) {
+                if (e.getClassName().startsWith("org.mozilla.javascript.gen.")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final String FUNCTIONS =
+            "function add(a, b) { var c = a + b; return c; }\n"
+                    + "var fact = function f(n) { return n < 2 ? 1 : n * f(n - 1) };\n"
+                    + "function counter() { var n = 0; return function() { return ++n } }\n"
+                    + "function strict(a) { 'use strict'; try { undeclared = a } catch (e) {"
+                    + " return e.name + arguments.length } }\n"
+                    + "function defaults(a, b = 2) { return a + b }\n"
+                    + "{ function inBlock(x) { try { throw x } catch (e) { return e * 2 } } }\n"
+                    + "function loop(n) {\n"
+                    + "  var s = 0; for (var i = 0; i < n; i++) s += i; return s;\n"
+                    + "}\n"
+                    + "function check(i) {\n"
+                    + "  var c = counter(); c();\n"
+                    + "  return [add(i, 1), fact(5), c(), strict(i), defaults(i), inBlock(i),"
+                    + " loop(10), new add(1, 2) instanceof add].join(';');\n"
+                    + "}\n";
+
+    private static String expected(int i) {
+        return (i + 1) + ";120;2;ReferenceError1;" + (i + 2) + ";" + (i * 2) + ";45;true";
+    }
+
+    @Test
+    public void hotFunctionsAreCompiled() throws Exception {
+        ContextFactory factory =
+                Utils.contextFactoryWithFeatures(Context.FEATURE_TIERED_COMPILATION);
+        try (Context cx = factory.enterContext()) {
+            cx.setInterpretedMode(true);
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            Scriptable scope = cx.initStandardObjects();
+            ScriptableObject.putProperty(scope, "probe", Context.javaToJS(new Probe(), scope));
+            cx.evaluateString(
+                    scope,
+                    FUNCTIONS + "function isCompiled() { return probe.compiled() }",
+                    "test.js",
+                    1,
+                    null);
+            long deadline = System.currentTimeMillis() + 30_000;
+            int i = 0;
+            boolean compiled = false;
+            while (!compiled) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new AssertionError("not compiled after " + i + " calls");
+                }
+                assertEquals(
+                        expected(i),
+                        Context.toString(
+                                ScriptableObject.callMethod(scope, "check", new Object[] {i})));
+                compiled =
+                        Context.toBoolean(
+                                ScriptableObject.callMethod(scope, "isCompiled", new Object[0]));
+                if (++i % 1000 == 0) {
+                    Thread.sleep(1);
+                }
+            }
+            for (int j = 0; j < 100; j++, i++) {
+                assertEquals(
+                        expected(i),
+                        Context.toString(
+                                ScriptableObject.callMethod(scope, "check", new Object[] {i})));
+            }
+        }
+    }
+
+    @Test
+    public void errorsReportTheSameLines() {
+        ContextFactory factory =
+                Utils.contextFactoryWithFeatures(Context.FEATURE_TIERED_COMPILATION);
+        try (Context cx = factory.enterContext()) {
+            cx.setInterpretedMode(true);
+            Scriptable scope = cx.initStandardObjects();
+            cx.evaluateString(
+                    scope,
+                    "\n\nfunction fail(x) {\n  if (x) {\n    null.foo;\n  }\n}\n",
+                    "test.js",
+                    10,
+                    null);
+            String lines =
+                    (String)
+                            cx.evaluateString(
+                                    scope,
+                                    "var lines = [];\n"
+                                            + "for (var i = 0; i < 3000; i++) {\n"
+                                            + "  fail(false);\n"
+                                            + "  if (i % 500 == 0) {\n"
+                                            + "    try { fail(true) } catch (e) {"
+                                            + " lines.push(e.lineNumber) }\n"
+                                            + "    java.lang.Thread.sleep(5);\n"
+                                            + "  }\n"
+                                            + "}\n"
+                                            + "lines.join()",
+                                    "loop.js",
+                                    1,
+                                    null);
+            assertEquals("14,14,14,14,14,14", lines);
+        }
+    }
+}
@@ -7,6 +7,10 @@ package org.mozilla.javascript.tests.json;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -269,6 +273,48 @@ public class JsonParserTest {
         parser.parseValue("1.");
     }
 
+    @Test
+    public void shouldParseFromReader() throws Exception {
+        StringReader json = new StringReader("{\"a\": [1, 2.5, \"x\\ty\"], \"1\": null}");
+        NativeObject o = (NativeObject) parser.parse(json);
+        NativeArray a = (NativeArray) o.get("a", o);
+        assertArrayEquals(new Object[] {1, 2.5, "x\ty"}, a.toArray());
+        assertEquals(null, o.get(1, o));
+    }
+
+    @Test
+    public void shouldParseTokensSplitAcrossReads() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            json.append("{\"name\": \"value\\u0041 ").append(i).append("\", \"n\": ");
+            json.append(i * 1.25e-3).append("},");
+        }
+        json.append("true]");
+        // Deliver the input a few characters at a time
+        Reader reader =
+                new FilterReader(new StringReader(json.toString())) {
+                    @Override
+                    public int read(char[] cbuf, int off, int len) throws IOException {
+                        return super.read(cbuf, off, Math.min(len, 7));
+                    }
+                };
+        NativeArray fromReader = (NativeArray) parser.parse(reader);
+        NativeArray fromString = (NativeArray) parser.parseValue(json.toString());
+        assertEquals(2001L, fromReader.getLength());
+        for (int i = 0; i < 2000; i++) {
+            NativeObject r = (NativeObject) fromReader.get(i, fromReader);
+            NativeObject s = (NativeObject) fromString.get(i, fromString);
+            assertEquals("valueA " + i, r.get("name", r));
+            assertEquals(s.get("n", s), r.get("n", r));
+        }
+        assertEquals(true, fromReader.get(2000, fromReader));
+    }
+
+    @Test(expected = ParseException.class)
+    public void shouldFailToParseUnterminatedStringFromReader() throws Exception {
+        parser.parse(new StringReader("[\"abc"));
+    }
+
     private String str(char... chars) {
         return new String(chars);
     }
@@ -1,7 +1,10 @@
 package org.mozilla.javascript.tests.lc;
 
+import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mozilla.javascript.ClassCache;
+import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Wrapper;
 import org.mozilla.javascript.testutils.Utils;
@@ -66,6 +69,50 @@ public class JavaBeaningTest {
         expect("obj.isInParent", "getIsInParent");
     }
 
+    @Test
+    public void testPrimitiveProperty() {
+        expect("obj.count = '5'; obj.count += 1; typeof obj.count + ':' + obj.count", "number:6");
+    }
+
+    @Test
+    public void testStaticProperty() {
+        expect("obj.constant", "constant");
+        expect(
+                String.format("Packages.%s.constant", BeaningTestObject.class.getName()),
+                "constant");
+    }
+
+    @Test
+    public void testAccessorException() {
+        expect("try { obj.broken; 'none' } catch (e) { e.javaException.message }", "broken");
+        expect("try { obj.broken = 1; 'none' } catch (e) { e.javaException.message }", "1");
+    }
+
+    @Test
+    public void testSetterConversionError() {
+        Utils.assertEvaluatorExceptionES6(
+                "Can't find method "
+                        + BeaningTestObject.class.getName()
+                        + ".setList(string).",
+                SCRIPT_INIT + "obj.list = 'abc'");
+    }
+
+    @Test
+    public void testWarmUp() {
+        try (var cx = ContextFactory.getGlobal().enterContext()) {
+            var scope = cx.initStandardObjects();
+            var cache = ClassCache.get(scope);
+            cache.warmUp(List.of(BeaningTestObject.class, BeaningTestObjectBase.class));
+
+            scope.put("obj", scope, new BeaningTestObject<>());
+            var result = cx.evaluateString(scope, "obj.getInParent", "test.js", 1, null);
+            Assertions.assertEquals("getGetInParent", Context.toString(result));
+        }
+        Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> new ClassCache().warmUp(List.of(BeaningTestObject.class)));
+    }
+
     private static void expect(String script, Object expected) {
         expect(false, script, expected);
         expect(true, script, expected);
@@ -125,6 +172,34 @@ public class JavaBeaningTest {
                     "There's an existed method 'elementAt', no beaning should be applied");
         }
 
+        private int count;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public static String getConstant() {
+            return "constant";
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+
+        public void setBroken(int value) {
+            throw new IllegalStateException(String.valueOf(value));
+        }
+
+        public List<String> getList() {
+            return List.of();
+        }
+
+        public void setList(List<String> list) {}
+
         public String isGetInParent() {
             throw new IllegalStateException("'get' getter should be preferred over 'is'");
         }